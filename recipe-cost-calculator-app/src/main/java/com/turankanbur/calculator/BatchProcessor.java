@@ -0,0 +1,477 @@
+/**
+ * Package containing classes related to non-interactive processing of catalog updates.
+ */
+package com.turankanbur.calculator;
+
+/**
+ * Provides buffered reading of command lines.
+ */
+import java.io.BufferedReader;
+
+/**
+ * Provides functionality for reading bytes from a file input stream.
+ */
+import java.io.FileInputStream;
+
+/**
+ * Provides functionality for handling input/output (I/O) operations.
+ */
+import java.io.IOException;
+
+/**
+ * Provides the input stream commands are read from.
+ */
+import java.io.InputStream;
+
+/**
+ * Provides decoding of command bytes into characters.
+ */
+import java.io.InputStreamReader;
+
+/**
+ * Provides the character set of command files.
+ */
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Provides an implementation of the List interface backed by an array.
+ */
+import java.util.ArrayList;
+
+/**
+ * Provides the growing of the order arrays.
+ */
+import java.util.Arrays;
+
+/**
+ * Provides a hash table based implementation of the Map interface.
+ */
+import java.util.HashMap;
+
+/**
+ * Provides functionality for storing and manipulating collections of objects.
+ */
+import java.util.List;
+
+/**
+ * Provides the locale used to normalize names.
+ */
+import java.util.Locale;
+
+/**
+ * Provides a mapping from normalized names to catalog entries.
+ */
+import java.util.Map;
+
+/**
+ * Runs catalog commands without the interactive menus. All commands are applied
+ * in memory and the changed data files are saved once at the end, so large
+ * supplier updates take one load and one save instead of one round trip per
+ * row.
+ *
+ * Commands, one per line; names containing spaces are written in double
+ * quotes, and lines starting with # are comments:
+ *
+ * <pre>
+ * add-ingredient &lt;name&gt; &lt;price&gt; [&lt;unit&gt;]
+ * edit-price &lt;name&gt; &lt;price&gt;
+ * create-recipe &lt;name&gt; &lt;ingredient&gt; &lt;quantity&gt; [&lt;ingredient&gt; &lt;quantity&gt; ...]
+ * create-meal &lt;name&gt; &lt;recipe&gt; [&lt;recipe&gt; ...]
+ * set-servings &lt;recipe&gt; &lt;servings&gt;
+ * order &lt;meal&gt; &lt;covers&gt;
+ * </pre>
+ *
+ * A price is for one piece unless a unit such as kg follows it, and a recipe
+ * quantity may carry its own unit, such as 500g, converted to the unit of the
+ * ingredient price. Ingredient, recipe and meal names are matched ignoring case. Invalid lines
+ * are reported and skipped; the remaining commands are still applied.
+ *
+ * Orders are collected into two int arrays and produced together at the end
+ * by a ServingScaler, which adds up the servings of each recipe over all orders
+ * and reports the whole batches to cook.
+ */
+public class BatchProcessor {
+
+	/** The ingredient catalog. */
+	private final IngredientManagement ingredients = new IngredientManagement(null, 0);
+
+	/** The ingredients by normalized name. */
+	private final Map<String, Ingredient> ingredientsByName = new HashMap<>();
+
+	/** The recipes. */
+	private final List<Recipe> recipes;
+
+	/** The recipes by normalized name. */
+	private final Map<String, Recipe> recipesByName = new HashMap<>();
+
+	/** The meals. */
+	private final List<Meal> meals;
+
+	/** The meal numbers by normalized name. */
+	private final Map<String, Integer> mealsByName = new HashMap<>();
+
+	/** The meal number of each order. */
+	private int[] orderMeals = new int[16];
+
+	/** The covers of each order. */
+	private int[] orderCovers = new int[16];
+
+	/** The number of orders. */
+	private int orders;
+
+	/** Whether the ingredient catalog was changed. */
+	private boolean ingredientsChanged;
+
+	/** Whether recipes were added. */
+	private boolean recipesChanged;
+
+	/** Whether meals were added. */
+	private boolean mealsChanged;
+
+	/** The number of applied commands. */
+	private int applied;
+
+	/** The number of rejected lines. */
+	private int errors;
+
+	/**
+	 * Constructs a batch processor and loads the current data files.
+	 */
+	public BatchProcessor() {
+		ingredients.loadFromFile(DataFiles.ingredients());
+		for (Ingredient ingredient : ingredients.getIngredients()) {
+			ingredientsByName.putIfAbsent(normalize(ingredient.getName()), ingredient);
+		}
+		recipes = RecipeManagement.loadFromFile(DataFiles.recipes());
+		for (Recipe recipe : recipes) {
+			recipesByName.putIfAbsent(normalize(recipe.getName()), recipe);
+		}
+		meals = new MealManagement().loadMealsFromFile(DataFiles.meals());
+		for (int i = 0; i < meals.size(); i++) {
+			mealsByName.putIfAbsent(normalize(meals.get(i).getName()), i);
+		}
+	}
+
+	/**
+	 * Runs a batch from the command line arguments following "batch": a command
+	 * file, or standard input when no file is given.
+	 *
+	 * @param args the command file, optionally
+	 * @return the number of rejected lines
+	 * @throws IOException if the commands cannot be read
+	 */
+	public static int run(String[] args) throws IOException {
+		InputStream in = args.length > 0 ? new FileInputStream(args[0]) : System.in;
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16)) {
+			long start = System.nanoTime();
+			BatchProcessor processor = new BatchProcessor();
+			processor.process(reader);
+			processor.save();
+			if (processor.orders > 0) {
+				ServingScaler.Production production = processor.produce();
+				System.out.println(String.format("Produced %d orders: %d recipes, %.2f$", production.getOrders(),
+						production.getRecipeCount(), production.getTotalCost()));
+				for (int i = 0; i < production.getRecipeCount(); i++) {
+					System.out.println(String.format("    %s: %d batches - %.2f$", production.getRecipeName(i),
+							production.getBatches(i), production.getCost(i)));
+				}
+			}
+			System.out.println(String.format("Applied %d commands, rejected %d lines in %.1f s", processor.applied,
+					processor.errors, (System.nanoTime() - start) / 1e9));
+			return processor.errors;
+		}
+	}
+
+	/**
+	 * Applies every command line of the reader in memory.
+	 *
+	 * @param reader the command lines
+	 * @throws IOException if the commands cannot be read
+	 */
+	public void process(BufferedReader reader) throws IOException {
+		String line;
+		int lineNumber = 0;
+		while ((line = reader.readLine()) != null) {
+			lineNumber++;
+			try {
+				if (apply(tokenize(line))) {
+					applied++;
+				}
+			} catch (IllegalArgumentException e) {
+				errors++;
+				System.err.println("Line " + lineNumber + ": " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Applies one command.
+	 *
+	 * @param tokens the tokens of the command line
+	 * @return true if a command was applied, false for blank and comment lines
+	 * @throws IllegalArgumentException if the command is invalid
+	 */
+	private boolean apply(List<String> tokens) {
+		if (tokens.isEmpty() || tokens.get(0).startsWith("#")) {
+			return false;
+		}
+
+		switch (tokens.get(0)) {
+		case "add-ingredient":
+			if (tokens.size() != 3 && tokens.size() != 4) {
+				throw new IllegalArgumentException("Usage: add-ingredient <name> <price> [<unit>]");
+			}
+			String name = tokens.get(1);
+			if (ingredientsByName.containsKey(normalize(name))) {
+				throw new IllegalArgumentException("Ingredient already exists: " + name);
+			}
+			Ingredient ingredient = new Ingredient(name, parseNumber(tokens.get(2)),
+					tokens.size() == 4 ? parseUnit(tokens.get(3)) : Unit.PIECE);
+			ingredients.addIngredient(ingredient, DataFiles.ingredients());
+			ingredientsByName.put(normalize(name), ingredient);
+			ingredientsChanged = true;
+			return true;
+
+		case "edit-price":
+			expectArguments(tokens, 3, "edit-price <name> <price>");
+			// Edit through the catalog so its price index and edit metrics stay current
+			ingredients.editIngredientPrice(findIngredient(tokens.get(1)).getName(), parseNumber(tokens.get(2)));
+			ingredientsChanged = true;
+			return true;
+
+		case "create-recipe":
+			if (tokens.size() < 4 || tokens.size() % 2 != 0) {
+				throw new IllegalArgumentException(
+						"Usage: create-recipe <name> <ingredient> <quantity> [<ingredient> <quantity> ...]");
+			}
+			List<Ingredient> selected = new ArrayList<>();
+			int[] quantities = new int[(tokens.size() - 2) / 2];
+			Unit[] units = new Unit[quantities.length];
+			for (int i = 2; i < tokens.size(); i += 2) {
+				Ingredient found = findIngredient(tokens.get(i));
+				// Recipes keep the price at creation time, as in the interactive menu
+				selected.add(new Ingredient(found.getName(), found.getPrice(), found.getUnit()));
+				String quantity = tokens.get(i + 1);
+				int length = Unit.quantityLength(quantity);
+				quantities[(i - 2) / 2] = parseNumber(length == 0 ? quantity : quantity.substring(0, length));
+				if (length < quantity.length()) {
+					units[(i - 2) / 2] = parseUnit(quantity.substring(length));
+				}
+			}
+			Recipe recipe = new Recipe(tokens.get(1), selected,
+					RecipeManagement.calculateTotalCost(selected, quantities, units));
+			recipes.add(recipe);
+			recipesByName.putIfAbsent(normalize(recipe.getName()), recipe);
+			recipesChanged = true;
+			return true;
+
+		case "create-meal":
+			if (tokens.size() < 3) {
+				throw new IllegalArgumentException("Usage: create-meal <name> <recipe> [<recipe> ...]");
+			}
+			List<Recipe> mealRecipes = new ArrayList<>();
+			for (int i = 2; i < tokens.size(); i++) {
+				Recipe found = recipesByName.get(normalize(tokens.get(i)));
+				if (found == null) {
+					throw new IllegalArgumentException("Recipe not found: " + tokens.get(i));
+				}
+				mealRecipes.add(found);
+			}
+			meals.add(new Meal(tokens.get(1), mealRecipes));
+			mealsByName.putIfAbsent(normalize(tokens.get(1)), meals.size() - 1);
+			mealsChanged = true;
+			return true;
+
+		case "set-servings":
+			expectArguments(tokens, 3, "set-servings <recipe> <servings>");
+			Recipe scaled = recipesByName.get(normalize(tokens.get(1)));
+			if (scaled == null) {
+				throw new IllegalArgumentException("Recipe not found: " + tokens.get(1));
+			}
+			scaled.setServings(parseNumber(tokens.get(2)));
+			recipesChanged = true;
+			return true;
+
+		case "order":
+			expectArguments(tokens, 3, "order <meal> <covers>");
+			Integer meal = mealsByName.get(normalize(tokens.get(1)));
+			if (meal == null) {
+				throw new IllegalArgumentException("Meal not found: " + tokens.get(1));
+			}
+			int covers = parseNumber(tokens.get(2));
+			if (covers < 1) {
+				throw new IllegalArgumentException("Invalid number of covers: " + covers);
+			}
+			if (orders == orderMeals.length) {
+				orderMeals = Arrays.copyOf(orderMeals, orders * 2);
+				orderCovers = Arrays.copyOf(orderCovers, orders * 2);
+			}
+			orderMeals[orders] = meal;
+			orderCovers[orders] = covers;
+			orders++;
+			return true;
+
+		default:
+			throw new IllegalArgumentException("Unknown command: " + tokens.get(0));
+		}
+	}
+
+	/**
+	 * Saves the changed data files.
+	 */
+	public void save() {
+		if (ingredientsChanged) {
+			ingredients.saveToFile(DataFiles.ingredients());
+		}
+		if (recipesChanged) {
+			RecipeManagement.saveToFile(recipes, DataFiles.recipes());
+		}
+		if (mealsChanged) {
+			new MealManagement().saveMealsToFile(meals, DataFiles.meals());
+		}
+	}
+
+	/**
+	 * Plans the production of the orders read so far in one pass.
+	 *
+	 * @return the batches to cook
+	 */
+	public ServingScaler.Production produce() {
+		return new ServingScaler(meals).produce(Arrays.copyOf(orderMeals, orders), Arrays.copyOf(orderCovers, orders));
+	}
+
+	/**
+	 * Retrieves the number of applied commands.
+	 *
+	 * @return the applied command count
+	 */
+	public int getApplied() {
+		return applied;
+	}
+
+	/**
+	 * Retrieves the number of rejected lines.
+	 *
+	 * @return the error count
+	 */
+	public int getErrors() {
+		return errors;
+	}
+
+	/**
+	 * Finds an ingredient by name, ignoring case.
+	 *
+	 * @param name the ingredient name
+	 * @return the ingredient
+	 * @throws IllegalArgumentException if there is no such ingredient
+	 */
+	private Ingredient findIngredient(String name) {
+		Ingredient ingredient = ingredientsByName.get(normalize(name));
+		if (ingredient == null) {
+			throw new IllegalArgumentException("Ingredient not found: " + name);
+		}
+		return ingredient;
+	}
+
+	/**
+	 * Checks the number of tokens of a command.
+	 *
+	 * @param tokens the tokens of the command line
+	 * @param count  the expected number of tokens including the command
+	 * @param usage  the usage shown when the count is wrong
+	 * @throws IllegalArgumentException if the count is wrong
+	 */
+	private static void expectArguments(List<String> tokens, int count, String usage) {
+		if (tokens.size() != count) {
+			throw new IllegalArgumentException("Usage: " + usage);
+		}
+	}
+
+	/**
+	 * Parses a non-negative whole number such as a price or a quantity.
+	 *
+	 * @param token the token to parse
+	 * @return the number
+	 * @throws IllegalArgumentException if the token is not a non-negative number
+	 */
+	private static int parseNumber(String token) {
+		try {
+			int value = Integer.parseInt(token);
+			if (value >= 0) {
+				return value;
+			}
+		} catch (NumberFormatException e) {
+			// Reported below
+		}
+		throw new IllegalArgumentException("Invalid number: " + token);
+	}
+
+	/**
+	 * Parses a unit symbol such as kg.
+	 *
+	 * @param token the token to parse
+	 * @return the unit
+	 * @throws IllegalArgumentException if there is no such unit
+	 */
+	private static Unit parseUnit(String token) {
+		Unit unit = Unit.parse(token);
+		if (unit == null) {
+			throw new IllegalArgumentException("Unknown unit: " + token);
+		}
+		return unit;
+	}
+
+	/**
+	 * Normalizes a name for case-insensitive lookups.
+	 *
+	 * @param name the name
+	 * @return the normalized name
+	 */
+	private static String normalize(String name) {
+		return name.toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Splits a command line into tokens separated by whitespace. A token in double
+	 * quotes may contain whitespace; inside quotes a backslash escapes the next
+	 * character.
+	 *
+	 * @param line the command line
+	 * @return the tokens
+	 * @throws IllegalArgumentException if a quote is not closed
+	 */
+	static List<String> tokenize(String line) {
+		List<String> tokens = new ArrayList<>();
+		StringBuilder token = new StringBuilder();
+		int i = 0;
+		int length = line.length();
+		while (i < length) {
+			char c = line.charAt(i);
+			if (Character.isWhitespace(c)) {
+				i++;
+				continue;
+			}
+
+			token.setLength(0);
+			if (c == '"') {
+				i++;
+				while (i < length && line.charAt(i) != '"') {
+					if (line.charAt(i) == '\\' && i + 1 < length) {
+						i++;
+					}
+					token.append(line.charAt(i++));
+				}
+				if (i >= length) {
+					throw new IllegalArgumentException("Unclosed quote");
+				}
+				i++;
+			} else {
+				while (i < length && !Character.isWhitespace(line.charAt(i))) {
+					token.append(line.charAt(i++));
+				}
+			}
+			tokens.add(token.toString());
+		}
+		return tokens;
+	}
+}
@@ -0,0 +1,374 @@
+/**
+ * Package containing classes related to reading operator input.
+ */
+package com.turankanbur.calculator;
+
+/**
+ * Provides an input stream over an in-memory byte array.
+ */
+import java.io.ByteArrayInputStream;
+
+/**
+ * Provides the interface of resources that can be closed.
+ */
+import java.io.Closeable;
+
+/**
+ * Provides functionality for handling input/output (I/O) operations.
+ */
+import java.io.IOException;
+
+/**
+ * Provides the input stream the operator input is read from.
+ */
+import java.io.InputStream;
+
+/**
+ * Provides the character set used to decode tokens and lines.
+ */
+import java.nio.charset.Charset;
+
+/**
+ * Provides a utility method for growing the read buffer.
+ */
+import java.util.Arrays;
+
+/**
+ * Provides the exception thrown when a token is not a valid integer.
+ */
+import java.util.InputMismatchException;
+
+/**
+ * Provides the exception thrown when the input is exhausted.
+ */
+import java.util.NoSuchElementException;
+
+/**
+ * A buffered, byte-level tokenizer for console and piped input, used by the
+ * menus in place of java.util.Scanner. It reads the input in large blocks,
+ * splits tokens on ASCII whitespace without regular expressions, and parses
+ * integers directly from the buffer without allocating.
+ *
+ * next, nextLine and nextInt follow the Scanner semantics the menus rely on:
+ * next skips leading whitespace and returns one token, nextLine returns the
+ * rest of the current line and consumes the line separator, and nextInt leaves
+ * the token unread when it is not a valid integer. All three throw
+ * NoSuchElementException at the end of the input.
+ */
+public class ConsoleInput implements Closeable {
+
+	/** The size of the read buffer in bytes. */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** The source of the input. */
+	private final InputStream in;
+
+	/** The character set of the input. */
+	private final Charset charset;
+
+	/** The read buffer. */
+	private byte[] buffer = new byte[BUFFER_SIZE];
+
+	/** The position of the next unread byte in the buffer. */
+	private int position;
+
+	/** The number of valid bytes in the buffer. */
+	private int limit;
+
+	/** Whether the end of the input has been reached. */
+	private boolean endOfInput;
+
+	/** Whether the input has been closed. */
+	private boolean closed;
+
+	/** The number of bytes read from the source so far. */
+	private long streamPosition;
+
+	/** The stream position just after the content of the last line read. */
+	private long lineEnd;
+
+	/**
+	 * Constructs an input reader over a stream, decoding it with the platform
+	 * default character set like Scanner does.
+	 *
+	 * @param in the input stream, typically System.in
+	 */
+	public ConsoleInput(InputStream in) {
+		this(in, Charset.defaultCharset());
+	}
+
+	/**
+	 * Constructs an input reader over a stream with the given character set.
+	 *
+	 * @param in      the input stream
+	 * @param charset the character set of the input
+	 */
+	public ConsoleInput(InputStream in, Charset charset) {
+		this.in = in;
+		this.charset = charset;
+	}
+
+	/**
+	 * Constructs an input reader over a string.
+	 *
+	 * @param input the input text
+	 */
+	public ConsoleInput(String input) {
+		this(new ByteArrayInputStream(input.getBytes(Charset.defaultCharset())));
+	}
+
+	/**
+	 * Reads the next token, skipping leading whitespace.
+	 *
+	 * @return the token
+	 * @throws NoSuchElementException if no token is left
+	 * @throws IllegalStateException  if the input is closed
+	 */
+	public String next() {
+		ensureOpen();
+		if (!skipWhitespace()) {
+			throw new NoSuchElementException();
+		}
+
+		int end = scanToken();
+		String next = new String(buffer, position, end - position, charset);
+		position = end;
+		return next;
+	}
+
+	/**
+	 * Reads the rest of the current line and consumes its line separator.
+	 *
+	 * @return the line without its separator
+	 * @throws NoSuchElementException if the input is exhausted
+	 * @throws IllegalStateException  if the input is closed
+	 */
+	public String nextLine() {
+		ensureOpen();
+		if (position >= limit && !fill()) {
+			throw new NoSuchElementException("No line found");
+		}
+
+		int end = position;
+		while (true) {
+			while (end < limit && buffer[end] != '\n' && buffer[end] != '\r') {
+				end++;
+			}
+			if (end < limit) {
+				break;
+			}
+			int offset = end - position;
+			boolean more = fill();
+			end = position + offset;
+			if (!more) {
+				break;
+			}
+		}
+
+		String line = new String(buffer, position, end - position, charset);
+		position = end;
+		lineEnd = streamPosition - limit + end;
+		if (position < limit && buffer[position++] == '\r' && (position < limit || fill())
+				&& buffer[position] == '\n') {
+			position++;
+		}
+		return line;
+	}
+
+	/**
+	 * Reads a line that must not be recorded, such as a password. When the input
+	 * is a SessionRecorder the line is marked so the recording holds a
+	 * placeholder instead.
+	 *
+	 * @return the line without its separator
+	 * @throws NoSuchElementException if the input is exhausted
+	 * @throws IllegalStateException  if the input is closed
+	 */
+	public String nextSensitiveLine() {
+		if (!(in instanceof SessionRecorder)) {
+			return nextLine();
+		}
+		SessionRecorder recorder = (SessionRecorder) in;
+		recorder.beginSecret(streamPosition - limit + position);
+		try {
+			return nextLine();
+		} finally {
+			recorder.endSecret(lineEnd);
+		}
+	}
+
+	/**
+	 * Records that the application rejected the last sensitive line, such as a
+	 * wrong password, so a replay rejects it too. Must be called before reading
+	 * further input.
+	 */
+	public void rejectSensitiveLine() {
+		if (in instanceof SessionRecorder) {
+			((SessionRecorder) in).rejectSecret();
+		}
+	}
+
+	/**
+	 * Reads the next token as a decimal integer. The digits are parsed directly
+	 * from the buffer; if the token is not a valid int it is left unread, so it
+	 * can still be read with next.
+	 *
+	 * @return the integer
+	 * @throws InputMismatchException if the next token is not a valid int
+	 * @throws NoSuchElementException if no token is left
+	 * @throws IllegalStateException  if the input is closed
+	 */
+	public int nextInt() {
+		ensureOpen();
+		if (!skipWhitespace()) {
+			throw new NoSuchElementException();
+		}
+
+		int end = scanToken();
+		int index = position;
+		boolean negative = false;
+		if (buffer[index] == '-' || buffer[index] == '+') {
+			negative = buffer[index] == '-';
+			index++;
+		}
+		if (index == end) {
+			throw new InputMismatchException();
+		}
+
+		// Accumulate negatively so that Integer.MIN_VALUE does not overflow
+		int value = 0;
+		for (; index < end; index++) {
+			int digit = buffer[index] - '0';
+			if (digit < 0 || digit > 9 || value < (Integer.MIN_VALUE + digit) / 10) {
+				throw new InputMismatchException();
+			}
+			value = value * 10 - digit;
+		}
+		if (!negative && value == Integer.MIN_VALUE) {
+			throw new InputMismatchException();
+		}
+
+		position = end;
+		return negative ? value : -value;
+	}
+
+	/**
+	 * Closes the input and the underlying stream. Further reads throw
+	 * IllegalStateException; closing again has no effect.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			in.close();
+		} catch (IOException e) {
+			// Nothing left to read from, as with Scanner
+		}
+	}
+
+	/**
+	 * Skips whitespace up to the next token.
+	 *
+	 * @return true if a token follows, false at the end of the input
+	 */
+	private boolean skipWhitespace() {
+		while (true) {
+			while (position < limit) {
+				if (!isWhitespace(buffer[position])) {
+					return true;
+				}
+				position++;
+			}
+			if (!fill()) {
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Finds the end of the token at the current position, reading more input
+	 * until the token is complete. The token stays unread in the buffer.
+	 *
+	 * @return the buffer index after the last byte of the token
+	 */
+	private int scanToken() {
+		int end = position;
+		while (true) {
+			while (end < limit && !isWhitespace(buffer[end])) {
+				end++;
+			}
+			if (end < limit) {
+				return end;
+			}
+			int offset = end - position;
+			boolean more = fill();
+			end = position + offset;
+			if (!more) {
+				return end;
+			}
+		}
+	}
+
+	/**
+	 * Moves the unread bytes to the start of the buffer, growing it when it is
+	 * full, and reads more input after them. Blocks until at least one byte is
+	 * read.
+	 *
+	 * @return true if bytes were read, false at the end of the input
+	 */
+	private boolean fill() {
+		if (endOfInput) {
+			return false;
+		}
+		int remaining = limit - position;
+		if (remaining == buffer.length) {
+			buffer = Arrays.copyOf(buffer, buffer.length * 2);
+		} else if (position > 0) {
+			System.arraycopy(buffer, position, buffer, 0, remaining);
+		}
+		position = 0;
+		limit = remaining;
+
+		try {
+			int n;
+			do {
+				n = in.read(buffer, limit, buffer.length - limit);
+			} while (n == 0);
+			if (n < 0) {
+				endOfInput = true;
+				return false;
+			}
+			limit += n;
+			streamPosition += n;
+			return true;
+		} catch (IOException e) {
+			// Scanner also treats a failing source as the end of the input
+			endOfInput = true;
+			return false;
+		}
+	}
+
+	/**
+	 * Checks whether a byte is an ASCII whitespace or control character.
+	 *
+	 * @param b the byte
+	 * @return true if the byte separates tokens
+	 */
+	private static boolean isWhitespace(byte b) {
+		return b >= 0 && b <= ' ';
+	}
+
+	/**
+	 * Throws if the input has been closed.
+	 *
+	 * @throws IllegalStateException if the input is closed
+	 */
+	private void ensureOpen() {
+		if (closed) {
+			throw new IllegalStateException("Input closed");
+		}
+	}
+}
@@ -0,0 +1,70 @@
+/**
+ * Package containing classes related to runtime diagnostics of the calculator application.
+ */
+package com.turankanbur.calculator;
+
+/**
+ * Provides the JFR category annotation.
+ */
+import jdk.jfr.Category;
+
+/**
+ * Provides the JFR description annotation.
+ */
+import jdk.jfr.Description;
+
+/**
+ * Provides the base class of custom flight recorder events.
+ */
+import jdk.jfr.Event;
+
+/**
+ * Provides the JFR label annotation.
+ */
+import jdk.jfr.Label;
+
+/**
+ * Provides the JFR event name annotation.
+ */
+import jdk.jfr.Name;
+
+/**
+ * Provides the JFR annotation controlling stack trace capture.
+ */
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event emitted for every recipe or meal cost computation.
+ *
+ * Call sites should only fill in the fields when shouldCommit() returns true, so
+ * the event costs next to nothing while no recording is active.
+ */
+@Name("com.turankanbur.calculator.CostCalculation")
+@Label("Cost Calculation")
+@Category({ "Recipe Cost Calculator", "Cost" })
+@Description("Total cost computation of a recipe or a meal")
+@StackTrace(false)
+public final class CostCalculationEvent extends Event {
+
+	/** Kind used for recipe cost computations. */
+	public static final String RECIPE = "recipe";
+
+	/** Kind used for meal cost computations. */
+	public static final String MEAL = "meal";
+
+	/** Whether a recipe or a meal was costed. */
+	@Label("Kind")
+	public String kind;
+
+	/** The name of the meal, when known. */
+	@Label("Name")
+	public String name;
+
+	/** The number of ingredient lines or recipes summed. */
+	@Label("Items")
+	public int items;
+
+	/** The computed total cost. */
+	@Label("Total Cost")
+	public double totalCost;
+}
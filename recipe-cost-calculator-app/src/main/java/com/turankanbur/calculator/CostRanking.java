@@ -0,0 +1,291 @@
+/**
+ * Package containing classes related to cost queries.
+ */
+package com.turankanbur.calculator;
+
+/**
+ * Provides the hash set of the names of the recipes using the ingredient.
+ */
+import java.util.HashSet;
+
+/**
+ * Provides the case folding of ingredient and recipe names.
+ */
+import java.util.Locale;
+
+/**
+ * Provides functionality for storing a set of unique elements.
+ */
+import java.util.Set;
+
+/**
+ * Provides the filter applied to the records while they are ranked.
+ */
+import java.util.function.IntPredicate;
+
+/**
+ * Provides the parallel scan of the record chunks.
+ */
+import java.util.stream.IntStream;
+
+/**
+ * Ranks the recipes or meals of a data file by total cost: the K cheapest or
+ * the K priciest, optionally only those using an ingredient. The records are
+ * streamed from the memory-mapped GuestDataImage through a bounded heap holding
+ * the best K seen so far, so memory stays O(K) however large the file is and
+ * the scan costs O(n log K).
+ *
+ * The parallel mode splits the records into chunks scanned on the common
+ * fork/join pool, each into its own bounded heap, and merges the heaps at the
+ * end. Equal costs are ranked by record number, so both modes return the same
+ * records in the same order.
+ */
+public final class CostRanking {
+
+	/** The ranking order. */
+	public enum Order {
+
+		/** Cheapest first. */
+		CHEAPEST,
+
+		/** Priciest first. */
+		PRICIEST
+	}
+
+	/** The number of records from which rank picks the parallel mode. */
+	static final int PARALLEL_THRESHOLD = 1 << 16;
+
+	/** The number of chunks per processor in the parallel mode. */
+	private static final int CHUNKS_PER_PROCESSOR = 4;
+
+	/** Prevents instantiation. */
+	private CostRanking() {
+	}
+
+	/**
+	 * Ranks the records of an image, scanning in parallel when the image is large
+	 * and there is more than one processor.
+	 *
+	 * @param image  the recipe or meal image
+	 * @param k      the number of records to return
+	 * @param order  the ranking order
+	 * @param filter the records to consider, or null for every record
+	 * @return the record numbers, best first
+	 */
+	public static int[] rank(GuestDataImage image, int k, Order order, IntPredicate filter) {
+		return rank(image, k, order, filter,
+				image.size() >= PARALLEL_THRESHOLD && Runtime.getRuntime().availableProcessors() > 1);
+	}
+
+	/**
+	 * Ranks the records of an image.
+	 *
+	 * @param image    the recipe or meal image
+	 * @param k        the number of records to return
+	 * @param order    the ranking order
+	 * @param filter   the records to consider, or null for every record; it is
+	 *                 called from several threads in the parallel mode
+	 * @param parallel whether to scan the records in parallel
+	 * @return the record numbers, best first
+	 */
+	public static int[] rank(GuestDataImage image, int k, Order order, IntPredicate filter, boolean parallel) {
+		int count = image.size();
+		int capacity = Math.max(0, Math.min(k, count));
+		if (capacity == 0) {
+			return new int[0];
+		}
+		if (!parallel) {
+			return scan(image, 0, count, capacity, order, filter).toSortedArray();
+		}
+		int chunks = Math.min(count, Runtime.getRuntime().availableProcessors() * CHUNKS_PER_PROCESSOR);
+		return IntStream.range(0, chunks).parallel()
+				.mapToObj(c -> scan(image, (int) ((long) count * c / chunks), (int) ((long) count * (c + 1) / chunks),
+						capacity, order, filter))
+				.reduce(BoundedHeap::merge).get().toSortedArray();
+	}
+
+	/**
+	 * Builds a filter accepting the recipes, or the meals with a recipe, that use
+	 * an ingredient. Recipes are looked up in the IngredientRecipeIndex of the
+	 * recipe data file; meals are matched through the names of those recipes.
+	 *
+	 * @param image      the recipe or meal image the filter is for
+	 * @param ingredient the name of the ingredient, compared ignoring case
+	 * @return the filter, or null if the recipe data could not be read
+	 */
+	public static IntPredicate usingIngredient(GuestDataImage image, String ingredient) {
+		IngredientRecipeIndex index = IngredientRecipeIndex.open(DataFiles.recipes());
+		if (index == null) {
+			return null;
+		}
+		RoaringBitmap recipes = index.recipesUsing(ingredient);
+		if (image.getKind() == GuestDataImage.Kind.RECIPES) {
+			return recipes::contains;
+		}
+		GuestDataImage recipeImage = GuestDataImage.open(DataFiles.recipes(), GuestDataImage.Kind.RECIPES);
+		if (recipeImage == null) {
+			return null;
+		}
+		Set<String> names = new HashSet<>();
+		for (int recipe : recipes.toArray()) {
+			if (recipe < recipeImage.size()) {
+				names.add(recipeImage.getName(recipe).toLowerCase(Locale.ROOT));
+			}
+		}
+		return meal -> {
+			for (String name : image.getRecipeNames(meal)) {
+				if (names.contains(name.toLowerCase(Locale.ROOT))) {
+					return true;
+				}
+			}
+			return false;
+		};
+	}
+
+	/**
+	 * Scans a range of records into a bounded heap.
+	 *
+	 * @param image    the image
+	 * @param from     the first record, inclusive
+	 * @param to       the last record, exclusive
+	 * @param capacity the size of the heap
+	 * @param order    the ranking order
+	 * @param filter   the records to consider, or null for every record
+	 * @return the heap of the best records in the range
+	 */
+	private static BoundedHeap scan(GuestDataImage image, int from, int to, int capacity, Order order,
+			IntPredicate filter) {
+		BoundedHeap heap = new BoundedHeap(capacity);
+		boolean cheapest = order == Order.CHEAPEST;
+		for (int record = from; record < to; record++) {
+			if (filter == null || filter.test(record)) {
+				double cost = image.getTotalCost(record);
+				heap.offer(cheapest ? cost : -cost, record);
+			}
+		}
+		return heap;
+	}
+
+	/**
+	 * A max-heap of at most a fixed number of (key, record) pairs keeping the
+	 * smallest keys offered; a smaller key, or an equal key with a smaller record
+	 * number, ranks better. The root is the worst pair kept, so an offer worse
+	 * than the root is rejected in O(1).
+	 */
+	static final class BoundedHeap {
+
+		/** The keys in heap order. */
+		private final double[] keys;
+
+		/** The record numbers in heap order. */
+		private final int[] records;
+
+		/** The number of pairs kept. */
+		private int size;
+
+		/**
+		 * Creates an empty heap.
+		 *
+		 * @param capacity the maximum number of pairs kept
+		 */
+		BoundedHeap(int capacity) {
+			keys = new double[capacity];
+			records = new int[capacity];
+		}
+
+		/**
+		 * Offers a pair, keeping it if the heap is not full or it ranks better than
+		 * the worst pair kept.
+		 *
+		 * @param key    the key
+		 * @param record the record number
+		 */
+		void offer(double key, int record) {
+			if (size < keys.length) {
+				int i = size++;
+				// Sift up
+				while (i > 0) {
+					int parent = (i - 1) >>> 1;
+					if (!worse(key, record, keys[parent], records[parent])) {
+						break;
+					}
+					keys[i] = keys[parent];
+					records[i] = records[parent];
+					i = parent;
+				}
+				keys[i] = key;
+				records[i] = record;
+			} else if (size > 0 && worse(keys[0], records[0], key, record)) {
+				siftDown(key, record);
+			}
+		}
+
+		/**
+		 * Offers every pair of another heap to this one.
+		 *
+		 * @param other the other heap
+		 * @return this heap
+		 */
+		BoundedHeap merge(BoundedHeap other) {
+			for (int i = 0; i < other.size; i++) {
+				offer(other.keys[i], other.records[i]);
+			}
+			return this;
+		}
+
+		/**
+		 * Empties the heap into an array of its record numbers, best first.
+		 *
+		 * @return the record numbers
+		 */
+		int[] toSortedArray() {
+			int[] sorted = new int[size];
+			while (size > 0) {
+				sorted[size - 1] = records[0];
+				size--;
+				if (size > 0) {
+					siftDown(keys[size], records[size]);
+				}
+			}
+			return sorted;
+		}
+
+		/**
+		 * Replaces the root with a pair and sifts it down to its place.
+		 *
+		 * @param key    the key
+		 * @param record the record number
+		 */
+		private void siftDown(double key, int record) {
+			int i = 0;
+			int half = size >>> 1;
+			while (i < half) {
+				int child = 2 * i + 1;
+				if (child + 1 < size && worse(keys[child + 1], records[child + 1], keys[child], records[child])) {
+					child++;
+				}
+				if (!worse(keys[child], records[child], key, record)) {
+					break;
+				}
+				keys[i] = keys[child];
+				records[i] = records[child];
+				i = child;
+			}
+			keys[i] = key;
+			records[i] = record;
+		}
+
+		/**
+		 * Compares two pairs.
+		 *
+		 * @param key         the key of the first pair
+		 * @param record      the record number of the first pair
+		 * @param otherKey    the key of the second pair
+		 * @param otherRecord the record number of the second pair
+		 * @return true if the first pair ranks worse than the second
+		 */
+		private static boolean worse(double key, int record, double otherKey, int otherRecord) {
+			return key > otherKey || (key == otherKey && record > otherRecord);
+		}
+	}
+}
@@ -0,0 +1,771 @@
+/**
+ * Package containing classes related to user credentials.
+ */
+package com.turankanbur.calculator;
+
+/**
+ * Provides an input stream over an in-memory byte array.
+ */
+import java.io.ByteArrayInputStream;
+
+/**
+ * Provides closing the locked credential file with try-with-resources.
+ */
+import java.io.Closeable;
+
+/**
+ * Provides the exception that ends reading the legacy user file.
+ */
+import java.io.EOFException;
+
+/**
+ * Provides an abstraction for file and directory pathnames.
+ */
+import java.io.File;
+
+/**
+ * Provides functionality for handling input/output (I/O) operations.
+ */
+import java.io.IOException;
+
+/**
+ * Provides deserialization of the legacy user file.
+ */
+import java.io.ObjectInputStream;
+
+/**
+ * Provides random access to the slots of the credential file.
+ */
+import java.io.RandomAccessFile;
+
+/**
+ * Provides locks that serialize writers of the credential file across processes.
+ */
+import java.nio.channels.FileLock;
+
+/**
+ * Provides the character set of stored usernames.
+ */
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Provides the atomic rename of a rebuilt credential table.
+ */
+import java.nio.file.Files;
+
+/**
+ * Provides the options of the atomic rename.
+ */
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Provides the exception thrown when the hashing algorithm is unavailable.
+ */
+import java.security.GeneralSecurityException;
+
+/**
+ * Provides constant-time comparison of password hashes.
+ */
+import java.security.MessageDigest;
+
+/**
+ * Provides the random generator of password salts.
+ */
+import java.security.SecureRandom;
+
+/**
+ * Provides utility methods for arrays.
+ */
+import java.util.Arrays;
+
+/**
+ * Provides the legacy users in file order, keyed by username.
+ */
+import java.util.LinkedHashMap;
+
+/**
+ * Provides the map of legacy users.
+ */
+import java.util.Map;
+
+/**
+ * Provides the factory of the PBKDF2 key derivation function.
+ */
+import javax.crypto.SecretKeyFactory;
+
+/**
+ * Provides the parameters of the PBKDF2 key derivation.
+ */
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Stores the credentials of any number of users in one file, as a persistent
+ * open-addressing hash table of fixed-size slots keyed by username. Register
+ * and login read and write only the few slots on the probe path, so lookups
+ * take constant time however many users are stored.
+ *
+ * Passwords are never stored. Each slot holds a random salt, the work factor
+ * and the PBKDF2WithHmacSHA256 hash of the password. The work factor of new
+ * hashes defaults to 600,000 iterations and can be changed with the
+ * calculator.password.iterations system property; a user whose hash was made
+ * with fewer iterations is re-hashed on the next successful login.
+ *
+ * Every access takes an exclusive lock on a companion lock file while it
+ * touches the slots, so several application instances can share one
+ * credential file; the hashing itself is done outside the lock. Growing the
+ * table and converting a file in the old format of serialized User objects
+ * build the new table in a temporary file and atomically rename it over the
+ * old one, so a crash leaves either the old or the new table.
+ */
+public class CredentialStore {
+
+	/** System property holding the PBKDF2 iteration count of new hashes. */
+	public static final String ITERATIONS_PROPERTY = "calculator.password.iterations";
+
+	/** The default PBKDF2 iteration count. */
+	public static final int DEFAULT_ITERATIONS = 600_000;
+
+	/** The longest username in UTF-8 bytes. */
+	public static final int MAX_USERNAME_BYTES = 64;
+
+	/** Magic number identifying a credential file ("RCCS"). */
+	private static final int MAGIC = 0x52434353;
+
+	/** Version of the file format. */
+	private static final byte VERSION = 1;
+
+	/** Size of the file header in bytes. */
+	private static final int HEADER_SIZE = 32;
+
+	/** Size of one slot in bytes. */
+	private static final int SLOT_SIZE = 128;
+
+	/** Size of a salt in bytes. */
+	private static final int SALT_BYTES = 16;
+
+	/** Size of a password hash in bytes. */
+	private static final int HASH_BYTES = 32;
+
+	/** Suffix appended to the credential file name to form the lock file name. */
+	public static final String LOCK_SUFFIX = ".lock";
+
+	/** Suffix appended to the credential file name to form the file a new table is built in. */
+	private static final String TEMP_SUFFIX = ".tmp";
+
+	/** Number of slots of a new file. */
+	private static final int INITIAL_SLOTS = 16;
+
+	/** Slot state of a slot holding a user. */
+	private static final byte USED = 1;
+
+	/** First bytes of a Java serialization stream, used by the legacy format. */
+	private static final int SERIALIZATION_MAGIC = 0xACED;
+
+	/** The salt of the dummy hash computed for unknown users. */
+	private static final byte[] DUMMY_SALT = new byte[SALT_BYTES];
+
+	/** Timer of registrations. */
+	private static final MetricsRegistry.Timer REGISTER_TIMER = MetricsRegistry.timer("users.register");
+
+	/** Timer of logins. */
+	private static final MetricsRegistry.Timer LOGIN_TIMER = MetricsRegistry.timer("users.login");
+
+	/** Counter of failed logins. */
+	private static final MetricsRegistry.Counter LOGIN_FAILURES = MetricsRegistry.counter("users.login.failures");
+
+	/** The random generator of salts. */
+	private static final SecureRandom RANDOM = new SecureRandom();
+
+	/** The credential file. */
+	private final File file;
+
+	/** The lock file serializing access to the credential file. */
+	private final File lockFile;
+
+	/** The file a new table is built in before it replaces the credential file. */
+	private final File tempFile;
+
+	/** The PBKDF2 iteration count of new hashes. */
+	private final int iterations;
+
+	/**
+	 * Constructs a store over the given file with the configured work factor.
+	 *
+	 * @param fileName the name of the credential file
+	 */
+	public CredentialStore(String fileName) {
+		this(fileName, Integer.getInteger(ITERATIONS_PROPERTY, DEFAULT_ITERATIONS));
+	}
+
+	/**
+	 * Constructs a store over the given file with the given work factor.
+	 *
+	 * @param fileName   the name of the credential file
+	 * @param iterations the PBKDF2 iteration count of new hashes
+	 */
+	public CredentialStore(String fileName, int iterations) {
+		if (iterations < 1) {
+			throw new IllegalArgumentException("Iterations must be positive: " + iterations);
+		}
+		this.file = new File(fileName);
+		this.lockFile = new File(fileName + LOCK_SUFFIX);
+		this.tempFile = new File(fileName + TEMP_SUFFIX);
+		this.iterations = iterations;
+	}
+
+	/**
+	 * Registers a user. Registering an existing user again with the same
+	 * password succeeds without changing anything.
+	 *
+	 * @param username the username
+	 * @param password the password
+	 * @return true if the user is registered with this password, false if the
+	 *         username is taken by another password
+	 * @throws IOException              if the credential file cannot be used
+	 * @throws IllegalArgumentException if the username is empty or too long
+	 */
+	public boolean register(String username, char[] password) throws IOException {
+		long start = System.nanoTime();
+		try {
+			byte[] name = encode(username);
+			byte[] salt = new byte[SALT_BYTES];
+			RANDOM.nextBytes(salt);
+			byte[] hash = hash(password, salt, iterations);
+
+			Slot existing;
+			try (Locked locked = new Locked()) {
+				prepare(locked);
+				existing = find(locked.table, name);
+				if (existing == null) {
+					reserve(locked);
+					insert(locked.table, name, salt, iterations, hash);
+					return true;
+				}
+			}
+			return MessageDigest.isEqual(existing.hash, hash(password, existing.salt, existing.iterations));
+		} finally {
+			REGISTER_TIMER.recordSince(start);
+		}
+	}
+
+	/**
+	 * Checks the password of a user. Unknown usernames take as long to reject as
+	 * wrong passwords.
+	 *
+	 * @param username the username
+	 * @param password the password
+	 * @return true if the user exists and the password matches
+	 * @throws IOException if the credential file cannot be read
+	 */
+	public boolean authenticate(String username, char[] password) throws IOException {
+		long start = System.nanoTime();
+		try {
+			byte[] name = username.getBytes(StandardCharsets.UTF_8);
+			Slot slot = null;
+			if (file.isFile() && name.length > 0 && name.length <= MAX_USERNAME_BYTES) {
+				try (Locked locked = new Locked()) {
+					prepare(locked);
+					slot = find(locked.table, name);
+				}
+			}
+
+			if (slot == null) {
+				hash(password, DUMMY_SALT, iterations);
+				LOGIN_FAILURES.increment();
+				return false;
+			}
+			if (!MessageDigest.isEqual(slot.hash, hash(password, slot.salt, slot.iterations))) {
+				LOGIN_FAILURES.increment();
+				return false;
+			}
+			if (slot.iterations < iterations) {
+				rehash(slot, password);
+			}
+			return true;
+		} finally {
+			LOGIN_TIMER.recordSince(start);
+		}
+	}
+
+	/**
+	 * Retrieves the number of stored users.
+	 *
+	 * @return the user count, 0 if the file does not exist
+	 * @throws IOException if the credential file cannot be read
+	 */
+	public int size() throws IOException {
+		if (!file.isFile()) {
+			return 0;
+		}
+		try (Locked locked = new Locked()) {
+			prepare(locked);
+			locked.table.seek(12);
+			return locked.table.readInt();
+		}
+	}
+
+	/**
+	 * Retrieves the PBKDF2 iteration count stored for a user.
+	 *
+	 * @param username the username
+	 * @return the iteration count, or 0 if the user does not exist
+	 * @throws IOException if the credential file cannot be read
+	 */
+	public int getIterations(String username) throws IOException {
+		if (!file.isFile()) {
+			return 0;
+		}
+		try (Locked locked = new Locked()) {
+			prepare(locked);
+			Slot slot = find(locked.table, username.getBytes(StandardCharsets.UTF_8));
+			return slot == null ? 0 : slot.iterations;
+		}
+	}
+
+	/**
+	 * Computes the PBKDF2WithHmacSHA256 hash of a password.
+	 *
+	 * @param password   the password
+	 * @param salt       the salt
+	 * @param iterations the iteration count
+	 * @return the 256-bit hash
+	 */
+	static byte[] hash(char[] password, byte[] salt, int iterations) {
+		PBEKeySpec spec = new PBEKeySpec(password, salt, iterations, HASH_BYTES * 8);
+		try {
+			return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("PBKDF2WithHmacSHA256 is not available", e);
+		} finally {
+			spec.clearPassword();
+		}
+	}
+
+	/**
+	 * Replaces the hash of a user with one at the current work factor.
+	 *
+	 * @param slot     the slot of the user, as read before the login
+	 * @param password the verified password
+	 * @throws IOException if the credential file cannot be written
+	 */
+	private void rehash(Slot slot, char[] password) throws IOException {
+		byte[] salt = new byte[SALT_BYTES];
+		RANDOM.nextBytes(salt);
+		byte[] hash = hash(password, salt, iterations);
+		try (Locked locked = new Locked()) {
+			Slot current = find(locked.table, slot.name);
+			// Leave the slot alone if another instance changed it meanwhile
+			if (current != null && Arrays.equals(current.salt, slot.salt)) {
+				writeSlot(locked.table, current.index, slot.name, salt, iterations, hash);
+			}
+		}
+	}
+
+	/**
+	 * Makes sure the locked file is a credential table: initializes an empty file
+	 * and converts a file in the legacy format.
+	 *
+	 * @param locked the locked credential file
+	 * @throws IOException if the file is corrupt or cannot be written
+	 */
+	private void prepare(Locked locked) throws IOException {
+		RandomAccessFile table = locked.table;
+		if (table.length() == 0) {
+			replace(locked, build(INITIAL_SLOTS));
+			return;
+		}
+
+		table.seek(0);
+		if (table.length() >= 2 && table.readUnsignedShort() == SERIALIZATION_MAGIC) {
+			convertLegacy(locked);
+			return;
+		}
+
+		table.seek(0);
+		if (table.length() < HEADER_SIZE || table.readInt() != MAGIC || table.readByte() != VERSION) {
+			throw new IOException("Not a credential file: " + file);
+		}
+	}
+
+	/**
+	 * Converts a file of serialized User objects into a credential table. Every
+	 * legacy user is read before anything is written, so an unreadable file is
+	 * left as it was.
+	 *
+	 * @param locked the locked credential file
+	 * @throws IOException if the file is unreadable or cannot be replaced
+	 */
+	private void convertLegacy(Locked locked) throws IOException {
+		byte[] legacy = new byte[(int) locked.table.length()];
+		locked.table.seek(0);
+		locked.table.readFully(legacy);
+
+		Map<String, String> users = new LinkedHashMap<>();
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(legacy))) {
+			while (true) {
+				User user = (User) in.readObject();
+				int length = user.getUsername() == null ? 0 : user.getUsername().getBytes(StandardCharsets.UTF_8).length;
+				if (length > 0 && length <= MAX_USERNAME_BYTES && user.getPassword() != null) {
+					users.putIfAbsent(user.getUsername(), user.getPassword());
+				}
+			}
+		} catch (EOFException e) {
+			// End of the legacy users
+		} catch (ClassNotFoundException | ClassCastException e) {
+			throw new IOException("Unreadable legacy user file: " + file, e);
+		}
+
+		int slots = INITIAL_SLOTS;
+		while (users.size() * 2 > slots) {
+			slots *= 2;
+		}
+		RandomAccessFile built = build(slots);
+		try {
+			for (Map.Entry<String, String> user : users.entrySet()) {
+				byte[] salt = new byte[SALT_BYTES];
+				RANDOM.nextBytes(salt);
+				insert(built, user.getKey().getBytes(StandardCharsets.UTF_8), salt, iterations,
+						hash(user.getValue().toCharArray(), salt, iterations));
+			}
+		} catch (IOException | RuntimeException e) {
+			built.close();
+			throw e;
+		}
+		replace(locked, built);
+	}
+
+	/**
+	 * Creates an empty table with the given number of slots in the temporary
+	 * file, for replace to move over the credential file.
+	 *
+	 * @param slots the number of slots, a power of two
+	 * @return the open temporary file
+	 * @throws IOException if the file cannot be written
+	 */
+	private RandomAccessFile build(int slots) throws IOException {
+		RandomAccessFile built = new RandomAccessFile(tempFile, "rw");
+		try {
+			format(built, slots);
+		} catch (IOException e) {
+			built.close();
+			throw e;
+		}
+		return built;
+	}
+
+	/**
+	 * Syncs and closes a table made by build and atomically renames it over the
+	 * credential file, reopening the locked file on the new table.
+	 *
+	 * @param locked the locked credential file
+	 * @param built  the open temporary file
+	 * @throws IOException if the table cannot be synced or renamed
+	 */
+	private void replace(Locked locked, RandomAccessFile built) throws IOException {
+		try {
+			built.getFD().sync();
+		} finally {
+			built.close();
+		}
+		locked.table.close();
+		Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		locked.table = new RandomAccessFile(file, "rw");
+	}
+
+	/**
+	 * Truncates the file to an empty table with the given number of slots.
+	 *
+	 * @param table the file
+	 * @param slots the number of slots, a power of two
+	 * @throws IOException if the file cannot be written
+	 */
+	private static void format(RandomAccessFile table, int slots) throws IOException {
+		table.setLength(0);
+		table.setLength(HEADER_SIZE + (long) slots * SLOT_SIZE);
+		table.seek(0);
+		table.writeInt(MAGIC);
+		table.writeByte(VERSION);
+		table.seek(8);
+		table.writeInt(slots);
+		table.writeInt(0);
+	}
+
+	/**
+	 * Finds the slot of a user by probing from the home slot of its name.
+	 *
+	 * @param table the locked credential file
+	 * @param name  the UTF-8 username
+	 * @return the slot, or null if the user does not exist
+	 * @throws IOException if the file cannot be read
+	 */
+	private static Slot find(RandomAccessFile table, byte[] name) throws IOException {
+		table.seek(8);
+		int slots = table.readInt();
+		byte[] stored = new byte[MAX_USERNAME_BYTES];
+		for (int i = 0, index = home(name, slots); i < slots; i++, index = (index + 1) & (slots - 1)) {
+			table.seek(slotPosition(index));
+			if (table.readByte() != USED) {
+				return null;
+			}
+			int length = table.readUnsignedShort();
+			table.readFully(stored);
+			if (length == name.length && Arrays.equals(stored, 0, length, name, 0, length)) {
+				Slot slot = new Slot(index, name, table.readInt());
+				table.readFully(slot.salt);
+				table.readFully(slot.hash);
+				return slot;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Doubles the table when one more user would make it more than half full.
+	 *
+	 * @param locked the locked credential file
+	 * @throws IOException if the file cannot be rewritten
+	 */
+	private void reserve(Locked locked) throws IOException {
+		locked.table.seek(8);
+		int slots = locked.table.readInt();
+		int users = locked.table.readInt();
+		if ((users + 1) * 2 > slots) {
+			grow(locked, slots * 2);
+		}
+	}
+
+	/**
+	 * Inserts a user that does not exist yet into a table with a free slot.
+	 *
+	 * @param table      the credential table
+	 * @param name       the UTF-8 username
+	 * @param salt       the salt
+	 * @param iterations the iteration count of the hash
+	 * @param hash       the password hash
+	 * @throws IOException if the file cannot be written
+	 */
+	private static void insert(RandomAccessFile table, byte[] name, byte[] salt, int iterations, byte[] hash)
+			throws IOException {
+		table.seek(8);
+		int slots = table.readInt();
+		int users = table.readInt();
+
+		int index = home(name, slots);
+		while (true) {
+			table.seek(slotPosition(index));
+			if (table.readByte() != USED) {
+				break;
+			}
+			index = (index + 1) & (slots - 1);
+		}
+		writeSlot(table, index, name, salt, iterations, hash);
+		table.seek(12);
+		table.writeInt(users + 1);
+	}
+
+	/**
+	 * Rehashes every user into a new table with more slots, which then replaces
+	 * the credential file.
+	 *
+	 * @param locked the locked credential file
+	 * @param slots  the new number of slots, a power of two
+	 * @throws IOException if the file cannot be rewritten
+	 */
+	private void grow(Locked locked, int slots) throws IOException {
+		RandomAccessFile table = locked.table;
+		table.seek(8);
+		int oldSlots = table.readInt();
+		int users = table.readInt();
+		byte[] old = new byte[oldSlots * SLOT_SIZE];
+		table.seek(HEADER_SIZE);
+		table.readFully(old);
+
+		RandomAccessFile built = build(slots);
+		try {
+			for (int i = 0; i < oldSlots; i++) {
+				int offset = i * SLOT_SIZE;
+				if (old[offset] != USED) {
+					continue;
+				}
+				int length = ((old[offset + 1] & 0xFF) << 8) | (old[offset + 2] & 0xFF);
+				byte[] name = Arrays.copyOfRange(old, offset + 3, offset + 3 + length);
+				int index = home(name, slots);
+				while (true) {
+					built.seek(slotPosition(index));
+					if (built.readByte() != USED) {
+						break;
+					}
+					index = (index + 1) & (slots - 1);
+				}
+				built.seek(slotPosition(index));
+				built.write(old, offset, SLOT_SIZE);
+			}
+			built.seek(12);
+			built.writeInt(users);
+		} catch (IOException | RuntimeException e) {
+			built.close();
+			throw e;
+		}
+		replace(locked, built);
+	}
+
+	/**
+	 * Writes a user into a slot.
+	 *
+	 * @param table      the locked credential file
+	 * @param index      the slot index
+	 * @param name       the UTF-8 username
+	 * @param salt       the salt
+	 * @param iterations the iteration count of the hash
+	 * @param hash       the password hash
+	 * @throws IOException if the file cannot be written
+	 */
+	private static void writeSlot(RandomAccessFile table, int index, byte[] name, byte[] salt, int iterations,
+			byte[] hash) throws IOException {
+		byte[] slot = new byte[SLOT_SIZE];
+		slot[0] = USED;
+		slot[1] = (byte) (name.length >>> 8);
+		slot[2] = (byte) name.length;
+		System.arraycopy(name, 0, slot, 3, name.length);
+		int offset = 3 + MAX_USERNAME_BYTES;
+		slot[offset] = (byte) (iterations >>> 24);
+		slot[offset + 1] = (byte) (iterations >>> 16);
+		slot[offset + 2] = (byte) (iterations >>> 8);
+		slot[offset + 3] = (byte) iterations;
+		System.arraycopy(salt, 0, slot, offset + 4, SALT_BYTES);
+		System.arraycopy(hash, 0, slot, offset + 4 + SALT_BYTES, HASH_BYTES);
+		table.seek(slotPosition(index));
+		table.write(slot);
+	}
+
+	/**
+	 * Encodes and validates a username.
+	 *
+	 * @param username the username
+	 * @return the UTF-8 bytes of the username
+	 * @throws IllegalArgumentException if the username is empty or too long
+	 */
+	private static byte[] encode(String username) {
+		byte[] name = username.getBytes(StandardCharsets.UTF_8);
+		if (name.length == 0) {
+			throw new IllegalArgumentException("Username must not be empty.");
+		}
+		if (name.length > MAX_USERNAME_BYTES) {
+			throw new IllegalArgumentException("Username must be at most " + MAX_USERNAME_BYTES + " bytes.");
+		}
+		return name;
+	}
+
+	/**
+	 * Computes the home slot of a username with an FNV-1a hash.
+	 *
+	 * @param name  the UTF-8 username
+	 * @param slots the number of slots, a power of two
+	 * @return the home slot index
+	 */
+	private static int home(byte[] name, int slots) {
+		int hash = 0x811C9DC5;
+		for (byte b : name) {
+			hash ^= b & 0xFF;
+			hash *= 0x01000193;
+		}
+		return hash & (slots - 1);
+	}
+
+	/**
+	 * Computes the file position of a slot.
+	 *
+	 * @param index the slot index
+	 * @return the position of the slot
+	 */
+	private static long slotPosition(int index) {
+		return HEADER_SIZE + (long) index * SLOT_SIZE;
+	}
+
+	/**
+	 * The credential file, opened while an exclusive lock is held on its lock
+	 * file. The lock file is never replaced, so a table renamed over the
+	 * credential file is seen by the next instance to take the lock.
+	 */
+	private final class Locked implements Closeable {
+
+		/** The open lock file. */
+		private final RandomAccessFile guard;
+
+		/** The lock held on the lock file. */
+		private final FileLock lock;
+
+		/** The open credential file, reopened by replace. */
+		RandomAccessFile table;
+
+		/**
+		 * Waits for the lock and opens the credential file, creating it empty if
+		 * it does not exist.
+		 *
+		 * @throws IOException if the files cannot be opened or locked
+		 */
+		Locked() throws IOException {
+			guard = new RandomAccessFile(lockFile, "rw");
+			try {
+				lock = guard.getChannel().lock();
+				table = new RandomAccessFile(file, "rw");
+			} catch (IOException e) {
+				guard.close();
+				throw e;
+			}
+		}
+
+		/**
+		 * Closes the credential file and releases the lock.
+		 *
+		 * @throws IOException if a file cannot be closed
+		 */
+		@Override
+		public void close() throws IOException {
+			try {
+				table.close();
+			} finally {
+				try {
+					lock.release();
+				} finally {
+					guard.close();
+				}
+			}
+		}
+	}
+
+	/**
+	 * The stored credentials of one user.
+	 */
+	private static final class Slot {
+
+		/** The slot index. */
+		final int index;
+
+		/** The UTF-8 username. */
+		final byte[] name;
+
+		/** The iteration count of the hash. */
+		final int iterations;
+
+		/** The salt. */
+		final byte[] salt = new byte[SALT_BYTES];
+
+		/** The password hash. */
+		final byte[] hash = new byte[HASH_BYTES];
+
+		/**
+		 * Constructs a slot whose salt and hash are read afterwards.
+		 *
+		 * @param index      the slot index
+		 * @param name       the UTF-8 username
+		 * @param iterations the iteration count of the hash
+		 */
+		Slot(int index, byte[] name, int iterations) {
+			this.index = index;
+			this.name = name;
+			this.iterations = iterations;
+		}
+	}
+}
@@ -0,0 +1,107 @@
+/**
+ * Package containing classes related to runtime diagnostics of the calculator application.
+ */
+package com.turankanbur.calculator;
+
+/**
+ * Provides an abstraction for file and directory pathnames.
+ */
+import java.io.File;
+
+/**
+ * Provides the JFR category annotation.
+ */
+import jdk.jfr.Category;
+
+/**
+ * Provides the JFR annotation for byte amounts.
+ */
+import jdk.jfr.DataAmount;
+
+/**
+ * Provides the JFR description annotation.
+ */
+import jdk.jfr.Description;
+
+/**
+ * Provides the base class of custom flight recorder events.
+ */
+import jdk.jfr.Event;
+
+/**
+ * Provides the JFR label annotation.
+ */
+import jdk.jfr.Label;
+
+/**
+ * Provides the JFR event name annotation.
+ */
+import jdk.jfr.Name;
+
+/**
+ * Provides the JFR annotation controlling stack trace capture.
+ */
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event emitted for every load and save of a data file. The
+ * event duration covers the whole file operation.
+ *
+ * Call sites should only fill in the fields when shouldCommit() returns true, so
+ * the event costs next to nothing while no recording is active.
+ */
+@Name("com.turankanbur.calculator.DataFile")
+@Label("Data File Operation")
+@Category({ "Recipe Cost Calculator", "I/O" })
+@Description("Load or save of an ingredient, recipe or meal data file")
+@StackTrace(false)
+public final class DataFileEvent extends Event {
+
+	/** Operation name used for loads. */
+	public static final String LOAD = "load";
+
+	/** Operation name used for saves. */
+	public static final String SAVE = "save";
+
+	/** Whether the file was loaded or saved. */
+	@Label("Operation")
+	public String operation;
+
+	/** The name of the data file. */
+	@Label("File Name")
+	public String fileName;
+
+	/** The number of records read or written. */
+	@Label("Record Count")
+	public int recordCount;
+
+	/** The size of the file after the operation. */
+	@Label("Bytes")
+	@DataAmount
+	public long bytes;
+
+	/** Whether the operation failed with an exception. */
+	@Label("Failed")
+	public boolean failed;
+
+	/**
+	 * Ends the event and commits it if a recording wants it. The file size is only
+	 * looked up when the event is actually committed.
+	 *
+	 * @param operation   LOAD or SAVE
+	 * @param fileName    the name of the data file
+	 * @param recordCount the number of records read or written
+	 * @param failed      whether the operation failed
+	 */
+	public void complete(String operation, String fileName, int recordCount, boolean failed) {
+		end();
+		if (shouldCommit()) {
+			this.operation = operation;
+			this.fileName = fileName;
+			this.recordCount = recordCount;
+			this.bytes = new File(fileName).length();
+			this.failed = failed;
+			commit();
+		}
+	}
+}
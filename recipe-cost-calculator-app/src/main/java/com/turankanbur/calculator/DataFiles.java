@@ -0,0 +1,116 @@
+/**
+ * Package containing classes related to the location of the persisted data files.
+ */
+package com.turankanbur.calculator;
+
+/**
+ * Provides an abstraction for file and directory pathnames.
+ */
+import java.io.File;
+
+/**
+ * Resolves the data files of the application. By default the files are the
+ * relative names "ingredients.bin", "recipes.bin", "meals.bin" and
+ * "register.bin" in the working directory. The directory can be changed with
+ * the calculator.data.dir system property or with setDirectory, for example to
+ * run the menus against a temporary copy of the data.
+ */
+public final class DataFiles {
+
+	/** System property naming the data directory. */
+	public static final String DIRECTORY_PROPERTY = "calculator.data.dir";
+
+	/** File name of the ingredient catalog. */
+	public static final String INGREDIENTS = "ingredients.bin";
+
+	/** File name of the recipes. */
+	public static final String RECIPES = "recipes.bin";
+
+	/** File name of the meals. */
+	public static final String MEALS = "meals.bin";
+
+	/** File name of the registered users. */
+	public static final String USERS = "register.bin";
+
+	/** The data directory, or null for the working directory. */
+	private static volatile File directory = initialDirectory();
+
+	/** Prevents instantiation. */
+	private DataFiles() {
+	}
+
+	/**
+	 * Reads the initial data directory from the system property.
+	 *
+	 * @return the directory, or null if the property is not set
+	 */
+	private static File initialDirectory() {
+		String property = System.getProperty(DIRECTORY_PROPERTY);
+		return property == null || property.isEmpty() ? null : new File(property);
+	}
+
+	/**
+	 * Retrieves the data directory.
+	 *
+	 * @return the directory, or null for the working directory
+	 */
+	public static File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Sets the data directory.
+	 *
+	 * @param newDirectory the directory, or null for the working directory
+	 */
+	public static void setDirectory(File newDirectory) {
+		directory = newDirectory;
+	}
+
+	/**
+	 * Resolves a data file name against the data directory.
+	 *
+	 * @param name the file name
+	 * @return the path of the file
+	 */
+	public static String resolve(String name) {
+		File current = directory;
+		return current == null ? name : new File(current, name).getPath();
+	}
+
+	/**
+	 * Retrieves the path of the ingredient catalog.
+	 *
+	 * @return the path
+	 */
+	public static String ingredients() {
+		return resolve(INGREDIENTS);
+	}
+
+	/**
+	 * Retrieves the path of the recipes file.
+	 *
+	 * @return the path
+	 */
+	public static String recipes() {
+		return resolve(RECIPES);
+	}
+
+	/**
+	 * Retrieves the path of the meals file.
+	 *
+	 * @return the path
+	 */
+	public static String meals() {
+		return resolve(MEALS);
+	}
+
+	/**
+	 * Retrieves the path of the registered users file.
+	 *
+	 * @return the path
+	 */
+	public static String users() {
+		return resolve(USERS);
+	}
+}
@@ -0,0 +1,599 @@
+/**
+ * Package containing classes related to test data generation for the calculator application.
+ */
+package com.turankanbur.calculator;
+
+/**
+ * Provides functionality for buffering bytes written to an output stream.
+ */
+import java.io.BufferedOutputStream;
+
+/**
+ * Provides an abstraction for file and directory pathnames.
+ */
+import java.io.File;
+
+/**
+ * Provides functionality for writing bytes to a file output stream.
+ */
+import java.io.FileOutputStream;
+
+/**
+ * Provides functionality for handling input/output (I/O) operations.
+ */
+import java.io.IOException;
+
+/**
+ * Provides functionality for writing objects to an output stream.
+ */
+import java.io.ObjectOutputStream;
+
+/**
+ * Provides an implementation of the List interface backed by an array.
+ */
+import java.util.ArrayList;
+
+/**
+ * Provides functionality for storing and manipulating collections of objects.
+ */
+import java.util.List;
+
+/**
+ * Provides a splittable pseudo-random number generator.
+ */
+import java.util.SplittableRandom;
+
+/**
+ * Provides a task that returns a result and may throw an exception.
+ */
+import java.util.concurrent.Callable;
+
+/**
+ * Signals that a task completed by throwing an exception.
+ */
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Provides a service that runs tasks on a pool of threads.
+ */
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Provides factory methods for executor services.
+ */
+import java.util.concurrent.Executors;
+
+/**
+ * Represents the result of an asynchronous task.
+ */
+import java.util.concurrent.Future;
+
+/**
+ * Generates deterministic synthetic ingredients.bin, recipes.bin and meals.bin
+ * files for benchmarking and load testing.
+ *
+ * Every record is derived only from the seed and its own index, so the three
+ * files are generated in parallel and streamed straight to disk: no file needs
+ * the whole dataset in memory, and a recipe or meal can rebuild the ingredients
+ * or recipes it references on the fly. Each file is written in every supported
+ * storage format at once: the serialized data file and its guest image.
+ *
+ * Ingredient names draw their base word from a Zipf distribution over a small
+ * vocabulary, and recipes pick ingredients (and meals pick recipes) with Zipfian
+ * popularity, so a few entries are far more common than the rest.
+ *
+ * Usage: DatasetGenerator [--out DIR] [--seed N] [--ingredients N] [--recipes N]
+ * [--meals N] [--ingredients-per-recipe N] [--recipes-per-meal N] [--zipf S]
+ */
+public class DatasetGenerator {
+
+	/** Base words for ingredient names, most popular first. */
+	private static final String[] INGREDIENT_WORDS = { "salt", "onion", "tomato", "garlic", "oil", "pepper",
+			"flour", "sugar", "butter", "egg", "milk", "rice", "chicken", "potato", "lemon", "carrot", "cheese",
+			"beef", "yogurt", "parsley", "cumin", "paprika", "bulgur", "lentil", "chickpea", "spinach", "eggplant",
+			"zucchini", "mint", "walnut", "honey", "cinnamon", "lamb", "fish", "mushroom", "basil", "thyme",
+			"vinegar", "corn", "bean" };
+
+	/** Adjectives used in recipe and meal names. */
+	private static final String[] ADJECTIVES = { "spicy", "vegan", "grilled", "roasted", "creamy", "crispy",
+			"smoky", "fresh", "baked", "stuffed", "sweet", "tangy" };
+
+	/** Dish nouns used in recipe names. */
+	private static final String[] DISHES = { "soup", "salad", "stew", "pilaf", "bowl", "wrap", "pie", "kebab",
+			"casserole", "sauce", "bread", "dessert" };
+
+	/** Meal nouns used in meal names. */
+	private static final String[] MEALS = { "breakfast", "lunch", "dinner", "brunch", "feast", "platter" };
+
+	/** Random stream identifier for ingredient records. */
+	private static final long INGREDIENT_STREAM = 1;
+
+	/** Random stream identifier for recipe records. */
+	private static final long RECIPE_STREAM = 2;
+
+	/** Random stream identifier for meal records. */
+	private static final long MEAL_STREAM = 3;
+
+	/** The seed every record is derived from. */
+	private final long seed;
+
+	/** The number of ingredients to generate. */
+	private final int ingredientCount;
+
+	/** The number of recipes to generate. */
+	private final int recipeCount;
+
+	/** The number of meals to generate. */
+	private final int mealCount;
+
+	/** The average number of ingredients per recipe. */
+	private final int ingredientsPerRecipe;
+
+	/** The average number of recipes per meal. */
+	private final int recipesPerMeal;
+
+	/** Sampler for ingredient name words. */
+	private final ZipfSampler wordSampler;
+
+	/** Sampler for the ingredients used by recipes. */
+	private final ZipfSampler ingredientSampler;
+
+	/** Sampler for the recipes used by meals. */
+	private final ZipfSampler recipeSampler;
+
+	/**
+	 * Constructs a generator.
+	 *
+	 * @param seed                 the seed every record is derived from
+	 * @param ingredientCount      the number of ingredients to generate
+	 * @param recipeCount          the number of recipes to generate
+	 * @param mealCount            the number of meals to generate
+	 * @param ingredientsPerRecipe the average number of ingredients per recipe
+	 * @param recipesPerMeal       the average number of recipes per meal
+	 * @param zipfExponent         the Zipf exponent used for name and usage
+	 *                             popularity
+	 */
+	public DatasetGenerator(long seed, int ingredientCount, int recipeCount, int mealCount,
+			int ingredientsPerRecipe, int recipesPerMeal, double zipfExponent) {
+		if (ingredientCount < 1 || recipeCount < 0 || mealCount < 0 || ingredientsPerRecipe < 1
+				|| recipesPerMeal < 1 || zipfExponent <= 0) {
+			throw new IllegalArgumentException("Invalid dataset size or fan-out");
+		}
+		if (mealCount > 0 && recipeCount == 0) {
+			throw new IllegalArgumentException("Meals need at least one recipe");
+		}
+		this.seed = seed;
+		this.ingredientCount = ingredientCount;
+		this.recipeCount = recipeCount;
+		this.mealCount = mealCount;
+		this.ingredientsPerRecipe = ingredientsPerRecipe;
+		this.recipesPerMeal = recipesPerMeal;
+		this.wordSampler = new ZipfSampler(INGREDIENT_WORDS.length, zipfExponent);
+		this.ingredientSampler = new ZipfSampler(ingredientCount, zipfExponent);
+		this.recipeSampler = new ZipfSampler(Math.max(1, recipeCount), zipfExponent);
+	}
+
+	/**
+	 * Runs the generator from the command line.
+	 *
+	 * @param args the options described in the class documentation
+	 * @throws IOException if a data file cannot be written
+	 */
+	public static void main(String[] args) throws IOException {
+		File out = new File(".");
+		long seed = 42L;
+		int ingredients = 100000;
+		int recipes = 100000;
+		int meals = 100000;
+		int ingredientsPerRecipe = 8;
+		int recipesPerMeal = 3;
+		double zipf = 1.0;
+
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			String value = args[i + 1];
+			switch (args[i]) {
+			case "--out":
+				out = new File(value);
+				break;
+			case "--seed":
+				seed = Long.parseLong(value);
+				break;
+			case "--ingredients":
+				ingredients = Integer.parseInt(value);
+				break;
+			case "--recipes":
+				recipes = Integer.parseInt(value);
+				break;
+			case "--meals":
+				meals = Integer.parseInt(value);
+				break;
+			case "--ingredients-per-recipe":
+				ingredientsPerRecipe = Integer.parseInt(value);
+				break;
+			case "--recipes-per-meal":
+				recipesPerMeal = Integer.parseInt(value);
+				break;
+			case "--zipf":
+				zipf = Double.parseDouble(value);
+				break;
+			default:
+				System.err.println("Unknown option: " + args[i]);
+				return;
+			}
+		}
+
+		long start = System.nanoTime();
+		new DatasetGenerator(seed, ingredients, recipes, meals, ingredientsPerRecipe, recipesPerMeal, zipf)
+				.generate(out);
+		System.out.println("Generated " + ingredients + " ingredients, " + recipes + " recipes and " + meals
+				+ " meals in " + (System.nanoTime() - start) / 1000000 + " ms to " + out.getPath());
+	}
+
+	/**
+	 * Writes ingredients.bin, recipes.bin and meals.bin (with their guest images)
+	 * into the given directory, generating the three files in parallel.
+	 *
+	 * @param directory the directory to write to
+	 * @throws IOException if a file cannot be written
+	 */
+	public void generate(File directory) throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Cannot create directory: " + directory);
+		}
+
+		List<Callable<Void>> tasks = new ArrayList<>();
+		tasks.add(() -> {
+			writeIngredients(new File(directory, "ingredients.bin"));
+			return null;
+		});
+		tasks.add(() -> {
+			writeRecipes(new File(directory, "recipes.bin"));
+			return null;
+		});
+		tasks.add(() -> {
+			writeMeals(new File(directory, "meals.bin"));
+			return null;
+		});
+
+		ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+		try {
+			for (Future<Void> future : executor.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Dataset generation interrupted", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException("Dataset generation failed", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Streams every ingredient to the data file and its guest image.
+	 *
+	 * @param file the ingredients data file
+	 * @throws IOException if the file cannot be written
+	 */
+	void writeIngredients(File file) throws IOException {
+		try (RecordStream stream = new RecordStream(file, GuestDataImage.Kind.INGREDIENTS, "#END_INGREDIENT#")) {
+			for (int i = 0; i < ingredientCount; i++) {
+				Ingredient ingredient = ingredient(i);
+				stream.write(ingredient);
+				stream.image.addIngredient(ingredient);
+			}
+		}
+	}
+
+	/**
+	 * Streams every recipe to the data file and its guest image.
+	 *
+	 * @param file the recipes data file
+	 * @throws IOException if the file cannot be written
+	 */
+	void writeRecipes(File file) throws IOException {
+		try (RecordStream stream = new RecordStream(file, GuestDataImage.Kind.RECIPES, "#END_RECIPE#")) {
+			for (int i = 0; i < recipeCount; i++) {
+				Recipe recipe = recipe(i);
+				stream.write(recipe);
+				stream.image.addRecipe(recipe);
+			}
+		}
+	}
+
+	/**
+	 * Streams every meal to the data file and its guest image.
+	 *
+	 * @param file the meals data file
+	 * @throws IOException if the file cannot be written
+	 */
+	void writeMeals(File file) throws IOException {
+		try (RecordStream stream = new RecordStream(file, GuestDataImage.Kind.MEALS, "#END_MEAL#")) {
+			for (int i = 0; i < mealCount; i++) {
+				Meal meal = meal(i);
+				stream.write(meal);
+				stream.image.addMeal(meal);
+			}
+		}
+	}
+
+	/**
+	 * Builds the ingredient with the given index.
+	 *
+	 * @param index the ingredient index
+	 * @return the ingredient
+	 */
+	public Ingredient ingredient(int index) {
+		SplittableRandom random = random(INGREDIENT_STREAM, index);
+		String word = INGREDIENT_WORDS[wordSampler.sample(random) - 1];
+		return new Ingredient(word + "-" + index, 1 + random.nextInt(100));
+	}
+
+	/**
+	 * Builds the recipe with the given index, rebuilding the ingredients it uses.
+	 *
+	 * @param index the recipe index
+	 * @return the recipe
+	 */
+	public Recipe recipe(int index) {
+		SplittableRandom random = random(RECIPE_STREAM, index);
+		int lines = fanOut(random, ingredientsPerRecipe);
+		List<Ingredient> ingredients = new ArrayList<>(lines);
+		int[] quantities = new int[lines];
+		for (int i = 0; i < lines; i++) {
+			ingredients.add(ingredient(ingredientSampler.sample(random) - 1));
+			quantities[i] = 1 + random.nextInt(5);
+		}
+
+		String main = ingredients.get(0).getName();
+		String name = ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + main.substring(0, main.indexOf('-'))
+				+ " " + DISHES[random.nextInt(DISHES.length)] + " " + index;
+		return new Recipe(name, ingredients, RecipeManagement.calculateTotalCost(ingredients, quantities));
+	}
+
+	/**
+	 * Builds the meal with the given index, rebuilding the recipes it uses.
+	 *
+	 * @param index the meal index
+	 * @return the meal
+	 */
+	public Meal meal(int index) {
+		SplittableRandom random = random(MEAL_STREAM, index);
+		int size = fanOut(random, recipesPerMeal);
+		List<Recipe> recipes = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			recipes.add(recipe(recipeSampler.sample(random) - 1));
+		}
+
+		String name = ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + MEALS[random.nextInt(MEALS.length)]
+				+ " " + index;
+		return new Meal(name, recipes);
+	}
+
+	/**
+	 * Picks a fan-out uniformly between half and one and a half times the average.
+	 *
+	 * @param random  the record's random stream
+	 * @param average the average fan-out
+	 * @return the fan-out, at least one
+	 */
+	private static int fanOut(SplittableRandom random, int average) {
+		int low = Math.max(1, average / 2);
+		int high = Math.max(low, average + average / 2);
+		return low + random.nextInt(high - low + 1);
+	}
+
+	/**
+	 * Creates the random stream of a single record.
+	 *
+	 * @param stream the record kind
+	 * @param index  the record index
+	 * @return the record's random stream
+	 */
+	private SplittableRandom random(long stream, int index) {
+		long z = seed + stream * 0x9E3779B97F4A7C15L + index * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return new SplittableRandom(z ^ (z >>> 31));
+	}
+
+	/**
+	 * Writes records to a data file in the application's marker format and to its
+	 * guest image at the same time. The object stream is reset every few records so
+	 * its back-reference table does not grow with the dataset.
+	 */
+	private static final class RecordStream implements AutoCloseable {
+
+		/** Number of records written between object stream resets. */
+		private static final int RESET_INTERVAL = 1024;
+
+		/** The data file being written. */
+		private final File file;
+
+		/** The object stream of the data file. */
+		private final ObjectOutputStream out;
+
+		/** The marker written after every record. */
+		private final String marker;
+
+		/** The guest image written alongside the data file. */
+		final GuestDataImage.Writer image;
+
+		/** The number of records written so far. */
+		private int written;
+
+		/**
+		 * Opens the data file and its guest image.
+		 *
+		 * @param file   the data file
+		 * @param kind   the kind of records written
+		 * @param marker the marker written after every record
+		 * @throws IOException if a file cannot be created
+		 */
+		RecordStream(File file, GuestDataImage.Kind kind, String marker) throws IOException {
+			this.file = file;
+			this.marker = marker;
+			this.out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+			this.image = new GuestDataImage.Writer(new File(file.getPath() + GuestDataImage.SUFFIX), kind);
+		}
+
+		/**
+		 * Writes one record followed by the marker.
+		 *
+		 * @param record the record to write
+		 * @throws IOException if the record cannot be written
+		 */
+		void write(Object record) throws IOException {
+			if (written++ % RESET_INTERVAL == 0) {
+				out.reset();
+			}
+			out.writeObject(record);
+			out.writeUTF(marker);
+		}
+
+		/**
+		 * Completes the data file, then stamps and completes the guest image.
+		 *
+		 * @throws IOException if a file cannot be completed
+		 */
+		@Override
+		public void close() throws IOException {
+			try {
+				out.close();
+			} catch (IOException e) {
+				image.discard();
+				throw e;
+			}
+			try {
+				image.setSource(file);
+			} catch (IOException e) {
+				image.discard();
+				throw e;
+			}
+			image.close();
+		}
+	}
+
+	/**
+	 * Draws integers in [1, n] following a Zipf distribution in constant memory,
+	 * using the rejection-inversion method of Hoermann and Derflinger.
+	 */
+	static final class ZipfSampler {
+
+		/** The number of elements. */
+		private final int n;
+
+		/** The Zipf exponent. */
+		private final double exponent;
+
+		/** Precomputed hIntegral(1.5) - 1. */
+		private final double hIntegralX1;
+
+		/** Precomputed hIntegral(n + 0.5). */
+		private final double hIntegralN;
+
+		/** Precomputed acceptance shortcut threshold. */
+		private final double s;
+
+		/**
+		 * Creates a sampler over [1, n].
+		 *
+		 * @param n        the number of elements
+		 * @param exponent the Zipf exponent
+		 */
+		ZipfSampler(int n, double exponent) {
+			this.n = n;
+			this.exponent = exponent;
+			this.hIntegralX1 = hIntegral(1.5) - 1.0;
+			this.hIntegralN = hIntegral(n + 0.5);
+			this.s = 2.0 - hIntegralInverse(hIntegral(2.5) - h(2.0));
+		}
+
+		/**
+		 * Draws one value.
+		 *
+		 * @param random the random stream to draw from
+		 * @return a value in [1, n]
+		 */
+		int sample(SplittableRandom random) {
+			while (true) {
+				double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+				double x = hIntegralInverse(u);
+				int k = (int) (x + 0.5);
+				if (k < 1) {
+					k = 1;
+				} else if (k > n) {
+					k = n;
+				}
+				if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+					return k;
+				}
+			}
+		}
+
+		/**
+		 * The unnormalized probability density, x^-exponent.
+		 *
+		 * @param x the point
+		 * @return the density at x
+		 */
+		private double h(double x) {
+			return Math.exp(-exponent * Math.log(x));
+		}
+
+		/**
+		 * The integral of h from 1 to x.
+		 *
+		 * @param x the upper bound
+		 * @return the integral
+		 */
+		private double hIntegral(double x) {
+			double logX = Math.log(x);
+			return helper2((1.0 - exponent) * logX) * logX;
+		}
+
+		/**
+		 * The inverse of hIntegral.
+		 *
+		 * @param x the integral value
+		 * @return the upper bound producing it
+		 */
+		private double hIntegralInverse(double x) {
+			double t = x * (1.0 - exponent);
+			if (t < -1.0) {
+				t = -1.0;
+			}
+			return Math.exp(helper1(t) * x);
+		}
+
+		/**
+		 * Computes log1p(x) / x accurately near zero.
+		 *
+		 * @param x the argument
+		 * @return log1p(x) / x
+		 */
+		private static double helper1(double x) {
+			if (Math.abs(x) > 1e-8) {
+				return Math.log1p(x) / x;
+			}
+			return 1.0 - x * (0.5 - x * (1.0 / 3.0 - 0.25 * x));
+		}
+
+		/**
+		 * Computes expm1(x) / x accurately near zero.
+		 *
+		 * @param x the argument
+		 * @return expm1(x) / x
+		 */
+		private static double helper2(double x) {
+			if (Math.abs(x) > 1e-8) {
+				return Math.expm1(x) / x;
+			}
+			return 1.0 + x * 0.5 * (1.0 + x * (1.0 / 3.0) * (1.0 + 0.25 * x));
+		}
+	}
+}
@@ -0,0 +1,108 @@
+/**
+ * Package containing classes related to runtime diagnostics of the calculator application.
+ */
+package com.turankanbur.calculator;
+
+/**
+ * Provides functionality for handling input/output (I/O) operations.
+ */
+import java.io.IOException;
+
+/**
+ * Provides file system paths.
+ */
+import java.nio.file.Path;
+
+/**
+ * Provides methods for creating paths.
+ */
+import java.nio.file.Paths;
+
+/**
+ * Provides exceptions thrown while parsing flight recorder settings.
+ */
+import java.text.ParseException;
+
+/**
+ * Provides the current local date and time for recording file names.
+ */
+import java.time.LocalDateTime;
+
+/**
+ * Provides formatting of dates and times.
+ */
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Provides predefined flight recorder settings.
+ */
+import jdk.jfr.Configuration;
+
+/**
+ * Provides a flight recording that can be started, stopped and dumped.
+ */
+import jdk.jfr.Recording;
+
+/**
+ * Starts and stops an in-process Java Flight Recorder recording. The recording
+ * uses the JDK "profile" settings, so GC, I/O and CPU events are captured next
+ * to the DataFileEvent and CostCalculationEvent events of this application.
+ */
+public final class FlightRecording {
+
+	/** The active recording, or null when none is running. */
+	private static Recording recording;
+
+	/** Prevents instantiation. */
+	private FlightRecording() {
+	}
+
+	/**
+	 * Checks whether a recording is running.
+	 *
+	 * @return true if a recording is running
+	 */
+	public static synchronized boolean isRunning() {
+		return recording != null;
+	}
+
+	/**
+	 * Starts a new recording.
+	 *
+	 * @throws IOException    if the recording settings cannot be read
+	 * @throws ParseException if the recording settings cannot be parsed
+	 */
+	public static synchronized void start() throws IOException, ParseException {
+		if (recording != null) {
+			return;
+		}
+		Recording started = new Recording(Configuration.getConfiguration("profile"));
+		started.setName("recipe-cost-calculator");
+		started.setToDisk(true);
+		started.start();
+		recording = started;
+	}
+
+	/**
+	 * Stops the running recording and writes it to a .jfr file in the working
+	 * directory.
+	 *
+	 * @return the file the recording was written to, or null if none was running
+	 * @throws IOException if the recording cannot be written
+	 */
+	public static synchronized Path stop() throws IOException {
+		if (recording == null) {
+			return null;
+		}
+		Path destination = Paths.get("calculator-"
+				+ LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".jfr");
+		try {
+			recording.stop();
+			recording.dump(destination);
+		} finally {
+			recording.close();
+			recording = null;
+		}
+		return destination.toAbsolutePath();
+	}
+}
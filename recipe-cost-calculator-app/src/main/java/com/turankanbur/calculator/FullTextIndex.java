@@ -0,0 +1,543 @@
+/**
+ * Package containing classes related to name lookups.
+ */
+package com.turankanbur.calculator;
+
+/**
+ * Provides buffering of the index file input.
+ */
+import java.io.BufferedInputStream;
+
+/**
+ * Provides buffering of the index file output.
+ */
+import java.io.BufferedOutputStream;
+
+/**
+ * Provides functionality for reading primitive values from the index file.
+ */
+import java.io.DataInputStream;
+
+/**
+ * Provides functionality for writing primitive values to the index file.
+ */
+import java.io.DataOutputStream;
+
+/**
+ * Provides the index and data file paths.
+ */
+import java.io.File;
+
+/**
+ * Provides functionality for reading bytes from a file input stream.
+ */
+import java.io.FileInputStream;
+
+/**
+ * Provides functionality for writing bytes to a file output stream.
+ */
+import java.io.FileOutputStream;
+
+/**
+ * Provides functionality for handling input/output (I/O) operations.
+ */
+import java.io.IOException;
+
+/**
+ * Provides the atomic replacement of the index file.
+ */
+import java.nio.file.Files;
+
+/**
+ * Provides the options of the atomic replacement.
+ */
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Provides an implementation of the List interface backed by an array.
+ */
+import java.util.ArrayList;
+
+/**
+ * Provides utility methods for growing and sorting arrays.
+ */
+import java.util.Arrays;
+
+/**
+ * Provides the map from words to their posting lists.
+ */
+import java.util.HashMap;
+
+/**
+ * Provides functionality for storing and manipulating collections of objects.
+ */
+import java.util.List;
+
+/**
+ * Provides the locale used to fold words to lower case.
+ */
+import java.util.Locale;
+
+/**
+ * Provides the interface of key-value mappings.
+ */
+import java.util.Map;
+
+/**
+ * Provides the logging interface used for diagnostics.
+ */
+import org.slf4j.Logger;
+
+/**
+ * Provides the factory that creates loggers.
+ */
+import org.slf4j.LoggerFactory;
+
+/**
+ * A full-text index over the recipe or meal names of a data file, answering
+ * which records contain given words. Names are split into words of letters and
+ * digits, folded to lower case, and every word maps to the ascending record
+ * numbers of the names containing it. Each posting list is kept as the gaps
+ * between record numbers encoded as varints, so common words take about one
+ * byte per record.
+ *
+ * A query is a list of words that must all occur (AND); alternatives are
+ * separated by OR, as in "spicy chicken OR vegan bowl". AND is answered by
+ * decoding the shortest list and merging the others into it in order of size.
+ *
+ * The index is saved next to its data file with the suffix ".idx", stamped
+ * with a SourceStamp of the data file like the guest images. It is rebuilt
+ * from the guest image when the stamp no longer matches, and addRecipe and
+ * addMeal append the new record to it instead. Record numbers are the
+ * positions of the records in the data file, which are also the record
+ * numbers of its GuestDataImage.
+ */
+public final class FullTextIndex {
+
+	/**
+	 * Holds the logger so that queries which never fail do not initialize
+	 * logging.
+	 */
+	private static final class Log {
+
+		/** Logger for diagnostics. */
+		static final Logger LOGGER = LoggerFactory.getLogger(FullTextIndex.class);
+	}
+
+	/** Magic number identifying an index file ("RCFT"). */
+	private static final int MAGIC = 0x52434654;
+
+	/** Version of the index layout. */
+	private static final byte VERSION = 2;
+
+	/** Suffix appended to the data file name to form the index file name. */
+	public static final String SUFFIX = ".idx";
+
+	/** The query keyword separating alternatives. */
+	private static final String OR = "OR";
+
+	/** The posting lists by word. */
+	private final Map<String, Postings> postings = new HashMap<>();
+
+	/** The number of records indexed, including records without words. */
+	private int documents;
+
+	/**
+	 * Indexes the name of the next record. Records are numbered in the order they
+	 * are added, starting at zero.
+	 *
+	 * @param name the name of the record
+	 * @return the record number
+	 */
+	public int add(String name) {
+		int document = documents++;
+		for (String word : tokenize(name)) {
+			postings.computeIfAbsent(word, w -> new Postings()).add(document);
+		}
+		return document;
+	}
+
+	/**
+	 * Retrieves the number of records indexed.
+	 *
+	 * @return the record count
+	 */
+	public int size() {
+		return documents;
+	}
+
+	/**
+	 * Retrieves the number of distinct words indexed.
+	 *
+	 * @return the word count
+	 */
+	public int words() {
+		return postings.size();
+	}
+
+	/**
+	 * Finds the records matching a query: every word of an alternative must occur
+	 * in the name, and alternatives are separated by OR.
+	 *
+	 * @param query the query
+	 * @return the matching record numbers in ascending order
+	 */
+	public int[] search(String query) {
+		int[] result = new int[0];
+		List<String> alternative = new ArrayList<>();
+		for (String part : query.trim().split("\\s+")) {
+			if (part.equals(OR)) {
+				result = union(result, all(alternative));
+				alternative.clear();
+			} else {
+				alternative.addAll(tokenize(part));
+			}
+		}
+		return union(result, all(alternative));
+	}
+
+	/**
+	 * Finds the records whose names contain all the given words.
+	 *
+	 * @param words the folded words
+	 * @return the matching record numbers in ascending order
+	 */
+	public int[] all(List<String> words) {
+		if (words.isEmpty()) {
+			return new int[0];
+		}
+		Postings[] lists = new Postings[words.size()];
+		for (int i = 0; i < lists.length; i++) {
+			lists[i] = postings.get(words.get(i));
+			if (lists[i] == null) {
+				return new int[0];
+			}
+		}
+		Arrays.sort(lists, (a, b) -> Integer.compare(a.count, b.count));
+
+		int[] result = lists[0].decode();
+		for (int l = 1; l < lists.length && result.length > 0; l++) {
+			result = lists[l].intersect(result);
+		}
+		return result;
+	}
+
+	/**
+	 * Finds the records whose names contain any of the given words.
+	 *
+	 * @param words the folded words
+	 * @return the matching record numbers in ascending order
+	 */
+	public int[] any(List<String> words) {
+		int[] result = new int[0];
+		for (String word : words) {
+			Postings list = postings.get(word);
+			if (list != null) {
+				result = union(result, list.decode());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Splits a name into its words, folded to lower case.
+	 *
+	 * @param name the name
+	 * @return the words in order of appearance, possibly repeated
+	 */
+	public static List<String> tokenize(String name) {
+		List<String> words = new ArrayList<>();
+		if (name == null) {
+			return words;
+		}
+		int start = -1;
+		for (int i = 0; i <= name.length(); i++) {
+			boolean wordChar = i < name.length() && Character.isLetterOrDigit(name.charAt(i));
+			if (wordChar && start < 0) {
+				start = i;
+			} else if (!wordChar && start >= 0) {
+				words.add(name.substring(start, i).toLowerCase(Locale.ROOT));
+				start = -1;
+			}
+		}
+		return words;
+	}
+
+	/**
+	 * Opens the index of a data file, rebuilding and saving it from the guest
+	 * image when it is missing or stale.
+	 *
+	 * @param dataFile the name of the recipe or meal data file
+	 * @param kind     the kind of records in the data file
+	 * @return the index, or null if neither the index nor the data could be read
+	 */
+	public static FullTextIndex open(String dataFile, GuestDataImage.Kind kind) {
+		File source = new File(dataFile);
+		File file = new File(dataFile.concat(SUFFIX));
+		try {
+			FullTextIndex index = read(file, source, true);
+			if (index != null) {
+				return index;
+			}
+		} catch (IOException e) {
+			Log.LOGGER.warn("Error reading search index, rebuilding it: {}", e.getMessage());
+		}
+
+		GuestDataImage image = GuestDataImage.open(dataFile, kind);
+		if (image == null) {
+			return null;
+		}
+		FullTextIndex index = new FullTextIndex();
+		for (int i = 0; i < image.size(); i++) {
+			index.add(image.getName(i));
+		}
+		if (source.isFile()) {
+			index.saveQuietly(file, source);
+		}
+		return index;
+	}
+
+	/**
+	 * Appends a record that was just added at the end of a data file to its saved
+	 * index, so the index stays current without being rebuilt. If the saved index
+	 * does not hold exactly the records before it, it is deleted and rebuilt by
+	 * the next open.
+	 *
+	 * @param dataFile the name of the data file the record was added to
+	 * @param document the record number of the new record
+	 * @param name     the name of the new record
+	 */
+	public static void append(String dataFile, int document, String name) {
+		File source = new File(dataFile);
+		File file = new File(dataFile.concat(SUFFIX));
+		FullTextIndex index = null;
+		try {
+			index = read(file, source, false);
+		} catch (IOException e) {
+			Log.LOGGER.warn("Error reading search index, rebuilding it: {}", e.getMessage());
+		}
+		if (index == null || index.documents != document) {
+			if (file.exists() && !file.delete()) {
+				Log.LOGGER.warn("Could not delete stale search index {}", file);
+			}
+			return;
+		}
+		index.add(name);
+		index.saveQuietly(file, source);
+	}
+
+	/**
+	 * Saves the index stamped with its data file, logging failures; a missing
+	 * index is simply rebuilt later.
+	 *
+	 * @param file   the index file
+	 * @param source the data file
+	 */
+	private void saveQuietly(File file, File source) {
+		try {
+			save(file, SourceStamp.take(source));
+		} catch (IOException e) {
+			Log.LOGGER.warn("Error saving search index: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Writes the index to a file through a temporary file.
+	 *
+	 * @param file  the index file
+	 * @param stamp the stamp of the data file
+	 * @throws IOException if the index cannot be written
+	 */
+	void save(File file, SourceStamp stamp) throws IOException {
+		File temp = new File(file.getPath() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(temp), 1 << 16))) {
+			out.writeInt(MAGIC);
+			out.writeByte(VERSION);
+			stamp.write(out);
+			out.writeInt(documents);
+			out.writeInt(postings.size());
+			for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+				Postings list = entry.getValue();
+				out.writeUTF(entry.getKey());
+				out.writeInt(list.count);
+				out.writeInt(list.last);
+				out.writeInt(list.length);
+				out.write(list.bytes, 0, list.length);
+			}
+		}
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Reads a saved index.
+	 *
+	 * @param file       the index file
+	 * @param source     the data file
+	 * @param checkStamp whether an index stamped with another version of the data
+	 *                   file counts as missing
+	 * @return the index, or null if it is missing or stale
+	 * @throws IOException if the index cannot be read
+	 */
+	static FullTextIndex read(File file, File source, boolean checkStamp) throws IOException {
+		if (!file.isFile()) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+			if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+				return null;
+			}
+			SourceStamp stamp = SourceStamp.read(in);
+			if (checkStamp && !stamp.validate(file, 5, source)) {
+				return null;
+			}
+
+			FullTextIndex index = new FullTextIndex();
+			index.documents = in.readInt();
+			int words = in.readInt();
+			for (int i = 0; i < words; i++) {
+				String word = in.readUTF();
+				Postings list = new Postings();
+				list.count = in.readInt();
+				list.last = in.readInt();
+				list.length = in.readInt();
+				list.bytes = new byte[Math.max(list.length, 4)];
+				in.readFully(list.bytes, 0, list.length);
+				index.postings.put(word, list);
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * Merges two ascending arrays of record numbers without duplicates.
+	 *
+	 * @param a the first array
+	 * @param b the second array
+	 * @return the ascending union
+	 */
+	private static int[] union(int[] a, int[] b) {
+		if (a.length == 0) {
+			return b;
+		}
+		if (b.length == 0) {
+			return a;
+		}
+		int[] merged = new int[a.length + b.length];
+		int i = 0;
+		int j = 0;
+		int n = 0;
+		while (i < a.length || j < b.length) {
+			if (j == b.length || (i < a.length && a[i] < b[j])) {
+				merged[n++] = a[i++];
+			} else if (i == a.length || b[j] < a[i]) {
+				merged[n++] = b[j++];
+			} else {
+				merged[n++] = a[i++];
+				j++;
+			}
+		}
+		return Arrays.copyOf(merged, n);
+	}
+
+	/**
+	 * The ascending record numbers of the names containing one word, stored as
+	 * varint-encoded gaps.
+	 */
+	private static final class Postings {
+
+		/** The encoded gaps. */
+		byte[] bytes = new byte[4];
+
+		/** The number of encoded bytes. */
+		int length;
+
+		/** The number of record numbers. */
+		int count;
+
+		/** The last record number added, or -1. */
+		int last = -1;
+
+		/**
+		 * Appends a record number; repeated words of one name are stored once.
+		 *
+		 * @param document the record number, not smaller than the last one
+		 */
+		void add(int document) {
+			if (document == last) {
+				return;
+			}
+			if (length + 5 > bytes.length) {
+				bytes = Arrays.copyOf(bytes, Math.max(length + 5, bytes.length * 2));
+			}
+			int gap = document - last;
+			while ((gap & ~0x7F) != 0) {
+				bytes[length++] = (byte) ((gap & 0x7F) | 0x80);
+				gap >>>= 7;
+			}
+			bytes[length++] = (byte) gap;
+			last = document;
+			count++;
+		}
+
+		/**
+		 * Decodes all record numbers.
+		 *
+		 * @return the ascending record numbers
+		 */
+		int[] decode() {
+			int[] documents = new int[count];
+			int position = 0;
+			int document = -1;
+			for (int i = 0; i < count; i++) {
+				int gap = 0;
+				int shift = 0;
+				byte b;
+				do {
+					b = bytes[position++];
+					gap |= (b & 0x7F) << shift;
+					shift += 7;
+				} while (b < 0);
+				document += gap;
+				documents[i] = document;
+			}
+			return documents;
+		}
+
+		/**
+		 * Keeps the record numbers of an ascending array that are also in this list,
+		 * decoding the list once alongside it.
+		 *
+		 * @param documents the ascending record numbers
+		 * @return the ascending intersection
+		 */
+		int[] intersect(int[] documents) {
+			int[] kept = new int[documents.length];
+			int n = 0;
+			int position = 0;
+			int document = -1;
+			int decoded = 0;
+			for (int candidate : documents) {
+				while (document < candidate && decoded < count) {
+					int gap = 0;
+					int shift = 0;
+					byte b;
+					do {
+						b = bytes[position++];
+						gap |= (b & 0x7F) << shift;
+						shift += 7;
+					} while (b < 0);
+					document += gap;
+					decoded++;
+				}
+				if (document == candidate) {
+					kept[n++] = candidate;
+				} else if (document < candidate) {
+					break;
+				}
+			}
+			return Arrays.copyOf(kept, n);
+		}
+	}
+}
@@ -0,0 +1,491 @@
+/**
+ * Package containing classes related to name lookups.
+ */
+package com.turankanbur.calculator;
+
+/**
+ * Provides an implementation of the List interface backed by an array.
+ */
+import java.util.ArrayList;
+
+/**
+ * Provides utility methods for growing and sorting the posting arrays.
+ */
+import java.util.Arrays;
+
+/**
+ * Provides the map from trigrams to their posting lists.
+ */
+import java.util.HashMap;
+
+/**
+ * Provides functionality for storing and manipulating collections of objects.
+ */
+import java.util.List;
+
+/**
+ * Provides the locale used to fold names to lower case.
+ */
+import java.util.Locale;
+
+/**
+ * Provides the interface of key-value mappings.
+ */
+import java.util.Map;
+
+/**
+ * A typo-tolerant name index for suggesting the entries nearest to a misspelt
+ * name. Every name is split into its trigrams (three-character substrings of
+ * the name padded with two leading and one trailing space), and each trigram
+ * maps to the sorted list of entries containing it.
+ *
+ * A query first counts the trigrams every entry shares with the query. An edit
+ * changes at most three trigrams, so an entry within edit distance k of the
+ * query shares all but 3k of the trigrams of either string; only entries
+ * meeting that bound are verified with a banded Levenshtein distance that stops
+ * as soon as the distance exceeds k. The rarest trigrams are read in full and
+ * the most common ones only probed by binary search for the candidates already
+ * found, so a query touches a small part of the index even over a catalog of a
+ * million names.
+ *
+ * Suggestions are ranked by edit distance, then by trigram similarity and then
+ * alphabetically. Names are compared ignoring case. Removed entries are left
+ * in the posting lists and skipped. The index is not thread-safe.
+ *
+ * @param <T> the type of the entries
+ */
+public class FuzzyNameIndex<T> {
+
+	/** The largest edit distance a suggestion may have. */
+	public static final int MAX_DISTANCE = 2;
+
+	/** The padding placed before a name when splitting it into trigrams. */
+	private static final String PREFIX = "  ";
+
+	/** The padding placed after a name when splitting it into trigrams. */
+	private static final String SUFFIX = " ";
+
+	/** The posting lists by trigram. */
+	private final Map<Long, Postings> postings = new HashMap<>();
+
+	/** The folded names by entry number. */
+	private String[] names = new String[16];
+
+	/** The entries by entry number, null once removed. */
+	private Object[] values = new Object[16];
+
+	/** The number of distinct trigrams of each name, by entry number. */
+	private short[] gramCounts = new short[16];
+
+	/** The number of entry numbers handed out, including removed entries. */
+	private int count;
+
+	/** The number of entries. */
+	private int size;
+
+	/** The shared-trigram counts of the current query, by entry number. */
+	private int[] shared = new int[0];
+
+	/** The previous row of the edit distance computation. */
+	private int[] previousRow = new int[32];
+
+	/** The current row of the edit distance computation. */
+	private int[] currentRow = new int[32];
+
+	/**
+	 * Adds an entry under a name.
+	 *
+	 * @param name  the name of the entry
+	 * @param value the entry
+	 */
+	public void add(String name, T value) {
+		if (count == names.length) {
+			names = Arrays.copyOf(names, count * 2);
+			values = Arrays.copyOf(values, count * 2);
+			gramCounts = Arrays.copyOf(gramCounts, count * 2);
+		}
+		int id = count++;
+		String key = fold(name);
+		names[id] = key;
+		values[id] = value;
+		size++;
+
+		// Entry numbers only grow, so appending keeps every posting list sorted
+		long[] grams = trigrams(key);
+		int distinct = 0;
+		for (int i = 0; i < grams.length; i++) {
+			if (indexOf(grams, grams[i], i) < 0) {
+				postings.computeIfAbsent(grams[i], gram -> new Postings()).add(id);
+				distinct++;
+			}
+		}
+		gramCounts[id] = (short) Math.min(distinct, Short.MAX_VALUE);
+	}
+
+	/**
+	 * Removes an entry added under a name.
+	 *
+	 * @param name  the name the entry was added under
+	 * @param value the entry
+	 * @return true if the entry was found and removed
+	 */
+	public boolean remove(String name, T value) {
+		String key = fold(name);
+		for (int id = count - 1; id >= 0; id--) {
+			if (values[id] != null && (values[id] == value || values[id].equals(value)) && names[id].equals(key)) {
+				values[id] = null;
+				size--;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Retrieves the entries nearest to a name, ranked by similarity. The allowed
+	 * edit distance grows with the length of the name, from one for names of up
+	 * to seven characters to MAX_DISTANCE for longer ones.
+	 *
+	 * @param name  the misspelt name
+	 * @param limit the maximum number of entries to return
+	 * @return the nearest entries, best first
+	 */
+	public List<T> suggest(String name, int limit) {
+		String key = fold(name);
+		return suggest(name, limit, Math.min(MAX_DISTANCE, Math.max(1, key.length() / 4)));
+	}
+
+	/**
+	 * Retrieves the entries within an edit distance of a name, ranked by
+	 * similarity.
+	 *
+	 * @param name        the misspelt name
+	 * @param limit       the maximum number of entries to return
+	 * @param maxDistance the largest edit distance of a suggestion
+	 * @return the nearest entries, best first
+	 */
+	@SuppressWarnings("unchecked")
+	public List<T> suggest(String name, int limit, int maxDistance) {
+		String key = fold(name);
+		long[] grams = distinct(trigrams(key));
+		if (limit <= 0 || key.isEmpty() || size == 0) {
+			return new ArrayList<>(0);
+		}
+
+		// Read the rarest posting lists first
+		Postings[] lists = new Postings[grams.length];
+		int found = 0;
+		for (long gram : grams) {
+			Postings list = postings.get(gram);
+			if (list != null) {
+				lists[found++] = list;
+			}
+		}
+		lists = Arrays.copyOf(lists, found);
+		Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+
+		// Entries sharing fewer trigrams cannot be within the distance; an entry
+		// missing from all of the first (found - threshold + 1) lists shares at
+		// most threshold - 1, so only those lists need to be read in full
+		int threshold = Math.max(1, grams.length - 3 * maxDistance);
+		if (found < threshold) {
+			return new ArrayList<>(0);
+		}
+		if (shared.length < count) {
+			shared = new int[Math.max(count, shared.length * 2)];
+		}
+		int[] candidates = new int[16];
+		int candidateCount = 0;
+		int scanned = found - threshold + 1;
+		for (int l = 0; l < scanned; l++) {
+			Postings list = lists[l];
+			for (int p = 0; p < list.size; p++) {
+				int id = list.ids[p];
+				if (shared[id]++ == 0) {
+					if (candidateCount == candidates.length) {
+						candidates = Arrays.copyOf(candidates, candidateCount * 2);
+					}
+					candidates[candidateCount++] = id;
+				}
+			}
+		}
+		Arrays.sort(candidates, 0, candidateCount);
+		for (int l = scanned; l < found; l++) {
+			// Drop the candidates that can no longer reach the bound before probing
+			int remaining = found - l;
+			int kept = 0;
+			for (int c = 0; c < candidateCount; c++) {
+				int id = candidates[c];
+				if (shared[id] + remaining >= required(id, grams.length, maxDistance)) {
+					candidates[kept++] = id;
+				} else {
+					shared[id] = 0;
+				}
+			}
+			candidateCount = kept;
+
+			Postings list = lists[l];
+			int from = 0;
+			if (list.size <= candidateCount * 8) {
+				// Comparable sizes: merging the two sorted arrays is cheaper than searching
+				for (int c = 0; c < candidateCount && from < list.size; c++) {
+					while (from < list.size && list.ids[from] < candidates[c]) {
+						from++;
+					}
+					if (from < list.size && list.ids[from] == candidates[c]) {
+						shared[candidates[c]]++;
+					}
+				}
+			} else {
+				for (int c = 0; c < candidateCount; c++) {
+					// Candidates are in ascending order, so each search starts after the last
+					int at = Arrays.binarySearch(list.ids, from, list.size, candidates[c]);
+					if (at >= 0) {
+						shared[candidates[c]]++;
+						from = at + 1;
+					} else {
+						from = -at - 1;
+					}
+				}
+			}
+		}
+
+		// Verify the candidates that meet the bound and keep the best few
+		List<Suggestion> suggestions = new ArrayList<>();
+		for (int c = 0; c < candidateCount; c++) {
+			int id = candidates[c];
+			int common = shared[id];
+			shared[id] = 0;
+			if (common < required(id, grams.length, maxDistance) || values[id] == null) {
+				continue;
+			}
+			String candidate = names[id];
+			if (Math.abs(candidate.length() - key.length()) > maxDistance) {
+				continue;
+			}
+			if (currentRow.length <= candidate.length()) {
+				previousRow = new int[candidate.length() * 2];
+				currentRow = new int[candidate.length() * 2];
+			}
+			int distance = distance(key, candidate, maxDistance, previousRow, currentRow);
+			if (distance <= maxDistance) {
+				int union = grams.length + gramCounts[id] - common;
+				suggestions.add(new Suggestion(id, distance, (double) common / union));
+			}
+		}
+		suggestions.sort((a, b) -> {
+			if (a.distance != b.distance) {
+				return Integer.compare(a.distance, b.distance);
+			}
+			if (a.similarity != b.similarity) {
+				return Double.compare(b.similarity, a.similarity);
+			}
+			return names[a.id].compareTo(names[b.id]);
+		});
+
+		List<T> nearest = new ArrayList<>(Math.min(limit, suggestions.size()));
+		for (int i = 0; i < suggestions.size() && nearest.size() < limit; i++) {
+			nearest.add((T) values[suggestions.get(i).id]);
+		}
+		return nearest;
+	}
+
+	/**
+	 * Retrieves the number of entries.
+	 *
+	 * @return the entry count
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Computes the number of trigrams an entry must share with the query to be
+	 * within the distance. The bound holds for the trigrams of either string, so
+	 * the larger of the two counts gives the tighter bound.
+	 *
+	 * @param id          the entry number
+	 * @param queryGrams  the number of distinct trigrams of the query
+	 * @param maxDistance the largest edit distance of a suggestion
+	 * @return the smallest number of shared trigrams
+	 */
+	private int required(int id, int queryGrams, int maxDistance) {
+		return Math.max(1, Math.max(queryGrams, gramCounts[id]) - 3 * maxDistance);
+	}
+
+	/**
+	 * Computes the Levenshtein distance between two strings, giving up as soon as
+	 * it exceeds a bound. Only the diagonal band of width 2 * max + 1 is filled.
+	 *
+	 * @param a   the first string
+	 * @param b   the second string
+	 * @param max the bound
+	 * @return the distance, or max + 1 if it exceeds the bound
+	 */
+	static int distance(String a, String b, int max) {
+		int n = a.length();
+		int m = b.length();
+		if (Math.abs(n - m) > max) {
+			return max + 1;
+		}
+		return distance(a, b, max, new int[m + 1], new int[m + 1]);
+	}
+
+	/**
+	 * Computes the bounded Levenshtein distance between two strings in the given
+	 * row arrays, so that verifying many candidates does not allocate.
+	 *
+	 * @param a        the first string
+	 * @param b        the second string, no longer than the rows allow
+	 * @param max      the bound
+	 * @param previous a row of at least b.length() + 1 elements
+	 * @param current  another row of at least b.length() + 1 elements
+	 * @return the distance, or max + 1 if it exceeds the bound
+	 */
+	private static int distance(String a, String b, int max, int[] previous, int[] current) {
+		int n = a.length();
+		int m = b.length();
+		int outside = max + 1;
+		for (int j = 0; j <= m; j++) {
+			previous[j] = j <= max ? j : outside;
+		}
+		for (int i = 1; i <= n; i++) {
+			int from = Math.max(1, i - max);
+			int to = Math.min(m, i + max);
+			current[0] = i <= max ? i : outside;
+			if (from > 1) {
+				current[from - 1] = outside;
+			}
+			int best = current[0];
+			char c = a.charAt(i - 1);
+			for (int j = from; j <= to; j++) {
+				int cost = c == b.charAt(j - 1) ? 0 : 1;
+				int value = Math.min(previous[j - 1] + cost, Math.min(previous[j], current[j - 1]) + 1);
+				current[j] = Math.min(value, outside);
+				best = Math.min(best, current[j]);
+			}
+			if (to < m) {
+				current[to + 1] = outside;
+			}
+			if (best > max) {
+				return outside;
+			}
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		return previous[m];
+	}
+
+	/**
+	 * Splits a folded name into its padded trigrams, each packed into a long.
+	 *
+	 * @param key the folded name
+	 * @return the trigrams, possibly repeated
+	 */
+	private static long[] trigrams(String key) {
+		String padded = PREFIX + key + SUFFIX;
+		long[] grams = new long[padded.length() - 2];
+		for (int i = 0; i < grams.length; i++) {
+			grams[i] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+		}
+		return grams;
+	}
+
+	/**
+	 * Removes the repeated trigrams of a name.
+	 *
+	 * @param grams the trigrams
+	 * @return the distinct trigrams
+	 */
+	private static long[] distinct(long[] grams) {
+		long[] sorted = grams.clone();
+		Arrays.sort(sorted);
+		int n = 0;
+		for (int i = 0; i < sorted.length; i++) {
+			if (i == 0 || sorted[i] != sorted[i - 1]) {
+				sorted[n++] = sorted[i];
+			}
+		}
+		return Arrays.copyOf(sorted, n);
+	}
+
+	/**
+	 * Finds a trigram among the first elements of an array.
+	 *
+	 * @param grams the trigrams
+	 * @param gram  the trigram to find
+	 * @param end   the number of elements to search
+	 * @return the index of the trigram, or -1
+	 */
+	private static int indexOf(long[] grams, long gram, int end) {
+		for (int i = 0; i < end; i++) {
+			if (grams[i] == gram) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Folds a name to the case-insensitive form the index is keyed by.
+	 *
+	 * @param name the name
+	 * @return the folded name
+	 */
+	private static String fold(String name) {
+		return name == null ? "" : name.toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * The sorted entry numbers of the names containing one trigram.
+	 */
+	private static final class Postings {
+
+		/** The entry numbers in ascending order. */
+		int[] ids = new int[4];
+
+		/** The number of entry numbers. */
+		int size;
+
+		/**
+		 * Appends an entry number larger than all present.
+		 *
+		 * @param id the entry number
+		 */
+		void add(int id) {
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, size * 2);
+			}
+			ids[size++] = id;
+		}
+	}
+
+	/**
+	 * A verified candidate with its rank keys.
+	 */
+	private static final class Suggestion {
+
+		/** The entry number. */
+		final int id;
+
+		/** The edit distance to the query. */
+		final int distance;
+
+		/** The shared trigrams over all trigrams of the query and the name. */
+		final double similarity;
+
+		/**
+		 * Constructs a suggestion.
+		 *
+		 * @param id         the entry number
+		 * @param distance   the edit distance to the query
+		 * @param similarity the trigram similarity to the query
+		 */
+		Suggestion(int id, int distance, double similarity) {
+			this.id = id;
+			this.distance = distance;
+			this.similarity = similarity;
+		}
+	}
+}
@@ -0,0 +1,756 @@
+/**
+ * Package containing classes related to read-only access of the persisted catalog data.
+ */
+package com.turankanbur.calculator;
+
+/**
+ * Provides functionality for buffering bytes written to an output stream.
+ */
+import java.io.BufferedOutputStream;
+
+/**
+ * Signals that a stream or resource can be closed.
+ */
+import java.io.Closeable;
+
+/**
+ * Provides functionality for writing primitive values to an output stream.
+ */
+import java.io.DataOutputStream;
+
+/**
+ * Provides an abstraction for file and directory pathnames.
+ */
+import java.io.File;
+
+/**
+ * Provides functionality for writing bytes to a file output stream.
+ */
+import java.io.FileOutputStream;
+
+/**
+ * Provides functionality for handling input/output (I/O) operations.
+ */
+import java.io.IOException;
+
+/**
+ * Provides functionality for reading and writing at arbitrary file positions.
+ */
+import java.io.RandomAccessFile;
+
+/**
+ * Provides a buffer of bytes used to read the mapped image.
+ */
+import java.nio.ByteBuffer;
+
+/**
+ * Provides a channel for reading, writing and mapping a file.
+ */
+import java.nio.channels.FileChannel;
+
+/**
+ * Provides options for moving files atomically.
+ */
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Provides file system utility methods.
+ */
+import java.nio.file.Files;
+
+/**
+ * Provides an implementation of the List interface backed by an array.
+ */
+import java.util.ArrayList;
+
+/**
+ * Provides utility methods for arrays, such as sorting and searching.
+ */
+import java.util.Arrays;
+
+/**
+ * Provides a set that keeps insertion order.
+ */
+import java.util.LinkedHashSet;
+
+/**
+ * Provides functionality for storing and manipulating collections of objects.
+ */
+import java.util.List;
+
+/**
+ * Provides a collection that contains no duplicate elements.
+ */
+import java.util.Set;
+
+/**
+ * Provides the logging interface used for diagnostics.
+ */
+import org.slf4j.Logger;
+
+/**
+ * Provides the factory that creates loggers.
+ */
+import org.slf4j.LoggerFactory;
+
+/**
+ * A read-only, memory-mapped image of one of the data files (ingredients, recipes
+ * or meals). The image is a flat record region followed by an offset table and a
+ * sorted name-hash index, so guest screens can list and look up entries straight
+ * from the mapped bytes without running the ObjectInputStream load or building
+ * entity objects.
+ *
+ * The image is stored next to its source file with the ".img" suffix and records
+ * a SourceStamp of the source it was built from, so opening it costs no read of
+ * the source unless the source was written moments before the image. When the
+ * source changes the image is rebuilt once on the next open.
+ */
+public final class GuestDataImage {
+
+	/**
+	 * Holds the logger for diagnostics. It is only created on the first error, so
+	 * the one-shot command line queries that open images do not pay for the
+	 * logging startup.
+	 */
+	private static final class Log {
+
+		/** Logger for diagnostics. */
+		static final Logger LOGGER = LoggerFactory.getLogger(GuestDataImage.class);
+	}
+
+	/**
+	 * The kind of data file an image is built from.
+	 */
+	public enum Kind {
+		/** Image of an ingredients file. */
+		INGREDIENTS,
+		/** Image of a recipes file. */
+		RECIPES,
+		/** Image of a meals file. */
+		MEALS
+	}
+
+	/** Magic number identifying an image file ("RCGI"). */
+	private static final int MAGIC = 0x52434749;
+
+	/** Version of the image layout. */
+	private static final byte VERSION = 4;
+
+	/** The units by ordinal, for decoding unit bytes. */
+	private static final Unit[] UNITS = Unit.values();
+
+	/** Size of the fixed header in bytes. */
+	private static final int HEADER_SIZE = 24 + SourceStamp.SIZE;
+
+	/** Suffix appended to the source file name to form the image file name. */
+	public static final String SUFFIX = ".img";
+
+	/** The kind of records stored in this image. */
+	private final Kind kind;
+
+	/** The mapped image bytes; only absolute reads are used. */
+	private final ByteBuffer buffer;
+
+	/** The number of records in the image. */
+	private final int count;
+
+	/** Position of the record offset table. */
+	private final int offsetsPos;
+
+	/** Position of the sorted name-hash index. */
+	private final int indexPos;
+
+	/**
+	 * Constructs an image view over the given buffer.
+	 *
+	 * @param kind       the kind of records stored in the image
+	 * @param buffer     the image bytes
+	 * @param count      the number of records
+	 * @param offsetsPos the position of the offset table
+	 * @param indexPos   the position of the name-hash index
+	 */
+	private GuestDataImage(Kind kind, ByteBuffer buffer, int count, int offsetsPos, int indexPos) {
+		this.kind = kind;
+		this.buffer = buffer;
+		this.count = count;
+		this.offsetsPos = offsetsPos;
+		this.indexPos = indexPos;
+	}
+
+	/**
+	 * Opens the image for the given data file, building or rebuilding it from the
+	 * source when it is missing or stale. A missing source file yields an empty
+	 * image.
+	 *
+	 * @param sourceFile the name of the data file
+	 * @param kind       the kind of records stored in the data file
+	 * @return the opened image, or null if the image could not be built
+	 */
+	public static GuestDataImage open(String sourceFile, Kind kind) {
+		File source = new File(sourceFile);
+		if (!source.isFile()) {
+			return new GuestDataImage(kind, ByteBuffer.allocate(0), 0, 0, 0);
+		}
+
+		File image = new File(sourceFile.concat(SUFFIX));
+		try {
+			GuestDataImage mapped = map(image, kind, source);
+			if (mapped != null) {
+				return mapped;
+			}
+			rebuild(source, image, kind);
+			return map(image, kind, source);
+		} catch (IOException e) {
+			Log.LOGGER.warn("Error opening guest image: {}", e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Maps an existing image file if it is valid for the given source.
+	 *
+	 * @param image  the image file
+	 * @param kind   the expected kind of records
+	 * @param source the source data file
+	 * @return the mapped image, or null if it is missing or stale
+	 * @throws IOException if the image cannot be read
+	 */
+	private static GuestDataImage map(File image, Kind kind, File source) throws IOException {
+		if (!image.isFile() || image.length() < HEADER_SIZE) {
+			return null;
+		}
+
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(image.toPath())) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+
+		if (buffer.getInt(0) != MAGIC || buffer.get(4) != VERSION || buffer.get(5) != kind.ordinal()
+				|| !SourceStamp.read(buffer, 24).validate(image, 24, source)) {
+			return null;
+		}
+		return new GuestDataImage(kind, buffer, buffer.getInt(8), buffer.getInt(12), buffer.getInt(16));
+	}
+
+	/**
+	 * Rebuilds the image from its source by loading the source once.
+	 *
+	 * @param source the source data file
+	 * @param image  the image file to write
+	 * @param kind   the kind of records stored in the source
+	 * @throws IOException if the image cannot be written
+	 */
+	private static void rebuild(File source, File image, Kind kind) throws IOException {
+		// Capture the stamp before loading so a concurrent write leaves the image stale
+		SourceStamp stamp = SourceStamp.take(source);
+		String fileName = source.getPath();
+
+		Writer writer = new Writer(image, kind, stamp);
+		boolean completed = false;
+		try {
+			switch (kind) {
+			case INGREDIENTS:
+				IngredientManagement management = new IngredientManagement("null", 0);
+				management.loadFromFile(fileName);
+				for (Ingredient ingredient : management.getIngredients()) {
+					writer.addIngredient(ingredient);
+				}
+				break;
+			case RECIPES:
+				for (Recipe recipe : RecipeManagement.loadFromFile(fileName)) {
+					writer.addRecipe(recipe);
+				}
+				break;
+			case MEALS:
+				for (Meal meal : new MealManagement().loadMealsFromFile(fileName)) {
+					writer.addMeal(meal);
+				}
+				break;
+			}
+			completed = true;
+		} finally {
+			if (completed) {
+				writer.close();
+			} else {
+				writer.discard();
+			}
+		}
+	}
+
+	/**
+	 * Retrieves the kind of records stored in this image.
+	 *
+	 * @return the kind of records
+	 */
+	public Kind getKind() {
+		return kind;
+	}
+
+	/**
+	 * Retrieves the number of records in this image.
+	 *
+	 * @return the number of records
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Retrieves the name of a record.
+	 *
+	 * @param record the record number
+	 * @return the name of the record
+	 */
+	public String getName(int record) {
+		return readUtf(recordOffset(record));
+	}
+
+	/**
+	 * Retrieves the price of an ingredient record.
+	 *
+	 * @param record the record number
+	 * @return the price of the ingredient
+	 */
+	public int getPrice(int record) {
+		return buffer.getInt(skipUtf(recordOffset(record)));
+	}
+
+	/**
+	 * Retrieves the total cost of a recipe or meal record.
+	 *
+	 * @param record the record number
+	 * @return the total cost
+	 */
+	public double getTotalCost(int record) {
+		return buffer.getDouble(skipUtf(recordOffset(record)));
+	}
+
+	/**
+	 * Finds a record by name, ignoring case, using the sorted name-hash index. When
+	 * several records share the name the first one in file order is returned.
+	 *
+	 * @param name the name to look up
+	 * @return the record number, or -1 if no record has the name
+	 */
+	public int find(String name) {
+		if (count == 0 || name == null) {
+			return -1;
+		}
+
+		int hash = foldHash(name);
+		long key = (long) hash << 32;
+		int low = 0;
+		int high = count;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (buffer.getLong(indexPos + mid * 8) < key) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+
+		for (int i = low; i < count; i++) {
+			long entry = buffer.getLong(indexPos + i * 8);
+			if ((int) (entry >> 32) != hash) {
+				break;
+			}
+			int record = (int) entry;
+			if (getName(record).equalsIgnoreCase(name)) {
+				return record;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Retrieves the ingredient lines of a recipe record, with the prices they had
+	 * when the recipe was created.
+	 *
+	 * @param record the record number of a recipe
+	 * @return the ingredients of the recipe
+	 */
+	public List<Ingredient> getIngredients(int record) {
+		int pos = skipUtf(recordOffset(record)) + 8;
+		int lines = buffer.getInt(pos);
+		pos += 4;
+		List<Ingredient> ingredients = new ArrayList<>(lines);
+		for (int i = 0; i < lines; i++) {
+			String name = readUtf(pos);
+			pos = skipUtf(pos);
+			ingredients.add(new Ingredient(name, buffer.getInt(pos), unit(pos + 4)));
+			pos += 5;
+		}
+		return ingredients;
+	}
+
+	/**
+	 * Retrieves the recipe names of a meal record.
+	 *
+	 * @param record the record number of a meal
+	 * @return the names of the recipes of the meal
+	 */
+	public List<String> getRecipeNames(int record) {
+		int pos = skipUtf(recordOffset(record)) + 8;
+		int recipes = buffer.getInt(pos);
+		pos += 4;
+		List<String> names = new ArrayList<>(recipes);
+		for (int i = 0; i < recipes; i++) {
+			names.add(readUtf(pos));
+			pos = skipUtf(pos);
+		}
+		return names;
+	}
+
+	/**
+	 * Lists all ingredients in the same format as IngredientManagement.listIngredients.
+	 */
+	public void listIngredients() {
+		if (count == 0) {
+			System.out.println("No ingredients found to list.");
+			return;
+		}
+
+		for (int i = 0; i < count; i++) {
+			int pos = recordOffset(i);
+			String name = readUtf(pos);
+			pos = skipUtf(pos);
+			System.out.println("\n" + "Ingredient " + (i + 1) + ":");
+			System.out.println("    Name: " + name);
+			System.out.println("    Price: " + Ingredient.formatPrice(buffer.getInt(pos), unit(pos + 4)));
+			System.out.println("-------------------------\n");
+		}
+	}
+
+	/**
+	 * Lists all recipes in the same format as RecipeManagement.listRecipes.
+	 */
+	public void listRecipes() {
+		if (count == 0) {
+			System.out.println("No recipes found to list.");
+			return;
+		}
+
+		for (int i = 0; i < count; i++) {
+			int pos = recordOffset(i);
+			String name = readUtf(pos);
+			pos = skipUtf(pos);
+			double totalCost = buffer.getDouble(pos);
+			int lines = buffer.getInt(pos + 8);
+			pos += 12;
+			System.out.println("\nRecipe " + (i + 1) + ":");
+			System.out.println("    Name: " + name);
+			System.out.println("    Total Cost: " + totalCost + "$");
+			System.out.println("    Ingredients:");
+			for (int j = 0; j < lines; j++) {
+				String ingredientName = readUtf(pos);
+				pos = skipUtf(pos);
+				int price = buffer.getInt(pos);
+				Unit unit = unit(pos + 4);
+				pos += 5;
+				System.out.println("        - " + ingredientName + ": " + price + "$" + " per " + unit.getPerLabel());
+			}
+		}
+		System.out.println("-------------------------\n");
+	}
+
+	/**
+	 * Lists all meals in the same format as MealManagement.listMeals.
+	 */
+	public void listMeals() {
+		if (count == 0) {
+			System.out.println("No recipes found to list.");
+			return;
+		}
+
+		for (int i = 0; i < count; i++) {
+			int pos = recordOffset(i);
+			System.out.println("\nMeal " + (i + 1) + ":");
+			System.out.println("    Name: " + readUtf(pos));
+			System.out.println("    Total Cost: " + buffer.getDouble(skipUtf(pos)) + "$");
+		}
+		System.out.println("-------------------------\n");
+	}
+
+	/**
+	 * Retrieves the position of a record.
+	 *
+	 * @param record the record number
+	 * @return the position of the record in the image
+	 */
+	private int recordOffset(int record) {
+		if (record < 0 || record >= count) {
+			throw new IndexOutOfBoundsException("Record " + record + " out of " + count);
+		}
+		return buffer.getInt(offsetsPos + record * 4);
+	}
+
+	/**
+	 * Decodes the unit stored as an ordinal byte at the given position.
+	 *
+	 * @param pos the position of the unit
+	 * @return the unit
+	 */
+	private Unit unit(int pos) {
+		return UNITS[buffer.get(pos)];
+	}
+
+	/**
+	 * Returns the position just after the string stored at the given position.
+	 *
+	 * @param pos the position of the string length prefix
+	 * @return the position after the string
+	 */
+	private int skipUtf(int pos) {
+		return pos + 2 + (buffer.getShort(pos) & 0xFFFF);
+	}
+
+	/**
+	 * Decodes a string written with DataOutput.writeUTF at the given position.
+	 *
+	 * @param pos the position of the string length prefix
+	 * @return the decoded string
+	 */
+	private String readUtf(int pos) {
+		int length = buffer.getShort(pos) & 0xFFFF;
+		char[] chars = new char[length];
+		int end = pos + 2 + length;
+		int n = 0;
+		for (int i = pos + 2; i < end;) {
+			int b = buffer.get(i) & 0xFF;
+			if (b < 0x80) {
+				chars[n++] = (char) b;
+				i++;
+			} else if ((b & 0xE0) == 0xC0) {
+				chars[n++] = (char) (((b & 0x1F) << 6) | (buffer.get(i + 1) & 0x3F));
+				i += 2;
+			} else {
+				chars[n++] = (char) (((b & 0x0F) << 12) | ((buffer.get(i + 1) & 0x3F) << 6)
+						| (buffer.get(i + 2) & 0x3F));
+				i += 3;
+			}
+		}
+		return new String(chars, 0, n);
+	}
+
+	/**
+	 * Computes a case-folded FNV-1a hash of a name, folding characters the same way
+	 * String.equalsIgnoreCase compares them.
+	 *
+	 * @param name the name to hash
+	 * @return the hash of the name
+	 */
+	static int foldHash(String name) {
+		int hash = 0x811C9DC5;
+		for (int i = 0; i < name.length(); i++) {
+			hash ^= Character.toLowerCase(Character.toUpperCase(name.charAt(i)));
+			hash *= 0x01000193;
+		}
+		return hash;
+	}
+
+	/**
+	 * Streams records into a new image file. Records are written as they are added;
+	 * only the offset table and the index keys are kept in memory until close, when
+	 * they are appended and the file is moved into place.
+	 */
+	public static final class Writer implements Closeable {
+
+		/** The final image file. */
+		private final File target;
+
+		/** The temporary file the image is written to. */
+		private final File temp;
+
+		/** The kind of records written. */
+		private final Kind kind;
+
+		/** The stamp of the source the image is built from, or null if not yet set. */
+		private SourceStamp stamp;
+
+		/** The stream records are written to. */
+		private final DataOutputStream out;
+
+		/** The record offsets in insertion order. */
+		private int[] offsets = new int[1024];
+
+		/** The name-hash index keys (hash in the high half, record in the low half). */
+		private long[] keys = new long[1024];
+
+		/** The number of records written. */
+		private int count;
+
+		/**
+		 * Creates a writer for an image of the given source.
+		 *
+		 * @param target the image file to produce
+		 * @param kind   the kind of records to write
+		 * @param stamp  the stamp of the source file, or null to set it later
+		 * @throws IOException if the image file cannot be created
+		 */
+		Writer(File target, Kind kind, SourceStamp stamp) throws IOException {
+			this.target = target;
+			this.temp = new File(target.getPath() + ".tmp");
+			this.kind = kind;
+			this.stamp = stamp;
+			this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 1 << 16));
+			out.write(new byte[HEADER_SIZE]);
+		}
+
+		/**
+		 * Creates a writer whose source is stamped later with setSource, for images
+		 * written alongside their source file.
+		 *
+		 * @param target the image file to produce
+		 * @param kind   the kind of records to write
+		 * @throws IOException if the image file cannot be created
+		 */
+		public Writer(File target, Kind kind) throws IOException {
+			this(target, kind, null);
+		}
+
+		/**
+		 * Stamps the image with its completed source file. Must be called before
+		 * close when the source was written alongside the image.
+		 *
+		 * @param source the completed source data file
+		 * @throws IOException if the source cannot be read
+		 */
+		public void setSource(File source) throws IOException {
+			this.stamp = SourceStamp.take(source);
+		}
+
+		/**
+		 * Appends an ingredient record.
+		 *
+		 * @param ingredient the ingredient to append
+		 * @throws IOException if the record cannot be written
+		 */
+		public void addIngredient(Ingredient ingredient) throws IOException {
+			begin(ingredient.getName());
+			out.writeUTF(ingredient.getName());
+			out.writeInt(ingredient.getPrice());
+			out.writeByte(ingredient.getUnit().ordinal());
+		}
+
+		/**
+		 * Appends a recipe record.
+		 *
+		 * @param recipe the recipe to append
+		 * @throws IOException if the record cannot be written
+		 */
+		public void addRecipe(Recipe recipe) throws IOException {
+			begin(recipe.getName());
+			out.writeUTF(recipe.getName());
+			out.writeDouble(recipe.getTotalCost());
+			List<Ingredient> ingredients = recipe.getIngredients();
+			out.writeInt(ingredients.size());
+			for (Ingredient ingredient : ingredients) {
+				out.writeUTF(ingredient.getName());
+				out.writeInt(ingredient.getPrice());
+				out.writeByte(ingredient.getUnit().ordinal());
+			}
+		}
+
+		/**
+		 * Appends a meal record with its recipe names and distinct ingredient names.
+		 *
+		 * @param meal the meal to append
+		 * @throws IOException if the record cannot be written
+		 */
+		public void addMeal(Meal meal) throws IOException {
+			begin(meal.getName());
+			out.writeUTF(meal.getName());
+			out.writeDouble(meal.getTotalCost());
+			List<Recipe> recipes = meal.getRecipes();
+			Set<String> ingredientNames = new LinkedHashSet<>();
+			out.writeInt(recipes.size());
+			for (Recipe recipe : recipes) {
+				out.writeUTF(recipe.getName());
+				for (Ingredient ingredient : recipe.getIngredients()) {
+					ingredientNames.add(ingredient.getName());
+				}
+			}
+			out.writeInt(ingredientNames.size());
+			for (String ingredientName : ingredientNames) {
+				out.writeUTF(ingredientName);
+			}
+		}
+
+		/**
+		 * Records the offset and index key of the record about to be written.
+		 *
+		 * @param name the name of the record
+		 * @throws IOException if the image would exceed the mappable size
+		 */
+		private void begin(String name) throws IOException {
+			int position = out.size();
+			if (position == Integer.MAX_VALUE) {
+				throw new IOException("Guest image exceeds 2 GB: " + target);
+			}
+			if (count == offsets.length) {
+				offsets = Arrays.copyOf(offsets, count * 2);
+				keys = Arrays.copyOf(keys, count * 2);
+			}
+			offsets[count] = position;
+			keys[count] = ((long) foldHash(name) << 32) | count;
+			count++;
+		}
+
+		/**
+		 * Abandons the image, deleting the partially written temporary file.
+		 */
+		public void discard() {
+			try {
+				out.close();
+			} catch (IOException e) {
+				// The temporary file is deleted regardless
+			}
+			temp.delete();
+		}
+
+		/**
+		 * Appends the offset table and index, writes the header and moves the image
+		 * into place.
+		 *
+		 * @throws IOException if the image cannot be completed
+		 */
+		@Override
+		public void close() throws IOException {
+			int offsetsPos;
+			int indexPos;
+			try {
+				offsetsPos = out.size();
+				for (int i = 0; i < count; i++) {
+					out.writeInt(offsets[i]);
+				}
+				indexPos = out.size();
+				Arrays.sort(keys, 0, count);
+				for (int i = 0; i < count; i++) {
+					out.writeLong(keys[i]);
+				}
+				if (out.size() == Integer.MAX_VALUE) {
+					throw new IOException("Guest image exceeds 2 GB: " + target);
+				}
+			} finally {
+				out.close();
+			}
+
+			try (RandomAccessFile file = new RandomAccessFile(temp, "rw")) {
+				file.writeInt(MAGIC);
+				file.writeByte(VERSION);
+				file.writeByte(kind.ordinal());
+				file.writeShort(0);
+				file.writeInt(count);
+				file.writeInt(offsetsPos);
+				file.writeInt(indexPos);
+				file.writeInt(0);
+				if (stamp != null) {
+					stamp.write(file);
+				}
+			}
+			Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		}
+	}
+}
@@ -63,12 +63,23 @@ interface IMainIngredient{
 	 * @return the ingredient if found, or null if not found
 	 */
 	 Ingredient findIngredientByName(String name);
+
+	 /**
+	 * Removes an ingredient from the list of managed ingredients.
+	 *
+	 * @param ingredient the ingredient to remove
+	 * @return true if the ingredient was managed and has been removed
+	 */
+	 boolean removeIngredient(Ingredient ingredient);
 }
 
 
 /**
  * Represents an ingredient used in a recipe. This class provides methods to get
  * and set the name and price of the ingredient.
+ *
+ * The price is for one unit of the ingredient, a piece unless another unit is
+ * given, so recipes can measure the ingredient in any unit of the same kind.
  */
 public class Ingredient implements Serializable {
 
@@ -89,14 +100,32 @@ public class Ingredient implements Serializable {
 	private int price;
 
 	/**
-	 * Constructs an Ingredient object with the specified name and price.
+	 * The unit the price is for. Ingredients saved before units existed are read
+	 * with null, which counts as a piece.
+	 */
+	private Unit unit;
+
+	/**
+	 * Constructs an Ingredient object with the specified name and price per piece.
 	 *
 	 * @param name  the name of the ingredient
 	 * @param price the price of the ingredient
 	 */
 	public Ingredient(String name, int price) {
+		this(name, price, Unit.PIECE);
+	}
+
+	/**
+	 * Constructs an Ingredient object with the specified name and price per unit.
+	 *
+	 * @param name  the name of the ingredient
+	 * @param price the price of one unit of the ingredient
+	 * @param unit  the unit the price is for
+	 */
+	public Ingredient(String name, int price, Unit unit) {
 		this.name = name;
 		this.price = price;
+		this.unit = unit;
 	}
 
 	/**
@@ -128,4 +157,43 @@ public class Ingredient implements Serializable {
 	public void setPrice(int price) {
 		this.price = price;
 	}
+
+	/**
+	 * Retrieves the unit the price is for.
+	 *
+	 * @return the unit of the ingredient
+	 */
+	public Unit getUnit() {
+		return unit == null ? Unit.PIECE : unit;
+	}
+
+	/**
+	 * Sets the unit the price is for.
+	 *
+	 * @param unit the unit to be set
+	 */
+	public void setUnit(Unit unit) {
+		this.unit = unit;
+	}
+
+	/**
+	 * Formats the price with its unit, such as "3$" for a piece or "3$/kg".
+	 *
+	 * @return the formatted price
+	 */
+	public String getPriceLabel() {
+		return formatPrice(price, getUnit());
+	}
+
+	/**
+	 * Formats a price with its unit, such as "3$" for a piece or "3$/kg", without
+	 * needing an ingredient.
+	 *
+	 * @param price the price
+	 * @param unit  the unit the price is for
+	 * @return the formatted price
+	 */
+	public static String formatPrice(int price, Unit unit) {
+		return unit == Unit.PIECE ? price + "$" : price + "$/" + unit.getSymbol();
+	}
 }
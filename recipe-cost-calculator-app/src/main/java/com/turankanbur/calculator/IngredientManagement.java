@@ -14,6 +14,11 @@ import java.io.EOFException;
  */
 import java.io.FileInputStream;
 
+/**
+ * Signals that a data file does not exist yet.
+ */
+import java.io.FileNotFoundException;
+
 /**
  * Provides functionality for writing bytes to a file output stream.
  */
@@ -49,6 +54,16 @@ import java.util.ArrayList;
  */
 import java.util.List;
 
+/**
+ * Provides the logging interface used for diagnostics.
+ */
+import org.slf4j.Logger;
+
+/**
+ * Provides the factory that creates loggers.
+ */
+import org.slf4j.LoggerFactory;
+
 /**
  * Manages the ingredients used in recipes. This class provides methods for
  * adding, listing, editing, and loading/saving ingredients to/from a file.
@@ -62,12 +77,55 @@ public class IngredientManagement extends  Ingredient implements Serializable, I
 	 */
 	private static final long serialVersionUID = 1L;
 
+	/** Logger for diagnostics. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(IngredientManagement.class);
+
+	/** Times addIngredient calls. */
+	private static final MetricsRegistry.Timer ADD_TIMER = MetricsRegistry.timer("ingredients.add");
+
+	/** Times saveToFile calls. */
+	private static final MetricsRegistry.Timer SAVE_TIMER = MetricsRegistry.timer("ingredients.save");
+
+	/** Times loadFromFile calls. */
+	private static final MetricsRegistry.Timer LOAD_TIMER = MetricsRegistry.timer("ingredients.load");
+
+	/** Times editIngredientPrice calls. */
+	private static final MetricsRegistry.Timer EDIT_TIMER = MetricsRegistry.timer("ingredients.edit");
+
+	/** Times findIngredientByName calls. */
+	private static final MetricsRegistry.Timer FIND_TIMER = MetricsRegistry.timer("ingredients.find");
+
+	/** Counts failed ingredient file operations. */
+	private static final MetricsRegistry.Counter IO_ERRORS = MetricsRegistry.counter("ingredients.io.errors");
+
+	/** Holds the number of ingredients after the latest load or save. */
+	private static final MetricsRegistry.Gauge SIZE = MetricsRegistry.gauge("ingredients.size");
+
 	/**
 	 * Manages the ingredients used in recipes. This class provides methods for
 	 * adding, listing, editing, and loading/saving ingredients to/from a file.
 	 */
 	public List<Ingredient> ingredients;
 
+	/**
+	 * Prefix index over the ingredient names, built on the first completion and
+	 * then kept up to date by addIngredient and removeIngredient.
+	 */
+	private transient NameTrie<Ingredient> nameIndex;
+
+	/**
+	 * Trigram index over the ingredient names for suggesting near misses, built
+	 * on the first suggestion and then kept up to date like the prefix index.
+	 */
+	private transient FuzzyNameIndex<Ingredient> fuzzyIndex;
+
+	/**
+	 * Sorted index over the ingredient prices, built on the first price query and
+	 * then kept up to date by addIngredient and editIngredientPrice. It refers to
+	 * ingredients by position, so a removal drops it to be rebuilt.
+	 */
+	private transient PriceIndex priceIndex;
+
 	/**
 	 * Constructs an IngredientManagement object with the specified name and price
 	 * for the base ingredient. Initializes the list of ingredients.
@@ -90,9 +148,137 @@ public class IngredientManagement extends  Ingredient implements Serializable, I
 	 */
 	@Override
 	public void addIngredient(Ingredient ingredient, String file) {
-
+		long start = System.nanoTime();
 		ingredients.add(ingredient);
+		if (nameIndex != null) {
+			nameIndex.add(ingredient.getName(), ingredient);
+		}
+		if (fuzzyIndex != null) {
+			fuzzyIndex.add(ingredient.getName(), ingredient);
+		}
+		if (priceIndex != null) {
+			priceIndex.add(ingredients.size() - 1, ingredient.getPrice());
+		}
+		ADD_TIMER.recordSince(start);
+	}
+
+	/**
+	 * Removes an ingredient from the list of managed ingredients.
+	 *
+	 * @param ingredient the ingredient to remove
+	 * @return true if the ingredient was managed and has been removed
+	 */
+	@Override
+	public boolean removeIngredient(Ingredient ingredient) {
+		if (!ingredients.remove(ingredient)) {
+			return false;
+		}
+		if (nameIndex != null) {
+			nameIndex.remove(ingredient.getName(), ingredient);
+		}
+		if (fuzzyIndex != null) {
+			fuzzyIndex.remove(ingredient.getName(), ingredient);
+		}
+		priceIndex = null;
+		return true;
+	}
+
+	/**
+	 * Retrieves the first ingredients, in alphabetical order, whose names start
+	 * with the given prefix, ignoring case.
+	 *
+	 * @param prefix the name prefix
+	 * @param limit  the maximum number of ingredients to return
+	 * @return the matching ingredients
+	 */
+	public List<Ingredient> completeName(String prefix, int limit) {
+		if (nameIndex == null) {
+			nameIndex = new NameTrie<>();
+			for (Ingredient ingredient : ingredients) {
+				nameIndex.add(ingredient.getName(), ingredient);
+			}
+		}
+		return nameIndex.complete(prefix, limit);
+	}
+
+	/**
+	 * Retrieves the ingredients whose names are closest to a misspelt name,
+	 * ignoring case, best match first.
+	 *
+	 * @param name  the misspelt name
+	 * @param limit the maximum number of ingredients to return
+	 * @return the nearest ingredients, or an empty list if none is close
+	 */
+	public List<Ingredient> suggestNames(String name, int limit) {
+		if (fuzzyIndex == null) {
+			fuzzyIndex = new FuzzyNameIndex<>();
+			for (Ingredient ingredient : ingredients) {
+				fuzzyIndex.add(ingredient.getName(), ingredient);
+			}
+		}
+		return fuzzyIndex.suggest(name, limit);
+	}
 
+	/**
+	 * Retrieves the ingredients whose price lies in a range, cheapest first.
+	 *
+	 * @param minPrice the lowest price, inclusive
+	 * @param maxPrice the highest price, inclusive
+	 * @return the ingredients in the price range
+	 */
+	public List<Ingredient> findByPriceRange(int minPrice, int maxPrice) {
+		return resolve(priceIndex().range(minPrice, maxPrice));
+	}
+
+	/**
+	 * Retrieves the most expensive ingredients, most expensive first.
+	 *
+	 * @param limit the maximum number of ingredients to return
+	 * @return the most expensive ingredients
+	 */
+	public List<Ingredient> mostExpensive(int limit) {
+		return resolve(priceIndex().top(limit));
+	}
+
+	/**
+	 * Retrieves the cheapest ingredients, cheapest first.
+	 *
+	 * @param limit the maximum number of ingredients to return
+	 * @return the cheapest ingredients
+	 */
+	public List<Ingredient> cheapest(int limit) {
+		return resolve(priceIndex().bottom(limit));
+	}
+
+	/**
+	 * Retrieves the price index, building it if it is missing or the list has
+	 * been changed behind its back.
+	 *
+	 * @return the price index
+	 */
+	private PriceIndex priceIndex() {
+		if (priceIndex == null || priceIndex.size() != ingredients.size()) {
+			int[] prices = new int[ingredients.size()];
+			for (int i = 0; i < prices.length; i++) {
+				prices[i] = ingredients.get(i).getPrice();
+			}
+			priceIndex = new PriceIndex(prices);
+		}
+		return priceIndex;
+	}
+
+	/**
+	 * Maps positions from the price index back to ingredients.
+	 *
+	 * @param positions the positions
+	 * @return the ingredients, in the order of the positions
+	 */
+	private List<Ingredient> resolve(int[] positions) {
+		List<Ingredient> found = new ArrayList<>(positions.length);
+		for (int position : positions) {
+			found.add(ingredients.get(position));
+		}
+		return found;
 	}
 
 	/**
@@ -111,6 +297,9 @@ public class IngredientManagement extends  Ingredient implements Serializable, I
 	 */
 	public void setIngredient(List<Ingredient> ingredients) {
 		this.ingredients = ingredients;
+		nameIndex = null;
+		fuzzyIndex = null;
+		priceIndex = null;
 	}
 
 	/**
@@ -120,6 +309,10 @@ public class IngredientManagement extends  Ingredient implements Serializable, I
 	 */
 	@Override
 	public void saveToFile(String fileName) {
+		long start = System.nanoTime();
+		DataFileEvent event = new DataFileEvent();
+		event.begin();
+		boolean failed = false;
 		try (FileOutputStream fos = new FileOutputStream(fileName);
 				ObjectOutputStream oos = new ObjectOutputStream(fos)) {
 
@@ -128,10 +321,18 @@ public class IngredientManagement extends  Ingredient implements Serializable, I
 				oos.writeUTF("#END_INGREDIENT#"); // Add a marker between ingredients
 			}
 
-			System.err.println("Ingredient has been succesfully saved to file");
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("Saved {} ingredients to {}", ingredients.size(), fileName);
+			}
 
 		} catch (IOException e) {
-			System.err.println("Error saving to file: " + e.getMessage());
+			failed = true;
+			IO_ERRORS.increment();
+			LOGGER.error("Error saving to file: {}", e.getMessage());
+		} finally {
+			event.complete(DataFileEvent.SAVE, fileName, ingredients.size(), failed);
+			SIZE.set(ingredients.size());
+			SAVE_TIMER.recordSince(start);
 		}
 	}
 
@@ -142,6 +343,14 @@ public class IngredientManagement extends  Ingredient implements Serializable, I
 	 */
 	@Override
 	public void loadFromFile(String fileName) {
+		long start = System.nanoTime();
+		DataFileEvent event = new DataFileEvent();
+		event.begin();
+		int loaded = ingredients.size();
+		nameIndex = null;
+		fuzzyIndex = null;
+		priceIndex = null;
+		boolean failed = false;
 		try (FileInputStream fis = new FileInputStream(fileName); ObjectInputStream ois = new ObjectInputStream(fis)) {
 
 			while (true) {
@@ -156,8 +365,17 @@ public class IngredientManagement extends  Ingredient implements Serializable, I
 				}
 			}
 
+		} catch (FileNotFoundException e) {
+			// A missing file is the normal state before the first save, not a load error
+			LOGGER.debug("No file to load from: {}", e.getMessage());
 		} catch (IOException | ClassNotFoundException e) {
-			System.err.println("Error loading from file: " + e.getMessage());
+			failed = true;
+			IO_ERRORS.increment();
+			LOGGER.warn("Error loading from file: {}", e.getMessage());
+		} finally {
+			event.complete(DataFileEvent.LOAD, fileName, ingredients.size() - loaded, failed);
+			SIZE.set(ingredients.size());
+			LOAD_TIMER.recordSince(start);
 		}
 	}
 
@@ -175,7 +393,7 @@ public class IngredientManagement extends  Ingredient implements Serializable, I
 			Ingredient ingredient = ingredients.get(i);
 			System.out.println("\n" + "Ingredient " + (i + 1) + ":");
 			System.out.println("    Name: " + ingredient.getName());
-			System.out.println("    Price: " + ingredient.getPrice()+ "$");
+			System.out.println("    Price: " + ingredient.getPriceLabel());
 			System.out.println("-------------------------\n");
 		}
 	}
@@ -188,15 +406,24 @@ public class IngredientManagement extends  Ingredient implements Serializable, I
 	 */
 	@Override
 	public void editIngredientPrice(String ingredientName, int newPrice) {
-		for (Ingredient ingredient : ingredients) {
-			if (ingredient.getName().equals(ingredientName)) {
-				ingredient.setPrice(newPrice);
-				System.out.println("The price of" + ingredientName + " ingredient has been succesfully updated.");
-				// saveToFile("example.bin");
-				return;
+		long start = System.nanoTime();
+		try {
+			for (int i = 0; i < ingredients.size(); i++) {
+				Ingredient ingredient = ingredients.get(i);
+				if (ingredient.getName().equals(ingredientName)) {
+					if (priceIndex != null && !priceIndex.update(i, ingredient.getPrice(), newPrice)) {
+						priceIndex = null; // The price was changed elsewhere, rebuild on the next query
+					}
+					ingredient.setPrice(newPrice);
+					System.out.println("The price of" + ingredientName + " ingredient has been succesfully updated.");
+					// saveToFile("example.bin");
+					return;
+				}
 			}
+			System.out.println("The price of specified ingredient could not found.");
+		} finally {
+			EDIT_TIMER.recordSince(start);
 		}
-		System.out.println("The price of specified ingredient could not found.");
 	}
 
 	/**
@@ -207,12 +434,17 @@ public class IngredientManagement extends  Ingredient implements Serializable, I
 	 */
 	@Override
 	public Ingredient findIngredientByName(String name) {
-		for (Ingredient ingredient : ingredients) {
-			if (ingredient.getName().equalsIgnoreCase(name)) {
-				return ingredient;
+		long start = System.nanoTime();
+		try {
+			for (Ingredient ingredient : ingredients) {
+				if (ingredient.getName().equalsIgnoreCase(name)) {
+					return ingredient;
+				}
 			}
+			return null;
+		} finally {
+			FIND_TIMER.recordSince(start);
 		}
-		return null;
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,417 @@
+/**
+ * Package containing classes related to name lookups.
+ */
+package com.turankanbur.calculator;
+
+/**
+ * Provides buffering of the index file input.
+ */
+import java.io.BufferedInputStream;
+
+/**
+ * Provides buffering of the index file output.
+ */
+import java.io.BufferedOutputStream;
+
+/**
+ * Provides functionality for reading primitive values from the index file.
+ */
+import java.io.DataInputStream;
+
+/**
+ * Provides functionality for writing primitive values to the index file.
+ */
+import java.io.DataOutputStream;
+
+/**
+ * Provides the index and data file paths.
+ */
+import java.io.File;
+
+/**
+ * Provides functionality for reading bytes from a file input stream.
+ */
+import java.io.FileInputStream;
+
+/**
+ * Provides functionality for writing bytes to a file output stream.
+ */
+import java.io.FileOutputStream;
+
+/**
+ * Provides functionality for handling input/output (I/O) operations.
+ */
+import java.io.IOException;
+
+/**
+ * Provides the atomic replacement of the index file.
+ */
+import java.nio.file.Files;
+
+/**
+ * Provides the options of the atomic replacement.
+ */
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Provides utility methods for growing arrays.
+ */
+import java.util.Arrays;
+
+/**
+ * Provides the interface of the stock passed to queries.
+ */
+import java.util.Collection;
+
+/**
+ * Provides the map from ingredient names to their recipe bitmaps.
+ */
+import java.util.HashMap;
+
+/**
+ * Provides the set of distinct ingredient names.
+ */
+import java.util.LinkedHashSet;
+
+/**
+ * Provides functionality for storing and manipulating collections of objects.
+ */
+import java.util.List;
+
+/**
+ * Provides the locale used to fold names to lower case.
+ */
+import java.util.Locale;
+
+/**
+ * Provides the interface of key-value mappings.
+ */
+import java.util.Map;
+
+/**
+ * Provides the set interface.
+ */
+import java.util.Set;
+
+/**
+ * Provides the logging interface used for diagnostics.
+ */
+import org.slf4j.Logger;
+
+/**
+ * Provides the factory that creates loggers.
+ */
+import org.slf4j.LoggerFactory;
+
+/**
+ * An inverted index from ingredient names to the recipes using them, answering
+ * "what can I cook" queries: the recipes whose ingredients are all in stock, or
+ * all but at most K of them. Every ingredient maps to a RoaringBitmap of recipe
+ * numbers, and the recipes are also grouped into bitmaps by their number of
+ * distinct ingredients.
+ *
+ * A query adds up the bitmaps of the stocked ingredients bit-slice by
+ * bit-slice: after each stocked ingredient, the bitmap of recipes using at
+ * least j stocked ingredients becomes itself or (the recipes using at least
+ * j - 1) and (the recipes using this one). A recipe with n ingredients can be
+ * cooked with at most K missing when it uses at least n - K stocked ones, so
+ * the answer is the union over n of the recipes with n ingredients and at
+ * least n - K stocked ones. The query costs a number of bitmap operations that
+ * depends on the size of the stock, not on the number of recipes.
+ *
+ * Ingredient names are compared ignoring case. The index is saved next to the
+ * recipe data file with the suffix ".ing", stamped and rebuilt like the
+ * FullTextIndex, and addRecipe appends to it. Recipe numbers are the positions
+ * of the recipes in the data file, which are also their GuestDataImage record
+ * numbers.
+ */
+public final class IngredientRecipeIndex {
+
+	/**
+	 * Holds the logger so that queries which never fail do not initialize
+	 * logging.
+	 */
+	private static final class Log {
+
+		/** Logger for diagnostics. */
+		static final Logger LOGGER = LoggerFactory.getLogger(IngredientRecipeIndex.class);
+	}
+
+	/** Magic number identifying an index file ("RCIR"). */
+	private static final int MAGIC = 0x52434952;
+
+	/** Version of the index layout. */
+	private static final byte VERSION = 2;
+
+	/** Suffix appended to the data file name to form the index file name. */
+	public static final String SUFFIX = ".ing";
+
+	/** The recipes using each ingredient, by folded ingredient name. */
+	private final Map<String, RoaringBitmap> recipesByIngredient = new HashMap<>();
+
+	/** The recipes by their number of distinct ingredients. */
+	private RoaringBitmap[] recipesBySize = new RoaringBitmap[0];
+
+	/** The number of recipes indexed. */
+	private int recipes;
+
+	/**
+	 * Indexes the ingredients of the next recipe. Recipes are numbered in the
+	 * order they are added, starting at zero.
+	 *
+	 * @param ingredients the ingredients of the recipe
+	 * @return the recipe number
+	 */
+	public int add(List<Ingredient> ingredients) {
+		int recipe = recipes++;
+		Set<String> names = new LinkedHashSet<>();
+		for (Ingredient ingredient : ingredients) {
+			names.add(fold(ingredient.getName()));
+		}
+		for (String name : names) {
+			recipesByIngredient.computeIfAbsent(name, n -> new RoaringBitmap()).add(recipe);
+		}
+		bySize(names.size()).add(recipe);
+		return recipe;
+	}
+
+	/**
+	 * Retrieves the number of recipes indexed.
+	 *
+	 * @return the recipe count
+	 */
+	public int size() {
+		return recipes;
+	}
+
+	/**
+	 * Finds the recipes using an ingredient. The bitmap belongs to the index and
+	 * must not be modified.
+	 *
+	 * @param ingredient the name of the ingredient, compared ignoring case
+	 * @return the recipe numbers
+	 */
+	public RoaringBitmap recipesUsing(String ingredient) {
+		RoaringBitmap bitmap = recipesByIngredient.get(fold(ingredient));
+		return bitmap == null ? new RoaringBitmap() : bitmap;
+	}
+
+	/**
+	 * Finds the recipes that can be cooked from the stock with at most a given
+	 * number of ingredients missing.
+	 *
+	 * @param stock      the names of the ingredients in stock, compared ignoring
+	 *                   case
+	 * @param maxMissing the number of ingredients a recipe may lack
+	 * @return the recipe numbers
+	 */
+	public RoaringBitmap cookable(Collection<String> stock, int maxMissing) {
+		Set<String> names = new LinkedHashSet<>();
+		for (String name : stock) {
+			names.add(fold(name));
+		}
+		RoaringBitmap[] stocked = new RoaringBitmap[names.size()];
+		int count = 0;
+		for (String name : names) {
+			RoaringBitmap bitmap = recipesByIngredient.get(name);
+			if (bitmap != null) {
+				stocked[count++] = bitmap;
+			}
+		}
+
+		// atLeast[j] holds the recipes using at least j stocked ingredients; no
+		// recipe needs more than its size less the allowed missing ones
+		int top = Math.min(count, recipesBySize.length - 1 - Math.max(0, maxMissing));
+		RoaringBitmap[] atLeast = new RoaringBitmap[Math.max(top, 0) + 1];
+		for (int j = 1; j <= top; j++) {
+			atLeast[j] = new RoaringBitmap();
+		}
+		for (int i = 0; i < count && top > 0; i++) {
+			for (int j = Math.min(i + 1, top); j >= 2; j--) {
+				atLeast[j].orWith(RoaringBitmap.and(atLeast[j - 1], stocked[i]));
+			}
+			atLeast[1].orWith(stocked[i]);
+		}
+
+		RoaringBitmap result = new RoaringBitmap();
+		for (int n = 0; n < recipesBySize.length; n++) {
+			int needed = n - Math.max(0, maxMissing);
+			if (recipesBySize[n] == null || needed > top) {
+				continue;
+			}
+			result.orWith(needed <= 0 ? recipesBySize[n] : RoaringBitmap.and(recipesBySize[n], atLeast[needed]));
+		}
+		return result;
+	}
+
+	/**
+	 * Opens the index of a recipe data file, rebuilding and saving it from the
+	 * guest image when it is missing or stale.
+	 *
+	 * @param dataFile the name of the recipe data file
+	 * @return the index, or null if neither the index nor the data could be read
+	 */
+	public static IngredientRecipeIndex open(String dataFile) {
+		File source = new File(dataFile);
+		File file = new File(dataFile.concat(SUFFIX));
+		try {
+			IngredientRecipeIndex index = read(file, source, true);
+			if (index != null) {
+				return index;
+			}
+		} catch (IOException e) {
+			Log.LOGGER.warn("Error reading ingredient index, rebuilding it: {}", e.getMessage());
+		}
+
+		GuestDataImage image = GuestDataImage.open(dataFile, GuestDataImage.Kind.RECIPES);
+		if (image == null) {
+			return null;
+		}
+		IngredientRecipeIndex index = new IngredientRecipeIndex();
+		for (int i = 0; i < image.size(); i++) {
+			index.add(image.getIngredients(i));
+		}
+		if (source.isFile()) {
+			index.saveQuietly(file, source);
+		}
+		return index;
+	}
+
+	/**
+	 * Appends a recipe that was just added at the end of a data file to its saved
+	 * index. If the saved index does not hold exactly the recipes before it, it
+	 * is deleted and rebuilt by the next open.
+	 *
+	 * @param dataFile the name of the data file the recipe was added to
+	 * @param recipe   the recipe number of the new recipe
+	 * @param added    the new recipe
+	 */
+	public static void append(String dataFile, int recipe, Recipe added) {
+		File source = new File(dataFile);
+		File file = new File(dataFile.concat(SUFFIX));
+		IngredientRecipeIndex index = null;
+		try {
+			index = read(file, source, false);
+		} catch (IOException e) {
+			Log.LOGGER.warn("Error reading ingredient index, rebuilding it: {}", e.getMessage());
+		}
+		if (index == null || index.recipes != recipe) {
+			if (file.exists() && !file.delete()) {
+				Log.LOGGER.warn("Could not delete stale ingredient index {}", file);
+			}
+			return;
+		}
+		index.add(added.getIngredients());
+		index.saveQuietly(file, source);
+	}
+
+	/**
+	 * Saves the index stamped with its data file, logging failures; a missing
+	 * index is simply rebuilt later.
+	 *
+	 * @param file   the index file
+	 * @param source the data file
+	 */
+	private void saveQuietly(File file, File source) {
+		try {
+			save(file, SourceStamp.take(source));
+		} catch (IOException e) {
+			Log.LOGGER.warn("Error saving ingredient index: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Writes the index to a file through a temporary file.
+	 *
+	 * @param file  the index file
+	 * @param stamp the stamp of the data file
+	 * @throws IOException if the index cannot be written
+	 */
+	void save(File file, SourceStamp stamp) throws IOException {
+		File temp = new File(file.getPath() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(temp), 1 << 16))) {
+			out.writeInt(MAGIC);
+			out.writeByte(VERSION);
+			stamp.write(out);
+			out.writeInt(recipes);
+			out.writeInt(recipesBySize.length);
+			for (RoaringBitmap bitmap : recipesBySize) {
+				(bitmap == null ? new RoaringBitmap() : bitmap).writeTo(out);
+			}
+			out.writeInt(recipesByIngredient.size());
+			for (Map.Entry<String, RoaringBitmap> entry : recipesByIngredient.entrySet()) {
+				out.writeUTF(entry.getKey());
+				entry.getValue().writeTo(out);
+			}
+		}
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Reads a saved index.
+	 *
+	 * @param file       the index file
+	 * @param source     the data file
+	 * @param checkStamp whether an index stamped with another version of the data
+	 *                   file counts as missing
+	 * @return the index, or null if it is missing or stale
+	 * @throws IOException if the index cannot be read
+	 */
+	static IngredientRecipeIndex read(File file, File source, boolean checkStamp) throws IOException {
+		if (!file.isFile()) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+			if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+				return null;
+			}
+			SourceStamp stamp = SourceStamp.read(in);
+			if (checkStamp && !stamp.validate(file, 5, source)) {
+				return null;
+			}
+
+			IngredientRecipeIndex index = new IngredientRecipeIndex();
+			index.recipes = in.readInt();
+			index.recipesBySize = new RoaringBitmap[in.readInt()];
+			for (int n = 0; n < index.recipesBySize.length; n++) {
+				RoaringBitmap bitmap = RoaringBitmap.readFrom(in);
+				index.recipesBySize[n] = bitmap.isEmpty() ? null : bitmap;
+			}
+			int ingredients = in.readInt();
+			for (int i = 0; i < ingredients; i++) {
+				String name = in.readUTF();
+				index.recipesByIngredient.put(name, RoaringBitmap.readFrom(in));
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * Retrieves the bitmap of the recipes with a number of ingredients, creating
+	 * it when needed.
+	 *
+	 * @param n the number of distinct ingredients
+	 * @return the bitmap
+	 */
+	private RoaringBitmap bySize(int n) {
+		if (n >= recipesBySize.length) {
+			recipesBySize = Arrays.copyOf(recipesBySize, n + 1);
+		}
+		if (recipesBySize[n] == null) {
+			recipesBySize[n] = new RoaringBitmap();
+		}
+		return recipesBySize[n];
+	}
+
+	/**
+	 * Folds an ingredient name to the case-insensitive form the index is keyed by.
+	 *
+	 * @param name the name
+	 * @return the folded name
+	 */
+	private static String fold(String name) {
+		return name == null ? "" : name.toLowerCase(Locale.ROOT);
+	}
+}
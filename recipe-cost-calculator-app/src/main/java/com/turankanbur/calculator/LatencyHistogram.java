@@ -0,0 +1,223 @@
+/**
+ * Package containing classes related to runtime diagnostics of the calculator application.
+ */
+package com.turankanbur.calculator;
+
+/**
+ * Provides a long value that can be updated atomically.
+ */
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Provides an array of longs that can be updated atomically.
+ */
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Provides a lock-free, striped accumulator for maxima.
+ */
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * A fixed-memory, high-dynamic-range latency histogram in the style of
+ * HdrHistogram. Values are nanoseconds, bucketed log-linearly with 128
+ * sub-buckets per power of two, which keeps every reported percentile within
+ * 1% of the recorded value from 1 ns up to about 18 minutes. Larger values are
+ * clamped into the last bucket.
+ *
+ * Operations slower than a threshold are also kept in a small ring of recent
+ * slow samples. Recording is lock-free and does not allocate.
+ */
+public final class LatencyHistogram {
+
+	/** Number of bits resolved below the leading bit of a value. */
+	private static final int SUB_BUCKET_BITS = 7;
+
+	/** Number of linear sub-buckets per power of two. */
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+	/** The largest trackable value, about 18 minutes in nanoseconds. */
+	private static final long MAX_VALUE = (1L << 40) - 1;
+
+	/** Number of slow samples kept. */
+	private static final int SLOW_SAMPLE_COUNT = 32;
+
+	/** The operation this histogram measures. */
+	private final String name;
+
+	/** Samples above this many nanoseconds are kept as slow samples. */
+	private final long slowThresholdNanos;
+
+	/** The count of each bucket. */
+	private final AtomicLongArray counts = new AtomicLongArray(bucketIndex(MAX_VALUE) + 1);
+
+	/** The total number of recorded values. */
+	private final AtomicLong totalCount = new AtomicLong();
+
+	/** The largest recorded value. */
+	private final LongAccumulator maxValue = new LongAccumulator(Math::max, 0L);
+
+	/** The number of slow samples ever recorded, used as the ring cursor. */
+	private final AtomicLong slowCount = new AtomicLong();
+
+	/** Durations of the most recent slow samples. */
+	private final AtomicLongArray slowDurations = new AtomicLongArray(SLOW_SAMPLE_COUNT);
+
+	/** Wall clock times, in epoch milliseconds, of the most recent slow samples. */
+	private final AtomicLongArray slowTimestamps = new AtomicLongArray(SLOW_SAMPLE_COUNT);
+
+	/**
+	 * Constructs an empty histogram.
+	 *
+	 * @param name               the operation this histogram measures
+	 * @param slowThresholdNanos samples above this duration are kept as slow
+	 *                           samples
+	 */
+	public LatencyHistogram(String name, long slowThresholdNanos) {
+		this.name = name;
+		this.slowThresholdNanos = slowThresholdNanos;
+	}
+
+	/**
+	 * Maps a value to its bucket. Values below 256 get their own bucket; above
+	 * that each power of two is split into 128 equal sub-buckets.
+	 *
+	 * @param value the value, between 0 and MAX_VALUE
+	 * @return the bucket index
+	 */
+	static int bucketIndex(long value) {
+		int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+		return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+	}
+
+	/**
+	 * Retrieves the largest value that maps to the given bucket.
+	 *
+	 * @param index the bucket index
+	 * @return the highest value of the bucket
+	 */
+	static long highestValueInBucket(int index) {
+		if (index < 2 * SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int shift = (index >>> SUB_BUCKET_BITS) - 1;
+		long subBucket = index - ((long) shift << SUB_BUCKET_BITS);
+		return ((subBucket + 1) << shift) - 1;
+	}
+
+	/**
+	 * Records one operation.
+	 *
+	 * @param nanos the duration in nanoseconds
+	 */
+	public void record(long nanos) {
+		long value = Math.min(Math.max(nanos, 0L), MAX_VALUE);
+		counts.incrementAndGet(bucketIndex(value));
+		totalCount.incrementAndGet();
+		maxValue.accumulate(value);
+
+		if (value > slowThresholdNanos) {
+			int slot = (int) (slowCount.getAndIncrement() % SLOW_SAMPLE_COUNT);
+			slowDurations.set(slot, value);
+			slowTimestamps.set(slot, System.currentTimeMillis());
+		}
+	}
+
+	/**
+	 * Retrieves the name of the measured operation.
+	 *
+	 * @return the operation name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Retrieves the slow sample threshold.
+	 *
+	 * @return the threshold in nanoseconds
+	 */
+	public long getSlowThresholdNanos() {
+		return slowThresholdNanos;
+	}
+
+	/**
+	 * Retrieves the number of recorded operations.
+	 *
+	 * @return the count
+	 */
+	public long getCount() {
+		return totalCount.get();
+	}
+
+	/**
+	 * Retrieves the largest recorded value.
+	 *
+	 * @return the maximum in nanoseconds
+	 */
+	public long getMax() {
+		return maxValue.get();
+	}
+
+	/**
+	 * Retrieves the value at the given percentile, reported as the highest value
+	 * of the bucket it falls into and never above the recorded maximum.
+	 *
+	 * @param percentile the percentile, between 0 and 100
+	 * @return the value in nanoseconds, or 0 if nothing was recorded
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long total = totalCount.get();
+		if (total == 0) {
+			return 0;
+		}
+		long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+		long cumulative = 0;
+		for (int i = 0; i < counts.length(); i++) {
+			cumulative += counts.get(i);
+			if (cumulative >= target) {
+				return Math.min(highestValueInBucket(i), getMax());
+			}
+		}
+		return getMax();
+	}
+
+	/**
+	 * Retrieves the number of slow samples currently kept.
+	 *
+	 * @return the number of slow samples, at most 32
+	 */
+	public int getSlowSampleCount() {
+		return (int) Math.min(slowCount.get(), SLOW_SAMPLE_COUNT);
+	}
+
+	/**
+	 * Retrieves a kept slow sample, the most recent first.
+	 *
+	 * @param i the sample position, below getSlowSampleCount()
+	 * @return the duration in nanoseconds
+	 */
+	public long getSlowSampleDuration(int i) {
+		return slowDurations.get(slowSlot(i));
+	}
+
+	/**
+	 * Retrieves when a kept slow sample was recorded, the most recent first.
+	 *
+	 * @param i the sample position, below getSlowSampleCount()
+	 * @return the wall clock time in epoch milliseconds
+	 */
+	public long getSlowSampleTimestamp(int i) {
+		return slowTimestamps.get(slowSlot(i));
+	}
+
+	/**
+	 * Maps a sample position, the most recent first, to its ring slot.
+	 *
+	 * @param i the sample position
+	 * @return the ring slot
+	 */
+	private int slowSlot(int i) {
+		return (int) ((slowCount.get() - 1 - i) % SLOW_SAMPLE_COUNT);
+	}
+}
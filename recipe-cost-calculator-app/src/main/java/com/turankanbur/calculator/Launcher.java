@@ -0,0 +1,37 @@
+/**
+ * Package containing the entry point of the calculator application.
+ */
+package com.turankanbur.calculator;
+
+/**
+ * The entry point of the application jar. One-shot queries such as
+ * "ingredient get Flour" or "meal list --json" are answered by QueryCommand
+ * before any of the interactive application is loaded; every other command
+ * line starts Menu as before.
+ *
+ * Menu initializes logging when it is loaded, which dominates the startup
+ * time of a short-lived process, so the queries must be dispatched from a
+ * class that does not reference it on that path.
+ */
+public final class Launcher {
+
+	/** Prevents instantiation. */
+	private Launcher() {
+	}
+
+	/**
+	 * Runs a query, or the interactive application for any other arguments.
+	 *
+	 * @param args the command line arguments
+	 */
+	public static void main(String[] args) {
+		if (QueryCommand.isQuery(args)) {
+			int status = QueryCommand.run(args, System.out);
+			if (status != QueryCommand.OK) {
+				System.exit(status);
+			}
+			return;
+		}
+		Menu.main(args);
+	}
+}
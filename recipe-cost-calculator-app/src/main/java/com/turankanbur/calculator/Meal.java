@@ -74,6 +74,10 @@ interface IMainMeal{
 /**
  * Represents a meal consisting of one or more recipes. Provides functionality
  * to calculate the total cost of the meal.
+ *
+ * A meal is served to a number of covers, one by default. Each cover gets one
+ * serving of every recipe, and the recipes are cooked in whole batches, so the
+ * total cost is the cost of the batches needed for all the covers.
  */
 public class Meal implements Serializable {
 
@@ -97,6 +101,12 @@ public class Meal implements Serializable {
 	 */
 	private double totalCost;
 
+	/**
+	 * The number of covers the meal is served to. Meals saved before servings
+	 * existed are read with 0, which counts as one cover.
+	 */
+	private int servings;
+
 	/**
 	 * Constructs a Meal object with the specified name and list of recipes.
 	 * Calculates the total cost of the meal.
@@ -107,6 +117,7 @@ public class Meal implements Serializable {
 	public Meal(String name, List<Recipe> recipes) {
 		this.name = name;
 		this.recipes = recipes;
+		this.servings = 1;
 		calculateTotalCost();
 	}
 
@@ -137,13 +148,85 @@ public class Meal implements Serializable {
 		return totalCost;
 	}
 
+	/**
+	 * Retrieves the number of covers the meal is served to.
+	 *
+	 * @return the servings of the meal, at least one
+	 */
+	public int getServings() {
+		return servings > 0 ? servings : 1;
+	}
+
+	/**
+	 * Sets the number of covers the meal is served to and recalculates its total
+	 * cost.
+	 *
+	 * @param servings the servings of the meal
+	 * @throws IllegalArgumentException if servings is less than one
+	 */
+	public void setServings(int servings) {
+		if (servings < 1) {
+			throw new IllegalArgumentException("Invalid number of servings: " + servings);
+		}
+		this.servings = servings;
+		calculateTotalCost();
+	}
+
+	/**
+	 * Calculates the cost of one cover of the meal.
+	 *
+	 * @return the total cost divided by the servings
+	 */
+	public double getCostPerServing() {
+		return totalCost / getServings();
+	}
+
+	/**
+	 * Calculates the total cost of a meal as the sum of its recipe costs. The loop
+	 * is indexed so the calculation does not allocate an iterator.
+	 *
+	 * @param recipes the recipes included in the meal
+	 * @return the total cost of the meal
+	 */
+	public static double calculateTotalCost(List<Recipe> recipes) {
+		double totalCost = 0.0;
+		for (int i = 0; i < recipes.size(); i++) {
+			totalCost += recipes.get(i).getTotalCost();
+		}
+		return totalCost;
+	}
+
+	/**
+	 * Calculates the total cost of a meal served to a number of covers: the cost
+	 * of the whole batches of each recipe needed for one serving per cover.
+	 *
+	 * @param recipes the recipes included in the meal
+	 * @param covers  the number of covers
+	 * @return the total cost of the meal
+	 */
+	public static double calculateTotalCost(List<Recipe> recipes, int covers) {
+		double totalCost = 0.0;
+		for (int i = 0; i < recipes.size(); i++) {
+			Recipe recipe = recipes.get(i);
+			totalCost += recipe.batchesFor(covers) * recipe.getTotalCost();
+		}
+		return totalCost;
+	}
+
 	/**
 	 * Calculates the total cost of the meal based on the cost of its recipes.
 	 */
 	private void calculateTotalCost() {
-		totalCost = 0.0;
-		for (Recipe recipe : recipes) {
-			totalCost += recipe.getTotalCost();
+		CostCalculationEvent event = new CostCalculationEvent();
+		event.begin();
+		totalCost = servings == 1 ? calculateTotalCost(recipes) : calculateTotalCost(recipes, servings);
+		event.end();
+		if (event.shouldCommit()) {
+			event.kind = CostCalculationEvent.MEAL;
+			event.name = name;
+			event.items = recipes.size();
+			event.totalCost = totalCost;
+			event.commit();
 		}
 	}
 }
@@ -13,6 +13,16 @@ import java.io.*;
  */
 import java.util.*;
 
+/**
+ * Provides the logging interface used for diagnostics.
+ */
+import org.slf4j.Logger;
+
+/**
+ * Provides the factory that creates loggers.
+ */
+import org.slf4j.LoggerFactory;
+
 /**
  * Manages meals, including adding, saving, loading, and listing meals. This
  * class provides functionality to create meals from user input and interact
@@ -25,6 +35,27 @@ public class MealManagement implements Serializable ,IMainMeal {
 	 */
 	private static final long serialVersionUID = 1L;
 
+	/** Logger for diagnostics. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(MealManagement.class);
+
+	/** Times addMeal calls, including the file round trip. */
+	private static final MetricsRegistry.Timer ADD_TIMER = MetricsRegistry.timer("meals.add");
+
+	/** Times saveMealsToFile calls. */
+	private static final MetricsRegistry.Timer SAVE_TIMER = MetricsRegistry.timer("meals.save");
+
+	/** Times loadMealsFromFile calls. */
+	private static final MetricsRegistry.Timer LOAD_TIMER = MetricsRegistry.timer("meals.load");
+
+	/** Times listMeals calls. */
+	private static final MetricsRegistry.Timer LIST_TIMER = MetricsRegistry.timer("meals.list");
+
+	/** Counts failed meal file operations. */
+	private static final MetricsRegistry.Counter IO_ERRORS = MetricsRegistry.counter("meals.io.errors");
+
+	/** Holds the number of meals after the latest load or save. */
+	private static final MetricsRegistry.Gauge SIZE = MetricsRegistry.gauge("meals.size");
+
 	/** List of meals managed by this MealManagement instance. */
 	public List<Meal> meals;
 
@@ -34,13 +65,15 @@ public class MealManagement implements Serializable ,IMainMeal {
 	}
 
 	/**
-	 * Adds a meal to the list of managed meals and saves it to a file.
+	 * Adds a meal to the list of managed meals, saves it to a file and appends
+	 * it to the search index of the file.
 	 *
 	 * @param meal     the meal to add
 	 * @param fileName the name of the file to save the meals to
 	 */
 	@Override
 	public void addMeal(Meal meal, String fileName) {
+		long start = System.nanoTime();
 		// Load existing meals from file
 		List<Meal> existingMeals = loadMealsFromFile(fileName);
 
@@ -49,6 +82,10 @@ public class MealManagement implements Serializable ,IMainMeal {
 
 		// Save all meals to file
 		saveMealsToFile(existingMeals, fileName);
+
+		// Keep the search index in step with the file
+		FullTextIndex.append(fileName, existingMeals.size() - 1, meal.getName());
+		ADD_TIMER.recordSince(start);
 	}
 
 	/**
@@ -68,6 +105,10 @@ public class MealManagement implements Serializable ,IMainMeal {
 	 */
 	@Override
 	public void saveMealsToFile(List<Meal> meals, String fileName) {
+		long start = System.nanoTime();
+		DataFileEvent event = new DataFileEvent();
+		event.begin();
+		boolean failed = false;
 		try (FileOutputStream fos = new FileOutputStream(fileName);
 				ObjectOutputStream oos = new ObjectOutputStream(fos)) {
 
@@ -77,7 +118,13 @@ public class MealManagement implements Serializable ,IMainMeal {
 			}
 
 		} catch (IOException e) {
-			System.err.println("Error saving meals to file: " + e.getMessage());
+			failed = true;
+			IO_ERRORS.increment();
+			LOGGER.error("Error saving meals to file: {}", e.getMessage());
+		} finally {
+			event.complete(DataFileEvent.SAVE, fileName, meals.size(), failed);
+			SIZE.set(meals.size());
+			SAVE_TIMER.recordSince(start);
 		}
 	}
 
@@ -89,7 +136,11 @@ public class MealManagement implements Serializable ,IMainMeal {
 	 */
 	@Override
 	public List<Meal> loadMealsFromFile(String fileName) {
+		long start = System.nanoTime();
 		List<Meal> loadedMeals = new ArrayList<>();
+		DataFileEvent event = new DataFileEvent();
+		event.begin();
+		boolean failed = false;
 
 		try (FileInputStream fis = new FileInputStream(fileName); ObjectInputStream ois = new ObjectInputStream(fis)) {
 
@@ -105,9 +156,17 @@ public class MealManagement implements Serializable ,IMainMeal {
 				}
 			}
 
+		} catch (FileNotFoundException e) {
+			// A missing meals file is the normal state before the first meal is created
+			LOGGER.debug("No file to load meals from: {}", e.getMessage());
 		} catch (IOException | ClassNotFoundException e) {
-
+			failed = true;
+			IO_ERRORS.increment();
+			LOGGER.warn("Error loading meals from file: {}", e.getMessage());
 		}
+		event.complete(DataFileEvent.LOAD, fileName, loadedMeals.size(), failed);
+		SIZE.set(loadedMeals.size());
+		LOAD_TIMER.recordSince(start);
 		return loadedMeals;
 	}
 
@@ -121,10 +180,27 @@ public class MealManagement implements Serializable ,IMainMeal {
 	 */
 	@Override
 	public void createMealFromUserInput(String mealName, List<Recipe> selectedRecipes, RecipeManagement recipeManager) {
+		createMealFromUserInput(mealName, selectedRecipes, recipeManager, 1);
+	}
+
+	/**
+	 * Creates a meal served to a number of covers from user input and adds it to
+	 * the list of managed meals.
+	 *
+	 * @param mealName        the name of the meal
+	 * @param selectedRecipes the list of recipes included in the meal
+	 * @param recipeManager   the RecipeManagement object to interact with recipe
+	 *                        data
+	 * @param servings        the number of covers the meal is served to
+	 */
+	public void createMealFromUserInput(String mealName, List<Recipe> selectedRecipes, RecipeManagement recipeManager,
+			int servings) {
 
 		Meal meal = new Meal(mealName, selectedRecipes);
-		addMeal(meal, "meals.bin");
+		meal.setServings(servings);
+		addMeal(meal, DataFiles.meals());
 		System.out.println("Meal Name: " + mealName);
+		System.out.println("Servings: " + meal.getServings());
 		System.out.println("Total Cost: " + meal.getTotalCost()+"$");
 		System.out.println("Selected Recipes:");
 		for (Recipe selectedRecipe : selectedRecipes) {
@@ -139,11 +215,13 @@ public class MealManagement implements Serializable ,IMainMeal {
 	 */
 	@Override
 	public void listMeals(String filename) {
+		long start = System.nanoTime();
 		// Load recipes from file
 		meals = loadMealsFromFile(filename);
 
 		if (meals.isEmpty()) {
 			System.out.println("No recipes found to list.");
+			LIST_TIMER.recordSince(start);
 			return;
 		}
 
@@ -155,5 +233,6 @@ public class MealManagement implements Serializable ,IMainMeal {
 
 		}
 		System.out.println("-------------------------\n");
+		LIST_TIMER.recordSince(start);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,810 @@
+/**
+ * Package containing classes related to meal planning.
+ */
+package com.turankanbur.calculator;
+
+/**
+ * Provides functionality for storing and manipulating collections of objects.
+ */
+import java.util.ArrayList;
+
+/**
+ * Provides utility methods for sorting and copying the candidate arrays.
+ */
+import java.util.Arrays;
+
+/**
+ * Provides functionality for storing a set of unique elements.
+ */
+import java.util.HashSet;
+
+/**
+ * Provides functionality for storing and manipulating collections of objects.
+ */
+import java.util.List;
+
+/**
+ * Provides the case folding of ingredient names.
+ */
+import java.util.Locale;
+
+/**
+ * Provides functionality for storing a set of unique elements.
+ */
+import java.util.Set;
+
+/**
+ * Provides the fork/join pool the subtrees are explored on.
+ */
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Provides the tasks exploring the subtrees.
+ */
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Provides the shared count of explored nodes.
+ */
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Provides the scoring function of the recipes.
+ */
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Composes a meal within a budget: it picks the combination of recipes with the
+ * highest total score whose total cost fits the budget, with at most a given
+ * number of recipes, at least one recipe for every required course and no
+ * recipe using an excluded ingredient. A course is given as words that must
+ * all occur in the name of a recipe, e.g. "soup" or "green salad". The score
+ * of a meal is the sum of the scores of its recipes, given by an Objective:
+ * by default a recipe scores its servings, so the meal feeds as many covers as
+ * the budget allows.
+ *
+ * The search is a depth-first branch and bound over the recipes sorted by
+ * score per cost. Each node adds one more recipe after the last one added, so
+ * the recursion is only as deep as the meal is long. A subtree is pruned when
+ * the cheapest recipe left for some missing course no longer fits, or when its
+ * bound cannot beat the best meal found: the bound is the smaller of the
+ * fractional knapsack relaxation over the remaining recipes, read from prefix
+ * sums with a binary search, and the best remaining score times the number of
+ * recipes still allowed.
+ *
+ * A short sequential pass seeds the best meal, then the subtrees of the first
+ * recipe are explored in parallel on the common fork/join pool, sharing the
+ * best meal. The search stops after a node limit so that it stays interactive
+ * on catalogs of tens of thousands of recipes; the result says whether the
+ * search was complete and the meal therefore optimal.
+ */
+public final class MealOptimizer {
+
+	/** What the optimizer maximizes. */
+	public enum Objective {
+
+		/** The servings of the recipes: the number of covers the meal feeds. */
+		SERVINGS("servings"),
+
+		/** The distinct ingredients of each recipe: the most varied meal. */
+		INGREDIENTS("ingredients"),
+
+		/** The number of recipes: the most courses. */
+		RECIPES("recipes");
+
+		/** The word the score is reported in. */
+		private final String label;
+
+		/**
+		 * Creates an objective.
+		 *
+		 * @param label the word the score is reported in
+		 */
+		Objective(String label) {
+			this.label = label;
+		}
+
+		/**
+		 * Retrieves the word the score is reported in, such as "servings".
+		 *
+		 * @return the label
+		 */
+		public String getLabel() {
+			return label;
+		}
+
+		/**
+		 * Scores a recipe.
+		 *
+		 * @param recipe the recipe
+		 * @return the score of the recipe
+		 */
+		public double score(Recipe recipe) {
+			switch (this) {
+			case SERVINGS:
+				return recipe.getServings();
+			case INGREDIENTS:
+				return distinctIngredients(recipe);
+			default:
+				return 1;
+			}
+		}
+	}
+
+	/** The default maximum number of recipes in a meal. */
+	public static final int DEFAULT_MAX_RECIPES = 8;
+
+	/** The largest number of required courses. */
+	public static final int MAX_COURSES = 31;
+
+	/** The default number of nodes explored before the search stops. */
+	static final long DEFAULT_NODE_LIMIT = 5_000_000;
+
+	/** The number of nodes of the sequential pass that seeds the best meal. */
+	private static final long SEED_NODES = 20_000;
+
+	/** The number of nodes a task explores between updates of the shared count. */
+	private static final int NODE_BATCH = 1 << 10;
+
+	/** The tolerance of the score comparisons. */
+	private static final double EPSILON = 1e-9;
+
+	/**
+	 * The best meal found by a search.
+	 */
+	public static final class Result {
+
+		/** The recipes of the meal. */
+		private final List<Recipe> recipes;
+
+		/** The total score of the meal. */
+		private final double score;
+
+		/** Whether the search was complete. */
+		private final boolean optimal;
+
+		/**
+		 * Creates a result.
+		 *
+		 * @param recipes the recipes of the meal
+		 * @param score   the total score of the meal
+		 * @param optimal whether the search was complete
+		 */
+		Result(List<Recipe> recipes, double score, boolean optimal) {
+			this.recipes = recipes;
+			this.score = score;
+			this.optimal = optimal;
+		}
+
+		/**
+		 * Retrieves the recipes of the meal.
+		 *
+		 * @return the recipes, in the order of the catalog
+		 */
+		public List<Recipe> getRecipes() {
+			return recipes;
+		}
+
+		/**
+		 * Retrieves the total cost of the meal.
+		 *
+		 * @return the total cost
+		 */
+		public double getTotalCost() {
+			return Meal.calculateTotalCost(recipes);
+		}
+
+		/**
+		 * Retrieves the total score of the meal.
+		 *
+		 * @return the total score
+		 */
+		public double getScore() {
+			return score;
+		}
+
+		/**
+		 * Tells whether the search was complete, so no meal scores higher.
+		 *
+		 * @return true if the meal is optimal
+		 */
+		public boolean isOptimal() {
+			return optimal;
+		}
+	}
+
+	/** The budget of the meal. */
+	private final double budget;
+
+	/** The maximum number of recipes in the meal. */
+	private int maxRecipes = DEFAULT_MAX_RECIPES;
+
+	/** The words of every required course. */
+	private final List<List<String>> courses = new ArrayList<>();
+
+	/** The folded names of the excluded ingredients. */
+	private final Set<String> excluded = new HashSet<>();
+
+	/** The scoring function of the recipes. */
+	private ToDoubleFunction<Recipe> score = Objective.SERVINGS::score;
+
+	/** The number of nodes explored before the search stops. */
+	private long nodeLimit = DEFAULT_NODE_LIMIT;
+
+	/** The number of nodes of the sequential pass, or zero to skip it. */
+	private long seedNodes = SEED_NODES;
+
+	/**
+	 * Creates an optimizer for a budget.
+	 *
+	 * @param budget the largest total cost of the meal
+	 * @throws IllegalArgumentException if the budget is not a finite number
+	 */
+	public MealOptimizer(double budget) {
+		if (!Double.isFinite(budget)) {
+			throw new IllegalArgumentException("Invalid budget: " + budget);
+		}
+		this.budget = budget;
+	}
+
+	/**
+	 * Sets the maximum number of recipes in the meal.
+	 *
+	 * @param maxRecipes the maximum number of recipes
+	 */
+	public void setMaxRecipes(int maxRecipes) {
+		this.maxRecipes = maxRecipes;
+	}
+
+	/**
+	 * Requires a course: at least one recipe of the meal must have all the words
+	 * in its name, ignoring case.
+	 *
+	 * @param words the words of the course
+	 * @throws IllegalArgumentException if the course has no words or there are
+	 *                                  already MAX_COURSES courses
+	 */
+	public void requireCourse(String words) {
+		List<String> tokens = FullTextIndex.tokenize(words);
+		if (tokens.isEmpty() || courses.size() == MAX_COURSES) {
+			throw new IllegalArgumentException("Invalid course: " + words);
+		}
+		courses.add(tokens);
+	}
+
+	/**
+	 * Excludes the recipes using an ingredient.
+	 *
+	 * @param ingredient the name of the ingredient, compared ignoring case
+	 */
+	public void excludeIngredient(String ingredient) {
+		excluded.add(ingredient.trim().toLowerCase(Locale.ROOT));
+	}
+
+	/**
+	 * Sets what the optimizer maximizes.
+	 *
+	 * @param objective the objective
+	 */
+	public void setObjective(Objective objective) {
+		this.score = objective::score;
+	}
+
+	/**
+	 * Sets the scoring function of the recipes. Recipes scoring zero or less are
+	 * only picked to fill a required course.
+	 *
+	 * @param score the scoring function
+	 */
+	public void setScore(ToDoubleFunction<Recipe> score) {
+		this.score = score;
+	}
+
+	/**
+	 * Sets the number of nodes explored before the search stops.
+	 *
+	 * @param nodeLimit the node limit
+	 */
+	void setNodeLimit(long nodeLimit) {
+		this.nodeLimit = nodeLimit;
+	}
+
+	/**
+	 * Sets the number of nodes of the sequential pass that seeds the best meal.
+	 *
+	 * @param seedNodes the node limit of the pass, or zero to skip it
+	 */
+	void setSeedNodes(long seedNodes) {
+		this.seedNodes = seedNodes;
+	}
+
+	/**
+	 * Finds the best meal from a catalog of recipes.
+	 *
+	 * @param recipes the catalog
+	 * @return the best meal found, or null if no meal meets the constraints
+	 */
+	public Result optimize(List<Recipe> recipes) {
+		if (budget < 0) {
+			return null;
+		}
+		Search search = new Search(recipes);
+		if (seedNodes > 0) {
+			search.run(0, 0.0, 0.0, 0, 0, new int[Math.max(0, maxRecipes)], seedNodes);
+			if (!search.stopped) {
+				// The seed pass finished the whole search
+				return search.result(recipes);
+			}
+			search.stopped = false;
+			search.nodes.set(0);
+		}
+		ForkJoinPool.commonPool().invoke(new Subtrees(search));
+		return search.result(recipes);
+	}
+
+	/**
+	 * Checks whether a recipe uses an excluded ingredient.
+	 *
+	 * @param recipe the recipe
+	 * @return true if the recipe is excluded
+	 */
+	private boolean usesExcluded(Recipe recipe) {
+		if (!excluded.isEmpty()) {
+			for (Ingredient ingredient : recipe.getIngredients()) {
+				if (excluded.contains(ingredient.getName().toLowerCase(Locale.ROOT))) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Finds the required courses a recipe fills.
+	 *
+	 * @param recipe the recipe
+	 * @return the courses, one bit per course
+	 */
+	private int courseMask(Recipe recipe) {
+		if (courses.isEmpty()) {
+			return 0;
+		}
+		List<String> words = FullTextIndex.tokenize(recipe.getName());
+		int mask = 0;
+		for (int c = 0; c < courses.size(); c++) {
+			if (words.containsAll(courses.get(c))) {
+				mask |= 1 << c;
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * Scores a recipe by its number of distinct ingredients.
+	 *
+	 * @param recipe the recipe
+	 * @return the score
+	 */
+	static double distinctIngredients(Recipe recipe) {
+		// Recipes have a handful of ingredients, so comparing pairs beats hashing
+		List<Ingredient> ingredients = recipe.getIngredients();
+		int distinct = 0;
+		for (int i = 0; i < ingredients.size(); i++) {
+			boolean repeated = false;
+			for (int j = 0; j < i && !repeated; j++) {
+				repeated = ingredients.get(i).getName().equalsIgnoreCase(ingredients.get(j).getName());
+			}
+			if (!repeated) {
+				distinct++;
+			}
+		}
+		return distinct;
+	}
+
+
+	/**
+	 * The state of one search: the candidate recipes in score-per-cost order with
+	 * their bounds, and the best meal found, shared by the tasks.
+	 */
+	private final class Search {
+
+		/** The catalog positions of the candidates. */
+		final int[] positions;
+
+		/** The costs of the candidates. */
+		final double[] costs;
+
+		/** The scores of the candidates. */
+		final double[] scores;
+
+		/** The courses each candidate fills, one bit per course. */
+		final int[] courseMasks;
+
+		/** The sums of the costs of the first candidates. */
+		final double[] costSums;
+
+		/** The sums of the scores of the first candidates. */
+		final double[] scoreSums;
+
+		/** The best score from each candidate on. */
+		final double[] maxScores;
+
+		/** The cheapest cost of a candidate filling each course, from each candidate on. */
+		final double[][] courseCosts;
+
+		/** The mask with a bit for every course. */
+		final int allCourses;
+
+		/** Whether every score is a whole number, so a better meal scores at least one more. */
+		final boolean integral;
+
+		/** The number of nodes explored. */
+		final AtomicLong nodes = new AtomicLong();
+
+		/** The node limit of the current pass. */
+		volatile long limit;
+
+		/** Whether the current pass reached its node limit. */
+		volatile boolean stopped;
+
+		/** The score of the best meal found. */
+		volatile double bestScore = Double.NEGATIVE_INFINITY;
+
+		/** The cost of the best meal found. */
+		double bestCost;
+
+		/** The candidates of the best meal found, or null if none was found. */
+		int[] best;
+
+		/**
+		 * Selects and sorts the candidates of a catalog.
+		 *
+		 * @param recipes the catalog
+		 */
+		Search(List<Recipe> recipes) {
+			allCourses = (1 << courses.size()) - 1;
+			int[] kept = new int[recipes.size()];
+			double[] keptCosts = new double[kept.length];
+			double[] keptScores = new double[kept.length];
+			int[] masks = new int[kept.length];
+			int count = 0;
+			for (int i = 0; i < recipes.size(); i++) {
+				Recipe recipe = recipes.get(i);
+				if (recipe.getTotalCost() > budget || usesExcluded(recipe)) {
+					continue;
+				}
+				int mask = courseMask(recipe);
+				double value = score.applyAsDouble(recipe);
+				if (value > 0 || mask != 0) {
+					kept[count] = i;
+					keptCosts[count] = Math.max(recipe.getTotalCost(), 0.0);
+					keptScores[count] = Math.max(0.0, value);
+					masks[count++] = mask;
+				}
+			}
+
+			Integer[] grouped = new Integer[count];
+			for (int i = 0; i < count; i++) {
+				grouped[i] = i;
+			}
+			Arrays.sort(grouped, (a, b) -> {
+				int byMask = Integer.compare(masks[a], masks[b]);
+				int byScore = Double.compare(keptScores[a], keptScores[b]);
+				int byCost = Double.compare(keptCosts[a], keptCosts[b]);
+				return byMask != 0 ? byMask : byScore != 0 ? byScore : byCost != 0 ? byCost : Integer.compare(a, b);
+			});
+			// A meal holds at most maxRecipes recipes, so of the recipes filling the
+			// same courses with the same score only that many of the cheapest can be
+			// needed: any other could be swapped for a cheaper one left out
+			List<Integer> survivors = new ArrayList<>();
+			boolean whole = true;
+			for (int i = 0, run = 0; i < count; i++) {
+				int a = grouped[i];
+				int previous = i > 0 ? grouped[i - 1] : -1;
+				run = previous >= 0 && masks[a] == masks[previous] && keptScores[a] == keptScores[previous] ? run + 1 : 0;
+				if (run < maxRecipes) {
+					survivors.add(a);
+					whole &= keptScores[a] == Math.rint(keptScores[a]);
+				}
+			}
+			integral = whole;
+
+			Integer[] order = survivors.toArray(new Integer[0]);
+			// Highest score per cost first, so the greedy prefix is the relaxation
+			Arrays.sort(order, (a, b) -> {
+				int byRatio = Double.compare(keptScores[b] * keptCosts[a], keptScores[a] * keptCosts[b]);
+				return byRatio != 0 ? byRatio : Integer.compare(a, b);
+			});
+
+			int n = order.length;
+			positions = new int[n];
+			costs = new double[n];
+			scores = new double[n];
+			courseMasks = new int[n];
+			costSums = new double[n + 1];
+			scoreSums = new double[n + 1];
+			for (int i = 0; i < n; i++) {
+				positions[i] = kept[order[i]];
+				costs[i] = keptCosts[order[i]];
+				scores[i] = keptScores[order[i]];
+				courseMasks[i] = masks[order[i]];
+				costSums[i + 1] = costSums[i] + costs[i];
+				scoreSums[i + 1] = scoreSums[i] + scores[i];
+			}
+			maxScores = new double[n + 1];
+			courseCosts = new double[courses.size()][n + 1];
+			for (double[] cheapest : courseCosts) {
+				cheapest[n] = Double.POSITIVE_INFINITY;
+			}
+			for (int i = n - 1; i >= 0; i--) {
+				maxScores[i] = Math.max(maxScores[i + 1], scores[i]);
+				for (int c = 0; c < courseCosts.length; c++) {
+					courseCosts[c][i] = (courseMasks[i] & (1 << c)) != 0 ? Math.min(courseCosts[c][i + 1], costs[i])
+							: courseCosts[c][i + 1];
+				}
+			}
+		}
+
+		/**
+		 * Explores the meals extending a partial meal with candidates from a given
+		 * one on, until the node limit is reached.
+		 *
+		 * @param start  the first candidate that may be added
+		 * @param cost   the cost of the partial meal
+		 * @param value  the score of the partial meal
+		 * @param mask   the courses filled by the partial meal
+		 * @param count  the number of recipes in the partial meal
+		 * @param path   the candidates of the partial meal
+		 * @param limit  the node limit of this pass
+		 */
+		void run(int start, double cost, double value, int mask, int count, int[] path, long limit) {
+			this.limit = limit;
+			long[] counter = new long[1];
+			explore(start, cost, value, mask, count, path, counter);
+			nodes.addAndGet(counter[0]);
+		}
+
+		/**
+		 * Explores the meals extending a partial meal.
+		 *
+		 * @param start   the first candidate that may be added
+		 * @param cost    the cost of the partial meal
+		 * @param value   the score of the partial meal
+		 * @param mask    the courses filled by the partial meal
+		 * @param count   the number of recipes in the partial meal
+		 * @param path    the candidates of the partial meal
+		 * @param counter the nodes explored by this task since the last update
+		 */
+		void explore(int start, double cost, double value, int mask, int count, int[] path, long[] counter) {
+			if (stopped || !count(counter)) {
+				return;
+			}
+			if (mask == allCourses) {
+				offer(path, count, cost, value);
+			}
+			if (count == path.length) {
+				return;
+			}
+			double remaining = budget - cost;
+			for (int j = start; j < positions.length; j++) {
+				// Both tests only get stricter as j grows, so failing one ends the loop
+				if (!fillable(j, mask, remaining) || beaten(value, j, remaining, path.length - count)) {
+					return;
+				}
+				if (costs[j] <= remaining) {
+					path[count] = j;
+					explore(j + 1, cost + costs[j], value + scores[j], mask | courseMasks[j], count + 1, path, counter);
+					if (stopped) {
+						return;
+					}
+				}
+			}
+		}
+
+		/**
+		 * Counts a node, publishing the count of the task in batches.
+		 *
+		 * @param counter the nodes explored by this task since the last update
+		 * @return false if the node limit has been reached
+		 */
+		boolean count(long[] counter) {
+			if (++counter[0] == NODE_BATCH) {
+				counter[0] = 0;
+				if (nodes.addAndGet(NODE_BATCH) >= limit) {
+					stopped = true;
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Checks that every missing course can still be filled within the budget
+		 * from a candidate on.
+		 *
+		 * @param from      the first candidate that may be added
+		 * @param mask      the courses filled
+		 * @param remaining the budget left
+		 * @return false if some missing course cannot be filled
+		 */
+		boolean fillable(int from, int mask, double remaining) {
+			for (int c = 0; c < courseCosts.length; c++) {
+				if ((mask & (1 << c)) == 0 && courseCosts[c][from] > remaining) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Checks whether extending a partial meal with candidates from a given one
+		 * on cannot beat the best meal found.
+		 *
+		 * @param value     the score of the partial meal
+		 * @param from      the first candidate that may be added
+		 * @param remaining the budget left
+		 * @param slots     the number of recipes that may still be added
+		 * @return true if the extensions can be pruned
+		 */
+		boolean beaten(double value, int from, double remaining, int slots) {
+			if (best == null) {
+				return false;
+			}
+			double bound = value + bound(from, remaining, slots);
+			return (integral ? Math.floor(bound + EPSILON) : bound) <= bestScore + EPSILON;
+		}
+
+		/**
+		 * Bounds the score that candidates from a given one on can add.
+		 *
+		 * @param from      the first candidate that may be added
+		 * @param remaining the budget left
+		 * @param slots     the number of recipes that may still be added
+		 * @return an upper bound of the score
+		 */
+		double bound(int from, double remaining, int slots) {
+			// The candidates from "from" to "to" fit whole; the next one fits partly
+			double limit = costSums[from] + remaining;
+			int low = from;
+			int high = positions.length;
+			while (low < high) {
+				int mid = (low + high + 1) >>> 1;
+				if (costSums[mid] <= limit) {
+					low = mid;
+				} else {
+					high = mid - 1;
+				}
+			}
+			double relaxed = scoreSums[low] - scoreSums[from];
+			if (low < positions.length && costs[low] > 0) {
+				relaxed += scores[low] * (limit - costSums[low]) / costs[low];
+			}
+			return Math.min(relaxed, slots * maxScores[from]);
+		}
+
+		/**
+		 * Records a complete meal if it is better than the best one found: a higher
+		 * score, or an equal score at a lower cost.
+		 *
+		 * @param path  the candidates of the meal
+		 * @param count the number of recipes in the meal
+		 * @param cost  the cost of the meal
+		 * @param value the score of the meal
+		 */
+		synchronized void offer(int[] path, int count, double cost, double value) {
+			if (best == null || value > bestScore + EPSILON
+					|| (value > bestScore - EPSILON && cost < bestCost - EPSILON)) {
+				best = Arrays.copyOf(path, count);
+				bestCost = cost;
+				bestScore = value;
+			}
+		}
+
+		/**
+		 * Builds the result of the search.
+		 *
+		 * @param recipes the catalog
+		 * @return the result, or null if no meal was found
+		 */
+		synchronized Result result(List<Recipe> recipes) {
+			if (best == null) {
+				return null;
+			}
+			int[] chosen = new int[best.length];
+			for (int i = 0; i < best.length; i++) {
+				chosen[i] = positions[best[i]];
+			}
+			Arrays.sort(chosen);
+			List<Recipe> meal = new ArrayList<>(chosen.length);
+			for (int position : chosen) {
+				meal.add(recipes.get(position));
+			}
+			return new Result(meal, bestScore, !stopped);
+		}
+	}
+
+	/**
+	 * Explores the meals of a search in parallel, one subtree per first recipe.
+	 */
+	private final class Subtrees extends RecursiveAction {
+
+		/** Serialization version. */
+		private static final long serialVersionUID = 1L;
+
+		/** The search. */
+		private final transient Search search;
+
+		/**
+		 * Creates the root task.
+		 *
+		 * @param search the search
+		 */
+		Subtrees(Search search) {
+			this.search = search;
+		}
+
+		/**
+		 * Forks one task per first recipe that passes the bounds, then joins them.
+		 */
+		@Override
+		protected void compute() {
+			search.limit = nodeLimit;
+			int slots = Math.max(0, maxRecipes);
+			if (search.allCourses == 0) {
+				search.offer(new int[0], 0, 0.0, 0.0);
+			}
+			List<Subtree> tasks = new ArrayList<>();
+			for (int j = 0; j < search.positions.length && slots > 0; j++) {
+				if (!search.fillable(j, 0, budget) || search.beaten(0.0, j, budget, slots)) {
+					break;
+				}
+				tasks.add(new Subtree(search, j, slots));
+			}
+			invokeAll(tasks);
+		}
+	}
+
+	/**
+	 * Explores the meals starting with one recipe.
+	 */
+	private static final class Subtree extends RecursiveAction {
+
+		/** Serialization version. */
+		private static final long serialVersionUID = 1L;
+
+		/** The search. */
+		private final transient Search search;
+
+		/** The first candidate of the meals. */
+		private final int first;
+
+		/** The maximum number of recipes in a meal. */
+		private final int slots;
+
+		/**
+		 * Creates a task.
+		 *
+		 * @param search the search
+		 * @param first  the first candidate of the meals
+		 * @param slots  the maximum number of recipes in a meal
+		 */
+		Subtree(Search search, int first, int slots) {
+			this.search = search;
+			this.first = first;
+			this.slots = slots;
+		}
+
+		/**
+		 * Explores the subtree, publishing the nodes it explored at the end.
+		 */
+		@Override
+		protected void compute() {
+			int[] path = new int[slots];
+			path[0] = first;
+			long[] counter = new long[1];
+			search.explore(first + 1, search.costs[first], search.scores[first], search.courseMasks[first], 1, path,
+					counter);
+			search.nodes.addAndGet(counter[0]);
+		}
+	}
+}
@@ -0,0 +1,543 @@
+/**
+ * Package containing classes related to meal planning.
+ */
+package com.turankanbur.calculator;
+
+/**
+ * Provides functionality for storing and manipulating collections of objects.
+ */
+import java.util.ArrayList;
+
+/**
+ * Provides functionality for storing key-value pairs.
+ */
+import java.util.HashMap;
+
+/**
+ * Provides functionality for storing and manipulating collections of objects.
+ */
+import java.util.List;
+
+/**
+ * Provides the case folding of ingredient and recipe names.
+ */
+import java.util.Locale;
+
+/**
+ * Provides functionality for storing key-value pairs.
+ */
+import java.util.Map;
+
+/**
+ * Provides the random streams of the annealing chains.
+ */
+import java.util.SplittableRandom;
+
+/**
+ * Provides the parallel restarts of the annealing chains.
+ */
+import java.util.stream.IntStream;
+
+/**
+ * Plans the meals of several days, a week or a month, from a catalog of meals.
+ * A plan serves one meal a day and is judged by three rules:
+ *
+ * <ul>
+ * <li>Variety: a meal is not served again within the repeat gap (seven days by
+ * default), and the more distinct recipes the plan serves the better.</li>
+ * <li>Shared purchasing: the ingredients are bought once per shopping period
+ * (seven days by default), so an ingredient used by several meals of the same
+ * period is paid for once, at the highest price it has in the catalog.</li>
+ * <li>Budget: the purchase cost of the whole plan stays within the budget.</li>
+ * </ul>
+ *
+ * A plan meeting the repeat gap and the budget is feasible. The planner looks
+ * for a feasible plan with the most distinct recipes and, among those, the
+ * lowest purchase cost, by simulated annealing: starting from a random plan, a
+ * chain repeatedly serves another meal on a random day or swaps two days, and
+ * keeps the change when it improves the plan or, with a probability shrinking
+ * as the chain cools, when it does not. The purchase cost, the repeat-gap
+ * breaches and the recipe counts are updated incrementally, so a move costs
+ * the size of the two meals and the repeat gap rather than the whole plan.
+ *
+ * Independent chains run in parallel, one per restart, and the best plan is
+ * kept. Every chain has its own seeded random stream, so the result depends
+ * only on the seed and not on the scheduling of the chains.
+ */
+public final class MealPlanner {
+
+	/** The default number of days within which a meal is not served again. */
+	public static final int DEFAULT_REPEAT_GAP = 7;
+
+	/** The default number of days covered by one shopping trip. */
+	public static final int DEFAULT_SHOPPING_DAYS = 7;
+
+	/** The default number of annealing chains. */
+	public static final int DEFAULT_RESTARTS = 4;
+
+	/** The default number of moves of every chain. */
+	public static final long DEFAULT_MOVES = 200_000;
+
+	/** The starting temperature, in recipes of variety. */
+	private static final double HOT = 2.0;
+
+	/** The final temperature, in recipes of variety. */
+	private static final double COLD = 0.02;
+
+	/**
+	 * A plan of meals, one per day.
+	 */
+	public static final class Plan {
+
+		/** The meals, by day. */
+		private final List<Meal> meals;
+
+		/** The purchase cost of the plan. */
+		private final double purchaseCost;
+
+		/** The number of distinct recipes served. */
+		private final int distinctRecipes;
+
+		/** The number of pairs of days serving a meal within the repeat gap. */
+		private final int repeats;
+
+		/** Whether the purchase cost is within the budget. */
+		private final boolean withinBudget;
+
+		/**
+		 * Creates a plan.
+		 *
+		 * @param meals           the meals, by day
+		 * @param purchaseCost    the purchase cost
+		 * @param distinctRecipes the number of distinct recipes served
+		 * @param repeats         the number of repeats within the repeat gap
+		 * @param withinBudget    whether the purchase cost is within the budget
+		 */
+		Plan(List<Meal> meals, double purchaseCost, int distinctRecipes, int repeats, boolean withinBudget) {
+			this.meals = meals;
+			this.purchaseCost = purchaseCost;
+			this.distinctRecipes = distinctRecipes;
+			this.repeats = repeats;
+			this.withinBudget = withinBudget;
+		}
+
+		/**
+		 * Retrieves the meals of the plan.
+		 *
+		 * @return the meals, by day
+		 */
+		public List<Meal> getMeals() {
+			return meals;
+		}
+
+		/**
+		 * Retrieves the purchase cost of the plan, every ingredient being bought
+		 * once per shopping period.
+		 *
+		 * @return the purchase cost
+		 */
+		public double getPurchaseCost() {
+			return purchaseCost;
+		}
+
+		/**
+		 * Retrieves the number of distinct recipes the plan serves.
+		 *
+		 * @return the number of distinct recipes
+		 */
+		public int getDistinctRecipes() {
+			return distinctRecipes;
+		}
+
+		/**
+		 * Retrieves the number of pairs of days serving the same meal within the
+		 * repeat gap.
+		 *
+		 * @return the number of repeats
+		 */
+		public int getRepeats() {
+			return repeats;
+		}
+
+		/**
+		 * Tells whether the plan meets the repeat gap and the budget.
+		 *
+		 * @return true if the plan is feasible
+		 */
+		public boolean isFeasible() {
+			return repeats == 0 && withinBudget;
+		}
+	}
+
+	/** The number of days to plan. */
+	private final int days;
+
+	/** The budget of the whole plan. */
+	private final double budget;
+
+	/** The number of days within which a meal is not served again. */
+	private int repeatGap = DEFAULT_REPEAT_GAP;
+
+	/** The number of days covered by one shopping trip. */
+	private int shoppingDays = DEFAULT_SHOPPING_DAYS;
+
+	/** The number of annealing chains. */
+	private int restarts = DEFAULT_RESTARTS;
+
+	/** The number of moves of every chain. */
+	private long moves = DEFAULT_MOVES;
+
+	/** The seed of the random streams. */
+	private long seed = 1L;
+
+	/**
+	 * Creates a planner.
+	 *
+	 * @param days   the number of days to plan
+	 * @param budget the budget of the whole plan
+	 * @throws IllegalArgumentException if the number of days is not positive
+	 */
+	public MealPlanner(int days, double budget) {
+		if (days < 1) {
+			throw new IllegalArgumentException("Invalid number of days: " + days);
+		}
+		this.days = days;
+		this.budget = budget;
+	}
+
+	/**
+	 * Sets the number of days within which a meal is not served again; 1 allows
+	 * serving a meal every day.
+	 *
+	 * @param repeatGap the repeat gap in days
+	 */
+	public void setRepeatGap(int repeatGap) {
+		this.repeatGap = Math.max(1, repeatGap);
+	}
+
+	/**
+	 * Sets the number of days covered by one shopping trip.
+	 *
+	 * @param shoppingDays the length of a shopping period in days
+	 */
+	public void setShoppingDays(int shoppingDays) {
+		this.shoppingDays = Math.max(1, shoppingDays);
+	}
+
+	/**
+	 * Sets the number of annealing chains run in parallel.
+	 *
+	 * @param restarts the number of chains
+	 */
+	public void setRestarts(int restarts) {
+		this.restarts = Math.max(1, restarts);
+	}
+
+	/**
+	 * Sets the number of moves of every chain.
+	 *
+	 * @param moves the number of moves
+	 */
+	public void setMoves(long moves) {
+		this.moves = Math.max(0, moves);
+	}
+
+	/**
+	 * Sets the seed of the random streams.
+	 *
+	 * @param seed the seed
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Plans the days from a catalog of meals.
+	 *
+	 * @param catalog the meals to choose from
+	 * @return the best plan found, or null if the catalog is empty
+	 */
+	public Plan plan(List<Meal> catalog) {
+		if (catalog.isEmpty()) {
+			return null;
+		}
+		Catalog indexed = new Catalog(catalog);
+		Chain best = IntStream.range(0, restarts).parallel().mapToObj(restart -> {
+			Chain chain = new Chain(indexed, new SplittableRandom(seed + restart * 0x9E3779B97F4A7C15L));
+			chain.anneal();
+			return chain;
+		}).reduce((a, b) -> b.bestEnergy < a.bestEnergy ? b : a).get();
+
+		List<Meal> meals = new ArrayList<>(days);
+		for (int meal : best.best) {
+			meals.add(catalog.get(meal));
+		}
+		Chain replay = new Chain(indexed, best.best);
+		return new Plan(meals, replay.cost, replay.distinct, replay.repeats, replay.cost <= budget);
+	}
+
+	/**
+	 * The meals of a catalog reduced to the ingredient and recipe numbers a plan
+	 * is judged by.
+	 */
+	private static final class Catalog {
+
+		/** The distinct ingredients of every meal. */
+		final int[][] ingredients;
+
+		/** The distinct recipes of every meal. */
+		final int[][] recipes;
+
+		/** The price of every ingredient. */
+		final double[] prices;
+
+		/** The number of distinct recipes. */
+		final int recipeCount;
+
+		/**
+		 * Numbers the ingredients and recipes of a catalog, by folded name.
+		 *
+		 * @param meals the catalog
+		 */
+		Catalog(List<Meal> meals) {
+			Map<String, Integer> ingredientIds = new HashMap<>();
+			Map<String, Integer> recipeIds = new HashMap<>();
+			List<Double> priceList = new ArrayList<>();
+			ingredients = new int[meals.size()][];
+			recipes = new int[meals.size()][];
+			for (int m = 0; m < meals.size(); m++) {
+				List<Integer> mealIngredients = new ArrayList<>();
+				List<Integer> mealRecipes = new ArrayList<>();
+				for (Recipe recipe : meals.get(m).getRecipes()) {
+					Integer recipeId = recipeIds.computeIfAbsent(recipe.getName().toLowerCase(Locale.ROOT),
+							name -> recipeIds.size());
+					if (!mealRecipes.contains(recipeId)) {
+						mealRecipes.add(recipeId);
+					}
+					for (Ingredient ingredient : recipe.getIngredients()) {
+						Integer id = ingredientIds.computeIfAbsent(ingredient.getName().toLowerCase(Locale.ROOT),
+								name -> ingredientIds.size());
+						if (id == priceList.size()) {
+							priceList.add((double) ingredient.getPrice());
+						} else {
+							priceList.set(id, Math.max(priceList.get(id), ingredient.getPrice()));
+						}
+						if (!mealIngredients.contains(id)) {
+							mealIngredients.add(id);
+						}
+					}
+				}
+				ingredients[m] = mealIngredients.stream().mapToInt(Integer::intValue).toArray();
+				recipes[m] = mealRecipes.stream().mapToInt(Integer::intValue).toArray();
+			}
+			prices = priceList.stream().mapToDouble(Double::doubleValue).toArray();
+			recipeCount = recipeIds.size();
+		}
+	}
+
+	/**
+	 * One annealing chain: a plan with the aggregates it is judged by, kept up to
+	 * date as meals are changed.
+	 */
+	private final class Chain {
+
+		/** The catalog. */
+		final Catalog catalog;
+
+		/** The random stream of the chain, or null for a replay. */
+		final SplittableRandom random;
+
+		/** The meal of every day. */
+		final int[] plan;
+
+		/** How many meals of every shopping period use every ingredient. */
+		final int[] ingredientUses;
+
+		/** How many days serve every recipe. */
+		final int[] recipeUses;
+
+		/** The purchase cost of the plan. */
+		double cost;
+
+		/** The number of distinct recipes served. */
+		int distinct;
+
+		/** The number of pairs of days serving a meal within the repeat gap. */
+		int repeats;
+
+		/** The best plan of the chain. */
+		int[] best;
+
+		/** The energy of the best plan. */
+		double bestEnergy = Double.POSITIVE_INFINITY;
+
+		/**
+		 * Creates a chain starting from a random plan.
+		 *
+		 * @param catalog the catalog
+		 * @param random  the random stream of the chain
+		 */
+		Chain(Catalog catalog, SplittableRandom random) {
+			this(catalog, random, null);
+		}
+
+		/**
+		 * Creates a chain replaying a plan, to measure it.
+		 *
+		 * @param catalog the catalog
+		 * @param plan    the meal of every day
+		 */
+		Chain(Catalog catalog, int[] plan) {
+			this(catalog, null, plan);
+		}
+
+		/**
+		 * Creates a chain.
+		 *
+		 * @param catalog the catalog
+		 * @param random  the random stream, or null for a replay
+		 * @param start   the starting plan, or null for a random one
+		 */
+		private Chain(Catalog catalog, SplittableRandom random, int[] start) {
+			this.catalog = catalog;
+			this.random = random;
+			this.plan = new int[days];
+			this.ingredientUses = new int[((days - 1) / shoppingDays + 1) * catalog.prices.length];
+			this.recipeUses = new int[catalog.recipeCount];
+			for (int day = 0; day < days; day++) {
+				plan[day] = -1;
+			}
+			for (int day = 0; day < days; day++) {
+				serve(day, start != null ? start[day] : random.nextInt(catalog.ingredients.length));
+			}
+		}
+
+		/**
+		 * Runs the chain, cooling geometrically from HOT to COLD.
+		 */
+		void anneal() {
+			double energy = energy();
+			record(energy);
+			double cooling = moves > 1 ? Math.pow(COLD / HOT, 1.0 / (moves - 1)) : 1.0;
+			double temperature = HOT;
+			int meals = catalog.ingredients.length;
+			for (long move = 0; move < moves; move++, temperature *= cooling) {
+				int day = random.nextInt(days);
+				int previous = plan[day];
+				// Swap two days or serve another meal, each the undo of itself
+				boolean swap = days > 1 && random.nextInt(4) == 0;
+				int other = swap ? random.nextInt(days) : -1;
+				if (swap) {
+					exchange(day, other);
+				} else {
+					serve(day, random.nextInt(meals));
+				}
+				double next = energy();
+				if (next <= energy || random.nextDouble() < Math.exp((energy - next) / temperature)) {
+					energy = next;
+					if (energy < bestEnergy) {
+						record(energy);
+					}
+				} else if (swap) {
+					exchange(day, other);
+				} else {
+					serve(day, previous);
+				}
+			}
+		}
+
+		/**
+		 * Computes the energy of the plan, lower being better. A repeat or a day's
+		 * share of the budget spent over it outweighs any gain in variety, one more
+		 * distinct recipe outweighs any saving within the budget, and the cost
+		 * itself breaks the remaining ties.
+		 *
+		 * @return the energy
+		 */
+		double energy() {
+			double dailyBudget = Math.max(budget, 1e-9) / days;
+			double overspend = Math.max(0.0, cost - budget) / dailyBudget;
+			double penalty = catalog.recipeCount + 1.0;
+			return penalty * (repeats + overspend) - distinct + cost / (Math.abs(budget) + cost + 1.0);
+		}
+
+		/**
+		 * Keeps the plan as the best of the chain.
+		 *
+		 * @param energy the energy of the plan
+		 */
+		void record(double energy) {
+			bestEnergy = energy;
+			best = plan.clone();
+		}
+
+		/**
+		 * Swaps the meals of two days.
+		 *
+		 * @param day   one day
+		 * @param other the other day
+		 */
+		void exchange(int day, int other) {
+			int meal = plan[day];
+			serve(day, plan[other]);
+			serve(other, meal);
+		}
+
+		/**
+		 * Serves a meal on a day instead of the current one, updating the
+		 * aggregates.
+		 *
+		 * @param day  the day
+		 * @param meal the meal to serve
+		 */
+		void serve(int day, int meal) {
+			int previous = plan[day];
+			if (previous == meal) {
+				return;
+			}
+			int offset = day / shoppingDays * catalog.prices.length;
+			if (previous >= 0) {
+				repeats -= nearby(day, previous);
+				for (int ingredient : catalog.ingredients[previous]) {
+					if (--ingredientUses[offset + ingredient] == 0) {
+						cost -= catalog.prices[ingredient];
+					}
+				}
+				for (int recipe : catalog.recipes[previous]) {
+					if (--recipeUses[recipe] == 0) {
+						distinct--;
+					}
+				}
+			}
+			plan[day] = meal;
+			repeats += nearby(day, meal);
+			for (int ingredient : catalog.ingredients[meal]) {
+				if (ingredientUses[offset + ingredient]++ == 0) {
+					cost += catalog.prices[ingredient];
+				}
+			}
+			for (int recipe : catalog.recipes[meal]) {
+				if (recipeUses[recipe]++ == 0) {
+					distinct++;
+				}
+			}
+		}
+
+		/**
+		 * Counts the other days within the repeat gap of a day serving a meal.
+		 *
+		 * @param day  the day
+		 * @param meal the meal
+		 * @return the number of such days
+		 */
+		int nearby(int day, int meal) {
+			int count = 0;
+			for (int other = Math.max(0, day - repeatGap + 1); other < Math.min(days, day + repeatGap); other++) {
+				if (other != day && plan[other] == meal) {
+					count++;
+				}
+			}
+			return count;
+		}
+	}
+}
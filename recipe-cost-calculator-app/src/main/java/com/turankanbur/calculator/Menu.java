@@ -12,39 +12,44 @@
 package com.turankanbur.calculator;
 
 /**
- * Imports the FileInputStream class, which is used to read data from a file as a stream of bytes.
+ * Imports the IOException class, which signals that an I/O exception of some sort has occurred.
  */
-import java.io.FileInputStream;
+import java.io.IOException;
 
 /**
- * Imports the FileOutputStream class, which is used to write data to a file as a stream of bytes.
+ * Imports the Serializable interface, which is used to indicate that a class can be serialized.
  */
-import java.io.FileOutputStream;
+import java.io.Serializable;
 
 /**
- * Imports the IOException class, which signals that an I/O exception of some sort has occurred.
+ * Provides exceptions thrown while parsing flight recorder settings.
  */
-import java.io.IOException;
+import java.text.ParseException;
 
 /**
- * Imports the ObjectInputStream class, which is used to deserialize objects from an InputStream.
+ * Provides an instant on the time-line used to show when slow operations happened.
  */
-import java.io.ObjectInputStream;
+import java.time.Instant;
 
 /**
- * Imports the ObjectOutputStream class, which is used to serialize objects to an OutputStream.
+ * Imports the ArrayList class, which is used to create resizable arrays.
  */
-import java.io.ObjectOutputStream;
+import java.util.ArrayList;
 
 /**
- * Imports the Serializable interface, which is used to indicate that a class can be serialized.
+ * Imports the Arrays class, which provides utility methods for arrays.
  */
-import java.io.Serializable;
+import java.util.Arrays;
 
 /**
- * Imports the ArrayList class, which is used to create resizable arrays.
+ * Provides the set of stocked ingredient names.
  */
-import java.util.ArrayList;
+import java.util.HashSet;
+
+/**
+ * Provides the exception thrown when an input is not a number.
+ */
+import java.util.InputMismatchException;
 
 /**
  * Imports the List interface, which is a collection used to store elements.
@@ -52,9 +57,39 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Imports the Scanner class, which is used to get user input from the console.
+ * Provides the locale used to compare ingredient names ignoring case.
  */
-import java.util.Scanner;
+import java.util.Locale;
+
+/**
+ * Provides the set interface.
+ */
+import java.util.Set;
+
+/**
+ * Provides the conversion of the slow operation threshold to milliseconds.
+ */
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provides the functions that name and describe the entries offered as completions.
+ */
+import java.util.function.Function;
+
+/**
+ * Provides the ingredient filter of the cost rankings.
+ */
+import java.util.function.IntPredicate;
+
+/**
+ * Provides the logging interface used for diagnostics.
+ */
+import org.slf4j.Logger;
+
+/**
+ * Provides the factory that creates loggers.
+ */
+import org.slf4j.LoggerFactory;
 
 
 
@@ -66,19 +101,54 @@ public class Menu implements Serializable {
 
 	/** Unique identifier for ensuring version compatibility of serialized objects. */
     private static final long serialVersionUID = 1L;
+
+	/** Logger for diagnostics. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(Menu.class);
+
+	/**
+	 * Whether the screen can still be cleared with cls: only on Windows, and
+	 * only until the first attempt fails.
+	 */
+	private static volatile boolean clearScreenWithCls = System.getProperty("os.name", "").startsWith("Windows");
+
+	/** Catalogs larger than this are searched by name instead of being printed in full. */
+	static final int FULL_LIST_LIMIT = 200;
+
+	/** The number of name completions shown at a time. */
+	static final int COMPLETION_LIMIT = 10;
+
+	/** The number of spelling suggestions shown for a name that was not found. */
+	static final int SUGGESTION_LIMIT = 3;
     
     
     /**
      * The main entry point of the Recipe Cost Calculator application.
-     * Creates an instance of the Menu class, initializes a scanner object for user input,
+     * Creates an instance of the Menu class, initializes a buffered ConsoleInput over standard input,
      * and calls the userMenu method to display the main menu and handle user interactions.
      *
-     * @param args the command line arguments (not used in this application)
+     * With the arguments "batch [file]" the commands of the file, or of standard
+     * input, are run without the menus instead; see BatchProcessor. A batch whose
+     * commands cannot be read exits with status 1.
+     *
+     * @param args the command line arguments
      */
 	public static void main(String[] args) {
 
+		if (args != null && args.length > 0 && args[0].equals("batch")) {
+			try {
+				BatchProcessor.run(Arrays.copyOfRange(args, 1, args.length));
+			} catch (IOException e) {
+				LOGGER.error("Error reading batch commands: {}", e.getMessage());
+				System.out.println("Batch aborted: the commands could not be read.");
+				System.exit(1);
+			}
+			return;
+		}
+
+		MetricsRegistry.startFileDumpFromProperties();
+		SessionRecorder.installFromProperties();
 		Menu rcp = new Menu();
-		Scanner scanner = new Scanner(System.in);
+		ConsoleInput scanner = new ConsoleInput(System.in);
 		rcp.userMenu(scanner);
 	}
 
@@ -88,21 +158,26 @@ public class Menu implements Serializable {
 	 * This method attempts to clear the console screen by running the cmd command
 	 * with the /c option and the cls command on Windows. The standard input and
 	 * output streams of the new process are redirected to those of the current
-	 * process. If an exception is thrown while running the process, it is caught
-	 * and printed to the console.
+	 * process. If the process cannot be run, the failure is logged once at debug
+	 * level and the screen is no longer cleared.
 	 *
-	 * Note: This method is specific to the Windows operating system and may not
-	 * work on other platforms. To clear the console screen on other platforms, you
-	 * may need to use different commands or methods.
+	 * Note: On other operating systems no process is started and the screen is
+	 * left as it is.
 	 */
 	public void clearScreen()
 
 	{
 
+		if (!clearScreenWithCls) {
+			return;
+		}
 		try {
 			new ProcessBuilder("cmd", "/c", "cls").inheritIO().start().waitFor();
-		} catch (Exception e) {
-			e.printStackTrace();
+		} catch (IOException e) {
+			clearScreenWithCls = false;
+			LOGGER.debug("Cannot clear the screen, leaving it as it is: {}", e.getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 		}
 
 	}
@@ -113,7 +188,7 @@ public class Menu implements Serializable {
      * @param scanner the scanner object for user input
      * @return true if exit is requested, false otherwise
      */
-	public boolean userMenu(Scanner scanner) {
+	public boolean userMenu(ConsoleInput scanner) {
 		clearScreen();
 
 		System.out.println("----------------------");
@@ -170,7 +245,7 @@ public class Menu implements Serializable {
      *
      * @param scanner the scanner object for user input
      */
-	public void registerUser(Scanner scanner) {
+	public void registerUser(ConsoleInput scanner) {
 		clearScreen();
 
 		System.out.println("----------------------");
@@ -183,14 +258,18 @@ public class Menu implements Serializable {
 		String username = scanner.nextLine();
 
 		System.out.println("Enter password: ");
-		String password = scanner.nextLine();
-
-		try (ObjectOutputStream outputStream = new ObjectOutputStream(new FileOutputStream("register.bin"))) {
-			outputStream.writeObject(new User(username, password));
+		String password = scanner.nextSensitiveLine();
 
-			System.out.println("User registered successfully.");
+		try {
+			if (new CredentialStore(DataFiles.users()).register(username, password.toCharArray())) {
+				System.out.println("User registered successfully.");
+			} else {
+				System.out.println("Username is already taken.");
+			}
+		} catch (IllegalArgumentException e) {
+			System.out.println(e.getMessage());
 		} catch (IOException e) {
-			;
+			LOGGER.error("Error registering user: {}", e.getMessage());
 		}
 
 		userMenu(scanner);
@@ -203,7 +282,7 @@ public class Menu implements Serializable {
      *
      * @param scanner the scanner object for user input
      */
-	public void loginUser(Scanner scanner) {
+	public void loginUser(ConsoleInput scanner) {
 		clearScreen();
 
 		System.out.println("--------------------");
@@ -216,34 +295,44 @@ public class Menu implements Serializable {
 		String username = scanner.nextLine();
 
 		System.out.print("Enter password: ");
-		String password = scanner.nextLine();
+		String password = scanner.nextSensitiveLine();
 
-		try (ObjectInputStream inputStream = new ObjectInputStream(new FileInputStream("register.bin"))) {
-			User user;
-			while ((user = (User) inputStream.readObject()) != null) {
-				if (user.getUsername().equals(username) && user.getPassword().equals(password)) {
+		try {
+			if (authenticate(username, password.toCharArray())) {
 
-					clearScreen();
-					printMenu(scanner);
-					return;
-				}
+				clearScreen();
+				printMenu(scanner);
+				return;
 			}
-		} catch (IOException | ClassNotFoundException e) {
-			System.out.println("Error");
+		} catch (IOException e) {
+			LOGGER.error("Error reading users: {}", e.getMessage());
 		}
 
+		scanner.rejectSensitiveLine();
 		System.out.println("Incorrect username or password. Please try again.");
 		userMenu(scanner);
 		scanner.close();
 
 	}
 
+	/**
+	 * Checks the password of a user against the credential store.
+	 *
+	 * @param username the username
+	 * @param password the password
+	 * @return true if the user exists and the password matches
+	 * @throws IOException if the credential file cannot be read
+	 */
+	protected boolean authenticate(String username, char[] password) throws IOException {
+		return new CredentialStore(DataFiles.users()).authenticate(username, password);
+	}
+
 	 /**
      * Enters guest mode.
      *
      * @param scanner the scanner object for user input
      */
-	public void guestMode(Scanner scanner) {
+	public void guestMode(ConsoleInput scanner) {
 		clearScreen();
 
 		System.out.println("--------------------");
@@ -275,7 +364,7 @@ public class Menu implements Serializable {
      *
      * @param Scanner the scanner object for user input
      */
-	public void printMenu(Scanner Scanner) {
+	public void printMenu(ConsoleInput Scanner) {
 
 		// Clear the screen
 		clearScreen();
@@ -303,7 +392,7 @@ public class Menu implements Serializable {
      *
      * @param scanner the scanner object for user input
      */
-	public void printMenuForGuest(Scanner scanner) {
+	public void printMenuForGuest(ConsoleInput scanner) {
 		
 
 		// Clear the screen
@@ -331,7 +420,7 @@ public class Menu implements Serializable {
      *
      * @param scanner the scanner object for user input
      */
-	public void selectMenu(Scanner scanner) {
+	public void selectMenu(ConsoleInput scanner) {
 		try {
 			System.out.println("Press First Character for further Operations");
 			String choice = scanner.next();
@@ -362,6 +451,14 @@ public class Menu implements Serializable {
 			case "E":
 			case "e":
 				break;
+			case "J":
+			case "j":
+				toggleFlightRecording(scanner);
+				break;
+			case "D":
+			case "d":
+				Diagnostics(scanner);
+				break;
 			default: 
 		        System.err.println("Please enter a valid key!");
 		        printMenu(scanner);
@@ -372,12 +469,75 @@ public class Menu implements Serializable {
 	}
 
 	
+	/**
+     * Starts a flight recording, or stops the running one and saves it to a .jfr
+     * file. This command is not listed in the main menu.
+     *
+     * @param scanner the scanner object for user input
+     */
+	public void toggleFlightRecording(ConsoleInput scanner) {
+		try {
+			if (FlightRecording.isRunning()) {
+				System.out.println("Flight recording saved to " + FlightRecording.stop());
+			} else {
+				FlightRecording.start();
+				System.out.println("Flight recording started. Press J again to stop and save it.");
+			}
+		} catch (IOException | ParseException e) {
+			LOGGER.error("Error controlling flight recording: {}", e.getMessage());
+		}
+		selectMenu(scanner);
+	}
+
+	/**
+     * Displays the latency percentiles of every menu action and the most recent
+     * slow operations. This screen is not listed in the main menu.
+     *
+     * @param scanner the scanner object for user input
+     */
+	public void Diagnostics(ConsoleInput scanner) {
+		clearScreen();
+
+		System.out.println("----------------");
+		System.out.println("Diagnostics");
+		System.out.println("----------------");
+		System.out.println(String.format("%-18s %8s %10s %10s %10s %10s", "Operation", "Count", "p50 ms", "p99 ms",
+				"p99.9 ms", "Max ms"));
+		for (LatencyHistogram histogram : OperationLatencies.all()) {
+			System.out.println(String.format("%-18s %8d %10.3f %10.3f %10.3f %10.3f", histogram.getName(),
+					histogram.getCount(), histogram.getValueAtPercentile(50.0) / 1e6,
+					histogram.getValueAtPercentile(99.0) / 1e6, histogram.getValueAtPercentile(99.9) / 1e6,
+					histogram.getMax() / 1e6));
+		}
+
+		System.out.println("\nSlow operations (over "
+				+ TimeUnit.NANOSECONDS.toMillis(OperationLatencies.SLOW_THRESHOLD_NANOS) + " ms):");
+		boolean anySlow = false;
+		for (LatencyHistogram histogram : OperationLatencies.all()) {
+			for (int i = 0; i < histogram.getSlowSampleCount(); i++) {
+				anySlow = true;
+				System.out.println(String.format("    %s  %-18s %10.3f ms",
+						Instant.ofEpochMilli(histogram.getSlowSampleTimestamp(i)), histogram.getName(),
+						histogram.getSlowSampleDuration(i) / 1e6));
+			}
+		}
+		if (!anySlow) {
+			System.out.println("    None");
+		}
+
+		System.out.println("Press 'c' to return to the main menu.");
+
+		scanner.next();
+		printMenu(scanner);
+		scanner.close();
+	}
+
 	/**
      * Selects menu options for guest users based on user input.
      *
      * @param scanner the scanner object for user input
      */
-	public void selectMenuForGuest(Scanner scanner) {
+	public void selectMenuForGuest(ConsoleInput scanner) {
 
 		try {
 			System.out.println("Press First Character for further Operations");
@@ -428,7 +588,7 @@ public class Menu implements Serializable {
      *
      * @param scanner the scanner object for user input
      */
-	public void IngredientManagement(Scanner scanner) {
+	public void IngredientManagement(ConsoleInput scanner) {
 		clearScreen();
 
 		System.out.println("----------------");
@@ -438,6 +598,7 @@ public class Menu implements Serializable {
 		System.out.println("2-View Ingredient");
 		System.out.println("3-Edit Ingredient");
 		System.out.println("4-Remove Ingredient");
+		System.out.println("P-Price Search");
 		System.out.println("5-Main Menu");
 		try {
 		System.out.println("Press First Character for further Operation ");
@@ -473,6 +634,10 @@ public class Menu implements Serializable {
 			clearScreen();
 			printMenu(scanner);
 			break;
+		case "P":
+		case "p":
+			findIngredientsByPrice(scanner);
+			break;
 			
 		default: 
 	        System.err.println("Please enter a valid key!");
@@ -490,7 +655,7 @@ public class Menu implements Serializable {
      *
      * @param scanner the scanner object for user input
      */
-	public void IngredientManagementForGuest(Scanner scanner) {
+	public void IngredientManagementForGuest(ConsoleInput scanner) {
 
 		clearScreen();
 
@@ -538,7 +703,7 @@ public class Menu implements Serializable {
      *
      * @param scanner the scanner object for user input
      */
-	public void RecipeCosting(Scanner scanner) {
+	public void RecipeCosting(ConsoleInput scanner) {
 
 		clearScreen();
 
@@ -554,6 +719,12 @@ public class Menu implements Serializable {
 
 		System.out.println("3-Edit Recipes");
 
+		System.out.println("S-Search Recipes");
+
+		System.out.println("W-What Can I Cook");
+
+		System.out.println("T-Top Costs");
+
 		System.out.println("4-Main Menu");
 
 		System.out.println("Press First Character for further Operation ");
@@ -572,7 +743,7 @@ public class Menu implements Serializable {
 		case "V":
 		case "v":
 			clearScreen();
-			RecipeManagement.loadFromFile("recipes.bin");
+			RecipeManagement.loadFromFile(DataFiles.recipes());
 			viewRecipe(scanner);
 			break;
 
@@ -582,6 +753,20 @@ public class Menu implements Serializable {
 			editIngredient(scanner);
 			break;
 
+		case "W":
+		case "w":
+			cookRecipes(scanner, false);
+			break;
+
+		case "S":
+		case "s":
+			searchNames(scanner, GuestDataImage.Kind.RECIPES, false);
+			break;
+		case "T":
+		case "t":
+			rankCosts(scanner, GuestDataImage.Kind.RECIPES, false);
+			break;
+
 		case "4":
 		case "M":
 		case "m":
@@ -602,7 +787,7 @@ public class Menu implements Serializable {
      *
      * @param scanner the scanner object for user input
      */
-	public void RecipeCostingForGuest(Scanner scanner) {
+	public void RecipeCostingForGuest(ConsoleInput scanner) {
 
 		Menu a = new Menu();
 		a.clearScreen();
@@ -615,6 +800,12 @@ public class Menu implements Serializable {
 
 		System.out.println("1-View Recipe");
 
+		System.out.println("S-Search Recipes");
+
+		System.out.println("W-What Can I Cook");
+
+		System.out.println("T-Top Costs");
+
 		System.out.println("2-Main Menu");
 
 		System.out.println("Press First Character for further Operation ");
@@ -629,6 +820,20 @@ public class Menu implements Serializable {
 			viewRecipeForGuest(scanner);
 			break;
 
+		case "W":
+		case "w":
+			cookRecipes(scanner, true);
+			break;
+
+		case "S":
+		case "s":
+			searchNames(scanner, GuestDataImage.Kind.RECIPES, true);
+			break;
+		case "T":
+		case "t":
+			rankCosts(scanner, GuestDataImage.Kind.RECIPES, true);
+			break;
+
 		case "2":
 		case "M":
 		case "m":
@@ -650,7 +855,7 @@ public class Menu implements Serializable {
      *
      * @param scanner the scanner object for user input
      */
-	public void PlanMeal(Scanner scanner) {
+	public void PlanMeal(ConsoleInput scanner) {
 
 		clearScreen();
 
@@ -664,6 +869,16 @@ public class Menu implements Serializable {
 
 		System.out.println("2-View Meals");
 
+		System.out.println("S-Search Meals");
+
+		System.out.println("T-Top Costs");
+
+		System.out.println("O-Optimize Meal");
+
+		System.out.println("W-Weekly Plan");
+
+		System.out.println("N-Number of Covers");
+
 		System.out.println("3-Main Menu");
 
 	
@@ -687,6 +902,27 @@ public class Menu implements Serializable {
 			viewMeal(scanner);
 			break;
 
+		case "S":
+		case "s":
+			searchNames(scanner, GuestDataImage.Kind.MEALS, false);
+			break;
+		case "O":
+		case "o":
+			optimizeMeal(scanner);
+			break;
+		case "W":
+		case "w":
+			planMeals(scanner);
+			break;
+		case "N":
+		case "n":
+			scaleMeal(scanner);
+			break;
+		case "T":
+		case "t":
+			rankCosts(scanner, GuestDataImage.Kind.MEALS, false);
+			break;
+
 		case "3":
 		case "M":
 		case "m":
@@ -707,7 +943,7 @@ public class Menu implements Serializable {
      *
      * @param scanner the scanner object for user input
      */
-	public void PlanMealForGuest(Scanner scanner) {
+	public void PlanMealForGuest(ConsoleInput scanner) {
 
 		clearScreen();
 
@@ -719,6 +955,10 @@ public class Menu implements Serializable {
 
 		System.out.println("1-View Meals");
 
+		System.out.println("S-Search Meals");
+
+		System.out.println("T-Top Costs");
+
 		System.out.println("2-Main Menu");
 
 		System.out.print("Press First Character for further Operation ");
@@ -734,6 +974,15 @@ public class Menu implements Serializable {
 			viewMealForGuest(scanner);
 			break;
 
+		case "S":
+		case "s":
+			searchNames(scanner, GuestDataImage.Kind.MEALS, true);
+			break;
+		case "T":
+		case "t":
+			rankCosts(scanner, GuestDataImage.Kind.MEALS, true);
+			break;
+
 		case "2":
 		case "M":
 		case "m":
@@ -754,9 +1003,9 @@ public class Menu implements Serializable {
 	 * The ingredient is then saved to the file "ingredients.bin".
 	 * After adding the ingredient, the user is redirected to the main menu.
 	 * 
-	 * @param scanner The Scanner object used to get user input.
+	 * @param scanner The ConsoleInput used to get user input.
 	 */
-	public void addIngredient(Scanner scanner) {
+	public void addIngredient(ConsoleInput scanner) {
 
 		clearScreen();
 
@@ -771,15 +1020,24 @@ public class Menu implements Serializable {
 
 		System.out.println("Ingredients Price:");
 		int price = scanner.nextInt();
+		// The price may be followed by the unit it is for, e.g. "3 kg"
+		String unitSymbol = scanner.nextLine();
+		Unit unit = unitSymbol.isBlank() ? Unit.PIECE : Unit.parse(unitSymbol);
+		if (unit == null) {
+			System.out.println("Unknown unit: " + unitSymbol.trim() + ". Priced per piece.");
+			unit = Unit.PIECE;
+		}
 
-		Ingredient ingredient = new Ingredient(name, price);
+		long start = System.nanoTime();
+		Ingredient ingredient = new Ingredient(name, price, unit);
 
 		IngredientManagement management1 = new IngredientManagement("null", 0);
-		management1.loadFromFile("ingredients.bin");
+		management1.loadFromFile(DataFiles.ingredients());
 
-		management1.addIngredient(ingredient, "ingredients.bin");
+		management1.addIngredient(ingredient, DataFiles.ingredients());
 
-		management1.saveToFile("ingredients.bin");
+		management1.saveToFile(DataFiles.ingredients());
+		OperationLatencies.ADD_INGREDIENT.record(System.nanoTime() - start);
 
 		printMenu(scanner);
 
@@ -790,16 +1048,16 @@ public class Menu implements Serializable {
 	/**
 	 * Displays the list of available ingredients to the user. The user can press 'c' to return to the main menu.
 	 * 
-	 * @param scanner The Scanner object used to get user input.
+	 * @param scanner The ConsoleInput used to get user input.
 	 */
-	public void viewIngredient(Scanner scanner) {
+	public void viewIngredient(ConsoleInput scanner) {
 
 		clearScreen();
 		// Ingredient recipeCalculator = new Ingredient(null, 0);
 
 		IngredientManagement management = new IngredientManagement("null", 0);
 
-		management.loadFromFile("ingredients.bin");
+		management.loadFromFile(DataFiles.ingredients());
 		management.listIngredients();
 
 		// Calculate and display total stock and price
@@ -819,17 +1077,22 @@ public class Menu implements Serializable {
 	/**
 	 * Displays the list of available ingredients to the guest user. The guest user can press 'c' to return to the main menu.
 	 * 
-	 * @param scanner The Scanner object used to get user input.
+	 * @param scanner The ConsoleInput used to get user input.
 	 */
-	public void viewIngredientForGuest(Scanner scanner) {
+	public void viewIngredientForGuest(ConsoleInput scanner) {
 
 		clearScreen();
-		// Ingredient recipeCalculator = new Ingredient(null, 0);
 
-		IngredientManagement management = new IngredientManagement("null", 0);
+		// Guests cannot mutate anything, so serve the list from the read-only image
+		GuestDataImage image = GuestDataImage.open(DataFiles.ingredients(), GuestDataImage.Kind.INGREDIENTS);
+		if (image != null) {
+			image.listIngredients();
+		} else {
+			IngredientManagement management = new IngredientManagement("null", 0);
 
-		management.loadFromFile("ingredients.bin");
-		management.listIngredients();
+			management.loadFromFile(DataFiles.ingredients());
+			management.listIngredients();
+		}
 
 		// Calculate and display total stock and price
 
@@ -852,9 +1115,9 @@ public class Menu implements Serializable {
 	 * to edit, as well as the new price. After editing the ingredient, the user can choose to save or cancel the operation
 	 * and return to the main menu.
 	 * 
-	 * @param scanner The Scanner object used to get user input.
+	 * @param scanner The ConsoleInput used to get user input.
 	 */	
-	public void editIngredient(Scanner scanner) {
+	public void editIngredient(ConsoleInput scanner) {
 
 		clearScreen();
 		// Ingredient rps = new Ingredient(null, 0);
@@ -865,11 +1128,13 @@ public class Menu implements Serializable {
 		System.out.println("Ingredients-Edit Menu");
 
 		System.out.println("______________");
+		long start = System.nanoTime();
 		IngredientManagement management = new IngredientManagement("null", 0);
 
-		management.loadFromFile("ingredients.bin");
+		management.loadFromFile(DataFiles.ingredients());
 
 		management.listIngredients();
+		long work = System.nanoTime() - start;
 		scanner.nextLine();
 
 		System.out.println("Enter Ingredient Name to Edit:");
@@ -879,14 +1144,16 @@ public class Menu implements Serializable {
 		// IngredientManagement management2 = new IngredientManagement(editName, 0);
 
 		// Display existing ingredients for user to choose from
+		start = System.nanoTime();
 		IngredientManagement management1 = new IngredientManagement("null", 0);
-		management1.loadFromFile("ingredients.bin");
+		management1.loadFromFile(DataFiles.ingredients());
 
 		// Find the ingredient by name
 
 		Ingredient ingredientToEdit = management1.findIngredientByName(editName);
 
 		if (ingredientToEdit != null) {
+			work += System.nanoTime() - start;
 			// Prompt user for new values
 
 			System.out.println("New Ingredients Price:");
@@ -894,16 +1161,20 @@ public class Menu implements Serializable {
 			int newPrice = scanner.nextInt();
 
 			// Update the ingredient
+			start = System.nanoTime();
 
 			ingredientToEdit.setPrice(newPrice);
 
 			// Save to file
-			management1.saveToFile("ingredients.bin");
+			management1.saveToFile(DataFiles.ingredients());
 			// Display updated list
 
 		} else {
 			System.out.println("Ingredient not found. Please enter a valid name.");
+			printSuggestions(management1, editName);
 		}
+		work += System.nanoTime() - start;
+		OperationLatencies.EDIT_INGREDIENT.record(work);
 		clearScreen();
 
 		System.out.println("Save");
@@ -936,9 +1207,9 @@ public class Menu implements Serializable {
 	 * ingredient to remove. After removing the ingredient, the user can choose to save or cancel the operation and return
 	 * to the main menu.
 	 * 
-	 * @param scanner The Scanner object used to get user input.
+	 * @param scanner The ConsoleInput used to get user input.
 	 */
-	public void removeIngredient(Scanner scanner) {
+	public void removeIngredient(ConsoleInput scanner) {
 
 		clearScreen();
 
@@ -950,8 +1221,10 @@ public class Menu implements Serializable {
 
 		System.out.println("______________");
 
-		listing.loadFromFile("ingredients.bin");
+		long start = System.nanoTime();
+		listing.loadFromFile(DataFiles.ingredients());
 		listing.listIngredients();
+		long work = System.nanoTime() - start;
 		scanner.nextLine();
 
 		System.out.println("Enter Ingredient Name to Remove:");
@@ -959,25 +1232,29 @@ public class Menu implements Serializable {
 		String removeName = scanner.next();
 
 		// Load ingredients from file
+		start = System.nanoTime();
 
 		IngredientManagement ingredientManagement = new com.turankanbur.calculator.IngredientManagement(removeName, 0);
 
 		// Display existing ingredients for user to choose from
-		ingredientManagement.loadFromFile("ingredients.bin");
+		ingredientManagement.loadFromFile(DataFiles.ingredients());
 
 		// Find the ingredient by name
 		Ingredient ingredientToRemove = ingredientManagement.findIngredientByName(removeName);
 
 		if (ingredientToRemove != null) {
 			// Remove the ingredient
-			ingredientManagement.getIngredients().remove(ingredientToRemove);
+			ingredientManagement.removeIngredient(ingredientToRemove);
 
 			// Save to file
-			ingredientManagement.saveToFile("ingredients.bin");
+			ingredientManagement.saveToFile(DataFiles.ingredients());
 			System.out.println("Ingredient removed successfully.");
 		} else {
 			System.out.println("Ingredient not found. Please enter a valid name.");
+			printSuggestions(ingredientManagement, removeName);
 		}
+		work += System.nanoTime() - start;
+		OperationLatencies.REMOVE_INGREDIENT.record(work);
 
 		clearScreen();
 
@@ -1010,46 +1287,78 @@ public class Menu implements Serializable {
 	 * then saved to the file "recipes.bin".
 	 * After creating the recipe, the user is redirected to the main menu.
 	 * 
-	 * @param scanner The Scanner object used to get user input.
+	 * @param scanner The ConsoleInput used to get user input.
 	 */
-	public void CreateRecipe(Scanner scanner) {
+	public void CreateRecipe(ConsoleInput scanner) {
 		scanner.nextLine();
+		long start = System.nanoTime();
 		IngredientManagement management = new IngredientManagement("null", 0);
 
-		management.loadFromFile("ingredients.bin");
+		management.loadFromFile(DataFiles.ingredients());
 
 		// Available ingredients from management
 		List<Ingredient> availableIngredients = management.getIngredients();
 
-		// Display available ingredients to the user
-		System.out.println("Available Ingredients:");
-		for (int i = 0; i < availableIngredients.size(); i++) {
-			Ingredient ingredient = availableIngredients.get(i);
-			System.out.println((i + 1) + ". " + ingredient.getName() + " - Price: " + ingredient.getPrice()+"$");
+		// Display available ingredients to the user, unless there are too many to scroll
+		if (availableIngredients.size() <= FULL_LIST_LIMIT) {
+			System.out.println("Available Ingredients:");
+			for (int i = 0; i < availableIngredients.size(); i++) {
+				Ingredient ingredient = availableIngredients.get(i);
+				System.out.println((i + 1) + ". " + ingredient.getName() + " - Price: " + ingredient.getPriceLabel());
+			}
+		} else {
+			System.out.println(
+					availableIngredients.size() + " ingredients available. Type the first letters of a name to search.");
 		}
 
 		List<Ingredient> selectedIngredients = new ArrayList<>();
-		double totalCost = 0.0;
-		System.out.println("Enter ingredient numbers (press 'q' to finish):");
+		int[] quantities = new int[8];
+		Unit[] units = new Unit[8];
+		long work = System.nanoTime() - start;
+		System.out.println("Enter ingredient numbers or names (press 'q' to finish):");
 		while (true) {
-			System.out.print("Ingredient number: ");
+			System.out.print("Ingredient number or name: ");
 			String input = scanner.nextLine();
 			if (input.equalsIgnoreCase("q")) {
 				break;
 			}
 			try {
-				int index = Integer.parseInt(input) - 1;
-				if (index < 0 || index >= availableIngredients.size()) {
-					System.out.println("Invalid ingredient number. Please try again.");
-					continue;
+				Ingredient ingredient;
+				if (isNumber(input)) {
+					int index = Integer.parseInt(input) - 1;
+					if (index < 0 || index >= availableIngredients.size()) {
+						System.out.println("Invalid ingredient number. Please try again.");
+						continue;
+					}
+					ingredient = availableIngredients.get(index);
+				} else {
+					ingredient = chooseCompletion(input, management.completeName(input, COMPLETION_LIMIT + 1),
+							Ingredient::getName, match -> match.getName() + " - Price: " + match.getPriceLabel(),
+							"ingredient");
+					if (ingredient == null) {
+						continue;
+					}
 				}
-				Ingredient ingredient = availableIngredients.get(index);
 				System.out.print("Enter quantity for " + ingredient.getName() + ": ");
-				int quantity = Integer.parseInt(scanner.nextLine()); // Get quantity input from user
+				// Get quantity input from user, optionally with a unit such as "500 g"
+				String quantityInput = scanner.nextLine().trim();
+				int length = Unit.quantityLength(quantityInput);
+				int quantity = Integer.parseInt(quantityInput.substring(0, length));
+				Unit unit = length == quantityInput.length() ? ingredient.getUnit()
+						: Unit.parse(quantityInput.substring(length));
+				if (unit == null || !unit.canConvertTo(ingredient.getUnit())) {
+					System.out.println("Cannot measure " + ingredient.getName() + " in "
+							+ quantityInput.substring(length).trim() + ". Please try again.");
+					continue;
+				}
 
-				// Calculate and accumulate cost for selected ingredients
-				double ingredientCost = ingredient.getPrice() * quantity;
-				totalCost += ingredientCost;
+				// Remember the quantity and unit of each selected ingredient for costing
+				if (selectedIngredients.size() == quantities.length) {
+					quantities = Arrays.copyOf(quantities, quantities.length * 2);
+					units = Arrays.copyOf(units, units.length * 2);
+				}
+				quantities[selectedIngredients.size()] = quantity;
+				units[selectedIngredients.size()] = unit;
 
 				selectedIngredients.add(ingredient); // Add the selected ingredient to the list
 			} catch (NumberFormatException e) {
@@ -1057,11 +1366,19 @@ public class Menu implements Serializable {
 			}
 
 		}
+		// Calculate and accumulate cost for selected ingredients
+		start = System.nanoTime();
+		double totalCost = RecipeManagement.calculateTotalCost(selectedIngredients, quantities, units);
+		work += System.nanoTime() - start;
 		System.out.print("Enter recipe name: ");
 		String recipeName = scanner.nextLine();
+		int servings = readServings(scanner, "Enter servings per batch (blank for 1): ");
+		start = System.nanoTime();
 		RecipeManagement recipes = new RecipeManagement();
 		RecipeManagement.createRecipeFromUserInput(availableIngredients, recipes, recipeName, totalCost,
-				selectedIngredients);
+				selectedIngredients, servings);
+		work += System.nanoTime() - start;
+		OperationLatencies.CREATE_RECIPE.record(work);
 
 		printMenu(scanner);
 
@@ -1070,16 +1387,116 @@ public class Menu implements Serializable {
 	}
 
 	
+	/**
+	 * Picks the entry an operator means by a typed name or name prefix: the entry
+	 * with exactly that name, or the only entry starting with it. Otherwise the
+	 * matching names are shown so the operator can type more of the name.
+	 *
+	 * @param <T>      the type of the entries
+	 * @param input    the typed name or prefix
+	 * @param matches  the entries whose names start with the input, in alphabetical order
+	 * @param name     retrieves the name of an entry
+	 * @param describe describes an entry for the list of matches
+	 * @param kind     the kind of entry, used in messages
+	 * @return the chosen entry, or null if the input does not pick one
+	 */
+	private static <T> T chooseCompletion(String input, List<T> matches, Function<T, String> name,
+			Function<T, String> describe, String kind) {
+		if (!input.trim().isEmpty()) {
+			// An exact name is the shortest completion, so it always comes first
+			if (!matches.isEmpty() && name.apply(matches.get(0)).equalsIgnoreCase(input)) {
+				return matches.get(0);
+			}
+			if (matches.size() == 1) {
+				return matches.get(0);
+			}
+		}
+
+		if (matches.isEmpty()) {
+			System.out.println("No " + kind + " name starts with \"" + input + "\". Please try again.");
+			return null;
+		}
+		System.out.println("Matching " + kind + "s (type more of the name to choose one):");
+		for (int i = 0; i < Math.min(matches.size(), COMPLETION_LIMIT); i++) {
+			System.out.println("  " + describe.apply(matches.get(i)));
+		}
+		if (matches.size() > COMPLETION_LIMIT) {
+			System.out.println("  ...");
+		}
+		return null;
+	}
+
+	/**
+	 * Prints the ingredient names closest to a name that was not found, if any
+	 * is close enough to be a likely misspelling.
+	 *
+	 * @param management the ingredients that were searched
+	 * @param name       the name that was not found
+	 */
+	private static void printSuggestions(IngredientManagement management, String name) {
+		List<Ingredient> suggestions = management.suggestNames(name, SUGGESTION_LIMIT);
+		if (suggestions.isEmpty()) {
+			return;
+		}
+		StringBuilder line = new StringBuilder("Did you mean: ");
+		for (int i = 0; i < suggestions.size(); i++) {
+			line.append(i > 0 ? ", " : "").append(suggestions.get(i).getName());
+		}
+		System.out.println(line.append('?'));
+	}
+
+	/**
+	 * Checks whether an input is a whole number, possibly negative, as opposed to
+	 * a name.
+	 *
+	 * @param input the input
+	 * @return true if the input consists of digits with an optional sign
+	 */
+	private static boolean isNumber(String input) {
+		int start = input.startsWith("-") || input.startsWith("+") ? 1 : 0;
+		if (start == input.length()) {
+			return false;
+		}
+		for (int i = start; i < input.length(); i++) {
+			if (!Character.isDigit(input.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Reads a number of servings, a blank line meaning a single serving.
+	 *
+	 * @param scanner the ConsoleInput used to get user input
+	 * @param prompt  the prompt to print
+	 * @return the number of servings, at least one
+	 */
+	private static int readServings(ConsoleInput scanner, String prompt) {
+		System.out.print(prompt);
+		String input = scanner.nextLine().trim();
+		if (input.isEmpty()) {
+			return 1;
+		}
+		if (isNumber(input) && input.length() <= 9 && Integer.parseInt(input) >= 1) {
+			return Integer.parseInt(input);
+		}
+		System.out.println("Invalid number of servings. Using 1.");
+		return 1;
+	}
+
 	/**
 	 * Displays the list of available recipes to the user. The user can press 'c' to return to the main menu.
 	 * 
-	 * @param scanner The Scanner object used to get user input.
+	 * @param scanner The ConsoleInput used to get user input.
 	 */
-	public void viewRecipe(Scanner scanner) {
+	public void viewRecipe(ConsoleInput scanner) {
 
+		long start = System.nanoTime();
 		RecipeManagement recipeManager = new RecipeManagement();
 
-		recipeManager.listRecipes("recipes.bin");
+		recipeManager.listRecipes(DataFiles.recipes());
+		OperationLatencies.VIEW_RECIPE.record(System.nanoTime() - start);
 
 		System.out.println("Press 'c' to return to the main menu.");
 
@@ -1098,12 +1515,17 @@ public class Menu implements Serializable {
 	/**
 	 * Displays the list of available recipes to the guest user. The guest user can press 'c' to return to the main menu.
 	 * 
-	 * @param scanner The Scanner object used to get user input.
+	 * @param scanner The ConsoleInput used to get user input.
 	 */
-	public void viewRecipeForGuest(Scanner scanner) {
-		RecipeManagement recipeManager = new RecipeManagement();
+	public void viewRecipeForGuest(ConsoleInput scanner) {
+		GuestDataImage image = GuestDataImage.open(DataFiles.recipes(), GuestDataImage.Kind.RECIPES);
+		if (image != null) {
+			image.listRecipes();
+		} else {
+			RecipeManagement recipeManager = new RecipeManagement();
 
-		recipeManager.listRecipes("recipes.bin");
+			recipeManager.listRecipes(DataFiles.recipes());
+		}
 
 		System.out.println("Press 'c' to return to the main menu.");
 
@@ -1124,24 +1546,34 @@ public class Menu implements Serializable {
 	 * recipes to include in the meal, provides a name for the meal, and then saves the created meal to the file "meals.bin".
 	 * After creating the meal, the user is redirected to the main menu.
 	 * 
-	 * @param scanner The Scanner object used to get user input.
+	 * @param scanner The ConsoleInput used to get user input.
 	 */
-	public void CreateMeal(Scanner scanner) {
+	public void CreateMeal(ConsoleInput scanner) {
 		scanner.nextLine();
+		long start = System.nanoTime();
 
 		RecipeManagement recipeManager = new RecipeManagement();
-		RecipeManagement.loadFromFile("recipes.bin");
-		recipeManager.listRecipes("recipes.bin");
+		recipeManager.setRecipes(RecipeManagement.loadFromFile(DataFiles.recipes()));
 		List<Recipe> availableRecipes = recipeManager.getRecipes();
 
-		System.out.println("Available Recipes:");
-		for (int i = 0; i < availableRecipes.size(); i++) {
-			Recipe recipe = availableRecipes.get(i);
-			System.out.println((i + 1) + ". " + recipe.getName());
+		// Display available recipes to the user, unless there are too many to scroll
+		if (availableRecipes.size() <= FULL_LIST_LIMIT) {
+			recipeManager.listRecipes(DataFiles.recipes());
+			availableRecipes = recipeManager.getRecipes();
+
+			System.out.println("Available Recipes:");
+			for (int i = 0; i < availableRecipes.size(); i++) {
+				Recipe recipe = availableRecipes.get(i);
+				System.out.println((i + 1) + ". " + recipe.getName());
+			}
+		} else {
+			System.out.println(
+					availableRecipes.size() + " recipes available. Type the first letters of a name to search.");
 		}
 		List<Recipe> selectedRecipes = new ArrayList<>();
+		long work = System.nanoTime() - start;
 		while (true) {
-			System.out.print("Select a recipe number to include in the meal (press 'q' to finish): ");
+			System.out.print("Select a recipe number or name to include in the meal (press 'q' to finish): ");
 			String userInput = scanner.nextLine();
 
 			if (userInput.equalsIgnoreCase("q")) {
@@ -1149,13 +1581,22 @@ public class Menu implements Serializable {
 			}
 
 			try {
-				int selectedRecipeIndex = Integer.parseInt(userInput) - 1;
-				if (selectedRecipeIndex < 0 || selectedRecipeIndex >= availableRecipes.size()) {
-					System.out.println("Invalid recipe number selected. Please try again.");
-					continue;
+				Recipe selectedRecipe;
+				if (isNumber(userInput)) {
+					int selectedRecipeIndex = Integer.parseInt(userInput) - 1;
+					if (selectedRecipeIndex < 0 || selectedRecipeIndex >= availableRecipes.size()) {
+						System.out.println("Invalid recipe number selected. Please try again.");
+						continue;
+					}
+					selectedRecipe = availableRecipes.get(selectedRecipeIndex);
+				} else {
+					selectedRecipe = chooseCompletion(userInput,
+							recipeManager.completeName(userInput, COMPLETION_LIMIT + 1), Recipe::getName,
+							Recipe::getName, "recipe");
+					if (selectedRecipe == null) {
+						continue;
+					}
 				}
-
-				Recipe selectedRecipe = availableRecipes.get(selectedRecipeIndex);
 				selectedRecipes.add(selectedRecipe);
 
 			} catch (NumberFormatException e) {
@@ -1165,8 +1606,12 @@ public class Menu implements Serializable {
 
 		System.out.print("Enter meal name: ");
 		String mealName = scanner.nextLine();
+		int covers = readServings(scanner, "Enter number of covers (blank for 1): ");
+		start = System.nanoTime();
 		MealManagement meals = new MealManagement();
-		meals.createMealFromUserInput(mealName, selectedRecipes, recipeManager);
+		meals.createMealFromUserInput(mealName, selectedRecipes, recipeManager, covers);
+		work += System.nanoTime() - start;
+		OperationLatencies.CREATE_MEAL.record(work);
 		System.out.println("Press 'c' to return to the main menu.");
 
 		printMenu(scanner);
@@ -1176,16 +1621,426 @@ public class Menu implements Serializable {
 	}
 
 	
+	/**
+	 * Composes a meal within a budget, reached with the O key of the meal menu.
+	 * The operator enters the budget, the maximum number of recipes, what to
+	 * maximize (servings by default, ingredients or recipes), the required courses
+	 * and the excluded ingredients; the meal found can then be saved under a
+	 * name.
+	 *
+	 * @param scanner The ConsoleInput used to get user input.
+	 */
+	public void optimizeMeal(ConsoleInput scanner) {
+		clearScreen();
+		scanner.nextLine();
+
+		MealOptimizer optimizer = null;
+		try {
+			System.out.println("Budget:");
+			optimizer = new MealOptimizer(Double.parseDouble(scanner.nextLine().trim()));
+			System.out.println("Maximum number of recipes (blank for " + MealOptimizer.DEFAULT_MAX_RECIPES + "):");
+			String maxRecipes = scanner.nextLine().trim();
+			if (!maxRecipes.isEmpty()) {
+				optimizer.setMaxRecipes(Integer.parseInt(maxRecipes));
+			}
+		} catch (IllegalArgumentException e) {
+			// Also rejects a budget of NaN or Infinity, which parseDouble accepts
+			System.out.println("Invalid number.");
+			optimizer = null;
+		}
+		MealOptimizer.Objective objective = MealOptimizer.Objective.SERVINGS;
+		if (optimizer != null) {
+			System.out.println("Maximize 1-Servings, 2-Ingredients or 3-Recipes (blank for servings):");
+			switch (scanner.nextLine().trim()) {
+			case "2":
+				objective = MealOptimizer.Objective.INGREDIENTS;
+				break;
+			case "3":
+				objective = MealOptimizer.Objective.RECIPES;
+				break;
+			default:
+				break;
+			}
+			optimizer.setObjective(objective);
+			System.out.println("Maximizing " + objective.getLabel() + ".");
+		}
+		if (optimizer != null) {
+			System.out.println("Required courses, as words of a recipe name separated by commas (blank for none):");
+			for (String course : scanner.nextLine().split(",")) {
+				if (!course.trim().isEmpty()) {
+					try {
+						optimizer.requireCourse(course);
+					} catch (IllegalArgumentException e) {
+						// A course without words, or one course too many, is skipped
+						System.out.println("Invalid course: " + course.trim());
+					}
+				}
+			}
+			System.out.println("Ingredients to exclude, separated by commas (blank for none):");
+			for (String ingredient : scanner.nextLine().split(",")) {
+				if (!ingredient.trim().isEmpty()) {
+					optimizer.excludeIngredient(ingredient);
+				}
+			}
+
+			RecipeManagement recipeManager = new RecipeManagement();
+			recipeManager.setRecipes(RecipeManagement.loadFromFile(DataFiles.recipes()));
+			MealOptimizer.Result result = optimizer.optimize(recipeManager.getRecipes());
+			if (result == null || result.getRecipes().isEmpty()) {
+				System.out.println("No combination of recipes meets the budget and constraints.");
+			} else {
+				System.out.println((result.isOptimal() ? "Best meal: " : "Best meal found: ")
+						+ result.getRecipes().size() + " recipes, " + result.getTotalCost() + "$, "
+						+ (int) result.getScore() + " " + objective.getLabel() + ".");
+				for (Recipe recipe : result.getRecipes()) {
+					System.out.println("    " + recipe.getName() + " - " + recipe.getTotalCost() + "$");
+				}
+				System.out.println("Enter meal name to save it (blank to discard):");
+				String mealName = scanner.nextLine().trim();
+				if (!mealName.isEmpty()) {
+					new MealManagement().createMealFromUserInput(mealName, result.getRecipes(), recipeManager);
+				}
+			}
+		}
+
+		System.out.println("Press 'c' to return to the main menu.");
+
+		scanner.next();
+		printMenu(scanner);
+		scanner.close();
+	}
+
+	/**
+	 * Plans the meals of several days from the saved meals, reached with the W
+	 * key of the meal menu. The operator enters the number of days and the budget
+	 * of the whole plan; the plan avoids serving a meal twice within a week,
+	 * shares the ingredients bought for each week and serves as many different
+	 * recipes as the budget allows.
+	 *
+	 * @param scanner The ConsoleInput used to get user input.
+	 */
+	public void planMeals(ConsoleInput scanner) {
+		clearScreen();
+		scanner.nextLine();
+
+		MealPlanner planner = null;
+		try {
+			System.out.println("Number of days:");
+			int days = Integer.parseInt(scanner.nextLine().trim());
+			System.out.println("Budget:");
+			planner = new MealPlanner(days, Double.parseDouble(scanner.nextLine().trim()));
+		} catch (IllegalArgumentException e) {
+			System.out.println("Invalid number.");
+		}
+		if (planner != null) {
+			MealPlanner.Plan plan = planner.plan(new MealManagement().loadMealsFromFile(DataFiles.meals()));
+			if (plan == null) {
+				System.out.println("No meals found to plan.");
+			} else {
+				for (int day = 0; day < plan.getMeals().size(); day++) {
+					Meal meal = plan.getMeals().get(day);
+					System.out.println("    Day " + (day + 1) + ": " + meal.getName() + " - " + meal.getTotalCost() + "$");
+				}
+				System.out.println("Purchase cost: " + plan.getPurchaseCost() + "$, " + plan.getDistinctRecipes()
+						+ " different recipes.");
+				if (plan.getRepeats() > 0) {
+					System.out.println("Not enough meals to avoid repeating one within a week.");
+				}
+				if (!plan.isFeasible() && plan.getRepeats() == 0) {
+					System.out.println("The best plan found is over the budget.");
+				}
+			}
+		}
+
+		System.out.println("Press 'c' to return to the main menu.");
+
+		scanner.next();
+		printMenu(scanner);
+		scanner.close();
+	}
+
+	/**
+	 * Recosts a saved meal for a number of covers, reached with the N key of the
+	 * meal menu. Every cover gets one serving of each recipe and the recipes are
+	 * cooked in whole batches, so the operator sees the batches of each recipe
+	 * and the cost per cover.
+	 *
+	 * @param scanner The ConsoleInput used to get user input.
+	 */
+	public void scaleMeal(ConsoleInput scanner) {
+		clearScreen();
+		scanner.nextLine();
+
+		System.out.println("Meal name:");
+		String name = scanner.nextLine().trim();
+		Meal meal = null;
+		for (Meal saved : new MealManagement().loadMealsFromFile(DataFiles.meals())) {
+			if (saved.getName().equalsIgnoreCase(name)) {
+				meal = saved;
+				break;
+			}
+		}
+		if (meal == null) {
+			System.out.println("Meal not found.");
+		} else {
+			System.out.println("Number of covers:");
+			try {
+				meal.setServings(Integer.parseInt(scanner.nextLine().trim()));
+				for (Recipe recipe : meal.getRecipes()) {
+					long batches = recipe.batchesFor(meal.getServings());
+					System.out.println("    " + recipe.getName() + ": " + batches + " x " + recipe.getServings()
+							+ " servings - " + batches * recipe.getTotalCost() + "$");
+				}
+				System.out.println("Cost for " + meal.getServings() + " covers: " + meal.getTotalCost() + "$, "
+						+ meal.getCostPerServing() + "$ per cover.");
+			} catch (IllegalArgumentException e) {
+				System.out.println("Invalid number.");
+			}
+		}
+
+		System.out.println("Press 'c' to return to the main menu.");
+
+		scanner.next();
+		printMenu(scanner);
+		scanner.close();
+	}
+
+	/**
+	 * Searches recipe or meal names by their words, reached with the S key of the
+	 * recipe and meal menus. The words of the query must all occur in a name, and
+	 * alternatives can be separated by OR, e.g. "spicy chicken OR vegan bowl".
+	 * The matches are read from the full-text index and guest image of the data
+	 * file, so nothing is deserialized.
+	 *
+	 * @param scanner The ConsoleInput used to get user input.
+	 * @param kind    RECIPES or MEALS
+	 * @param guest   whether to return to the guest menu
+	 */
+	public void searchNames(ConsoleInput scanner, GuestDataImage.Kind kind, boolean guest) {
+		clearScreen();
+		String label = kind == GuestDataImage.Kind.MEALS ? "meals" : "recipes";
+		String dataFile = kind == GuestDataImage.Kind.MEALS ? DataFiles.meals() : DataFiles.recipes();
+		scanner.nextLine();
+
+		System.out.println("Search " + label + " (words in the name, OR between alternatives):");
+		String query = scanner.nextLine();
+
+		FullTextIndex index = FullTextIndex.open(dataFile, kind);
+		GuestDataImage image = GuestDataImage.open(dataFile, kind);
+		if (index == null || image == null) {
+			System.out.println("Error reading " + dataFile);
+		} else {
+			int[] matches = index.search(query);
+			System.out.println(matches.length + " " + label + " found.");
+			for (int i = 0; i < matches.length && i < FULL_LIST_LIMIT; i++) {
+				if (matches[i] < image.size()) {
+					System.out.println("    " + image.getName(matches[i]) + " - " + image.getTotalCost(matches[i]) + "$");
+				}
+			}
+			if (matches.length > FULL_LIST_LIMIT) {
+				System.out.println("    ...");
+			}
+		}
+
+		System.out.println("Press 'c' to return to the main menu.");
+
+		scanner.next();
+		if (guest) {
+			printMenuForGuest(scanner);
+		} else {
+			printMenu(scanner);
+		}
+		scanner.close();
+	}
+
+	/**
+	 * Ranks recipes or meals by total cost, reached with the T key of the recipe
+	 * and meal menus. The operator enters "cheapest N" or "priciest N",
+	 * optionally followed by an ingredient the entries must use. The ranking
+	 * streams the guest image of the data file through a bounded heap.
+	 *
+	 * @param scanner The ConsoleInput used to get user input.
+	 * @param kind    RECIPES or MEALS
+	 * @param guest   whether to return to the guest menu
+	 */
+	public void rankCosts(ConsoleInput scanner, GuestDataImage.Kind kind, boolean guest) {
+		clearScreen();
+		String label = kind == GuestDataImage.Kind.MEALS ? "meals" : "recipes";
+		String dataFile = kind == GuestDataImage.Kind.MEALS ? DataFiles.meals() : DataFiles.recipes();
+		scanner.nextLine();
+
+		System.out.println("Ranking as \"cheapest N\" or \"priciest N\", optionally followed by an ingredient:");
+		String[] words = scanner.nextLine().trim().split("\\s+", 3);
+
+		CostRanking.Order order = null;
+		int k = 0;
+		if (words.length >= 2) {
+			order = words[0].equalsIgnoreCase("cheapest") ? CostRanking.Order.CHEAPEST
+					: words[0].equalsIgnoreCase("priciest") ? CostRanking.Order.PRICIEST : null;
+			try {
+				k = Math.min(Integer.parseInt(words[1]), FULL_LIST_LIMIT);
+			} catch (NumberFormatException e) {
+				order = null;
+			}
+		}
+		GuestDataImage image = GuestDataImage.open(dataFile, kind);
+		if (order == null) {
+			System.out.println("Invalid ranking, expected \"cheapest N\" or \"priciest N\".");
+		} else if (image == null) {
+			System.out.println("Error reading " + dataFile);
+		} else {
+			IntPredicate filter = words.length == 3 ? CostRanking.usingIngredient(image, words[2]) : null;
+			if (words.length == 3 && filter == null) {
+				System.out.println("Error reading " + DataFiles.recipes());
+			} else {
+				int[] ranked = CostRanking.rank(image, k, order, filter);
+				System.out.println(ranked.length + " " + label + " ranked.");
+				for (int i = 0; i < ranked.length; i++) {
+					System.out.println("    " + (i + 1) + ". " + image.getName(ranked[i]) + " - "
+							+ image.getTotalCost(ranked[i]) + "$");
+				}
+			}
+		}
+
+		System.out.println("Press 'c' to return to the main menu.");
+
+		scanner.next();
+		if (guest) {
+			printMenuForGuest(scanner);
+		} else {
+			printMenu(scanner);
+		}
+		scanner.close();
+	}
+
+	/**
+	 * Lists the recipes that can be cooked from the ingredients in stock, reached
+	 * with the W key of the recipe menu. The operator enters the stocked
+	 * ingredients separated by commas and how many ingredients a recipe may
+	 * lack; recipes that lack some are shown with the missing ingredients.
+	 *
+	 * @param scanner The ConsoleInput used to get user input.
+	 * @param guest   whether to return to the guest menu
+	 */
+	public void cookRecipes(ConsoleInput scanner, boolean guest) {
+		clearScreen();
+		scanner.nextLine();
+
+		System.out.println("Ingredients in stock (separated by commas):");
+		List<String> stock = new ArrayList<>();
+		for (String name : scanner.nextLine().split(",")) {
+			if (!name.trim().isEmpty()) {
+				stock.add(name.trim());
+			}
+		}
+		System.out.println("How many ingredients may be missing?");
+		int maxMissing = 0;
+		try {
+			maxMissing = Math.max(0, scanner.nextInt());
+		} catch (InputMismatchException e) {
+			System.out.println("Invalid number, showing only recipes with every ingredient in stock.");
+			scanner.next();
+		}
+
+		IngredientRecipeIndex index = IngredientRecipeIndex.open(DataFiles.recipes());
+		GuestDataImage image = GuestDataImage.open(DataFiles.recipes(), GuestDataImage.Kind.RECIPES);
+		if (index == null || image == null) {
+			System.out.println("Error reading " + DataFiles.recipes());
+		} else {
+			Set<String> stocked = new HashSet<>();
+			for (String name : stock) {
+				stocked.add(name.toLowerCase(Locale.ROOT));
+			}
+			int[] matches = index.cookable(stock, maxMissing).toArray();
+			System.out.println(matches.length + " recipes can be cooked.");
+			for (int i = 0; i < matches.length && i < FULL_LIST_LIMIT; i++) {
+				if (matches[i] >= image.size()) {
+					continue;
+				}
+				StringBuilder line = new StringBuilder("    ").append(image.getName(matches[i])).append(" - ")
+						.append(image.getTotalCost(matches[i])).append('$');
+				String separator = " (missing: ";
+				for (Ingredient ingredient : image.getIngredients(matches[i])) {
+					if (!stocked.contains(ingredient.getName().toLowerCase(Locale.ROOT))) {
+						line.append(separator).append(ingredient.getName());
+						separator = ", ";
+					}
+				}
+				System.out.println(separator.equals(", ") ? line.append(')') : line);
+			}
+			if (matches.length > FULL_LIST_LIMIT) {
+				System.out.println("    ...");
+			}
+		}
+
+		System.out.println("Press 'c' to return to the main menu.");
+
+		scanner.next();
+		if (guest) {
+			printMenuForGuest(scanner);
+		} else {
+			printMenu(scanner);
+		}
+		scanner.close();
+	}
+
+	/**
+	 * Lists ingredients by price, reached with the P key of the ingredient menu.
+	 * The operator enters either a price range as "min max" or "top N" for the N
+	 * most expensive ingredients; both are answered from the sorted price index.
+	 *
+	 * @param scanner The ConsoleInput used to get user input.
+	 */
+	public void findIngredientsByPrice(ConsoleInput scanner) {
+		clearScreen();
+		scanner.nextLine();
+
+		System.out.println("Price range as \"min max\", or \"top N\" for the most expensive ingredients:");
+		String[] words = scanner.nextLine().trim().split("\\s+");
+
+		IngredientManagement management = new IngredientManagement("null", 0);
+		management.loadFromFile(DataFiles.ingredients());
+		List<Ingredient> found = null;
+		try {
+			if (words.length == 2 && words[0].equalsIgnoreCase("top")) {
+				found = management.mostExpensive(Math.min(Integer.parseInt(words[1]), FULL_LIST_LIMIT));
+			} else if (words.length == 2) {
+				found = management.findByPriceRange(Integer.parseInt(words[0]), Integer.parseInt(words[1]));
+			}
+		} catch (NumberFormatException e) {
+			found = null;
+		}
+		if (found == null) {
+			System.out.println("Invalid query, expected \"min max\" or \"top N\".");
+		} else {
+			System.out.println(found.size() + " ingredients found.");
+			for (int i = 0; i < found.size() && i < FULL_LIST_LIMIT; i++) {
+				System.out.println("    " + found.get(i).getName() + " - " + found.get(i).getPriceLabel());
+			}
+			if (found.size() > FULL_LIST_LIMIT) {
+				System.out.println("    ...");
+			}
+		}
+
+		System.out.println("Press 'c' to return to the main menu.");
+
+		scanner.next();
+		printMenu(scanner);
+		scanner.close();
+	}
+
 	/**
 	 * Displays the list of available meals to the user. The user can press 'c' to return to the main menu.
 	 * 
-	 * @param scanner The Scanner object used to get user input.
+	 * @param scanner The ConsoleInput used to get user input.
 	 */
-	public void viewMeal(Scanner scanner) {
+	public void viewMeal(ConsoleInput scanner) {
 
+		long start = System.nanoTime();
 		MealManagement mealmanagement = new MealManagement();
 
-		mealmanagement.listMeals("meals.bin");
+		mealmanagement.listMeals(DataFiles.meals());
+		OperationLatencies.VIEW_MEAL.record(System.nanoTime() - start);
 
 		System.out.println("Press 'c' to return to the main menu.");
 
@@ -1204,13 +2059,18 @@ public class Menu implements Serializable {
 	/**
 	 * Displays the list of available meals to the guest user. The guest user can press 'c' to return to the main menu.
 	 * 
-	 * @param scanner The Scanner object used to get user input.
+	 * @param scanner The ConsoleInput used to get user input.
 	 */
-	public void viewMealForGuest(Scanner scanner) {
+	public void viewMealForGuest(ConsoleInput scanner) {
 
-		MealManagement mealmanagement = new MealManagement();
+		GuestDataImage image = GuestDataImage.open(DataFiles.meals(), GuestDataImage.Kind.MEALS);
+		if (image != null) {
+			image.listMeals();
+		} else {
+			MealManagement mealmanagement = new MealManagement();
 
-		mealmanagement.listMeals("meals.bin");
+			mealmanagement.listMeals(DataFiles.meals());
+		}
 
 		System.out.println("Press 'c' to return to the main menu.");
 
@@ -1230,9 +2090,9 @@ public class Menu implements Serializable {
 	/**
 	 * Displays information about the Recipe Cost Calculator application. The user can press '1' to return to the main menu.
 	 * 
-	 * @param scanner The Scanner object used to get user input.
+	 * @param scanner The ConsoleInput used to get user input.
 	 */
-	public void About(Scanner scanner) {
+	public void About(ConsoleInput scanner) {
 
 
 		clearScreen();
@@ -1271,9 +2131,9 @@ public class Menu implements Serializable {
 	 * After displaying the information,
 	 * it prompts the user to press 1 to return to the main menu.
 	 * 
-	 * @param scanner Scanner object to read user input.
+	 * @param scanner ConsoleInput to read user input.
 	 */
-	public void AboutForGuest(Scanner scanner) {
+	public void AboutForGuest(ConsoleInput scanner) {
 		
 		clearScreen();
 
@@ -0,0 +1,515 @@
+/**
+ * Package containing classes related to runtime metrics of the calculator application.
+ */
+package com.turankanbur.calculator;
+
+/**
+ * Provides an abstraction for file and directory pathnames.
+ */
+import java.io.File;
+
+/**
+ * Provides functionality for handling input/output (I/O) operations.
+ */
+import java.io.IOException;
+
+/**
+ * Provides functionality for writing formatted text to a file.
+ */
+import java.io.PrintWriter;
+
+/**
+ * Provides access to the platform MBean server.
+ */
+import java.lang.management.ManagementFactory;
+
+/**
+ * Provides file system utility methods.
+ */
+import java.nio.file.Files;
+
+/**
+ * Provides options for moving files atomically.
+ */
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Provides an instant on the time-line used to stamp metric dumps.
+ */
+import java.time.Instant;
+
+/**
+ * Provides a mapping from metric names to metrics.
+ */
+import java.util.Map;
+
+/**
+ * Provides a thread-safe map for the registered metrics.
+ */
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Provides a sorted thread-safe map for the registered metrics.
+ */
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Provides factory methods for executor services.
+ */
+import java.util.concurrent.Executors;
+
+/**
+ * Provides a service that runs tasks periodically.
+ */
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Provides units of time for scheduling.
+ */
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provides a lock-free, striped accumulator for maxima.
+ */
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Provides a lock-free, striped adder for counts and totals.
+ */
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Provides the names under which metrics are registered with JMX.
+ */
+import javax.management.ObjectName;
+
+/**
+ * Provides an MBean implementation for a given management interface.
+ */
+import javax.management.StandardMBean;
+
+/**
+ * Provides the logging interface used for diagnostics.
+ */
+import org.slf4j.Logger;
+
+/**
+ * Provides the factory that creates loggers.
+ */
+import org.slf4j.LoggerFactory;
+
+/**
+ * An in-process registry of counters, gauges and timers for the management
+ * operations. Counters and timers use lock-free striped accumulators, so
+ * recording does not allocate or contend on the hot path. Every metric is
+ * exposed as a JMX MBean under "com.turankanbur.calculator", and the registry
+ * can periodically dump all metrics to a local text file.
+ *
+ * Metrics are looked up once, typically into static final fields, and then
+ * recorded directly:
+ *
+ * <pre>
+ * private static final MetricsRegistry.Timer SAVE_TIMER = MetricsRegistry.timer("ingredients.save");
+ * ...
+ * long start = System.nanoTime();
+ * try { ... } finally { SAVE_TIMER.recordSince(start); }
+ * </pre>
+ */
+public final class MetricsRegistry {
+
+	/** Logger for diagnostics. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(MetricsRegistry.class);
+
+	/** JMX domain of the metric MBeans. */
+	private static final String DOMAIN = "com.turankanbur.calculator";
+
+	/** System property naming the file metrics are dumped to. */
+	public static final String DUMP_FILE_PROPERTY = "calculator.metrics.file";
+
+	/** System property holding the dump period in seconds. */
+	public static final String DUMP_PERIOD_PROPERTY = "calculator.metrics.period";
+
+	/** The registered metrics by name. */
+	private static final Map<String, Metric> METRICS = new ConcurrentHashMap<>();
+
+	/** The scheduler of the periodic file dump, created on first use. */
+	private static ScheduledExecutorService dumpScheduler;
+
+	/** Prevents instantiation. */
+	private MetricsRegistry() {
+	}
+
+	/**
+	 * Retrieves or registers the counter with the given name.
+	 *
+	 * @param name the metric name
+	 * @return the counter
+	 */
+	public static Counter counter(String name) {
+		return register(name, new Counter(name), CounterMBean.class);
+	}
+
+	/**
+	 * Retrieves or registers the gauge with the given name.
+	 *
+	 * @param name the metric name
+	 * @return the gauge
+	 */
+	public static Gauge gauge(String name) {
+		return register(name, new Gauge(name), GaugeMBean.class);
+	}
+
+	/**
+	 * Retrieves or registers the timer with the given name.
+	 *
+	 * @param name the metric name
+	 * @return the timer
+	 */
+	public static Timer timer(String name) {
+		return register(name, new Timer(name), TimerMBean.class);
+	}
+
+	/**
+	 * Registers a metric, or returns the existing metric of the same name.
+	 *
+	 * @param <T>        the metric type
+	 * @param name       the metric name
+	 * @param metric     the new metric
+	 * @param management the MBean interface of the metric
+	 * @return the registered metric
+	 */
+	@SuppressWarnings("unchecked")
+	private static synchronized <T extends Metric> T register(String name, T metric, Class<? super T> management) {
+		Metric existing = METRICS.get(name);
+		if (existing != null) {
+			if (!existing.getClass().equals(metric.getClass())) {
+				throw new IllegalArgumentException("Metric " + name + " is already registered as another type");
+			}
+			return (T) existing;
+		}
+
+		METRICS.put(name, metric);
+		try {
+			ObjectName objectName = new ObjectName(DOMAIN + ":type=" + metric.type() + ",name=" + ObjectName.quote(name));
+			ManagementFactory.getPlatformMBeanServer().registerMBean(new StandardMBean(metric, (Class<Object>) management),
+					objectName);
+		} catch (Exception e) {
+			// Metrics keep working in-process even when JMX is unavailable
+			LOGGER.warn("Error registering metric {}: {}", name, e.getMessage());
+		}
+		return metric;
+	}
+
+	/**
+	 * Starts the periodic file dump when the calculator.metrics.file system
+	 * property is set. The period defaults to 60 seconds and can be changed with
+	 * calculator.metrics.period.
+	 */
+	public static void startFileDumpFromProperties() {
+		String file = System.getProperty(DUMP_FILE_PROPERTY);
+		if (file != null && !file.isEmpty()) {
+			startFileDump(new File(file), Long.getLong(DUMP_PERIOD_PROPERTY, 60L));
+		}
+	}
+
+	/**
+	 * Dumps all metrics to the given file every period, on a daemon thread. The
+	 * file is replaced atomically so readers never see a partial dump.
+	 *
+	 * @param file          the file to write
+	 * @param periodSeconds the dump period in seconds
+	 */
+	public static synchronized void startFileDump(File file, long periodSeconds) {
+		if (dumpScheduler != null) {
+			dumpScheduler.shutdownNow();
+		}
+		dumpScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "metrics-dump");
+			thread.setDaemon(true);
+			return thread;
+		});
+		dumpScheduler.scheduleAtFixedRate(() -> {
+			try {
+				dump(file);
+			} catch (IOException e) {
+				LOGGER.warn("Error dumping metrics: {}", e.getMessage());
+			}
+		}, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Writes a snapshot of every metric to the given file, one metric per line.
+	 *
+	 * @param file the file to write
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void dump(File file) throws IOException {
+		File temp = new File(file.getPath() + ".tmp");
+		try (PrintWriter writer = new PrintWriter(temp, "UTF-8")) {
+			writer.println("# " + Instant.now());
+			for (Metric metric : new ConcurrentSkipListMap<>(METRICS).values()) {
+				writer.println(metric.type().toLowerCase() + " " + metric.name + " " + metric.describe());
+			}
+		}
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Base class of all metrics.
+	 */
+	abstract static class Metric {
+
+		/** The metric name. */
+		final String name;
+
+		/**
+		 * Constructs a metric.
+		 *
+		 * @param name the metric name
+		 */
+		Metric(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Retrieves the JMX type of the metric.
+		 *
+		 * @return the type
+		 */
+		abstract String type();
+
+		/**
+		 * Describes the current values of the metric for the file dump.
+		 *
+		 * @return the description
+		 */
+		abstract String describe();
+	}
+
+	/**
+	 * Management interface of a counter.
+	 */
+	public interface CounterMBean {
+
+		/**
+		 * Retrieves the current count.
+		 *
+		 * @return the count
+		 */
+		long getCount();
+	}
+
+	/**
+	 * A monotonically increasing count.
+	 */
+	public static final class Counter extends Metric implements CounterMBean {
+
+		/** The striped count. */
+		private final LongAdder count = new LongAdder();
+
+		/**
+		 * Constructs a counter.
+		 *
+		 * @param name the metric name
+		 */
+		Counter(String name) {
+			super(name);
+		}
+
+		/**
+		 * Increments the count by one.
+		 */
+		public void increment() {
+			count.increment();
+		}
+
+		/**
+		 * Increments the count.
+		 *
+		 * @param delta the amount to add
+		 */
+		public void add(long delta) {
+			count.add(delta);
+		}
+
+		@Override
+		public long getCount() {
+			return count.sum();
+		}
+
+		@Override
+		String type() {
+			return "Counter";
+		}
+
+		@Override
+		String describe() {
+			return "count=" + getCount();
+		}
+	}
+
+	/**
+	 * Management interface of a gauge.
+	 */
+	public interface GaugeMBean {
+
+		/**
+		 * Retrieves the current value.
+		 *
+		 * @return the value
+		 */
+		long getValue();
+	}
+
+	/**
+	 * A value that is set to the latest observation, such as a catalog size.
+	 */
+	public static final class Gauge extends Metric implements GaugeMBean {
+
+		/** The latest value. */
+		private volatile long value;
+
+		/**
+		 * Constructs a gauge.
+		 *
+		 * @param name the metric name
+		 */
+		Gauge(String name) {
+			super(name);
+		}
+
+		/**
+		 * Sets the value.
+		 *
+		 * @param value the new value
+		 */
+		public void set(long value) {
+			this.value = value;
+		}
+
+		@Override
+		public long getValue() {
+			return value;
+		}
+
+		@Override
+		String type() {
+			return "Gauge";
+		}
+
+		@Override
+		String describe() {
+			return "value=" + value;
+		}
+	}
+
+	/**
+	 * Management interface of a timer.
+	 */
+	public interface TimerMBean {
+
+		/**
+		 * Retrieves the number of recorded operations.
+		 *
+		 * @return the count
+		 */
+		long getCount();
+
+		/**
+		 * Retrieves the total time of the recorded operations.
+		 *
+		 * @return the total time in milliseconds
+		 */
+		double getTotalMillis();
+
+		/**
+		 * Retrieves the mean time of the recorded operations.
+		 *
+		 * @return the mean time in milliseconds
+		 */
+		double getMeanMillis();
+
+		/**
+		 * Retrieves the longest recorded operation.
+		 *
+		 * @return the maximum time in milliseconds
+		 */
+		double getMaxMillis();
+	}
+
+	/**
+	 * Records the count, total and maximum duration of an operation.
+	 */
+	public static final class Timer extends Metric implements TimerMBean {
+
+		/** The striped operation count. */
+		private final LongAdder count = new LongAdder();
+
+		/** The striped total duration in nanoseconds. */
+		private final LongAdder totalNanos = new LongAdder();
+
+		/** The striped maximum duration in nanoseconds. */
+		private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+
+		/**
+		 * Constructs a timer.
+		 *
+		 * @param name the metric name
+		 */
+		Timer(String name) {
+			super(name);
+		}
+
+		/**
+		 * Records one operation.
+		 *
+		 * @param nanos the duration in nanoseconds
+		 */
+		public void record(long nanos) {
+			count.increment();
+			totalNanos.add(nanos);
+			maxNanos.accumulate(nanos);
+		}
+
+		/**
+		 * Records one operation that started at the given System.nanoTime value.
+		 *
+		 * @param startNanos the start time from System.nanoTime
+		 */
+		public void recordSince(long startNanos) {
+			record(System.nanoTime() - startNanos);
+		}
+
+		@Override
+		public long getCount() {
+			return count.sum();
+		}
+
+		@Override
+		public double getTotalMillis() {
+			return totalNanos.sum() / 1e6;
+		}
+
+		@Override
+		public double getMeanMillis() {
+			long n = count.sum();
+			return n == 0 ? 0.0 : totalNanos.sum() / 1e6 / n;
+		}
+
+		@Override
+		public double getMaxMillis() {
+			return maxNanos.get() / 1e6;
+		}
+
+		@Override
+		String type() {
+			return "Timer";
+		}
+
+		@Override
+		String describe() {
+			return "count=" + getCount() + " totalMs=" + getTotalMillis() + " meanMs=" + getMeanMillis() + " maxMs="
+					+ getMaxMillis();
+		}
+	}
+}
@@ -0,0 +1,360 @@
+/**
+ * Package containing classes related to name lookups.
+ */
+package com.turankanbur.calculator;
+
+/**
+ * Provides an implementation of the List interface backed by an array.
+ */
+import java.util.ArrayList;
+
+/**
+ * Provides utility methods for growing the child and value arrays.
+ */
+import java.util.Arrays;
+
+/**
+ * Provides functionality for storing and manipulating collections of objects.
+ */
+import java.util.List;
+
+/**
+ * Provides the locale used to fold names to lower case.
+ */
+import java.util.Locale;
+
+/**
+ * A compact prefix tree (radix tree) mapping names to entries, used to
+ * autocomplete ingredient and recipe names. Edges carry whole runs of
+ * characters, so the tree has at most two nodes per name, and the children of
+ * a node are kept in a sorted array searched by binary search.
+ *
+ * Names are compared ignoring case. Completions are returned in alphabetical
+ * order of their names, and entries with the same name in the order they were
+ * added. A completion walks the prefix and then visits only as much of the
+ * subtree as it needs for the requested number of results, so its cost does
+ * not depend on the size of the catalog. The tree is updated in place by add
+ * and remove, and is not thread-safe.
+ *
+ * @param <T> the type of the entries
+ */
+public class NameTrie<T> {
+
+	/** The root node, with an empty label. */
+	private final Node<T> root = new Node<>("");
+
+	/** The number of entries. */
+	private int size;
+
+	/**
+	 * Adds an entry under a name.
+	 *
+	 * @param name  the name of the entry
+	 * @param value the entry
+	 */
+	public void add(String name, T value) {
+		String key = fold(name);
+		Node<T> node = root;
+		int i = 0;
+		while (i < key.length()) {
+			int slot = node.findChild(key.charAt(i));
+			if (slot < 0) {
+				Node<T> leaf = new Node<>(key.substring(i));
+				leaf.addValue(value);
+				node.insertChild(-slot - 1, leaf);
+				size++;
+				return;
+			}
+
+			Node<T> child = node.children[slot];
+			int common = commonPrefix(child.label, key, i);
+			if (common < child.label.length()) {
+				// Split the edge where the new name leaves it
+				Node<T> middle = new Node<>(child.label.substring(0, common));
+				child.label = child.label.substring(common);
+				middle.insertChild(0, child);
+				node.children[slot] = middle;
+				child = middle;
+			}
+			node = child;
+			i += common;
+		}
+		node.addValue(value);
+		size++;
+	}
+
+	/**
+	 * Removes an entry added under a name.
+	 *
+	 * @param name  the name the entry was added under
+	 * @param value the entry
+	 * @return true if the entry was found and removed
+	 */
+	public boolean remove(String name, T value) {
+		String key = fold(name);
+		Node<T> parent = null;
+		Node<T> node = root;
+		int i = 0;
+		while (i < key.length()) {
+			int slot = node.findChild(key.charAt(i));
+			if (slot < 0) {
+				return false;
+			}
+			Node<T> child = node.children[slot];
+			if (!key.startsWith(child.label, i)) {
+				return false;
+			}
+			parent = node;
+			node = child;
+			i += child.label.length();
+		}
+		if (!node.removeValue(value)) {
+			return false;
+		}
+		size--;
+
+		// Keep the tree compact: drop empty leaves and merge single-child chains
+		if (node != root && node.valueCount == 0) {
+			if (node.childCount == 0) {
+				parent.removeChild(parent.findChild(node.label.charAt(0)));
+				if (parent != root && parent.valueCount == 0 && parent.childCount == 1) {
+					parent.mergeWithChild();
+				}
+			} else if (node.childCount == 1) {
+				node.mergeWithChild();
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Retrieves the first entries, in alphabetical order of their names, whose
+	 * names start with the given prefix.
+	 *
+	 * @param prefix the prefix, compared ignoring case
+	 * @param limit  the maximum number of entries to return
+	 * @return the matching entries
+	 */
+	public List<T> complete(String prefix, int limit) {
+		List<T> completions = new ArrayList<>(Math.min(limit, 16));
+		if (limit <= 0) {
+			return completions;
+		}
+
+		String key = fold(prefix);
+		Node<T> node = root;
+		int i = 0;
+		while (i < key.length()) {
+			int slot = node.findChild(key.charAt(i));
+			if (slot < 0) {
+				return completions;
+			}
+			Node<T> child = node.children[slot];
+			int common = commonPrefix(child.label, key, i);
+			if (i + common == key.length()) {
+				// The prefix ends on this edge or at its end; the whole subtree matches
+				node = child;
+				break;
+			}
+			if (common < child.label.length()) {
+				return completions;
+			}
+			node = child;
+			i += common;
+		}
+		collect(node, completions, limit);
+		return completions;
+	}
+
+	/**
+	 * Retrieves the number of entries.
+	 *
+	 * @return the entry count
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Collects the entries of a subtree in alphabetical order until the limit is
+	 * reached.
+	 *
+	 * @param node        the root of the subtree
+	 * @param completions the list to add the entries to
+	 * @param limit       the maximum size of the list
+	 * @return true if the limit was reached
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> boolean collect(Node<T> node, List<T> completions, int limit) {
+		for (int i = 0; i < node.valueCount; i++) {
+			completions.add((T) node.values[i]);
+			if (completions.size() == limit) {
+				return true;
+			}
+		}
+		for (int i = 0; i < node.childCount; i++) {
+			if (collect(node.children[i], completions, limit)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Computes the length of the common prefix of an edge label and a key.
+	 *
+	 * @param label  the edge label
+	 * @param key    the key
+	 * @param offset the position in the key where the label starts
+	 * @return the number of matching characters
+	 */
+	private static int commonPrefix(String label, String key, int offset) {
+		int max = Math.min(label.length(), key.length() - offset);
+		int n = 0;
+		while (n < max && label.charAt(n) == key.charAt(offset + n)) {
+			n++;
+		}
+		return n;
+	}
+
+	/**
+	 * Folds a name to the case-insensitive form the tree is keyed by.
+	 *
+	 * @param name the name
+	 * @return the folded name
+	 */
+	private static String fold(String name) {
+		return name == null ? "" : name.toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * A node of the tree: the label of the edge leading to it, the entries whose
+	 * names end here, and the children sorted by the first character of their
+	 * labels.
+	 *
+	 * @param <T> the type of the entries
+	 */
+	private static final class Node<T> {
+
+		/** An empty child array shared by leaves. */
+		private static final Node<?>[] NO_CHILDREN = new Node<?>[0];
+
+		/** An empty value array shared by inner nodes. */
+		private static final Object[] NO_VALUES = new Object[0];
+
+		/** The label of the edge from the parent. */
+		String label;
+
+		/** The children, sorted by the first character of their labels. */
+		Node<T>[] children;
+
+		/** The number of children. */
+		int childCount;
+
+		/** The entries whose names end at this node. */
+		Object[] values = NO_VALUES;
+
+		/** The number of entries ending at this node. */
+		int valueCount;
+
+		/**
+		 * Constructs a node without children or entries.
+		 *
+		 * @param label the label of the edge from the parent
+		 */
+		@SuppressWarnings("unchecked")
+		Node(String label) {
+			this.label = label;
+			this.children = (Node<T>[]) NO_CHILDREN;
+		}
+
+		/**
+		 * Finds the child whose label starts with the given character.
+		 *
+		 * @param c the first character of the label
+		 * @return the child slot, or (-(insertion point) - 1) if there is none
+		 */
+		int findChild(char c) {
+			int low = 0;
+			int high = childCount - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				char key = children[mid].label.charAt(0);
+				if (key < c) {
+					low = mid + 1;
+				} else if (key > c) {
+					high = mid - 1;
+				} else {
+					return mid;
+				}
+			}
+			return -(low + 1);
+		}
+
+		/**
+		 * Inserts a child at the given slot.
+		 *
+		 * @param slot  the slot
+		 * @param child the child
+		 */
+		void insertChild(int slot, Node<T> child) {
+			if (childCount == children.length) {
+				children = Arrays.copyOf(children, Math.max(2, childCount * 2));
+			}
+			System.arraycopy(children, slot, children, slot + 1, childCount - slot);
+			children[slot] = child;
+			childCount++;
+		}
+
+		/**
+		 * Removes the child at the given slot.
+		 *
+		 * @param slot the slot
+		 */
+		void removeChild(int slot) {
+			System.arraycopy(children, slot + 1, children, slot, childCount - slot - 1);
+			children[--childCount] = null;
+		}
+
+		/**
+		 * Merges the only child into this node, which has no entries.
+		 */
+		void mergeWithChild() {
+			Node<T> child = children[0];
+			label = label + child.label;
+			children = child.children;
+			childCount = child.childCount;
+			values = child.values;
+			valueCount = child.valueCount;
+		}
+
+		/**
+		 * Adds an entry ending at this node.
+		 *
+		 * @param value the entry
+		 */
+		void addValue(T value) {
+			if (valueCount == values.length) {
+				values = Arrays.copyOf(values, Math.max(1, valueCount * 2));
+			}
+			values[valueCount++] = value;
+		}
+
+		/**
+		 * Removes an entry ending at this node, keeping the order of the others.
+		 *
+		 * @param value the entry
+		 * @return true if the entry was found
+		 */
+		boolean removeValue(T value) {
+			for (int i = 0; i < valueCount; i++) {
+				if (values[i] == value || (value != null && value.equals(values[i]))) {
+					System.arraycopy(values, i + 1, values, i, valueCount - i - 1);
+					values[--valueCount] = null;
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+}
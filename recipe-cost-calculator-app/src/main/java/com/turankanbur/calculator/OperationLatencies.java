@@ -0,0 +1,67 @@
+/**
+ * Package containing classes related to runtime diagnostics of the calculator application.
+ */
+package com.turankanbur.calculator;
+
+/**
+ * Provides functionality for storing and manipulating collections of objects.
+ */
+import java.util.List;
+
+/**
+ * Provides the nanosecond conversion of the slow operation threshold.
+ */
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency histograms of the interactive menu actions. Only the work of an
+ * action is measured; time spent waiting for the user to type is excluded.
+ *
+ * Operations slower than the calculator.slow.millis system property (250 ms by
+ * default) are kept as slow samples.
+ */
+public final class OperationLatencies {
+
+	/** Threshold above which an operation is kept as a slow sample. */
+	public static final long SLOW_THRESHOLD_NANOS = TimeUnit.MILLISECONDS
+			.toNanos(Long.getLong("calculator.slow.millis", 250L));
+
+	/** Latency of adding an ingredient. */
+	public static final LatencyHistogram ADD_INGREDIENT = new LatencyHistogram("Add ingredient", SLOW_THRESHOLD_NANOS);
+
+	/** Latency of editing an ingredient. */
+	public static final LatencyHistogram EDIT_INGREDIENT = new LatencyHistogram("Edit ingredient", SLOW_THRESHOLD_NANOS);
+
+	/** Latency of removing an ingredient. */
+	public static final LatencyHistogram REMOVE_INGREDIENT = new LatencyHistogram("Remove ingredient",
+			SLOW_THRESHOLD_NANOS);
+
+	/** Latency of creating a recipe. */
+	public static final LatencyHistogram CREATE_RECIPE = new LatencyHistogram("Create recipe", SLOW_THRESHOLD_NANOS);
+
+	/** Latency of viewing the recipes. */
+	public static final LatencyHistogram VIEW_RECIPE = new LatencyHistogram("View recipes", SLOW_THRESHOLD_NANOS);
+
+	/** Latency of creating a meal. */
+	public static final LatencyHistogram CREATE_MEAL = new LatencyHistogram("Create meal", SLOW_THRESHOLD_NANOS);
+
+	/** Latency of viewing the meals. */
+	public static final LatencyHistogram VIEW_MEAL = new LatencyHistogram("View meals", SLOW_THRESHOLD_NANOS);
+
+	/** All histograms in menu order. */
+	private static final List<LatencyHistogram> ALL = List.of(ADD_INGREDIENT, EDIT_INGREDIENT, REMOVE_INGREDIENT,
+			CREATE_RECIPE, VIEW_RECIPE, CREATE_MEAL, VIEW_MEAL);
+
+	/** Prevents instantiation. */
+	private OperationLatencies() {
+	}
+
+	/**
+	 * Retrieves all histograms in menu order.
+	 *
+	 * @return the histograms
+	 */
+	public static List<LatencyHistogram> all() {
+		return ALL;
+	}
+}
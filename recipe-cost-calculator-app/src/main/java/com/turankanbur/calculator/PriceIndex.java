@@ -0,0 +1,193 @@
+/**
+ * Package containing classes related to name lookups.
+ */
+package com.turankanbur.calculator;
+
+/**
+ * Provides utility methods for sorting, searching and growing the key array.
+ */
+import java.util.Arrays;
+
+/**
+ * A sorted index of ingredient prices for range and top-K queries. Every entry
+ * is one primitive long packing the price into the upper 32 bits and the
+ * position of the ingredient in its list into the lower 32 bits, so the keys
+ * sort by price, then by position, in a single long array without any boxing.
+ *
+ * A range query finds its first key by binary search and reads the following
+ * keys; a top-K query reads the last keys backwards. Both cost O(log n + k).
+ * Adding or repricing an ingredient moves the keys after its slot with one
+ * System.arraycopy. The index is not thread-safe.
+ */
+public final class PriceIndex {
+
+	/** The mask selecting the position from a key. */
+	private static final long POSITION_MASK = 0xFFFFFFFFL;
+
+	/** The keys in ascending order. */
+	private long[] keys;
+
+	/** The number of keys. */
+	private int size;
+
+	/**
+	 * Builds the index over the prices of a list of ingredients.
+	 *
+	 * @param prices the prices, indexed by the position of the ingredient
+	 */
+	public PriceIndex(int[] prices) {
+		keys = new long[Math.max(16, prices.length)];
+		for (int i = 0; i < prices.length; i++) {
+			keys[i] = key(prices[i], i);
+		}
+		size = prices.length;
+		Arrays.sort(keys, 0, size);
+	}
+
+	/**
+	 * Adds an ingredient.
+	 *
+	 * @param position the position of the ingredient in its list
+	 * @param price    the price of the ingredient
+	 */
+	public void add(int position, int price) {
+		long key = key(price, position);
+		int slot = -Arrays.binarySearch(keys, 0, size, key) - 1;
+		if (slot < 0) {
+			return;
+		}
+		if (size == keys.length) {
+			keys = Arrays.copyOf(keys, size * 2);
+		}
+		System.arraycopy(keys, slot, keys, slot + 1, size - slot);
+		keys[slot] = key;
+		size++;
+	}
+
+	/**
+	 * Moves an ingredient to its new price.
+	 *
+	 * @param position the position of the ingredient in its list
+	 * @param oldPrice the price the ingredient was indexed with
+	 * @param newPrice the new price
+	 * @return true if the ingredient was indexed with the old price
+	 */
+	public boolean update(int position, int oldPrice, int newPrice) {
+		int from = Arrays.binarySearch(keys, 0, size, key(oldPrice, position));
+		if (from < 0) {
+			return false;
+		}
+		if (newPrice == oldPrice) {
+			return true;
+		}
+		long key = key(newPrice, position);
+		int to = -Arrays.binarySearch(keys, 0, size, key) - 1;
+		// Shift the keys between the two slots by one instead of removing and inserting
+		if (to > from) {
+			System.arraycopy(keys, from + 1, keys, from, to - from - 1);
+			keys[to - 1] = key;
+		} else {
+			System.arraycopy(keys, to, keys, to + 1, from - to);
+			keys[to] = key;
+		}
+		return true;
+	}
+
+	/**
+	 * Finds the ingredients with a price in a range, cheapest first.
+	 *
+	 * @param min the lowest price, inclusive
+	 * @param max the highest price, inclusive
+	 * @return the positions of the ingredients
+	 */
+	public int[] range(int min, int max) {
+		if (min > max) {
+			return new int[0];
+		}
+		int from = lowerBound(key(min, 0));
+		int to = max == Integer.MAX_VALUE ? size : lowerBound(key(max + 1, 0));
+		int[] positions = new int[to - from];
+		for (int i = from; i < to; i++) {
+			positions[i - from] = position(keys[i]);
+		}
+		return positions;
+	}
+
+	/**
+	 * Finds the most expensive ingredients, most expensive first.
+	 *
+	 * @param k the number of ingredients
+	 * @return the positions of the ingredients
+	 */
+	public int[] top(int k) {
+		int[] positions = new int[Math.max(0, Math.min(k, size))];
+		for (int i = 0; i < positions.length; i++) {
+			positions[i] = position(keys[size - 1 - i]);
+		}
+		return positions;
+	}
+
+	/**
+	 * Finds the cheapest ingredients, cheapest first.
+	 *
+	 * @param k the number of ingredients
+	 * @return the positions of the ingredients
+	 */
+	public int[] bottom(int k) {
+		int[] positions = new int[Math.max(0, Math.min(k, size))];
+		for (int i = 0; i < positions.length; i++) {
+			positions[i] = position(keys[i]);
+		}
+		return positions;
+	}
+
+	/**
+	 * Retrieves the number of ingredients indexed.
+	 *
+	 * @return the ingredient count
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Finds the first slot whose key is not smaller than the given key.
+	 *
+	 * @param key the key
+	 * @return the slot
+	 */
+	private int lowerBound(long key) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (keys[mid] < key) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Packs a price and a position into a key.
+	 *
+	 * @param price    the price
+	 * @param position the position
+	 * @return the key
+	 */
+	private static long key(int price, int position) {
+		return ((long) price << 32) | (position & POSITION_MASK);
+	}
+
+	/**
+	 * Unpacks the position from a key.
+	 *
+	 * @param key the key
+	 * @return the position
+	 */
+	private static int position(long key) {
+		return (int) (key & POSITION_MASK);
+	}
+}
@@ -0,0 +1,466 @@
+/**
+ * Package containing classes related to one-shot command line queries.
+ */
+package com.turankanbur.calculator;
+
+/**
+ * Provides buffering of the query output.
+ */
+import java.io.BufferedWriter;
+
+/**
+ * Provides encoding of the query output into bytes.
+ */
+import java.io.OutputStreamWriter;
+
+/**
+ * Provides the stream the query output is written to.
+ */
+import java.io.PrintStream;
+
+/**
+ * Provides functionality for writing formatted text.
+ */
+import java.io.PrintWriter;
+
+/**
+ * Provides functionality for storing and manipulating collections of objects.
+ */
+import java.util.List;
+
+/**
+ * Provides the ingredient filter of the cost rankings.
+ */
+import java.util.function.IntPredicate;
+
+/**
+ * Answers one query about the catalog from the command line and exits, for
+ * scripting and monitoring:
+ *
+ * <pre>
+ * ingredient get &lt;name&gt; | ingredient list
+ * recipe get &lt;name&gt;     | recipe cost &lt;name&gt; | recipe list | recipe search &lt;words&gt;
+ * meal get &lt;name&gt;       | meal cost &lt;name&gt;   | meal list   | meal search &lt;words&gt;
+ * recipe|meal cheapest|priciest &lt;k&gt; [ingredient]
+ * </pre>
+ *
+ * Adding --json prints JSON instead of tab-separated text. Queries read the
+ * memory-mapped GuestDataImage of the one data file they need and never
+ * initialize logging, metrics or the menus, so the process starts and exits
+ * in roughly the time of the JVM startup itself. Names are matched ignoring
+ * case; a name of several words can be quoted or given as separate arguments.
+ * A search lists the entries whose names contain all the words, with OR
+ * between alternatives, using the FullTextIndex of the data file. A ranking
+ * lists the k cheapest or priciest entries, optionally only those using an
+ * ingredient, through the bounded heaps of CostRanking.
+ *
+ * The exit status is 0 when the query was answered, 1 when the named entry
+ * does not exist and 2 for an invalid command or unreadable data file.
+ */
+public final class QueryCommand {
+
+	/** Exit status of an answered query. */
+	public static final int OK = 0;
+
+	/** Exit status of a query for an entry that does not exist. */
+	public static final int NOT_FOUND = 1;
+
+	/** Exit status of an invalid command or unreadable data file. */
+	public static final int ERROR = 2;
+
+	/** The JSON option. */
+	private static final String JSON_OPTION = "--json";
+
+	/** Prevents instantiation. */
+	private QueryCommand() {
+	}
+
+	/**
+	 * Checks whether a command line starts with a query subcommand.
+	 *
+	 * @param args the command line arguments
+	 * @return true if the arguments are a query
+	 */
+	public static boolean isQuery(String[] args) {
+		if (args == null || args.length == 0) {
+			return false;
+		}
+		switch (args[0]) {
+		case "ingredient":
+		case "recipe":
+		case "meal":
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Runs a query, writing the answer to the given stream and errors to standard
+	 * error.
+	 *
+	 * @param args the command line arguments, starting with the entity
+	 * @param out  the stream to write the answer to
+	 * @return the exit status
+	 */
+	public static int run(String[] args, PrintStream out) {
+		boolean json = false;
+		StringBuilder name = new StringBuilder();
+		int positional = 0;
+		String entity = null;
+		String action = null;
+		for (String arg : args) {
+			if (arg.equals(JSON_OPTION)) {
+				json = true;
+			} else if (positional == 0) {
+				entity = arg;
+				positional++;
+			} else if (positional == 1) {
+				action = arg;
+				positional++;
+			} else {
+				if (name.length() > 0) {
+					name.append(' ');
+				}
+				name.append(arg);
+			}
+		}
+
+		GuestDataImage.Kind kind = kindOf(entity);
+		boolean ranking = "cheapest".equals(action) || "priciest".equals(action);
+		boolean named = "get".equals(action) || (("cost".equals(action) || "search".equals(action) || ranking)
+				&& kind != GuestDataImage.Kind.INGREDIENTS);
+		if (kind == null || !(named ? name.length() > 0 : "list".equals(action) && name.length() == 0)) {
+			System.err.println(usage());
+			return ERROR;
+		}
+
+		GuestDataImage image = GuestDataImage.open(dataFile(kind), kind);
+		if (image == null) {
+			System.err.println("Error reading " + dataFile(kind));
+			return ERROR;
+		}
+
+		PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out), 1 << 16));
+		try {
+			if (action.equals("list")) {
+				list(image, null, json, writer);
+				return OK;
+			}
+			if (action.equals("search")) {
+				FullTextIndex index = FullTextIndex.open(dataFile(kind), kind);
+				if (index == null) {
+					System.err.println("Error reading " + dataFile(kind));
+					return ERROR;
+				}
+				list(image, index.search(name.toString()), json, writer);
+				return OK;
+			}
+			if (ranking) {
+				return rank(image, action.equals("cheapest") ? CostRanking.Order.CHEAPEST : CostRanking.Order.PRICIEST,
+						name.toString(), json, writer);
+			}
+
+			int record = image.find(name.toString());
+			if (record < 0) {
+				System.err.println(capitalize(entity) + " not found: " + name);
+				return NOT_FOUND;
+			}
+			if (action.equals("cost")) {
+				if (json) {
+					writeEntry(writer, image.getName(record), "totalCost", String.valueOf(image.getTotalCost(record)));
+					writer.println();
+				} else {
+					writer.println(image.getTotalCost(record));
+				}
+			} else {
+				get(image, record, json, writer);
+			}
+			return OK;
+		} finally {
+			writer.flush();
+		}
+	}
+
+	/**
+	 * Writes one entry with its details: an ingredient with its price, a recipe
+	 * with its ingredient lines or a meal with its recipes.
+	 *
+	 * @param image  the image holding the entry
+	 * @param record the record number of the entry
+	 * @param json   whether to write JSON
+	 * @param writer the writer to write to
+	 */
+	private static void get(GuestDataImage image, int record, boolean json, PrintWriter writer) {
+		String name = image.getName(record);
+		switch (image.getKind()) {
+		case INGREDIENTS:
+			if (json) {
+				writeEntry(writer, name, "price", String.valueOf(image.getPrice(record)));
+				writer.println();
+			} else {
+				writeLine(writer, name, String.valueOf(image.getPrice(record)));
+			}
+			break;
+
+		case RECIPES:
+			List<Ingredient> ingredients = image.getIngredients(record);
+			if (json) {
+				StringBuilder lines = new StringBuilder("[");
+				for (int i = 0; i < ingredients.size(); i++) {
+					Ingredient ingredient = ingredients.get(i);
+					lines.append(i > 0 ? "," : "").append("{\"name\":").append(quote(ingredient.getName()))
+							.append(",\"price\":").append(ingredient.getPrice()).append('}');
+				}
+				writeDetails(writer, name, image.getTotalCost(record), "ingredients", lines.append(']'));
+			} else {
+				writeLine(writer, name, String.valueOf(image.getTotalCost(record)));
+				for (Ingredient ingredient : ingredients) {
+					writeLine(writer, "", ingredient.getName(), String.valueOf(ingredient.getPrice()));
+				}
+			}
+			break;
+
+		case MEALS:
+			List<String> recipes = image.getRecipeNames(record);
+			if (json) {
+				StringBuilder names = new StringBuilder("[");
+				for (int i = 0; i < recipes.size(); i++) {
+					names.append(i > 0 ? "," : "").append(quote(recipes.get(i)));
+				}
+				writeDetails(writer, name, image.getTotalCost(record), "recipes", names.append(']'));
+			} else {
+				writeLine(writer, name, String.valueOf(image.getTotalCost(record)));
+				for (String recipe : recipes) {
+					writeLine(writer, "", recipe);
+				}
+			}
+			break;
+		}
+	}
+
+	/**
+	 * Writes entries of an image with their price or total cost, one per line,
+	 * or as one JSON array.
+	 *
+	 * @param image   the image to list
+	 * @param records the record numbers to write, or null for every entry
+	 * @param json    whether to write JSON
+	 * @param writer  the writer to write to
+	 */
+	private static void list(GuestDataImage image, int[] records, boolean json, PrintWriter writer) {
+		boolean ingredients = image.getKind() == GuestDataImage.Kind.INGREDIENTS;
+		String field = ingredients ? "price" : "totalCost";
+		if (json) {
+			writer.print('[');
+		}
+		int count = records == null ? image.size() : records.length;
+		int written = 0;
+		for (int n = 0; n < count; n++) {
+			int i = records == null ? n : records[n];
+			if (i >= image.size()) {
+				continue;
+			}
+			String value = ingredients ? String.valueOf(image.getPrice(i)) : String.valueOf(image.getTotalCost(i));
+			if (json) {
+				if (written++ > 0) {
+					writer.print(',');
+				}
+				writeEntry(writer, image.getName(i), field, value);
+			} else {
+				writeLine(writer, image.getName(i), value);
+			}
+		}
+		if (json) {
+			writer.println(']');
+		}
+	}
+
+	/**
+	 * Writes the k cheapest or priciest entries of an image, best first.
+	 *
+	 * @param image     the recipe or meal image
+	 * @param order     the ranking order
+	 * @param arguments the number of entries, optionally followed by an
+	 *                  ingredient the entries must use
+	 * @param json      whether to write JSON
+	 * @param writer    the writer to write to
+	 * @return the exit status
+	 */
+	private static int rank(GuestDataImage image, CostRanking.Order order, String arguments, boolean json,
+			PrintWriter writer) {
+		String[] words = arguments.split(" ", 2);
+		int k;
+		try {
+			k = Integer.parseInt(words[0]);
+		} catch (NumberFormatException e) {
+			System.err.println(usage());
+			return ERROR;
+		}
+		IntPredicate filter = null;
+		if (words.length == 2) {
+			filter = CostRanking.usingIngredient(image, words[1]);
+			if (filter == null) {
+				System.err.println("Error reading " + DataFiles.recipes());
+				return ERROR;
+			}
+		}
+		list(image, CostRanking.rank(image, k, order, filter), json, writer);
+		return OK;
+	}
+
+	/**
+	 * Writes a JSON object with the name and one numeric field of an entry.
+	 *
+	 * @param writer the writer to write to
+	 * @param name   the name of the entry
+	 * @param field  the name of the numeric field
+	 * @param value  the numeric value
+	 */
+	private static void writeEntry(PrintWriter writer, String name, String field, String value) {
+		writer.print("{\"name\":");
+		writer.print(quote(name));
+		writer.print(",\"");
+		writer.print(field);
+		writer.print("\":");
+		writer.print(value);
+		writer.print('}');
+	}
+
+	/**
+	 * Writes a JSON object with the name, total cost and parts of a recipe or meal
+	 * on one line.
+	 *
+	 * @param writer    the writer to write to
+	 * @param name      the name of the entry
+	 * @param totalCost the total cost of the entry
+	 * @param field     the name of the parts field
+	 * @param parts     the JSON array of the parts
+	 */
+	private static void writeDetails(PrintWriter writer, String name, double totalCost, String field,
+			CharSequence parts) {
+		writer.print("{\"name\":");
+		writer.print(quote(name));
+		writer.print(",\"totalCost\":");
+		writer.print(totalCost);
+		writer.print(",\"");
+		writer.print(field);
+		writer.print("\":");
+		writer.print(parts);
+		writer.println('}');
+	}
+
+	/**
+	 * Writes tab-separated cells as one line of text.
+	 *
+	 * @param writer the writer to write to
+	 * @param cells  the cells of the line
+	 */
+	private static void writeLine(PrintWriter writer, String... cells) {
+		for (int i = 0; i < cells.length; i++) {
+			if (i > 0) {
+				writer.print('\t');
+			}
+			writer.print(cells[i]);
+		}
+		writer.println();
+	}
+
+	/**
+	 * Maps an entity argument to the kind of data file holding it.
+	 *
+	 * @param entity the entity argument
+	 * @return the kind, or null if the entity is unknown
+	 */
+	private static GuestDataImage.Kind kindOf(String entity) {
+		if (entity == null) {
+			return null;
+		}
+		switch (entity) {
+		case "ingredient":
+			return GuestDataImage.Kind.INGREDIENTS;
+		case "recipe":
+			return GuestDataImage.Kind.RECIPES;
+		case "meal":
+			return GuestDataImage.Kind.MEALS;
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Retrieves the data file of a kind of records.
+	 *
+	 * @param kind the kind of records
+	 * @return the path of the data file
+	 */
+	private static String dataFile(GuestDataImage.Kind kind) {
+		switch (kind) {
+		case INGREDIENTS:
+			return DataFiles.ingredients();
+		case RECIPES:
+			return DataFiles.recipes();
+		default:
+			return DataFiles.meals();
+		}
+	}
+
+	/**
+	 * Quotes a string as a JSON string literal.
+	 *
+	 * @param value the string
+	 * @return the JSON literal
+	 */
+	static String quote(String value) {
+		StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				quoted.append("\\\"");
+				break;
+			case '\\':
+				quoted.append("\\\\");
+				break;
+			case '\n':
+				quoted.append("\\n");
+				break;
+			case '\r':
+				quoted.append("\\r");
+				break;
+			case '\t':
+				quoted.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					quoted.append(String.format("\\u%04x", (int) c));
+				} else {
+					quoted.append(c);
+				}
+			}
+		}
+		return quoted.append('"').toString();
+	}
+
+	/**
+	 * Capitalizes the first letter of a word.
+	 *
+	 * @param word the word
+	 * @return the capitalized word
+	 */
+	private static String capitalize(String word) {
+		return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+	}
+
+	/**
+	 * Retrieves the usage of the query subcommands.
+	 *
+	 * @return the usage text
+	 */
+	private static String usage() {
+		return "Usage: ingredient get <name> | ingredient list\n"
+				+ "       recipe get|cost <name> | recipe list | recipe search <words>\n"
+				+ "       meal get|cost <name> | meal list | meal search <words>\n"
+				+ "       recipe|meal cheapest|priciest <k> [ingredient]\n" + "Add --json for JSON output.";
+	}
+}
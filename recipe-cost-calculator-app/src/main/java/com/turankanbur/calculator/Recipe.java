@@ -18,6 +18,10 @@ import java.util.List;
 /**
  * Represents a recipe consisting of a name, ingredients, quantity, and total
  * cost. Provides methods to access and modify recipe information.
+ *
+ * The total cost is the cost of one batch of the recipe, and the servings are
+ * the number of portions one batch yields; a recipe yields one serving unless
+ * set otherwise.
  */
 public class Recipe implements Serializable  {
 
@@ -38,6 +42,12 @@ public class Recipe implements Serializable  {
 	/** The total cost of the recipe. */
 	private double totalCost;
 
+	/**
+	 * The number of servings one batch yields. Recipes saved before servings
+	 * existed are read with 0, which counts as one serving.
+	 */
+	private int servings;
+
 	/**
 	 * Constructs a Recipe object with the specified name, ingredients, and total
 	 * cost.
@@ -50,6 +60,7 @@ public class Recipe implements Serializable  {
 		this.name = name;
 		this.ingredients = ingredients;
 		this.totalCost = totalCost;
+		this.servings = 1;
 	}
 
 	/**
@@ -105,4 +116,46 @@ public class Recipe implements Serializable  {
 	public void setTotalCost(double totalCost) {
 		this.totalCost = totalCost;
 	}
+
+	/**
+	 * Retrieves the number of servings one batch of the recipe yields.
+	 *
+	 * @return the servings of the recipe, at least one
+	 */
+	public int getServings() {
+		return servings > 0 ? servings : 1;
+	}
+
+	/**
+	 * Sets the number of servings one batch of the recipe yields.
+	 *
+	 * @param servings the servings of the recipe
+	 * @throws IllegalArgumentException if servings is less than one
+	 */
+	public void setServings(int servings) {
+		if (servings < 1) {
+			throw new IllegalArgumentException("Invalid number of servings: " + servings);
+		}
+		this.servings = servings;
+	}
+
+	/**
+	 * Calculates the cost of one serving of the recipe.
+	 *
+	 * @return the total cost divided by the servings
+	 */
+	public double getCostPerServing() {
+		return totalCost / getServings();
+	}
+
+	/**
+	 * Calculates the number of batches needed for a number of servings. Only whole
+	 * batches are cooked, so the count is rounded up.
+	 *
+	 * @param covers the number of servings needed
+	 * @return the number of batches
+	 */
+	public long batchesFor(long covers) {
+		return ServingScaler.batches(covers, getServings());
+	}
 }
\ No newline at end of file
@@ -13,6 +13,11 @@ import java.io.EOFException;
  */
 import java.io.FileInputStream;
 
+/**
+ * Signals that a data file does not exist yet.
+ */
+import java.io.FileNotFoundException;
+
 /**
  * Provides functionality for writing bytes to a file output stream.
  */
@@ -48,6 +53,16 @@ import java.util.ArrayList;
  */
 import java.util.List;
 
+/**
+ * Provides the logging interface used for diagnostics.
+ */
+import org.slf4j.Logger;
+
+/**
+ * Provides the factory that creates loggers.
+ */
+import org.slf4j.LoggerFactory;
+
 /**
  * Manages recipes, including adding, saving, loading, and listing recipes. This
  * class provides functionality to create recipes from user input and interact
@@ -60,9 +75,33 @@ public class RecipeManagement  implements Serializable {
 	 */
 	private static final long serialVersionUID = 1L;
 
+	/** Logger for diagnostics. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(RecipeManagement.class);
+
+	/** Times addRecipe calls, including the file round trip. */
+	private static final MetricsRegistry.Timer ADD_TIMER = MetricsRegistry.timer("recipes.add");
+
+	/** Times saveToFile calls. */
+	private static final MetricsRegistry.Timer SAVE_TIMER = MetricsRegistry.timer("recipes.save");
+
+	/** Times loadFromFile calls. */
+	private static final MetricsRegistry.Timer LOAD_TIMER = MetricsRegistry.timer("recipes.load");
+
+	/** Times listRecipes calls. */
+	private static final MetricsRegistry.Timer LIST_TIMER = MetricsRegistry.timer("recipes.list");
+
+	/** Counts failed recipe file operations. */
+	private static final MetricsRegistry.Counter IO_ERRORS = MetricsRegistry.counter("recipes.io.errors");
+
+	/** Holds the number of recipes after the latest load or save. */
+	private static final MetricsRegistry.Gauge SIZE = MetricsRegistry.gauge("recipes.size");
+
 	/** List of recipes managed by this RecipeManagement instance. */
 	private List<Recipe> recipes;
 
+	/** Prefix index over the recipe names, built on the first completion. */
+	private transient NameTrie<Recipe> nameIndex;
+
 	/** Constructs a RecipeManagement object with an empty list of recipes. */
 	public RecipeManagement() {
 		
@@ -70,7 +109,8 @@ public class RecipeManagement  implements Serializable {
 	}
 
 	/**
-	 * Adds a recipe to the list of managed recipes and saves it to a file.
+	 * Adds a recipe to the list of managed recipes, saves it to a file and
+	 * appends it to the search indexes of the file.
 	 *
 	 * @param recipe   the recipe to add
 	 * @param fileName the name of the file to save the recipes to
@@ -78,6 +118,7 @@ public class RecipeManagement  implements Serializable {
 	
 	
 	public void addRecipe(Recipe recipe, String fileName) {
+		long start = System.nanoTime();
 		// Load existing recipes from file
 		List<Recipe> existingRecipes = loadFromFile(fileName);
 
@@ -86,6 +127,11 @@ public class RecipeManagement  implements Serializable {
 
 		// Save all recipes to file
 		saveToFile(existingRecipes, fileName);
+
+		// Keep the search indexes in step with the file
+		FullTextIndex.append(fileName, existingRecipes.size() - 1, recipe.getName());
+		IngredientRecipeIndex.append(fileName, existingRecipes.size() - 1, recipe);
+		ADD_TIMER.recordSince(start);
 	}
 
 	/**
@@ -97,6 +143,24 @@ public class RecipeManagement  implements Serializable {
 		return this.recipes;
 	}
 
+	/**
+	 * Retrieves the first managed recipes, in alphabetical order, whose names
+	 * start with the given prefix, ignoring case.
+	 *
+	 * @param prefix the name prefix
+	 * @param limit  the maximum number of recipes to return
+	 * @return the matching recipes
+	 */
+	public List<Recipe> completeName(String prefix, int limit) {
+		if (nameIndex == null) {
+			nameIndex = new NameTrie<>();
+			for (Recipe recipe : recipes) {
+				nameIndex.add(recipe.getName(), recipe);
+			}
+		}
+		return nameIndex.complete(prefix, limit);
+	}
+
 	/**
 	 * Saves a list of recipes to a file.
 	 *
@@ -104,6 +168,10 @@ public class RecipeManagement  implements Serializable {
 	 * @param fileName the name of the file to save to
 	 */
 	public static void saveToFile(List<Recipe> recipes, String fileName) {
+		long start = System.nanoTime();
+		DataFileEvent event = new DataFileEvent();
+		event.begin();
+		boolean failed = false;
 		try (FileOutputStream fos = new FileOutputStream(fileName);
 				ObjectOutputStream oos = new ObjectOutputStream(fos)) {
 
@@ -113,7 +181,13 @@ public class RecipeManagement  implements Serializable {
 			}
 
 		} catch (IOException e) {
-			System.err.println("Error saving to file: " + e.getMessage());
+			failed = true;
+			IO_ERRORS.increment();
+			LOGGER.error("Error saving to file: {}", e.getMessage());
+		} finally {
+			event.complete(DataFileEvent.SAVE, fileName, recipes.size(), failed);
+			SIZE.set(recipes.size());
+			SAVE_TIMER.recordSince(start);
 		}
 	}
 
@@ -124,7 +198,11 @@ public class RecipeManagement  implements Serializable {
 	 * @return the list of loaded recipes
 	 */
 	public static List<Recipe> loadFromFile(String fileName) {
+		long start = System.nanoTime();
 		List<Recipe> loadedRecipes = new ArrayList<>();
+		DataFileEvent event = new DataFileEvent();
+		event.begin();
+		boolean failed = false;
 
 		try (FileInputStream fis = new FileInputStream(fileName); ObjectInputStream ois = new ObjectInputStream(fis)) {
 
@@ -140,12 +218,73 @@ public class RecipeManagement  implements Serializable {
 				}
 			}
 
+		} catch (FileNotFoundException e) {
+			// A missing file is the normal state before the first save, not a load error
+			LOGGER.debug("No file to load from: {}", e.getMessage());
 		} catch (IOException | ClassNotFoundException e) {
-			System.err.println("Error loading from file: " + e.getMessage());
+			failed = true;
+			IO_ERRORS.increment();
+			LOGGER.warn("Error loading from file: {}", e.getMessage());
 		}
+		event.complete(DataFileEvent.LOAD, fileName, loadedRecipes.size(), failed);
+		SIZE.set(loadedRecipes.size());
+		LOAD_TIMER.recordSince(start);
 		return loadedRecipes;
 	}
 
+	/**
+	 * Calculates the total cost of a recipe as the sum of each ingredient's price
+	 * multiplied by the quantity used.
+	 *
+	 * @param ingredients the selected ingredients
+	 * @param quantities  the quantity of each selected ingredient, in the same order
+	 * @return the total cost of the recipe
+	 */
+	public static double calculateTotalCost(List<Ingredient> ingredients, int[] quantities) {
+		return calculateTotalCost(ingredients, quantities, null);
+	}
+
+	/**
+	 * Calculates the total cost of a recipe whose quantities may be measured in
+	 * other units than the ingredient prices, such as grams of an ingredient
+	 * priced per kilogram. Each line is converted with one read of the Unit
+	 * conversion matrix.
+	 *
+	 * @param ingredients the selected ingredients
+	 * @param quantities  the quantity of each selected ingredient, in the same order
+	 * @param units       the unit of each quantity, or null where it is the unit
+	 *                    of the ingredient; the array itself may be null
+	 * @return the total cost of the recipe
+	 * @throws IllegalArgumentException if a quantity cannot be converted to the
+	 *                                  unit of its ingredient
+	 */
+	public static double calculateTotalCost(List<Ingredient> ingredients, int[] quantities, Unit[] units) {
+		CostCalculationEvent event = new CostCalculationEvent();
+		event.begin();
+		double totalCost = 0.0;
+		for (int i = 0; i < ingredients.size(); i++) {
+			Ingredient ingredient = ingredients.get(i);
+			if (units == null || units[i] == null) {
+				totalCost += ingredient.getPrice() * quantities[i];
+			} else {
+				double factor = Unit.factor(units[i], ingredient.getUnit());
+				if (Double.isNaN(factor)) {
+					throw new IllegalArgumentException(
+							"Cannot measure " + ingredient.getName() + " in " + units[i].getSymbol());
+				}
+				totalCost += ingredient.getPrice() * quantities[i] * factor;
+			}
+		}
+		event.end();
+		if (event.shouldCommit()) {
+			event.kind = CostCalculationEvent.RECIPE;
+			event.items = ingredients.size();
+			event.totalCost = totalCost;
+			event.commit();
+		}
+		return totalCost;
+	}
+
 	/**
 	 * Creates a recipe from user input and adds it to the list of managed recipes.
 	 *
@@ -158,20 +297,40 @@ public class RecipeManagement  implements Serializable {
 	 */
 	public static void createRecipeFromUserInput(List<Ingredient> availableIngredients, RecipeManagement recipeManager,
 			String recipeName, double totalCost, List<Ingredient> selectedIngredients) {
+		createRecipeFromUserInput(availableIngredients, recipeManager, recipeName, totalCost, selectedIngredients, 1);
+	}
+
+	/**
+	 * Creates a recipe yielding a number of servings from user input and adds it
+	 * to the list of managed recipes.
+	 *
+	 * @param availableIngredients the list of available ingredients
+	 * @param recipeManager        the RecipeManagement object to interact with
+	 *                             recipe data
+	 * @param recipeName           the name of the recipe
+	 * @param totalCost            the total cost of the recipe
+	 * @param selectedIngredients  the list of selected ingredients for the recipe
+	 * @param servings             the number of servings one batch yields
+	 */
+	public static void createRecipeFromUserInput(List<Ingredient> availableIngredients, RecipeManagement recipeManager,
+			String recipeName, double totalCost, List<Ingredient> selectedIngredients, int servings) {
 
 		// Print recipe details
 		System.out.println("\nRecipe Name: " + recipeName);
+		System.out.println("Servings: " + servings);
 		System.out.println("Total Cost: " + totalCost + "$");
 		System.out.println("Ingredients:");
 		for (Ingredient ingredient : selectedIngredients) {
-			System.out.println("- " + ingredient.getName() + ": " + ingredient.getPrice() + "$" + " per unit");
+			System.out.println("- " + ingredient.getName() + ": " + ingredient.getPrice() + "$" + " per "
+					+ ingredient.getUnit().getPerLabel());
 		}
 
 		// Create the recipe
 		Recipe recipe = new Recipe(recipeName, selectedIngredients, totalCost);
+		recipe.setServings(servings);
 
 		// Add the recipe to the existing recipe manager and save to file
-		recipeManager.addRecipe(recipe, "recipes.bin");
+		recipeManager.addRecipe(recipe, DataFiles.recipes());
 
 	}
 
@@ -183,11 +342,14 @@ public class RecipeManagement  implements Serializable {
 	 */
 	
 	public void listRecipes(String filename) {
+		long start = System.nanoTime();
 		// Load recipes from file
 		recipes = loadFromFile(filename);
+		nameIndex = null;
 
 		if (recipes.isEmpty()) {
 			System.out.println("No recipes found to list.");
+			LIST_TIMER.recordSince(start);
 			return;
 		}
 
@@ -200,10 +362,12 @@ public class RecipeManagement  implements Serializable {
 			List<Ingredient> ingredients = recipe.getIngredients();
 			for (int j = 0; j < ingredients.size(); j++) {
 				Ingredient ingredient = ingredients.get(j);
-				System.out.println("        - " + ingredient.getName() + ": " + ingredient.getPrice ()+ "$" + " per unit");
+				System.out.println("        - " + ingredient.getName() + ": " + ingredient.getPrice ()+ "$" + " per "
+						+ ingredient.getUnit().getPerLabel());
 			}
 		}
 		System.out.println("-------------------------\n");
+		LIST_TIMER.recordSince(start);
 	}
 
 	
@@ -214,6 +378,7 @@ public class RecipeManagement  implements Serializable {
 	 */
 	public void setRecipes(List<Recipe> recipes2) {
 		this.recipes = recipes2;
+		nameIndex = null;
 
 	}
 
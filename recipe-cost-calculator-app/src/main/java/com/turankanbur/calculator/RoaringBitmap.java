@@ -0,0 +1,646 @@
+/**
+ * Package containing classes related to name lookups.
+ */
+package com.turankanbur.calculator;
+
+/**
+ * Provides functionality for reading primitive values from a stream.
+ */
+import java.io.DataInputStream;
+
+/**
+ * Provides functionality for writing primitive values to a stream.
+ */
+import java.io.DataOutputStream;
+
+/**
+ * Provides functionality for handling input/output (I/O) operations.
+ */
+import java.io.IOException;
+
+/**
+ * Provides utility methods for growing and searching arrays.
+ */
+import java.util.Arrays;
+
+/**
+ * A compressed set of non-negative ints in the style of Roaring bitmaps. The
+ * values are split by their upper 16 bits into chunks of 65536; a chunk with
+ * at most 4096 values stores them as a sorted char array and a denser chunk
+ * as a 65536-bit bitmap, so sparse and dense sets both stay small and the set
+ * operations work a chunk at a time, on whole 64-bit words for dense chunks.
+ *
+ * Bitmaps are mutable through add; and, or and andNot return new bitmaps and
+ * leave their arguments unchanged. The class is not thread-safe.
+ */
+public final class RoaringBitmap {
+
+	/** The largest number of values a chunk stores as an array. */
+	private static final int ARRAY_LIMIT = 4096;
+
+	/** The number of 64-bit words of a bitmap chunk. */
+	private static final int WORDS = 1024;
+
+	/** The upper 16 bits of the chunks, in ascending order. */
+	private char[] keys = new char[4];
+
+	/** The chunks, in the order of their keys. */
+	private Container[] containers = new Container[4];
+
+	/** The number of chunks. */
+	private int size;
+
+	/**
+	 * Builds a bitmap holding 0 to n - 1.
+	 *
+	 * @param n the number of values
+	 * @return the bitmap
+	 */
+	public static RoaringBitmap range(int n) {
+		RoaringBitmap bitmap = new RoaringBitmap();
+		for (int start = 0; start < n; start += 1 << 16) {
+			int count = Math.min(1 << 16, n - start);
+			Container container;
+			if (count <= ARRAY_LIMIT) {
+				container = new Container(new char[count], null, count);
+				for (int i = 0; i < count; i++) {
+					container.array[i] = (char) i;
+				}
+			} else {
+				long[] bits = new long[WORDS];
+				Arrays.fill(bits, 0, count >>> 6, -1L);
+				if ((count & 63) != 0) {
+					bits[count >>> 6] = (1L << count) - 1;
+				}
+				container = new Container(null, bits, count);
+			}
+			bitmap.append((char) (start >>> 16), container);
+		}
+		return bitmap;
+	}
+
+	/**
+	 * Adds a value.
+	 *
+	 * @param value the non-negative value
+	 */
+	public void add(int value) {
+		char key = (char) (value >>> 16);
+		int slot = find(key);
+		if (slot < 0) {
+			slot = -slot - 1;
+			insert(slot, key, new Container(new char[4], null, 0));
+		}
+		containers[slot] = containers[slot].add((char) value);
+	}
+
+	/**
+	 * Checks whether a value is in the set.
+	 *
+	 * @param value the value
+	 * @return true if the value is present
+	 */
+	public boolean contains(int value) {
+		int slot = find((char) (value >>> 16));
+		return slot >= 0 && containers[slot].contains((char) value);
+	}
+
+	/**
+	 * Counts the values.
+	 *
+	 * @return the number of values
+	 */
+	public int cardinality() {
+		int cardinality = 0;
+		for (int i = 0; i < size; i++) {
+			cardinality += containers[i].cardinality;
+		}
+		return cardinality;
+	}
+
+	/**
+	 * Checks whether the set is empty.
+	 *
+	 * @return true if no value is present
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Retrieves the values in ascending order.
+	 *
+	 * @return the values
+	 */
+	public int[] toArray() {
+		int[] values = new int[cardinality()];
+		int n = 0;
+		for (int i = 0; i < size; i++) {
+			n = containers[i].copyTo(values, n, keys[i] << 16);
+		}
+		return values;
+	}
+
+	/**
+	 * Computes the intersection of two bitmaps.
+	 *
+	 * @param a the first bitmap
+	 * @param b the second bitmap
+	 * @return the values in both
+	 */
+	public static RoaringBitmap and(RoaringBitmap a, RoaringBitmap b) {
+		RoaringBitmap result = new RoaringBitmap();
+		int i = 0;
+		int j = 0;
+		while (i < a.size && j < b.size) {
+			if (a.keys[i] < b.keys[j]) {
+				i++;
+			} else if (a.keys[i] > b.keys[j]) {
+				j++;
+			} else {
+				Container container = Container.and(a.containers[i], b.containers[j]);
+				if (container != null) {
+					result.append(a.keys[i], container);
+				}
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Computes the union of two bitmaps.
+	 *
+	 * @param a the first bitmap
+	 * @param b the second bitmap
+	 * @return the values in either
+	 */
+	public static RoaringBitmap or(RoaringBitmap a, RoaringBitmap b) {
+		RoaringBitmap result = new RoaringBitmap();
+		int i = 0;
+		int j = 0;
+		while (i < a.size || j < b.size) {
+			if (j == b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+				result.append(a.keys[i], a.containers[i].copy());
+				i++;
+			} else if (i == a.size || a.keys[i] > b.keys[j]) {
+				result.append(b.keys[j], b.containers[j].copy());
+				j++;
+			} else {
+				result.append(a.keys[i], Container.or(a.containers[i], b.containers[j]));
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Adds all values of another bitmap to this one, updating dense chunks in
+	 * place instead of allocating new ones.
+	 *
+	 * @param other the values to add
+	 */
+	public void orWith(RoaringBitmap other) {
+		char[] mergedKeys = new char[size + other.size];
+		Container[] merged = new Container[size + other.size];
+		int i = 0;
+		int j = 0;
+		int n = 0;
+		while (i < size || j < other.size) {
+			if (j == other.size || (i < size && keys[i] < other.keys[j])) {
+				mergedKeys[n] = keys[i];
+				merged[n++] = containers[i++];
+			} else if (i == size || keys[i] > other.keys[j]) {
+				mergedKeys[n] = other.keys[j];
+				merged[n++] = other.containers[j++].copy();
+			} else {
+				mergedKeys[n] = keys[i];
+				merged[n++] = containers[i].bits != null ? containers[i].orInPlace(other.containers[j])
+						: Container.or(containers[i], other.containers[j]);
+				i++;
+				j++;
+			}
+		}
+		keys = n == 0 ? new char[4] : mergedKeys;
+		containers = n == 0 ? new Container[4] : merged;
+		size = n;
+	}
+
+	/**
+	 * Computes the difference of two bitmaps.
+	 *
+	 * @param a the bitmap to remove values from
+	 * @param b the values to remove
+	 * @return the values of a that are not in b
+	 */
+	public static RoaringBitmap andNot(RoaringBitmap a, RoaringBitmap b) {
+		RoaringBitmap result = new RoaringBitmap();
+		int j = 0;
+		for (int i = 0; i < a.size; i++) {
+			while (j < b.size && b.keys[j] < a.keys[i]) {
+				j++;
+			}
+			if (j < b.size && b.keys[j] == a.keys[i]) {
+				Container container = Container.andNot(a.containers[i], b.containers[j]);
+				if (container != null) {
+					result.append(a.keys[i], container);
+				}
+			} else {
+				result.append(a.keys[i], a.containers[i].copy());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Writes the bitmap to a stream.
+	 *
+	 * @param out the stream to write to
+	 * @throws IOException if the stream cannot be written
+	 */
+	public void writeTo(DataOutputStream out) throws IOException {
+		out.writeInt(size);
+		for (int i = 0; i < size; i++) {
+			Container container = containers[i];
+			out.writeChar(keys[i]);
+			out.writeInt(container.cardinality);
+			if (container.bits != null) {
+				for (long word : container.bits) {
+					out.writeLong(word);
+				}
+			} else {
+				for (int v = 0; v < container.cardinality; v++) {
+					out.writeChar(container.array[v]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads a bitmap written by writeTo.
+	 *
+	 * @param in the stream to read from
+	 * @return the bitmap
+	 * @throws IOException if the stream cannot be read
+	 */
+	public static RoaringBitmap readFrom(DataInputStream in) throws IOException {
+		RoaringBitmap bitmap = new RoaringBitmap();
+		int size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			char key = in.readChar();
+			int cardinality = in.readInt();
+			Container container;
+			if (cardinality > ARRAY_LIMIT) {
+				long[] bits = new long[WORDS];
+				for (int w = 0; w < WORDS; w++) {
+					bits[w] = in.readLong();
+				}
+				container = new Container(null, bits, cardinality);
+			} else {
+				char[] array = new char[cardinality];
+				for (int v = 0; v < cardinality; v++) {
+					array[v] = in.readChar();
+				}
+				container = new Container(array, null, cardinality);
+			}
+			bitmap.append(key, container);
+		}
+		return bitmap;
+	}
+
+	/**
+	 * Finds the chunk with the given key.
+	 *
+	 * @param key the upper 16 bits
+	 * @return the slot, or (-(insertion point) - 1) if there is none
+	 */
+	private int find(char key) {
+		// Values are mostly added in ascending order, so check the last chunk first
+		if (size > 0 && keys[size - 1] == key) {
+			return size - 1;
+		}
+		return Arrays.binarySearch(keys, 0, size, key);
+	}
+
+	/**
+	 * Appends a chunk with a key larger than all present.
+	 *
+	 * @param key       the upper 16 bits
+	 * @param container the chunk
+	 */
+	private void append(char key, Container container) {
+		insert(size, key, container);
+	}
+
+	/**
+	 * Inserts a chunk at the given slot.
+	 *
+	 * @param slot      the slot
+	 * @param key       the upper 16 bits
+	 * @param container the chunk
+	 */
+	private void insert(int slot, char key, Container container) {
+		if (size == keys.length) {
+			keys = Arrays.copyOf(keys, size * 2);
+			containers = Arrays.copyOf(containers, size * 2);
+		}
+		System.arraycopy(keys, slot, keys, slot + 1, size - slot);
+		System.arraycopy(containers, slot, containers, slot + 1, size - slot);
+		keys[slot] = key;
+		containers[slot] = container;
+		size++;
+	}
+
+	/**
+	 * One chunk of 65536 values, held either as a sorted array of the lower 16
+	 * bits or as a bitmap. Every bitmap owns its chunks, so they can be modified
+	 * in place.
+	 */
+	private static final class Container {
+
+		/** The sorted values, or null for a bitmap chunk. */
+		char[] array;
+
+		/** The bitmap, or null for an array chunk. */
+		long[] bits;
+
+		/** The number of values. */
+		int cardinality;
+
+		/**
+		 * Constructs a chunk.
+		 *
+		 * @param array       the sorted values, or null
+		 * @param bits        the bitmap, or null
+		 * @param cardinality the number of values
+		 */
+		Container(char[] array, long[] bits, int cardinality) {
+			this.array = array;
+			this.bits = bits;
+			this.cardinality = cardinality;
+		}
+
+		/**
+		 * Adds a value, converting to a bitmap when the array grows too large.
+		 *
+		 * @param value the lower 16 bits
+		 * @return the chunk holding the value, this one unless it was converted
+		 */
+		Container add(char value) {
+			if (bits != null) {
+				long mask = 1L << value;
+				if ((bits[value >>> 6] & mask) == 0) {
+					bits[value >>> 6] |= mask;
+					cardinality++;
+				}
+				return this;
+			}
+			// Values mostly arrive in ascending order, so try appending first
+			int at = cardinality > 0 && array[cardinality - 1] < value ? -cardinality - 1
+					: Arrays.binarySearch(array, 0, cardinality, value);
+			if (at >= 0) {
+				return this;
+			}
+			if (cardinality == ARRAY_LIMIT) {
+				Container dense = toBitmap();
+				dense.bits[value >>> 6] |= 1L << value;
+				dense.cardinality++;
+				return dense;
+			}
+			at = -at - 1;
+			if (cardinality == array.length) {
+				array = Arrays.copyOf(array, Math.min(ARRAY_LIMIT, Math.max(4, cardinality * 2)));
+			}
+			System.arraycopy(array, at, array, at + 1, cardinality - at);
+			array[at] = value;
+			cardinality++;
+			return this;
+		}
+
+		/**
+		 * Copies the chunk.
+		 *
+		 * @return an independent copy
+		 */
+		Container copy() {
+			return bits != null ? new Container(null, bits.clone(), cardinality)
+					: new Container(Arrays.copyOf(array, cardinality), null, cardinality);
+		}
+
+		/**
+		 * Checks whether a value is in the chunk.
+		 *
+		 * @param value the lower 16 bits
+		 * @return true if the value is present
+		 */
+		boolean contains(char value) {
+			if (bits != null) {
+				return (bits[value >>> 6] & (1L << value)) != 0;
+			}
+			return Arrays.binarySearch(array, 0, cardinality, value) >= 0;
+		}
+
+		/**
+		 * Copies the values into an int array.
+		 *
+		 * @param values the target array
+		 * @param n      the position to copy to
+		 * @param high   the upper bits of the values
+		 * @return the position after the last copied value
+		 */
+		int copyTo(int[] values, int n, int high) {
+			if (bits == null) {
+				for (int i = 0; i < cardinality; i++) {
+					values[n++] = high | array[i];
+				}
+				return n;
+			}
+			for (int w = 0; w < WORDS; w++) {
+				long word = bits[w];
+				while (word != 0) {
+					values[n++] = high | (w << 6) | Long.numberOfTrailingZeros(word);
+					word &= word - 1;
+				}
+			}
+			return n;
+		}
+
+		/**
+		 * Converts the chunk to a new bitmap chunk.
+		 *
+		 * @return the bitmap chunk
+		 */
+		Container toBitmap() {
+			if (bits != null) {
+				return new Container(null, bits.clone(), cardinality);
+			}
+			long[] dense = new long[WORDS];
+			for (int i = 0; i < cardinality; i++) {
+				dense[array[i] >>> 6] |= 1L << array[i];
+			}
+			return new Container(null, dense, cardinality);
+		}
+
+		/**
+		 * Wraps a bitmap as a chunk, converting it to an array when it is sparse.
+		 *
+		 * @param dense the bitmap
+		 * @return the chunk, or null if the bitmap is empty
+		 */
+		static Container ofBits(long[] dense) {
+			int cardinality = 0;
+			for (long word : dense) {
+				cardinality += Long.bitCount(word);
+			}
+			if (cardinality == 0) {
+				return null;
+			}
+			if (cardinality > ARRAY_LIMIT) {
+				return new Container(null, dense, cardinality);
+			}
+			Container sparse = new Container(new char[cardinality], null, cardinality);
+			int n = 0;
+			for (int w = 0; w < WORDS; w++) {
+				long word = dense[w];
+				while (word != 0) {
+					sparse.array[n++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+			return sparse;
+		}
+
+		/**
+		 * Intersects two chunks.
+		 *
+		 * @param a the first chunk
+		 * @param b the second chunk
+		 * @return the intersection, or null if it is empty
+		 */
+		static Container and(Container a, Container b) {
+			if (a.bits != null && b.bits != null) {
+				long[] dense = new long[WORDS];
+				for (int w = 0; w < WORDS; w++) {
+					dense[w] = a.bits[w] & b.bits[w];
+				}
+				return ofBits(dense);
+			}
+			if (a.bits != null) {
+				return and(b, a);
+			}
+			char[] kept = new char[a.cardinality];
+			int n = 0;
+			if (b.bits != null) {
+				for (int i = 0; i < a.cardinality; i++) {
+					if (b.contains(a.array[i])) {
+						kept[n++] = a.array[i];
+					}
+				}
+			} else {
+				int j = 0;
+				for (int i = 0; i < a.cardinality && j < b.cardinality; i++) {
+					while (j < b.cardinality && b.array[j] < a.array[i]) {
+						j++;
+					}
+					if (j < b.cardinality && b.array[j] == a.array[i]) {
+						kept[n++] = a.array[i];
+					}
+				}
+			}
+			return n == 0 ? null : new Container(kept, null, n);
+		}
+
+		/**
+		 * Unites two chunks.
+		 *
+		 * @param a the first chunk
+		 * @param b the second chunk
+		 * @return the union
+		 */
+		static Container or(Container a, Container b) {
+			if (a.bits == null && b.bits == null && a.cardinality + b.cardinality <= ARRAY_LIMIT) {
+				char[] merged = new char[a.cardinality + b.cardinality];
+				int i = 0;
+				int j = 0;
+				int n = 0;
+				while (i < a.cardinality || j < b.cardinality) {
+					if (j == b.cardinality || (i < a.cardinality && a.array[i] < b.array[j])) {
+						merged[n++] = a.array[i++];
+					} else if (i == a.cardinality || b.array[j] < a.array[i]) {
+						merged[n++] = b.array[j++];
+					} else {
+						merged[n++] = a.array[i++];
+						j++;
+					}
+				}
+				return new Container(merged, null, n);
+			}
+			Container dense = a.toBitmap();
+			if (b.bits != null) {
+				for (int w = 0; w < WORDS; w++) {
+					dense.bits[w] |= b.bits[w];
+				}
+			} else {
+				for (int i = 0; i < b.cardinality; i++) {
+					dense.bits[b.array[i] >>> 6] |= 1L << b.array[i];
+				}
+			}
+			return ofBits(dense.bits);
+		}
+
+		/**
+		 * Adds the values of another chunk to this bitmap chunk.
+		 *
+		 * @param other the chunk to add
+		 * @return this chunk
+		 */
+		Container orInPlace(Container other) {
+			if (other.bits != null) {
+				int total = 0;
+				for (int w = 0; w < WORDS; w++) {
+					bits[w] |= other.bits[w];
+					total += Long.bitCount(bits[w]);
+				}
+				cardinality = total;
+			} else {
+				for (int i = 0; i < other.cardinality; i++) {
+					add(other.array[i]);
+				}
+			}
+			return this;
+		}
+
+		/**
+		 * Removes the values of one chunk from another.
+		 *
+		 * @param a the chunk to remove values from
+		 * @param b the values to remove
+		 * @return the difference, or null if it is empty
+		 */
+		static Container andNot(Container a, Container b) {
+			if (a.bits == null) {
+				char[] kept = new char[a.cardinality];
+				int n = 0;
+				for (int i = 0; i < a.cardinality; i++) {
+					if (!b.contains(a.array[i])) {
+						kept[n++] = a.array[i];
+					}
+				}
+				return n == 0 ? null : new Container(kept, null, n);
+			}
+			long[] dense = a.bits.clone();
+			if (b.bits != null) {
+				for (int w = 0; w < WORDS; w++) {
+					dense[w] &= ~b.bits[w];
+				}
+			} else {
+				for (int i = 0; i < b.cardinality; i++) {
+					dense[b.array[i] >>> 6] &= ~(1L << b.array[i]);
+				}
+			}
+			return ofBits(dense);
+		}
+	}
+}
@@ -0,0 +1,392 @@
+/**
+ * Package containing classes related to meal management and calculation.
+ */
+package com.turankanbur.calculator;
+
+/**
+ * Provides the trimming of the recipe arrays.
+ */
+import java.util.Arrays;
+
+/**
+ * Provides a hash table based implementation of the Map interface.
+ */
+import java.util.HashMap;
+
+/**
+ * Provides functionality for storing and manipulating collections of objects.
+ */
+import java.util.List;
+
+/**
+ * Provides the case folding of meal and recipe names.
+ */
+import java.util.Locale;
+
+/**
+ * Provides a mapping from normalized names to meal and recipe numbers.
+ */
+import java.util.Map;
+
+/**
+ * Recosts meals for any number of covers. Each cover gets one serving of every
+ * recipe of its meal, and recipes are cooked in whole batches of their
+ * servings.
+ *
+ * The meals are compiled once into parallel primitive arrays: the recipe lines
+ * of all meals lie side by side, with their batch cost, servings and recipe
+ * number, and each meal is a range of lines. Costing thousands of orders is
+ * then a single pass over those arrays, with no object created per order.
+ * Recipes with the same name, ignoring case, are the same recipe, costed as it
+ * was first found.
+ *
+ * The scaler is immutable after construction and can be shared between
+ * threads.
+ */
+public final class ServingScaler {
+
+	/** The names of the meals. */
+	private final String[] mealNames;
+
+	/** The first line of each meal, plus the end of the last meal. */
+	private final int[] mealStart;
+
+	/** The recipe number of each line. */
+	private final int[] lineRecipe;
+
+	/** The batch cost of the recipe of each line. */
+	private final double[] lineCost;
+
+	/** The servings of the recipe of each line. */
+	private final int[] lineServings;
+
+	/** The names of the recipes. */
+	private final String[] recipeNames;
+
+	/** The batch cost of each recipe. */
+	private final double[] recipeCost;
+
+	/** The servings of each recipe. */
+	private final int[] recipeServings;
+
+	/** The meal numbers by normalized name, the first meal winning. */
+	private final Map<String, Integer> mealsByName;
+
+	/**
+	 * Compiles a list of meals.
+	 *
+	 * @param meals the meals
+	 */
+	public ServingScaler(List<Meal> meals) {
+		int lines = 0;
+		for (int m = 0; m < meals.size(); m++) {
+			lines += meals.get(m).getRecipes().size();
+		}
+		mealNames = new String[meals.size()];
+		mealStart = new int[meals.size() + 1];
+		lineRecipe = new int[lines];
+		lineCost = new double[lines];
+		lineServings = new int[lines];
+		mealsByName = new HashMap<>();
+
+		Map<String, Integer> recipesByName = new HashMap<>();
+		String[] names = new String[lines];
+		double[] costs = new double[names.length];
+		int[] servings = new int[names.length];
+		int line = 0;
+		for (int m = 0; m < meals.size(); m++) {
+			Meal meal = meals.get(m);
+			mealNames[m] = meal.getName();
+			mealsByName.putIfAbsent(normalize(meal.getName()), m);
+			mealStart[m] = line;
+			List<Recipe> recipes = meal.getRecipes();
+			for (int i = 0; i < recipes.size(); i++) {
+				Recipe recipe = recipes.get(i);
+				Integer number = recipesByName.get(normalize(recipe.getName()));
+				if (number == null) {
+					number = recipesByName.size();
+					recipesByName.put(normalize(recipe.getName()), number);
+					names[number] = recipe.getName();
+					costs[number] = recipe.getTotalCost();
+					servings[number] = recipe.getServings();
+				}
+				lineRecipe[line] = number;
+				lineCost[line] = costs[number];
+				lineServings[line] = servings[number];
+				line++;
+			}
+		}
+		mealStart[meals.size()] = line;
+		recipeNames = Arrays.copyOf(names, recipesByName.size());
+		recipeCost = Arrays.copyOf(costs, recipesByName.size());
+		recipeServings = Arrays.copyOf(servings, recipesByName.size());
+	}
+
+	/**
+	 * Retrieves the number of meals compiled.
+	 *
+	 * @return the meal count
+	 */
+	public int size() {
+		return mealNames.length;
+	}
+
+	/**
+	 * Retrieves the name of a meal.
+	 *
+	 * @param meal the meal number
+	 * @return the name of the meal
+	 */
+	public String getMealName(int meal) {
+		return mealNames[meal];
+	}
+
+	/**
+	 * Finds a meal by name, ignoring case.
+	 *
+	 * @param name the name of the meal
+	 * @return the meal number, or -1 if there is no such meal
+	 */
+	public int findMeal(String name) {
+		Integer meal = mealsByName.get(normalize(name));
+		return meal == null ? -1 : meal;
+	}
+
+	/**
+	 * Calculates the cost of a meal served to a number of covers.
+	 *
+	 * @param meal   the meal number
+	 * @param covers the number of covers
+	 * @return the cost of the batches needed
+	 * @throws IllegalArgumentException if covers is less than one
+	 */
+	public double cost(int meal, int covers) {
+		checkCovers(covers);
+		return lineCost(meal, covers);
+	}
+
+	/**
+	 * Calculates the cost of every order of a batch, each order costed on its own.
+	 *
+	 * @param meals  the meal number of each order
+	 * @param covers the number of covers of each order
+	 * @return the cost of each order
+	 * @throws IllegalArgumentException if the arrays differ in length or an order
+	 *                                  has less than one cover
+	 */
+	public double[] cost(int[] meals, int[] covers) {
+		checkOrders(meals, covers);
+		double[] costs = new double[meals.length];
+		for (int order = 0; order < meals.length; order++) {
+			costs[order] = lineCost(meals[order], covers[order]);
+		}
+		return costs;
+	}
+
+	/**
+	 * Plans the production of a batch of orders. The servings of each recipe are
+	 * added up over all orders before they are rounded up to whole batches, so
+	 * the portions left over from one order serve another.
+	 *
+	 * @param meals  the meal number of each order
+	 * @param covers the number of covers of each order
+	 * @return the batches to cook
+	 * @throws IllegalArgumentException if the arrays differ in length or an order
+	 *                                  has less than one cover
+	 */
+	public Production produce(int[] meals, int[] covers) {
+		checkOrders(meals, covers);
+		long[] needed = new long[recipeNames.length];
+		for (int order = 0; order < meals.length; order++) {
+			int end = mealStart[meals[order] + 1];
+			for (int line = mealStart[meals[order]]; line < end; line++) {
+				needed[lineRecipe[line]] += covers[order];
+			}
+		}
+
+		int count = 0;
+		for (int recipe = 0; recipe < needed.length; recipe++) {
+			if (needed[recipe] > 0) {
+				count++;
+			}
+		}
+		String[] names = new String[count];
+		long[] batches = new long[count];
+		double[] costs = new double[count];
+		double totalCost = 0.0;
+		int i = 0;
+		for (int recipe = 0; recipe < needed.length; recipe++) {
+			if (needed[recipe] > 0) {
+				names[i] = recipeNames[recipe];
+				batches[i] = batches(needed[recipe], recipeServings[recipe]);
+				costs[i] = batches[i] * recipeCost[recipe];
+				totalCost += costs[i];
+				i++;
+			}
+		}
+		return new Production(meals.length, names, batches, costs, totalCost);
+	}
+
+	/**
+	 * Calculates the number of whole batches needed for a number of servings.
+	 *
+	 * @param covers   the number of servings needed
+	 * @param servings the servings of one batch
+	 * @return the number of batches, rounded up
+	 */
+	static long batches(long covers, int servings) {
+		return (covers + servings - 1) / servings;
+	}
+
+	/**
+	 * Sums the cost of the lines of a meal for a number of covers.
+	 *
+	 * @param meal   the meal number
+	 * @param covers the number of covers
+	 * @return the cost
+	 */
+	private double lineCost(int meal, int covers) {
+		double cost = 0.0;
+		int end = mealStart[meal + 1];
+		for (int line = mealStart[meal]; line < end; line++) {
+			cost += batches(covers, lineServings[line]) * lineCost[line];
+		}
+		return cost;
+	}
+
+	/**
+	 * Checks the orders of a batch.
+	 *
+	 * @param meals  the meal number of each order
+	 * @param covers the number of covers of each order
+	 * @throws IllegalArgumentException if the orders are invalid
+	 */
+	private void checkOrders(int[] meals, int[] covers) {
+		if (meals.length != covers.length) {
+			throw new IllegalArgumentException("Orders and covers differ in length");
+		}
+		for (int order = 0; order < covers.length; order++) {
+			checkCovers(covers[order]);
+			if (meals[order] < 0 || meals[order] >= mealNames.length) {
+				throw new IllegalArgumentException("Invalid meal number: " + meals[order]);
+			}
+		}
+	}
+
+	/**
+	 * Checks a number of covers.
+	 *
+	 * @param covers the number of covers
+	 * @throws IllegalArgumentException if covers is less than one
+	 */
+	private static void checkCovers(int covers) {
+		if (covers < 1) {
+			throw new IllegalArgumentException("Invalid number of covers: " + covers);
+		}
+	}
+
+	/**
+	 * Normalizes a name for case-insensitive lookups.
+	 *
+	 * @param name the name
+	 * @return the normalized name
+	 */
+	private static String normalize(String name) {
+		return name.toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * The batches of each recipe needed for a batch of orders.
+	 */
+	public static final class Production {
+
+		/** The number of orders produced. */
+		private final int orders;
+
+		/** The names of the recipes cooked. */
+		private final String[] recipeNames;
+
+		/** The batches of each recipe. */
+		private final long[] batches;
+
+		/** The cost of the batches of each recipe. */
+		private final double[] costs;
+
+		/** The cost of all batches. */
+		private final double totalCost;
+
+		/**
+		 * Creates a production plan.
+		 *
+		 * @param orders      the number of orders
+		 * @param recipeNames the names of the recipes cooked
+		 * @param batches     the batches of each recipe
+		 * @param costs       the cost of the batches of each recipe
+		 * @param totalCost   the cost of all batches
+		 */
+		private Production(int orders, String[] recipeNames, long[] batches, double[] costs, double totalCost) {
+			this.orders = orders;
+			this.recipeNames = recipeNames;
+			this.batches = batches;
+			this.costs = costs;
+			this.totalCost = totalCost;
+		}
+
+		/**
+		 * Retrieves the number of orders produced.
+		 *
+		 * @return the order count
+		 */
+		public int getOrders() {
+			return orders;
+		}
+
+		/**
+		 * Retrieves the number of different recipes cooked.
+		 *
+		 * @return the recipe count
+		 */
+		public int getRecipeCount() {
+			return recipeNames.length;
+		}
+
+		/**
+		 * Retrieves the name of a recipe cooked.
+		 *
+		 * @param recipe the index of the recipe, in order of first use
+		 * @return the name of the recipe
+		 */
+		public String getRecipeName(int recipe) {
+			return recipeNames[recipe];
+		}
+
+		/**
+		 * Retrieves the batches of a recipe.
+		 *
+		 * @param recipe the index of the recipe
+		 * @return the number of batches
+		 */
+		public long getBatches(int recipe) {
+			return batches[recipe];
+		}
+
+		/**
+		 * Retrieves the cost of the batches of a recipe.
+		 *
+		 * @param recipe the index of the recipe
+		 * @return the cost
+		 */
+		public double getCost(int recipe) {
+			return costs[recipe];
+		}
+
+		/**
+		 * Retrieves the cost of all batches.
+		 *
+		 * @return the total cost
+		 */
+		public double getTotalCost() {
+			return totalCost;
+		}
+	}
+}
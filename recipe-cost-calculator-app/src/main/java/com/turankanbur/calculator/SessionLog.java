@@ -0,0 +1,230 @@
+/**
+ * Package containing classes related to recording and replaying operator sessions.
+ */
+package com.turankanbur.calculator;
+
+/**
+ * Provides buffered reading of the session log.
+ */
+import java.io.BufferedInputStream;
+
+/**
+ * Provides reading of primitive values from the session log.
+ */
+import java.io.DataInputStream;
+
+/**
+ * Provides functionality for handling end-of-file (EOF) conditions.
+ */
+import java.io.EOFException;
+
+/**
+ * Provides an abstraction for file and directory pathnames.
+ */
+import java.io.File;
+
+/**
+ * Provides functionality for reading bytes from a file input stream.
+ */
+import java.io.FileInputStream;
+
+/**
+ * Provides functionality for handling input/output (I/O) operations.
+ */
+import java.io.IOException;
+
+/**
+ * Provides the stream the log records are written to.
+ */
+import java.io.OutputStream;
+
+/**
+ * Provides an implementation of the List interface backed by an array.
+ */
+import java.util.ArrayList;
+
+/**
+ * Provides functionality for storing and manipulating collections of objects.
+ */
+import java.util.List;
+
+/**
+ * The binary format of a recorded operator session.
+ *
+ * A log starts with the magic number "RCSL", a version byte and the start time
+ * in epoch milliseconds. Each following record is one chunk of input as the
+ * application read it: the service time before the read (the time the
+ * application spent on the previous input), the time the read waited for the
+ * operator, both in microseconds, and the input bytes. Numbers are unsigned
+ * varints, so a typical record takes a few bytes plus the typed line.
+ */
+public final class SessionLog {
+
+	/** Magic number at the start of every session log. */
+	static final int MAGIC = 0x5243534C;
+
+	/** Version of the log format. */
+	static final int VERSION = 1;
+
+	/** The line recorded in place of a sensitive line, such as a password. */
+	public static final String SECRET = "[redacted]";
+
+	/** The line recorded in place of a sensitive line the application rejected. */
+	public static final String REJECTED_SECRET = "[redacted, rejected]";
+
+	/** The wall clock time the session started, in epoch milliseconds. */
+	private final long startMillis;
+
+	/** The recorded input chunks in order. */
+	private final List<Entry> entries;
+
+	/**
+	 * Constructs a session log.
+	 *
+	 * @param startMillis the wall clock time the session started
+	 * @param entries     the recorded input chunks in order
+	 */
+	SessionLog(long startMillis, List<Entry> entries) {
+		this.startMillis = startMillis;
+		this.entries = entries;
+	}
+
+	/**
+	 * Retrieves the wall clock time the session started.
+	 *
+	 * @return the start time in epoch milliseconds
+	 */
+	public long getStartMillis() {
+		return startMillis;
+	}
+
+	/**
+	 * Retrieves the recorded input chunks.
+	 *
+	 * @return the entries in order
+	 */
+	public List<Entry> getEntries() {
+		return entries;
+	}
+
+	/**
+	 * Reads a session log. A truncated last record, for example after a crash,
+	 * is ignored.
+	 *
+	 * @param file the log file
+	 * @return the session log
+	 * @throws IOException if the file cannot be read or is not a session log
+	 */
+	public static SessionLog read(File file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION) {
+				throw new IOException("Not a session log: " + file);
+			}
+			long startMillis = in.readLong();
+
+			List<Entry> entries = new ArrayList<>();
+			while (true) {
+				try {
+					long serviceMicros = readVarint(in);
+					long waitMicros = readVarint(in);
+					byte[] input = new byte[(int) readVarint(in)];
+					in.readFully(input);
+					entries.add(new Entry(serviceMicros, waitMicros, input));
+				} catch (EOFException e) {
+					break; // Reached end of file
+				}
+			}
+			return new SessionLog(startMillis, entries);
+		}
+	}
+
+	/**
+	 * Writes an unsigned varint.
+	 *
+	 * @param out   the stream to write to
+	 * @param value the non-negative value
+	 * @throws IOException if the stream cannot be written
+	 */
+	static void writeVarint(OutputStream out, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.write((int) (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+
+	/**
+	 * Reads an unsigned varint.
+	 *
+	 * @param in the stream to read from
+	 * @return the value
+	 * @throws IOException if the stream ends in the middle of the value
+	 */
+	static long readVarint(DataInputStream in) throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed varint in session log");
+	}
+
+	/**
+	 * One chunk of input as the application read it.
+	 */
+	public static final class Entry {
+
+		/** Time the application worked before asking for this input. */
+		private final long serviceMicros;
+
+		/** Time the application waited for the operator to type this input. */
+		private final long waitMicros;
+
+		/** The input bytes. */
+		private final byte[] input;
+
+		/**
+		 * Constructs an entry.
+		 *
+		 * @param serviceMicros time the application worked before asking for the input
+		 * @param waitMicros    time the application waited for the input
+		 * @param input         the input bytes
+		 */
+		Entry(long serviceMicros, long waitMicros, byte[] input) {
+			this.serviceMicros = serviceMicros;
+			this.waitMicros = waitMicros;
+			this.input = input;
+		}
+
+		/**
+		 * Retrieves the time the application worked before asking for this input,
+		 * that is the time it took to serve the previous input and show the screen.
+		 *
+		 * @return the service time in microseconds
+		 */
+		public long getServiceMicros() {
+			return serviceMicros;
+		}
+
+		/**
+		 * Retrieves the time the application waited for the operator.
+		 *
+		 * @return the wait time in microseconds
+		 */
+		public long getWaitMicros() {
+			return waitMicros;
+		}
+
+		/**
+		 * Retrieves the input bytes.
+		 *
+		 * @return the input
+		 */
+		public byte[] getInput() {
+			return input;
+		}
+	}
+}
@@ -0,0 +1,332 @@
+/**
+ * Package containing classes related to recording and replaying operator sessions.
+ */
+package com.turankanbur.calculator;
+
+/**
+ * Provides buffered writing of the session log.
+ */
+import java.io.BufferedOutputStream;
+
+/**
+ * Provides the buffer a redacted chunk is assembled in.
+ */
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Provides writing of primitive values to the session log.
+ */
+import java.io.DataOutputStream;
+
+/**
+ * Provides an abstraction for file and directory pathnames.
+ */
+import java.io.File;
+
+/**
+ * Provides functionality for writing bytes to a file output stream.
+ */
+import java.io.FileOutputStream;
+
+/**
+ * Provides the base class of input stream decorators.
+ */
+import java.io.FilterInputStream;
+
+/**
+ * Provides functionality for handling input/output (I/O) operations.
+ */
+import java.io.IOException;
+
+/**
+ * Provides the input stream being recorded.
+ */
+import java.io.InputStream;
+
+/**
+ * Provides the encoding of the placeholders.
+ */
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Provides an implementation of the List interface backed by an array.
+ */
+import java.util.ArrayList;
+
+/**
+ * Provides the copying of the recorded input.
+ */
+import java.util.Arrays;
+
+/**
+ * Provides functionality for storing and manipulating collections of objects.
+ */
+import java.util.List;
+
+/**
+ * Provides the logging interface used for diagnostics.
+ */
+import org.slf4j.Logger;
+
+/**
+ * Provides the factory that creates loggers.
+ */
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records every chunk of operator input together with the time the application
+ * spent serving the previous input, into a SessionLog file. On a console each
+ * read returns one typed line, so the log holds one record per line.
+ *
+ * The recorder only takes two System.nanoTime readings per read and appends a
+ * few bytes to a buffered stream, which it flushes after each record so the log
+ * survives a crash. Recording failures are logged once and never reach the
+ * application.
+ *
+ * Sensitive lines such as passwords are never written. ConsoleInput marks them
+ * by their position in the stream, and each chunk is held back until the next
+ * read, by which time the application has read past it and marked the lines it
+ * holds. A marked line is written as SessionLog.SECRET, or as
+ * SessionLog.REJECTED_SECRET when the application rejected it, so a replay can
+ * log in against a store seeded with the placeholder.
+ */
+public class SessionRecorder extends FilterInputStream {
+
+	/** System property naming the file sessions are recorded to. */
+	public static final String LOG_PROPERTY = "calculator.session.log";
+
+	/** Logger for diagnostics. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(SessionRecorder.class);
+
+	/** The log being written, or null once writing has failed. */
+	private DataOutputStream log;
+
+	/** The time the previous read returned. */
+	private long lastReturn;
+
+	/** The last chunk read, written once the application has read past it. */
+	private byte[] pending;
+
+	/** The service time before the pending chunk, in microseconds. */
+	private long pendingServiceMicros;
+
+	/** The time the read of the pending chunk waited, in microseconds. */
+	private long pendingWaitMicros;
+
+	/** The stream position of the first byte of the pending chunk. */
+	private long pendingPosition;
+
+	/** The number of bytes read so far. */
+	private long position;
+
+	/** The sensitive lines not yet written, in stream order. */
+	private final List<Secret> secrets = new ArrayList<>();
+
+	/**
+	 * Constructs a recorder.
+	 *
+	 * @param in      the input stream to record
+	 * @param logFile the file to write the session log to
+	 * @throws IOException if the log file cannot be created
+	 */
+	public SessionRecorder(InputStream in, File logFile) throws IOException {
+		super(in);
+		log = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(logFile)));
+		log.writeInt(SessionLog.MAGIC);
+		log.writeByte(SessionLog.VERSION);
+		log.writeLong(System.currentTimeMillis());
+		log.flush();
+		lastReturn = System.nanoTime();
+	}
+
+	/**
+	 * Wraps System.in with a recorder when the calculator.session.log system
+	 * property is set. The last chunk is written when the JVM exits.
+	 */
+	public static void installFromProperties() {
+		String file = System.getProperty(LOG_PROPERTY);
+		if (file == null || file.isEmpty()) {
+			return;
+		}
+		try {
+			SessionRecorder recorder = new SessionRecorder(System.in, new File(file));
+			Runtime.getRuntime().addShutdownHook(new Thread(recorder::closeLog, "session-recorder"));
+			System.setIn(recorder);
+		} catch (IOException e) {
+			LOGGER.warn("Error starting session recording: {}", e.getMessage());
+		}
+	}
+
+	@Override
+	public int read() throws IOException {
+		long called = System.nanoTime();
+		int b = super.read();
+		long returned = System.nanoTime();
+		if (b >= 0) {
+			record(called, returned, new byte[] { (byte) b }, 0, 1);
+		}
+		lastReturn = returned;
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		long called = System.nanoTime();
+		int n = super.read(b, off, len);
+		long returned = System.nanoTime();
+		if (n > 0) {
+			record(called, returned, b, off, n);
+		}
+		lastReturn = returned;
+		return n;
+	}
+
+	/**
+	 * Marks the line starting at a stream position as sensitive. Must be called
+	 * before the line is read past.
+	 *
+	 * @param start the stream position of the first byte of the line
+	 */
+	synchronized void beginSecret(long start) {
+		secrets.add(new Secret(start));
+	}
+
+	/**
+	 * Ends the sensitive line marked last.
+	 *
+	 * @param end the stream position just after the line, before its separator
+	 */
+	synchronized void endSecret(long end) {
+		if (!secrets.isEmpty()) {
+			secrets.get(secrets.size() - 1).end = end;
+		}
+	}
+
+	/**
+	 * Records that the application rejected the sensitive line marked last, such
+	 * as a wrong password. Has no effect once the line has been written.
+	 */
+	synchronized void rejectSecret() {
+		if (!secrets.isEmpty()) {
+			secrets.get(secrets.size() - 1).placeholder = SessionLog.REJECTED_SECRET;
+		}
+	}
+
+	/**
+	 * Writes the pending chunk and holds back a new one.
+	 *
+	 * @param called   the time the read was called
+	 * @param returned the time the read returned
+	 * @param b        the buffer holding the input
+	 * @param off      the offset of the input in the buffer
+	 * @param len      the length of the input
+	 */
+	private synchronized void record(long called, long returned, byte[] b, int off, int len) {
+		if (log == null) {
+			return;
+		}
+		writePending();
+		pending = Arrays.copyOfRange(b, off, off + len);
+		pendingServiceMicros = (called - lastReturn) / 1_000;
+		pendingWaitMicros = (returned - called) / 1_000;
+		pendingPosition = position;
+		position += len;
+	}
+
+	/**
+	 * Appends the pending chunk to the log, with its sensitive lines replaced by
+	 * their placeholders.
+	 */
+	private synchronized void writePending() {
+		if (log == null || pending == null) {
+			return;
+		}
+		byte[] input = secrets.isEmpty() ? pending : redact(pending, pendingPosition);
+		pending = null;
+		try {
+			SessionLog.writeVarint(log, pendingServiceMicros);
+			SessionLog.writeVarint(log, pendingWaitMicros);
+			SessionLog.writeVarint(log, input.length);
+			log.write(input);
+			log.flush();
+		} catch (IOException e) {
+			LOGGER.warn("Error recording session, recording stopped: {}", e.getMessage());
+			closeLog();
+		}
+	}
+
+	/**
+	 * Replaces the sensitive lines of a chunk by their placeholders and forgets
+	 * the lines that end within it. A line spanning chunks is replaced in the
+	 * chunk it starts in and dropped from the following ones.
+	 *
+	 * @param chunk the chunk
+	 * @param start the stream position of the first byte of the chunk
+	 * @return the redacted chunk
+	 */
+	private byte[] redact(byte[] chunk, long start) {
+		long end = start + chunk.length;
+		ByteArrayOutputStream out = new ByteArrayOutputStream(chunk.length);
+		long next = start;
+		for (Secret secret : secrets) {
+			if (secret.start >= end) {
+				break;
+			}
+			long from = Math.max(secret.start, next);
+			long to = Math.min(secret.end, end);
+			out.write(chunk, (int) (next - start), (int) (Math.max(from, next) - next));
+			if (secret.start >= start) {
+				out.writeBytes(secret.placeholder.getBytes(StandardCharsets.UTF_8));
+			}
+			next = Math.max(next, to);
+		}
+		out.write(chunk, (int) (next - start), (int) (end - next));
+		secrets.removeIf(secret -> secret.end <= end);
+		return out.toByteArray();
+	}
+
+	/**
+	 * Writes the pending chunk and closes the log, ignoring failures.
+	 */
+	private synchronized void closeLog() {
+		writePending();
+		if (log != null) {
+			try {
+				log.close();
+			} catch (IOException e) {
+				LOGGER.warn("Error closing session log: {}", e.getMessage());
+			}
+			log = null;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		closeLog();
+		super.close();
+	}
+
+	/**
+	 * A sensitive line of the input.
+	 */
+	private static final class Secret {
+
+		/** The stream position of the first byte of the line. */
+		final long start;
+
+		/** The stream position after the line, or Long.MAX_VALUE until it is read. */
+		long end = Long.MAX_VALUE;
+
+		/** The text written in place of the line. */
+		String placeholder = SessionLog.SECRET;
+
+		/**
+		 * Constructs a sensitive line.
+		 *
+		 * @param start the stream position of the first byte of the line
+		 */
+		Secret(long start) {
+			this.start = start;
+		}
+	}
+}
@@ -0,0 +1,325 @@
+/**
+ * Package containing classes related to recording and replaying operator sessions.
+ */
+package com.turankanbur.calculator;
+
+/**
+ * Provides an abstraction for file and directory pathnames.
+ */
+import java.io.File;
+
+/**
+ * Provides functionality for handling input/output (I/O) operations.
+ */
+import java.io.IOException;
+
+/**
+ * Provides the input stream fed to the replayed menu.
+ */
+import java.io.InputStream;
+
+/**
+ * Provides an output stream that discards the replayed screens.
+ */
+import java.io.OutputStream;
+
+/**
+ * Used to print formatted representations of objects to a text-output stream.
+ */
+import java.io.PrintStream;
+
+/**
+ * Provides the character set used to show recorded input.
+ */
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Provides file system utility methods.
+ */
+import java.nio.file.Files;
+
+/**
+ * Provides options for copying files.
+ */
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Provides an implementation of the List interface backed by an array.
+ */
+import java.util.ArrayList;
+
+/**
+ * Provides utility methods for arrays.
+ */
+import java.util.Arrays;
+
+/**
+ * Provides a comparator for ordering the largest differences first.
+ */
+import java.util.Comparator;
+
+/**
+ * Provides functionality for storing and manipulating collections of objects.
+ */
+import java.util.List;
+
+/**
+ * Re-drives the menu from a recorded SessionLog against a copy of the data
+ * files and compares the service time of every screen with the recording.
+ * Operator think time is skipped, and the screens are discarded.
+ *
+ * Recordings hold placeholders instead of passwords, so the replay does not use
+ * the credential file of the data directory. A login with the accepted
+ * placeholder is made against a fresh credential store seeded with the
+ * replayed username, and a login with the rejected placeholder fails.
+ *
+ * Usage: SessionReplayer &lt;session log&gt; &lt;data directory&gt; [rows]
+ */
+public class SessionReplayer {
+
+	/** Stack size of the replay thread; menu navigation is recursive. */
+	private static final long STACK_SIZE = 1L << 30;
+
+	/**
+	 * Replays a session from the command line and prints the comparison.
+	 *
+	 * @param args the session log, the data directory the session ran against and
+	 *             optionally the number of largest differences to show
+	 * @throws Exception if the session cannot be replayed
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 2) {
+			System.err.println("Usage: SessionReplayer <session log> <data directory> [rows]");
+			return;
+		}
+		Comparison comparison = replay(SessionLog.read(new File(args[0])), new File(args[1]));
+		comparison.print(System.out, args.length > 2 ? Integer.parseInt(args[2]) : 10);
+	}
+
+	/**
+	 * Replays a session against a temporary copy of the data files in the given
+	 * directory, so the original data is never modified.
+	 *
+	 * @param log           the recorded session
+	 * @param dataDirectory the directory holding the data files the session ran
+	 *                      against
+	 * @return the comparison of the recorded and replayed service times
+	 * @throws IOException          if the data files cannot be copied
+	 * @throws InterruptedException if interrupted while waiting for the replay
+	 */
+	public static Comparison replay(SessionLog log, File dataDirectory) throws IOException, InterruptedException {
+		File copy = Files.createTempDirectory("session-replay").toFile();
+		File previousDirectory = DataFiles.getDirectory();
+		PrintStream previousOut = System.out;
+		ReplayInputStream input = new ReplayInputStream(log.getEntries());
+		try {
+			for (String name : new String[] { DataFiles.INGREDIENTS, DataFiles.RECIPES, DataFiles.MEALS }) {
+				File source = new File(dataDirectory, name);
+				if (source.exists()) {
+					Files.copy(source.toPath(), new File(copy, name).toPath(), StandardCopyOption.REPLACE_EXISTING);
+				}
+			}
+
+			DataFiles.setDirectory(copy);
+			System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+			Thread thread = new Thread(null, () -> {
+				try {
+					new ReplayMenu().userMenu(new ConsoleInput(input));
+				} catch (RuntimeException e) {
+					// The recording ended before the operator left the menus
+				}
+			}, "session-replay", STACK_SIZE);
+			thread.start();
+			thread.join();
+		} finally {
+			System.setOut(previousOut);
+			DataFiles.setDirectory(previousDirectory);
+			File[] files = copy.listFiles();
+			if (files != null) {
+				for (File file : files) {
+					file.delete();
+				}
+			}
+			copy.delete();
+		}
+		return new Comparison(log.getEntries(), input.serviceMicros);
+	}
+
+	/**
+	 * A menu that does not clear the screen during a replay and logs recorded
+	 * users in with the password placeholder.
+	 */
+	private static final class ReplayMenu extends Menu {
+
+		/** Unique identifier for ensuring version compatibility of serialized objects. */
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public void clearScreen() {
+		}
+
+		@Override
+		protected boolean authenticate(String username, char[] password) throws IOException {
+			if (Arrays.equals(password, SessionLog.SECRET.toCharArray())) {
+				// Seed the replay store so the login costs a password check as recorded
+				CredentialStore store = new CredentialStore(DataFiles.users());
+				try {
+					if (store.getIterations(username) == 0) {
+						store.register(username, password);
+					}
+				} catch (IllegalArgumentException e) {
+					// An invalid username fails the login as it did when recorded
+				}
+			}
+			return super.authenticate(username, password);
+		}
+	}
+
+	/**
+	 * Feeds the recorded input chunks one per read, measuring the service time
+	 * before each read the same way SessionRecorder does.
+	 */
+	private static final class ReplayInputStream extends InputStream {
+
+		/** The recorded input chunks. */
+		private final List<SessionLog.Entry> entries;
+
+		/** The replayed service time before each chunk, or -1 if not reached. */
+		private final long[] serviceMicros;
+
+		/** The index of the chunk being delivered. */
+		private int entry;
+
+		/** The number of bytes of the current chunk already delivered. */
+		private int position;
+
+		/** The time the previous read returned. */
+		private long lastReturn = System.nanoTime();
+
+		/**
+		 * Constructs a replay stream.
+		 *
+		 * @param entries the recorded input chunks
+		 */
+		ReplayInputStream(List<SessionLog.Entry> entries) {
+			this.entries = entries;
+			this.serviceMicros = new long[entries.size()];
+			Arrays.fill(serviceMicros, -1);
+		}
+
+		@Override
+		public int read() {
+			byte[] b = new byte[1];
+			return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (entry >= entries.size()) {
+				return -1;
+			}
+			if (position == 0) {
+				serviceMicros[entry] = (System.nanoTime() - lastReturn) / 1_000;
+			}
+			byte[] input = entries.get(entry).getInput();
+			int n = Math.min(len, input.length - position);
+			System.arraycopy(input, position, b, off, n);
+			position += n;
+			if (position == input.length) {
+				entry++;
+				position = 0;
+			}
+			lastReturn = System.nanoTime();
+			return n;
+		}
+	}
+
+	/**
+	 * The recorded and replayed service time of every screen of a session.
+	 */
+	public static final class Comparison {
+
+		/** The recorded input chunks. */
+		private final List<SessionLog.Entry> entries;
+
+		/** The replayed service time before each chunk, or -1 if not reached. */
+		private final long[] replayMicros;
+
+		/**
+		 * Constructs a comparison.
+		 *
+		 * @param entries      the recorded input chunks
+		 * @param replayMicros the replayed service time before each chunk
+		 */
+		Comparison(List<SessionLog.Entry> entries, long[] replayMicros) {
+			this.entries = entries;
+			this.replayMicros = replayMicros;
+		}
+
+		/**
+		 * Retrieves the number of recorded screens.
+		 *
+		 * @return the number of screens
+		 */
+		public int size() {
+			return entries.size();
+		}
+
+		/**
+		 * Retrieves the recorded service time of a screen.
+		 *
+		 * @param i the screen index
+		 * @return the service time in microseconds
+		 */
+		public long getRecordedMicros(int i) {
+			return entries.get(i).getServiceMicros();
+		}
+
+		/**
+		 * Retrieves the replayed service time of a screen.
+		 *
+		 * @param i the screen index
+		 * @return the service time in microseconds, or -1 if the replay did not reach
+		 *         the screen
+		 */
+		public long getReplayedMicros(int i) {
+			return replayMicros[i];
+		}
+
+		/**
+		 * Prints the total service times and the screens whose replayed time
+		 * differs most from the recording.
+		 *
+		 * @param out  the stream to print to
+		 * @param rows the number of screens to show
+		 */
+		public void print(PrintStream out, int rows) {
+			long recorded = 0;
+			long replayed = 0;
+			int reached = 0;
+			List<Integer> screens = new ArrayList<>();
+			for (int i = 0; i < size(); i++) {
+				if (replayMicros[i] >= 0) {
+					recorded += getRecordedMicros(i);
+					replayed += replayMicros[i];
+					reached++;
+					screens.add(i);
+				}
+			}
+			out.println(String.format("Replayed %d of %d screens: recorded %.1f ms, replayed %.1f ms (%+.1f%%)", reached,
+					size(), recorded / 1e3, replayed / 1e3, recorded == 0 ? 0.0 : (replayed - recorded) * 100.0 / recorded));
+
+			screens.sort(Comparator.comparingLong((Integer i) -> -Math.abs(replayMicros[i] - getRecordedMicros(i))));
+			out.println(String.format("%6s  %-20s %12s %12s", "Screen", "After input", "Recorded ms", "Replayed ms"));
+			for (int i : screens.subList(0, Math.min(rows, screens.size()))) {
+				String previous = i == 0 ? "(start)"
+						: new String(entries.get(i - 1).getInput(), StandardCharsets.UTF_8).trim().replaceAll("\\s+", " ");
+				if (previous.length() > 20) {
+					previous = previous.substring(0, 17) + "...";
+				}
+				out.println(String.format("%6d  %-20s %12.3f %12.3f", i, previous, getRecordedMicros(i) / 1e3,
+						replayMicros[i] / 1e3));
+			}
+		}
+	}
+}
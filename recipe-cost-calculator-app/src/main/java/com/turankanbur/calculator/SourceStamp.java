@@ -0,0 +1,213 @@
+/**
+ * Package containing classes related to read-only access of the persisted catalog data.
+ */
+package com.turankanbur.calculator;
+
+/**
+ * Provides reading of primitive values from a saved stamp.
+ */
+import java.io.DataInput;
+
+/**
+ * Provides writing of primitive values to a saved stamp.
+ */
+import java.io.DataOutput;
+
+/**
+ * Provides an abstraction for file and directory pathnames.
+ */
+import java.io.File;
+
+/**
+ * Provides functionality for handling input/output (I/O) operations.
+ */
+import java.io.IOException;
+
+/**
+ * Provides rewriting a stamp in place.
+ */
+import java.io.RandomAccessFile;
+
+/**
+ * Provides reading a stamp from a mapped file.
+ */
+import java.nio.ByteBuffer;
+
+/**
+ * Provides the mapping of the source for the checksum.
+ */
+import java.nio.channels.FileChannel;
+
+/**
+ * Provides the checksum of the source content.
+ */
+import java.util.zip.CRC32;
+
+/**
+ * The version of a data file that a derived file, such as a guest image or an
+ * index, was built from: its modification time and length, the time the stamp
+ * was taken and, when needed, a CRC-32 checksum of its content.
+ *
+ * Modification time and length identify the source as long as the source was
+ * last written more than a timestamp resolution before the stamp was taken,
+ * since any later write moves the modification time. Only a stamp taken sooner
+ * is ambiguous: a rewrite of the same length could keep the modification time,
+ * so the content checksum decides. Once such a stamp is verified a resolution
+ * after the write, it is refreshed and later checks need no read of the source.
+ */
+final class SourceStamp {
+
+	/** Size of a stamp in bytes. */
+	static final int SIZE = 32;
+
+	/**
+	 * Timestamp resolution assumed for the file system, in milliseconds; FAT
+	 * stores modification times to two seconds.
+	 */
+	static final long RESOLUTION_MILLIS = 2000;
+
+	/** The modification time of the source. */
+	private final long modified;
+
+	/** The length of the source. */
+	private final long length;
+
+	/** The checksum of the source, or 0 if the stamp is not ambiguous. */
+	private final long checksum;
+
+	/** The wall clock time the stamp was taken. */
+	private final long taken;
+
+	/**
+	 * Constructs a stamp.
+	 *
+	 * @param modified the modification time of the source
+	 * @param length   the length of the source
+	 * @param checksum the checksum of the source
+	 * @param taken    the time the stamp was taken
+	 */
+	private SourceStamp(long modified, long length, long checksum, long taken) {
+		this.modified = modified;
+		this.length = length;
+		this.checksum = checksum;
+		this.taken = taken;
+	}
+
+	/**
+	 * Stamps the current version of a source. Should be taken before the source
+	 * is read, so a write during the read leaves the stamp stale.
+	 *
+	 * @param source the source data file
+	 * @return the stamp
+	 * @throws IOException if the source cannot be read
+	 */
+	static SourceStamp take(File source) throws IOException {
+		long taken = System.currentTimeMillis();
+		long modified = source.lastModified();
+		long length = source.length();
+		boolean ambiguous = taken - modified < RESOLUTION_MILLIS;
+		return new SourceStamp(modified, length, ambiguous ? checksum(source) : 0L, taken);
+	}
+
+	/**
+	 * Reads a stamp written by write.
+	 *
+	 * @param in the input
+	 * @return the stamp
+	 * @throws IOException if the stamp cannot be read
+	 */
+	static SourceStamp read(DataInput in) throws IOException {
+		return new SourceStamp(in.readLong(), in.readLong(), in.readLong(), in.readLong());
+	}
+
+	/**
+	 * Reads a stamp from a buffer.
+	 *
+	 * @param buffer   the buffer
+	 * @param position the position of the stamp
+	 * @return the stamp
+	 */
+	static SourceStamp read(ByteBuffer buffer, int position) {
+		return new SourceStamp(buffer.getLong(position), buffer.getLong(position + 8), buffer.getLong(position + 16),
+				buffer.getLong(position + 24));
+	}
+
+	/**
+	 * Writes the stamp.
+	 *
+	 * @param out the output
+	 * @throws IOException if the stamp cannot be written
+	 */
+	void write(DataOutput out) throws IOException {
+		out.writeLong(modified);
+		out.writeLong(length);
+		out.writeLong(checksum);
+		out.writeLong(taken);
+	}
+
+	/**
+	 * Checks whether a source is still the version this stamp was taken of.
+	 *
+	 * @param source the source data file
+	 * @return this stamp, a refreshed stamp to save in its place, or null if the
+	 *         source changed
+	 * @throws IOException if the source cannot be read
+	 */
+	SourceStamp validate(File source) throws IOException {
+		long now = System.currentTimeMillis();
+		if (source.lastModified() != modified || source.length() != length) {
+			return null;
+		}
+		if (taken - modified >= RESOLUTION_MILLIS) {
+			return this;
+		}
+		if (checksum(source) != checksum) {
+			return null;
+		}
+		return now - modified >= RESOLUTION_MILLIS ? new SourceStamp(modified, length, checksum, now) : this;
+	}
+
+	/**
+	 * Validates the stamp saved in a file and rewrites it in place when it was
+	 * refreshed, so the next check needs no read of the source. A failed
+	 * rewrite only leaves the old stamp in place.
+	 *
+	 * @param file     the file holding the stamp
+	 * @param position the position of the stamp in the file
+	 * @param source   the source data file
+	 * @return true if the source is still the version the stamp was taken of
+	 * @throws IOException if the source cannot be read
+	 */
+	boolean validate(File file, long position, File source) throws IOException {
+		SourceStamp current = validate(source);
+		if (current == null) {
+			return false;
+		}
+		if (current != this) {
+			try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+				out.seek(position);
+				current.write(out);
+			} catch (IOException e) {
+				// Checked with the checksum again next time
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Computes the CRC-32 checksum of the content of a source file.
+	 *
+	 * @param source the source data file
+	 * @return the checksum
+	 * @throws IOException if the source cannot be read
+	 */
+	static long checksum(File source) throws IOException {
+		CRC32 crc = new CRC32();
+		try (FileChannel channel = FileChannel.open(source.toPath())) {
+			if (channel.size() > 0) {
+				crc.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+			}
+		}
+		return crc.getValue();
+	}
+}
@@ -0,0 +1,213 @@
+/**
+ * Package containing classes related to recipe management and calculation.
+ */
+package com.turankanbur.calculator;
+
+/**
+ * Provides a hash table based implementation of the Map interface.
+ */
+import java.util.HashMap;
+
+/**
+ * Provides the case folding of unit symbols.
+ */
+import java.util.Locale;
+
+/**
+ * Provides a mapping from symbols to units.
+ */
+import java.util.Map;
+
+/**
+ * A unit of measure for ingredient prices and recipe quantities. Units measure
+ * a count, a mass or a volume, and convert only within the same dimension.
+ *
+ * Every conversion factor is precomputed into one dense matrix indexed by the
+ * ordinals of the two units, so converting a recipe line is a single array
+ * read: no symbol is parsed and no map is consulted while costing. Symbols are
+ * parsed only when a quantity is entered.
+ */
+public enum Unit {
+
+	/** A single piece; the unit of ingredients saved without one. */
+	PIECE("pc", Dimension.COUNT, 1),
+
+	/** Twelve pieces. */
+	DOZEN("dozen", Dimension.COUNT, 12),
+
+	/** A gram. */
+	GRAM("g", Dimension.MASS, 1),
+
+	/** A kilogram. */
+	KILOGRAM("kg", Dimension.MASS, 1000),
+
+	/** An avoirdupois ounce. */
+	OUNCE("oz", Dimension.MASS, 28.349523125),
+
+	/** An avoirdupois pound. */
+	POUND("lb", Dimension.MASS, 453.59237),
+
+	/** A millilitre. */
+	MILLILITRE("ml", Dimension.VOLUME, 1),
+
+	/** A litre. */
+	LITRE("l", Dimension.VOLUME, 1000),
+
+	/** A metric teaspoon. */
+	TEASPOON("tsp", Dimension.VOLUME, 5),
+
+	/** A metric tablespoon. */
+	TABLESPOON("tbsp", Dimension.VOLUME, 15),
+
+	/** A metric cup. */
+	CUP("cup", Dimension.VOLUME, 250);
+
+	/** What a unit measures. */
+	public enum Dimension {
+
+		/** A number of pieces. */
+		COUNT,
+
+		/** A mass, based on the gram. */
+		MASS,
+
+		/** A volume, based on the millilitre. */
+		VOLUME
+	}
+
+	/** The units by ordinal, cached because values() copies its array. */
+	private static final Unit[] UNITS = values();
+
+	/**
+	 * The factor converting a quantity in unit i to unit j at index
+	 * i * UNITS.length + j, or NaN if the units measure different dimensions.
+	 */
+	private static final double[] FACTORS = new double[UNITS.length * UNITS.length];
+
+	/** The units by lower-case symbol and name. */
+	private static final Map<String, Unit> BY_SYMBOL = new HashMap<>();
+
+	static {
+		for (Unit from : UNITS) {
+			for (Unit to : UNITS) {
+				FACTORS[from.ordinal() * UNITS.length + to.ordinal()] = from.dimension == to.dimension
+						? from.base / to.base
+						: Double.NaN;
+			}
+			BY_SYMBOL.put(from.symbol, from);
+			BY_SYMBOL.put(from.name().toLowerCase(Locale.ROOT), from);
+		}
+	}
+
+	/** The symbol of the unit. */
+	private final String symbol;
+
+	/** What the unit measures. */
+	private final Dimension dimension;
+
+	/** The size of the unit in the base unit of its dimension. */
+	private final double base;
+
+	/**
+	 * Creates a unit.
+	 *
+	 * @param symbol    the symbol
+	 * @param dimension what the unit measures
+	 * @param base      the size of the unit in the base unit of its dimension
+	 */
+	Unit(String symbol, Dimension dimension, double base) {
+		this.symbol = symbol;
+		this.dimension = dimension;
+		this.base = base;
+	}
+
+	/**
+	 * Retrieves the symbol of the unit, such as "kg".
+	 *
+	 * @return the symbol
+	 */
+	public String getSymbol() {
+		return symbol;
+	}
+
+	/**
+	 * Retrieves the word a price in this unit is quoted per in listings: "unit"
+	 * for a piece, otherwise the symbol.
+	 *
+	 * @return the word
+	 */
+	public String getPerLabel() {
+		return this == PIECE ? "unit" : symbol;
+	}
+
+	/**
+	 * Retrieves what the unit measures.
+	 *
+	 * @return the dimension
+	 */
+	public Dimension getDimension() {
+		return dimension;
+	}
+
+	/**
+	 * Checks whether quantities in this unit can be converted to another unit.
+	 *
+	 * @param to the other unit
+	 * @return true if both units measure the same dimension
+	 */
+	public boolean canConvertTo(Unit to) {
+		return dimension == to.dimension;
+	}
+
+	/**
+	 * Converts a quantity in this unit to another unit.
+	 *
+	 * @param quantity the quantity in this unit
+	 * @param to       the other unit
+	 * @return the quantity in the other unit
+	 * @throws IllegalArgumentException if the units measure different dimensions
+	 */
+	public double convert(double quantity, Unit to) {
+		double factor = factor(this, to);
+		if (Double.isNaN(factor)) {
+			throw new IllegalArgumentException("Cannot convert " + symbol + " to " + to.symbol);
+		}
+		return quantity * factor;
+	}
+
+	/**
+	 * Looks up the factor converting a quantity from one unit to another.
+	 *
+	 * @param from the unit of the quantity
+	 * @param to   the unit to convert to
+	 * @return the factor, or NaN if the units measure different dimensions
+	 */
+	public static double factor(Unit from, Unit to) {
+		return FACTORS[from.ordinal() * UNITS.length + to.ordinal()];
+	}
+
+	/**
+	 * Finds a unit by its symbol or name, ignoring case and surrounding spaces.
+	 *
+	 * @param text the symbol or name, such as "kg" or "kilogram"
+	 * @return the unit, or null if there is no such unit
+	 */
+	public static Unit parse(String text) {
+		return BY_SYMBOL.get(text.trim().toLowerCase(Locale.ROOT));
+	}
+
+	/**
+	 * Counts the leading digits of a quantity written with an optional unit, such
+	 * as "500g" or "2 kg".
+	 *
+	 * @param text the quantity
+	 * @return the number of leading digits
+	 */
+	static int quantityLength(String text) {
+		int length = 0;
+		while (length < text.length() && Character.isDigit(text.charAt(length))) {
+			length++;
+		}
+		return length;
+	}
+}
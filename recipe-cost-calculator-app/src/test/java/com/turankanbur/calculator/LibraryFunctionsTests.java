@@ -17,6 +17,11 @@ import static org.junit.Assert.*;
  */
 import java.util.ArrayList;
 
+/**
+ * Provides the reference set the compressed bitmaps are checked against.
+ */
+import java.util.BitSet;
+
 /**
  * Provides utility methods for arrays, such as sorting and searching.
  */
@@ -27,6 +32,21 @@ import java.util.Arrays;
  */
 import java.util.List;
 
+/**
+ * Provides the exception thrown for a token that is not an integer.
+ */
+import java.util.InputMismatchException;
+
+/**
+ * Provides the exception thrown when the input is exhausted.
+ */
+import java.util.NoSuchElementException;
+
+/**
+ * Provides random values for the bitmap and index cross-checks.
+ */
+import java.util.Random;
+
 /**
  * Used to specify methods which should be run before each test case.
  */
@@ -37,6 +57,11 @@ import org.junit.Before;
  */
 import org.junit.Test;
 
+/**
+ * Provides buffered reading of character streams.
+ */
+import java.io.BufferedReader;
+
 /**
  * Provides an input stream backed by a byte array.
  */
@@ -47,6 +72,16 @@ import java.io.ByteArrayInputStream;
  */
 import java.io.ByteArrayOutputStream;
 
+/**
+ * Provides functionality for reading a serialized bitmap.
+ */
+import java.io.DataInputStream;
+
+/**
+ * Provides functionality for serializing a bitmap.
+ */
+import java.io.DataOutputStream;
+
 /**
  * Provides an abstraction for file and directory pathnames.
  */
@@ -62,11 +97,56 @@ import java.io.IOException;
  */
 import java.io.ObjectInputStream;
 
+/**
+ * Used to serialize objects to an OutputStream.
+ */
+import java.io.ObjectOutputStream;
+
 /**
  * Used to print formatted representations of objects to a text-output stream.
  */
 import java.io.PrintStream;
 
+/**
+ * Provides a character stream whose source is a string.
+ */
+import java.io.StringReader;
+
+/**
+ * Provides the charset used to write test files.
+ */
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Provides file system utility methods.
+ */
+import java.nio.file.Files;
+
+/**
+ * Provides the logback logger the capturing appender is attached to.
+ */
+import ch.qos.logback.classic.Logger;
+
+/**
+ * Provides the logging event type captured by the appender.
+ */
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+/**
+ * Provides an appender that keeps logging events in memory.
+ */
+import ch.qos.logback.core.read.ListAppender;
+
+/**
+ * Provides the method run after each test.
+ */
+import org.junit.After;
+
+/**
+ * Provides access to the logger hierarchy.
+ */
+import org.slf4j.LoggerFactory;
+
 
 /**
  * 
@@ -86,6 +166,12 @@ public class LibraryFunctionsTests {
 	private ByteArrayOutputStream errContent;
 
 	
+	/**
+	 * @brief Appender capturing the diagnostics logged by the application during testing.
+	 */
+	private ListAppender<ILoggingEvent> logAppender;
+
+	
 	/**
 	 * @brief Object for managing ingredients.
 	 */
@@ -155,12 +241,37 @@ public class LibraryFunctionsTests {
 		recipe = new Recipe("Test Recipe", ingredients, 50.0);
 		errContent = new ByteArrayOutputStream();
 		System.setErr(new PrintStream(errContent));
+		logAppender = new ListAppender<>();
+		logAppender.start();
+		((Logger) LoggerFactory.getLogger("com.turankanbur.calculator")).addAppender(logAppender);
 		management = new IngredientManagement(null, 0);
 		ingredientManagement = new IngredientManagement("Flour", 2);
 		recipes = new ArrayList<>();
 	}
 
 	
+	/**
+	 * @brief Detaches the log capturing appender.
+	 */
+	@After
+	public void tearDown() {
+		((Logger) LoggerFactory.getLogger("com.turankanbur.calculator")).detachAppender(logAppender);
+	}
+
+	
+	/**
+	 * @brief Retrieves the diagnostics logged since the test started.
+	 * @return The formatted log messages, one per line.
+	 */
+	private String getLogOutput() {
+		StringBuilder output = new StringBuilder();
+		for (ILoggingEvent event : logAppender.list) {
+			output.append(event.getFormattedMessage()).append(System.lineSeparator());
+		}
+		return output.toString();
+	}
+
+	
 	/**
      * @brief Tests the save and load functionality of ingredients to/from a file.
      */
@@ -239,27 +350,31 @@ public class LibraryFunctionsTests {
 
 	
 	 /**
-     * @brief Tests loading from a non-existent file, expecting an IOException.
+     * @brief Tests loading from an unreadable file, expecting an IOException, and from a missing one, which is not an error.
      */
 	@Test
-	public void testLoadFromFileIOException() {
+	public void testLoadFromFileIOException() throws IOException {
 		IngredientManagement instance = new IngredientManagement(null, 0); 
-
-		// Provide a non-existent file name to provoke an IOException
-		String fileName = "nonexistentsfile.txt";
-
-		// Redirect System.err to capture the error message
-		ByteArrayOutputStream errContent = new ByteArrayOutputStream();
-		System.setErr(new PrintStream(errContent));
-
-		// Call the method and expect IOException
-		instance.loadFromFile(fileName);
-
-		// Reset System.err
-		System.setErr(System.err);
+		MetricsRegistry.Counter errors = MetricsRegistry.counter("ingredients.io.errors");
+		long before = errors.getCount();
+
+		// A missing file is the state before the first save
+		instance.loadFromFile("nonexistentsfile.txt");
+		assertEquals(before, errors.getCount());
+		assertFalse(getLogOutput().contains("Error loading from file"));
+
+		// Provide a file that is not an object stream to provoke an IOException
+		File file = new File("test_corruptingredients.bin");
+		Files.write(file.toPath(), "not an object stream".getBytes(StandardCharsets.UTF_8));
+		try {
+			instance.loadFromFile(file.getPath());
+		} finally {
+			file.delete();
+		}
 
 		// Check if the error message contains the expected substring
-		assertTrue(errContent.toString().contains("Error loading from file"));
+		assertTrue(getLogOutput().contains("Error loading from file"));
+		assertEquals(before + 1, errors.getCount());
 	}
 
 	
@@ -277,7 +392,7 @@ public class LibraryFunctionsTests {
 		instance.saveToFile(fileName);
 
 		// Check if the error message contains the expected substring
-		assertTrue(errContent.toString().contains("Error saving to file:"));
+		assertTrue(getLogOutput().contains("Error saving to file:"));
 	}
 
 	
@@ -493,12 +608,9 @@ public class LibraryFunctionsTests {
 		recipeManager.addRecipe(recipe2, "test_recipeslist.bin");
 		RecipeManagement.loadFromFile("test_recipeslist.bin");
 
-		ByteArrayOutputStream errContent = new ByteArrayOutputStream();
-		System.setErr(new PrintStream(errContent));
-
-		// Redirect console output to check the output of listRecipes() method
+		// A missing file lists as empty without being logged as a load error
 		recipeManager.listRecipes("");
-		assertTrue(errContent.toString().contains("Error loading from file"));
+		assertFalse(getLogOutput().contains("Error loading from file"));
 	}
 
 	
@@ -555,7 +667,7 @@ public class LibraryFunctionsTests {
 		RecipeManagement.saveToFile(recipes, fileName);
 
 		// Check if the error message contains the expected substring
-		assertTrue(errContent.toString().contains("Error saving to file:"));
+		assertTrue(getLogOutput().contains("Error saving to file:"));
 	}
 
 	
@@ -563,24 +675,28 @@ public class LibraryFunctionsTests {
      * @brief Tests loading recipes from a file when an IOException occurs.
      */
 	@Test
-	public void testLoadRecipeFromFileIOException() {
+	public void testLoadRecipeFromFileIOException() throws IOException {
 		new RecipeManagement();
-
-		// Provide a non-existent file name to provoke an IOException
-		String fileName = "nonexistentsfile.txt";
-
-		// Redirect System.err to capture the error message
-		ByteArrayOutputStream errContent = new ByteArrayOutputStream();
-		System.setErr(new PrintStream(errContent));
-
-		// Call the method and expect IOException
-		RecipeManagement.loadFromFile(fileName);
-
-		// Reset System.err
-		System.setErr(System.err);
+		MetricsRegistry.Counter errors = MetricsRegistry.counter("recipes.io.errors");
+		long before = errors.getCount();
+
+		// A missing file is the state before the first save
+		assertTrue(RecipeManagement.loadFromFile("nonexistentsfile.txt").isEmpty());
+		assertEquals(before, errors.getCount());
+		assertFalse(getLogOutput().contains("Error loading from file"));
+
+		// Provide a file that is not an object stream to provoke an IOException
+		File file = new File("test_corruptrecipes.bin");
+		Files.write(file.toPath(), "not an object stream".getBytes(StandardCharsets.UTF_8));
+		try {
+			RecipeManagement.loadFromFile(file.getPath());
+		} finally {
+			file.delete();
+		}
 
 		// Check if the error message contains the expected substring
-		assertTrue(errContent.toString().contains("Error loading from file"));
+		assertTrue(getLogOutput().contains("Error loading from file"));
+		assertEquals(before + 1, errors.getCount());
 	}
 
 	
@@ -856,4 +972,1210 @@ public class LibraryFunctionsTests {
 
 
 	}
+
+	/**
+     * @brief Tests listing and looking up ingredients through the read-only guest image.
+     */
+	@Test
+	public void testGuestDataImageIngredients() {
+		String fileName = "test_guestingredients.bin";
+		IngredientManagement saved = new IngredientManagement(null, 0);
+		saved.addIngredient(new Ingredient("Salt", 2), fileName);
+		saved.addIngredient(new Ingredient("Sugar", 3), fileName);
+		saved.saveToFile(fileName);
+
+		GuestDataImage image = GuestDataImage.open(fileName, GuestDataImage.Kind.INGREDIENTS);
+
+		assertNotNull(image);
+		assertEquals(2, image.size());
+		assertEquals(1, image.find("sugar"));
+		assertEquals(3, image.getPrice(image.find("SUGAR")));
+		assertEquals(-1, image.find("Pepper"));
+		image.listIngredients();
+		assertTrue(outContent.toString().contains("Name: Salt"));
+
+		new File(fileName).delete();
+		new File(fileName + GuestDataImage.SUFFIX).delete();
+	}
+
+	/**
+     * @brief Tests that the guest image is rebuilt after its source file changes.
+     */
+	@Test
+	public void testGuestDataImageRebuildsWhenStale() {
+		String fileName = "test_guestrecipes.bin";
+		List<Ingredient> ingredients = new ArrayList<>();
+		ingredients.add(new Ingredient("Ingredient 1", 1));
+		List<Recipe> recipes = new ArrayList<>();
+		recipes.add(new Recipe("Recipe 1", ingredients, 10.0));
+		RecipeManagement.saveToFile(recipes, fileName);
+
+		assertEquals(1, GuestDataImage.open(fileName, GuestDataImage.Kind.RECIPES).size());
+
+		recipes.add(new Recipe("Recipe 2", ingredients, 15.0));
+		RecipeManagement.saveToFile(recipes, fileName);
+		GuestDataImage image = GuestDataImage.open(fileName, GuestDataImage.Kind.RECIPES);
+
+		assertEquals(2, image.size());
+		assertEquals(15.0, image.getTotalCost(image.find("Recipe 2")), 0.0);
+
+		// A rewrite of the same length under the same timestamp is caught by the checksum
+		long modified = new File(fileName).lastModified();
+		recipes.set(1, new Recipe("Recipe 2", ingredients, 25.0));
+		RecipeManagement.saveToFile(recipes, fileName);
+		new File(fileName).setLastModified(modified);
+		image = GuestDataImage.open(fileName, GuestDataImage.Kind.RECIPES);
+
+		assertEquals(25.0, image.getTotalCost(image.find("Recipe 2")), 0.0);
+
+		new File(fileName).delete();
+		new File(fileName + GuestDataImage.SUFFIX).delete();
+	}
+
+	/**
+     * @brief Tests calculating a recipe's total cost from ingredient prices and quantities.
+     */
+	@Test
+	public void testCalculateRecipeTotalCost() {
+		List<Ingredient> ingredients = new ArrayList<>();
+		ingredients.add(new Ingredient("Ingredient 1", 3));
+		ingredients.add(new Ingredient("Ingredient 2", 5));
+
+		assertEquals(3 * 2 + 5 * 4, RecipeManagement.calculateTotalCost(ingredients, new int[] { 2, 4 }), 0.0);
+		assertEquals(0.0, RecipeManagement.calculateTotalCost(new ArrayList<>(), new int[0]), 0.0);
+	}
+
+	/**
+     * @brief Tests that the dataset generator writes loadable, deterministic data files.
+     */
+	@Test
+	public void testDatasetGenerator() throws IOException {
+		File directory = new File("test_dataset");
+		DatasetGenerator generator = new DatasetGenerator(7L, 50, 20, 10, 4, 2, 1.0);
+		generator.generate(directory);
+
+		IngredientManagement ingredients = new IngredientManagement(null, 0);
+		ingredients.loadFromFile(new File(directory, "ingredients.bin").getPath());
+		List<Recipe> loadedRecipes = RecipeManagement.loadFromFile(new File(directory, "recipes.bin").getPath());
+		List<Meal> loadedMeals = new MealManagement().loadMealsFromFile(new File(directory, "meals.bin").getPath());
+
+		assertEquals(50, ingredients.getIngredients().size());
+		assertEquals(20, loadedRecipes.size());
+		assertEquals(10, loadedMeals.size());
+		assertEquals(generator.recipe(3).getName(), loadedRecipes.get(3).getName());
+		assertEquals(generator.meal(5).getTotalCost(), loadedMeals.get(5).getTotalCost(), 0.0);
+		assertEquals(new DatasetGenerator(7L, 50, 20, 10, 4, 2, 1.0).ingredient(9).getName(),
+				ingredients.getIngredients().get(9).getName());
+
+		GuestDataImage image = GuestDataImage.open(new File(directory, "meals.bin").getPath(),
+				GuestDataImage.Kind.MEALS);
+		assertEquals(10, image.size());
+
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+
+	/**
+     * @brief Tests that management operations are recorded by the metrics registry and dumped to a file.
+     */
+	@Test
+	public void testMetricsRegistry() throws IOException {
+		MetricsRegistry.Timer saveTimer = MetricsRegistry.timer("ingredients.save");
+		long saves = saveTimer.getCount();
+
+		IngredientManagement ingredients = new IngredientManagement(null, 0);
+		ingredients.addIngredient(new Ingredient("Metric", 4), "test_metrics.bin");
+		ingredients.saveToFile("test_metrics.bin");
+		new File("test_metrics.bin").delete();
+
+		assertEquals(saves + 1, saveTimer.getCount());
+		assertTrue(saveTimer.getMaxMillis() >= 0.0);
+		assertEquals(1, MetricsRegistry.gauge("ingredients.size").getValue());
+
+		MetricsRegistry.Counter counter = MetricsRegistry.counter("test.counter");
+		counter.add(3);
+		assertSame(counter, MetricsRegistry.counter("test.counter"));
+		assertEquals(3, counter.getCount());
+
+		File dump = new File("test_metrics.txt");
+		MetricsRegistry.dump(dump);
+		String content = new String(Files.readAllBytes(dump.toPath()), "UTF-8");
+		dump.delete();
+		assertTrue(content.contains("timer ingredients.save count="));
+		assertTrue(content.contains("counter test.counter count=3"));
+	}
+
+
+	/**
+     * @brief Tests latency histogram percentiles, bucket precision and slow samples.
+     */
+	@Test
+	public void testLatencyHistogram() {
+		LatencyHistogram histogram = new LatencyHistogram("Test", 1_000_000L);
+		assertEquals(0, histogram.getValueAtPercentile(50.0));
+
+		for (long value = 1; value <= 1000; value++) {
+			histogram.record(value * 1000L);
+		}
+		histogram.record(5_000_000L);
+
+		assertEquals(1001, histogram.getCount());
+		assertEquals(5_000_000L, histogram.getMax());
+		assertEquals(500_000.0, histogram.getValueAtPercentile(50.0), 500_000.0 * 0.01);
+		assertEquals(990_000.0, histogram.getValueAtPercentile(99.0), 990_000.0 * 0.01);
+		assertEquals(5_000_000L, histogram.getValueAtPercentile(100.0));
+
+		assertEquals(1, histogram.getSlowSampleCount());
+		assertEquals(5_000_000L, histogram.getSlowSampleDuration(0));
+
+		for (long value = 0; value < 100_000; value += 37) {
+			int index = LatencyHistogram.bucketIndex(value);
+			assertTrue(LatencyHistogram.highestValueInBucket(index) >= value);
+			assertTrue(index == 0 || LatencyHistogram.highestValueInBucket(index - 1) < value);
+		}
+	}
+
+
+	/**
+     * @brief Tests recording a session to a log and replaying it through the menu.
+     */
+	@Test
+	public void testSessionRecordAndReplay() throws Exception {
+		File logFile = new File("test_session.log");
+		try (SessionRecorder recorder = new SessionRecorder(new ByteArrayInputStream("9\n4\n".getBytes()), logFile)) {
+			byte[] buffer = new byte[2];
+			while (recorder.read(buffer, 0, buffer.length) > 0) {
+				// Each read returns one two-byte line
+			}
+		}
+
+		SessionLog log = SessionLog.read(logFile);
+		logFile.delete();
+		assertEquals(2, log.getEntries().size());
+		assertEquals("9\n", new String(log.getEntries().get(0).getInput()));
+		assertEquals("4\n", new String(log.getEntries().get(1).getInput()));
+
+		File dataDirectory = new File("test_replay_data");
+		dataDirectory.mkdir();
+		SessionReplayer.Comparison comparison = SessionReplayer.replay(log, dataDirectory);
+		dataDirectory.delete();
+
+		assertEquals(2, comparison.size());
+		assertTrue(comparison.getReplayedMicros(0) >= 0);
+		assertTrue(comparison.getReplayedMicros(1) >= 0);
+	}
+
+	/**
+     * @brief Tests that passwords typed during a recorded session are replaced by placeholders.
+     */
+	@Test
+	public void testSessionRecorderRedactsPasswords() throws Exception {
+		File directory = new File("test_session_users");
+		directory.mkdir();
+		DataFiles.setDirectory(directory);
+		File logFile = new File("test_session_secret.log");
+		try {
+			new CredentialStore(DataFiles.users()).register("alice", "secret1".toCharArray());
+			String input = "2\nalice\nwrong\n2\nalice\nsecret1\n5\n";
+			SessionRecorder recorder = new SessionRecorder(new ByteArrayInputStream(input.getBytes()), logFile);
+			new Menu().userMenu(new ConsoleInput(recorder));
+			recorder.close();
+
+			SessionLog log = SessionLog.read(logFile);
+			StringBuilder recorded = new StringBuilder();
+			for (SessionLog.Entry entry : log.getEntries()) {
+				recorded.append(new String(entry.getInput(), StandardCharsets.UTF_8));
+			}
+			assertEquals("2\nalice\n" + SessionLog.REJECTED_SECRET + "\n2\nalice\n" + SessionLog.SECRET + "\n5\n",
+					recorded.toString());
+
+			// The replay logs in against a store seeded with the placeholder, not the real users
+			SessionReplayer.Comparison comparison = SessionReplayer.replay(log, directory);
+			assertEquals(log.getEntries().size(), comparison.size());
+			assertTrue(comparison.getReplayedMicros(0) >= 0);
+		} finally {
+			DataFiles.setDirectory(null);
+			logFile.delete();
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+
+	/**
+     * @brief Tests that batch commands are applied in memory and persisted at the end.
+     */
+	@Test
+	public void testBatchProcessor() throws IOException {
+		File directory = new File("test_batch");
+		directory.mkdir();
+		DataFiles.setDirectory(directory);
+		try {
+			String commands = "# nightly update\n" + "add-ingredient Flour 2\n" + "add-ingredient \"Brown Sugar\" 5\n"
+					+ "edit-price flour 3\n" + "create-recipe \"Sweet Bread\" Flour 4 \"brown sugar\" 2\n"
+					+ "create-meal Breakfast \"sweet bread\"\n" + "edit-price Salt 1\n" + "add-ingredient Flour 9\n";
+			MetricsRegistry.Timer editTimer = MetricsRegistry.timer("ingredients.edit");
+			long edits = editTimer.getCount();
+			BatchProcessor processor = new BatchProcessor();
+			processor.process(new BufferedReader(new StringReader(commands)));
+			processor.save();
+
+			assertEquals(5, processor.getApplied());
+			assertEquals(2, processor.getErrors());
+			assertEquals(edits + 1, editTimer.getCount());
+
+			IngredientManagement loaded = new IngredientManagement(null, 0);
+			loaded.loadFromFile(DataFiles.ingredients());
+			assertEquals(2, loaded.getIngredients().size());
+			assertEquals(3, loaded.findIngredientByName("Flour").getPrice());
+
+			List<Recipe> loadedRecipes = RecipeManagement.loadFromFile(DataFiles.recipes());
+			assertEquals(1, loadedRecipes.size());
+			assertEquals(3 * 4 + 5 * 2, loadedRecipes.get(0).getTotalCost(), 0.0);
+
+			List<Meal> loadedMeals = new MealManagement().loadMealsFromFile(DataFiles.meals());
+			assertEquals(1, loadedMeals.size());
+			assertEquals(22.0, loadedMeals.get(0).getTotalCost(), 0.0);
+		} finally {
+			DataFiles.setDirectory(null);
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+
+		assertEquals(Arrays.asList("create-meal", "Sunday \"Roast\"", "a\\b"),
+				BatchProcessor.tokenize("  create-meal \"Sunday \\\"Roast\\\"\" a\\b "));
+	}
+
+
+
+	/**
+     * @brief Tests that ConsoleInput tokenizes and parses input like Scanner, across buffer fills.
+     */
+	@Test
+	public void testConsoleInput() {
+		ConsoleInput input = new ConsoleInput("  12 -7 abc\r\nrest of line\n\n+3\tx");
+		assertEquals(12, input.nextInt());
+		assertEquals(-7, input.nextInt());
+		try {
+			input.nextInt();
+			fail("Expected InputMismatchException");
+		} catch (InputMismatchException e) {
+			// The token is left unread
+		}
+		assertEquals("abc", input.next());
+		assertEquals("", input.nextLine());
+		assertEquals("rest of line", input.nextLine());
+		assertEquals("", input.nextLine());
+		assertEquals(3, input.nextInt());
+		assertEquals("x", input.next());
+		try {
+			input.next();
+			fail("Expected NoSuchElementException");
+		} catch (NoSuchElementException e) {
+			// End of input
+		}
+
+		input = new ConsoleInput("2147483648 -2147483648");
+		try {
+			input.nextInt();
+			fail("Expected InputMismatchException");
+		} catch (InputMismatchException e) {
+			assertEquals("2147483648", input.next());
+		}
+		assertEquals(Integer.MIN_VALUE, input.nextInt());
+
+		StringBuilder large = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			large.append(i).append('\n');
+		}
+		char[] name = new char[100000];
+		Arrays.fill(name, 'n');
+		large.append(name).append(" end");
+		input = new ConsoleInput(new ByteArrayInputStream(large.toString().getBytes()));
+		for (int i = 0; i < 20000; i++) {
+			assertEquals(i, input.nextInt());
+		}
+		assertEquals(new String(name), input.next());
+		assertEquals(" end", input.nextLine());
+		input.close();
+		try {
+			input.next();
+			fail("Expected IllegalStateException");
+		} catch (IllegalStateException e) {
+			// Closed
+		}
+	}
+
+
+
+	/**
+     * @brief Tests the one-shot queries in text and JSON, and their exit statuses.
+     */
+	@Test
+	public void testQueryCommand() {
+		File directory = new File("test_query");
+		directory.mkdir();
+		DataFiles.setDirectory(directory);
+		try {
+			IngredientManagement management = new IngredientManagement(null, 0);
+			management.addIngredient(new Ingredient("Flour", 2), DataFiles.ingredients());
+			management.addIngredient(new Ingredient("Sugar \"fine\"", 5), DataFiles.ingredients());
+			management.saveToFile(DataFiles.ingredients());
+			Recipe bread = new Recipe("Sweet Bread",
+					Arrays.asList(new Ingredient("Flour", 2), new Ingredient("Sugar \"fine\"", 5)), 9.0);
+			RecipeManagement.saveToFile(new ArrayList<>(Arrays.asList(bread)), DataFiles.recipes());
+			Meal breakfast = new Meal("Breakfast", Arrays.asList(bread));
+			new MealManagement().saveMealsToFile(new ArrayList<>(Arrays.asList(breakfast)), DataFiles.meals());
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			assertEquals(QueryCommand.OK,
+					QueryCommand.run(new String[] { "ingredient", "get", "flour" }, new PrintStream(out)));
+			assertEquals("Flour\t2", out.toString().trim());
+
+			out.reset();
+			assertEquals(QueryCommand.OK,
+					QueryCommand.run(new String[] { "ingredient", "list", "--json" }, new PrintStream(out)));
+			assertEquals("[{\"name\":\"Flour\",\"price\":2},{\"name\":\"Sugar \\\"fine\\\"\",\"price\":5}]",
+					out.toString().trim());
+
+			out.reset();
+			assertEquals(QueryCommand.OK,
+					QueryCommand.run(new String[] { "recipe", "cost", "sweet", "bread" }, new PrintStream(out)));
+			assertEquals("9.0", out.toString().trim());
+
+			out.reset();
+			assertEquals(QueryCommand.OK,
+					QueryCommand.run(new String[] { "meal", "get", "Breakfast", "--json" }, new PrintStream(out)));
+			assertEquals("{\"name\":\"Breakfast\",\"totalCost\":9.0,\"recipes\":[\"Sweet Bread\"]}",
+					out.toString().trim());
+
+			assertEquals(QueryCommand.NOT_FOUND,
+					QueryCommand.run(new String[] { "recipe", "get", "Cake" }, new PrintStream(out)));
+			assertEquals(QueryCommand.ERROR,
+					QueryCommand.run(new String[] { "ingredient", "cost", "Flour" }, new PrintStream(out)));
+			assertTrue(QueryCommand.isQuery(new String[] { "meal", "list" }));
+			assertFalse(QueryCommand.isQuery(new String[] { "batch" }));
+		} finally {
+			DataFiles.setDirectory(null);
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+
+
+	/**
+     * @brief Tests registering and authenticating many users, legacy conversion and work factor upgrades.
+     */
+	@Test
+	public void testCredentialStore() throws IOException {
+		File file = new File("test_credentials.bin");
+		file.delete();
+		try {
+			CredentialStore store = new CredentialStore(file.getPath(), 1000);
+			for (int i = 0; i < 100; i++) {
+				assertTrue(store.register("user" + i, ("secret" + i).toCharArray()));
+			}
+			assertEquals(100, store.size());
+			for (int i = 0; i < 100; i++) {
+				assertTrue(store.authenticate("user" + i, ("secret" + i).toCharArray()));
+			}
+			assertFalse(store.authenticate("user7", "secret8".toCharArray()));
+			assertFalse(store.authenticate("nobody", "secret".toCharArray()));
+			assertTrue(store.register("user7", "secret7".toCharArray()));
+			assertFalse(store.register("user7", "other".toCharArray()));
+			assertEquals(100, store.size());
+
+			CredentialStore stronger = new CredentialStore(file.getPath(), 2000);
+			assertEquals(1000, stronger.getIterations("user3"));
+			assertTrue(stronger.authenticate("user3", "secret3".toCharArray()));
+			assertEquals(2000, stronger.getIterations("user3"));
+			assertTrue(store.authenticate("user3", "secret3".toCharArray()));
+
+			try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(file.toPath()))) {
+				out.writeObject(new User("alice", "wonderland"));
+				out.writeObject(new User("bob", "builder"));
+			}
+			assertTrue(store.authenticate("bob", "builder".toCharArray()));
+			assertFalse(store.authenticate("alice", "builder".toCharArray()));
+			assertEquals(2, store.size());
+
+			// A legacy file that cannot be read completely is left as it was
+			ByteArrayOutputStream legacy = new ByteArrayOutputStream();
+			try (ObjectOutputStream out = new ObjectOutputStream(legacy)) {
+				out.writeObject(new User("carol", "singer"));
+			}
+			legacy.write(0);
+			Files.write(file.toPath(), legacy.toByteArray());
+			try {
+				store.authenticate("carol", "singer".toCharArray());
+				fail("Expected an unreadable legacy file to be rejected");
+			} catch (IOException e) {
+				assertArrayEquals(legacy.toByteArray(), Files.readAllBytes(file.toPath()));
+			}
+		} finally {
+			file.delete();
+			new File(file.getPath() + CredentialStore.LOCK_SUFFIX).delete();
+		}
+	}
+
+
+
+	/**
+     * @brief Tests prefix completion, ordering, limits and incremental removal of the name trie.
+     */
+	@Test
+	public void testNameTrie() {
+		NameTrie<String> trie = new NameTrie<>();
+		for (String name : new String[] { "Tomato", "tomato paste", "Tofu", "Toast", "Apple", "To", "Tomato" }) {
+			trie.add(name, name);
+		}
+		assertEquals(7, trie.size());
+		assertEquals(Arrays.asList("To", "Toast", "Tofu", "Tomato", "Tomato", "tomato paste"), trie.complete("to", 10));
+		assertEquals(Arrays.asList("Tomato", "Tomato", "tomato paste"), trie.complete("TOM", 10));
+		assertEquals(Arrays.asList("To", "Toast"), trie.complete("t", 2));
+		assertEquals(Arrays.asList("tomato paste"), trie.complete("tomato ", 10));
+		assertTrue(trie.complete("tomatoes", 10).isEmpty());
+		assertTrue(trie.complete("b", 10).isEmpty());
+		assertEquals(7, trie.complete("", 10).size());
+
+		assertTrue(trie.remove("tomato paste", "tomato paste"));
+		assertFalse(trie.remove("tomato paste", "tomato paste"));
+		assertTrue(trie.remove("TO", "To"));
+		assertFalse(trie.remove("Tom", "Tom"));
+		assertEquals(Arrays.asList("Toast", "Tofu", "Tomato", "Tomato"), trie.complete("to", 10));
+		trie.add("Tomatillo", "Tomatillo");
+		assertEquals(Arrays.asList("Tomatillo", "Tomato", "Tomato"), trie.complete("toma", 10));
+		assertEquals(6, trie.size());
+
+		IngredientManagement management = new IngredientManagement(null, 0);
+		Ingredient flour = new Ingredient("Flour", 2);
+		management.addIngredient(flour, "unused");
+		assertEquals(Arrays.asList(flour), management.completeName("fl", 5));
+		Ingredient flax = new Ingredient("Flax", 3);
+		management.addIngredient(flax, "unused");
+		assertEquals(Arrays.asList(flax, flour), management.completeName("fl", 5));
+		assertTrue(management.removeIngredient(flour));
+		assertEquals(Arrays.asList(flax), management.completeName("fl", 5));
+		assertFalse(management.getIngredients().contains(flour));
+	}
+
+
+	/**
+     * @brief Tests that the trigram index suggests the nearest names to misspellings, ranked by distance.
+     */
+	@Test
+	public void testFuzzyNameIndex() {
+		FuzzyNameIndex<String> index = new FuzzyNameIndex<>();
+		for (String name : new String[] { "Tomato", "Potato", "Tomatillo", "Flour", "Sugar", "Brown Sugar", "Salt" }) {
+			index.add(name, name);
+		}
+		assertEquals(7, index.size());
+		assertEquals(Arrays.asList("Tomato"), index.suggest("tomatto", 5, 1));
+		assertEquals(Arrays.asList("Potato", "Tomato"), index.suggest("Totato", 5, 1));
+		assertEquals("Sugar", index.suggest("sugr", 1).get(0));
+		assertEquals("Flour", index.suggest("FLOOR", 5).get(0));
+		assertTrue(index.suggest("chocolate", 5).isEmpty());
+		assertTrue(index.suggest("", 5).isEmpty());
+
+		assertTrue(index.remove("tomato", "Tomato"));
+		assertFalse(index.remove("tomato", "Tomato"));
+		assertEquals(Arrays.asList("Potato"), index.suggest("Totato", 5, 1));
+		index.add("Tomato", "Tomato");
+		assertEquals(Arrays.asList("Tomato"), index.suggest("tomatto", 5, 1));
+
+		assertEquals(0, FuzzyNameIndex.distance("salt", "salt", 2));
+		assertEquals(1, FuzzyNameIndex.distance("salt", "slt", 2));
+		assertEquals(2, FuzzyNameIndex.distance("salt", "slat", 2));
+		assertEquals(3, FuzzyNameIndex.distance("salt", "pepper", 2));
+
+		IngredientManagement management = new IngredientManagement(null, 0);
+		Ingredient flour = new Ingredient("Flour", 2);
+		management.addIngredient(flour, "unused");
+		assertEquals(Arrays.asList(flour), management.suggestNames("flur", 3));
+		Ingredient butter = new Ingredient("Butter", 4);
+		management.addIngredient(butter, "unused");
+		assertEquals(Arrays.asList(butter), management.suggestNames("buter", 3));
+		assertTrue(management.removeIngredient(butter));
+		assertTrue(management.suggestNames("buter", 3).isEmpty());
+	}
+
+
+	/**
+     * @brief Tests AND/OR word search, incremental appends on addRecipe and the saved full-text index.
+     */
+	@Test
+	public void testFullTextIndex() throws IOException {
+		FullTextIndex index = new FullTextIndex();
+		index.add("Spicy Chicken Wrap");
+		index.add("Vegan Bowl");
+		index.add("Chicken Soup");
+		index.add("Spicy Vegan Chili, spicy!");
+		assertEquals(4, index.size());
+		assertEquals(Arrays.asList("spicy", "vegan", "chili", "spicy"), FullTextIndex.tokenize("Spicy Vegan Chili, spicy!"));
+		assertArrayEquals(new int[] { 0, 2 }, index.search("chicken"));
+		assertArrayEquals(new int[] { 0 }, index.search("SPICY chicken"));
+		assertArrayEquals(new int[] { 0, 1, 3 }, index.search("spicy chicken OR vegan bowl OR chili"));
+		assertArrayEquals(new int[] { 0, 1, 2, 3 }, index.any(Arrays.asList("chicken", "vegan")));
+		assertEquals(0, index.search("beef").length);
+		assertEquals(0, index.search("  ").length);
+
+		FullTextIndex large = new FullTextIndex();
+		for (int i = 0; i < 100_000; i++) {
+			large.add(i % 3 == 0 ? "Spicy Dish " + i : "Mild Dish " + i);
+		}
+		assertEquals(33_334, large.search("spicy dish").length);
+		assertArrayEquals(new int[] { 99_999 }, large.search("spicy 99999"));
+
+		File directory = new File("test_search");
+		directory.mkdir();
+		DataFiles.setDirectory(directory);
+		try {
+			RecipeManagement.saveToFile(new ArrayList<>(Arrays.asList(new Recipe("Spicy Chicken Wrap",
+					Arrays.asList(new Ingredient("Chicken", 10)), 10.0))), DataFiles.recipes());
+			FullTextIndex saved = FullTextIndex.open(DataFiles.recipes(), GuestDataImage.Kind.RECIPES);
+			assertEquals(1, saved.size());
+			assertTrue(new File(DataFiles.recipes() + FullTextIndex.SUFFIX).isFile());
+
+			new RecipeManagement().addRecipe(new Recipe("Vegan Chicken Bowl", new ArrayList<>(), 4.0),
+					DataFiles.recipes());
+			FullTextIndex appended = FullTextIndex.read(new File(DataFiles.recipes() + FullTextIndex.SUFFIX),
+					new File(DataFiles.recipes()), true);
+			assertArrayEquals(new int[] { 0, 1 }, appended.search("chicken"));
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			assertEquals(QueryCommand.OK,
+					QueryCommand.run(new String[] { "recipe", "search", "vegan", "OR", "wrap" }, new PrintStream(out)));
+			assertEquals("Spicy Chicken Wrap\t10.0\nVegan Chicken Bowl\t4.0", out.toString().trim().replace("\r", ""));
+
+			// A rewrite of the same length under the same timestamp is caught by the checksum
+			long modified = new File(DataFiles.recipes()).lastModified();
+			RecipeManagement.saveToFile(new ArrayList<>(Arrays.asList(
+					new Recipe("Spicy Chicken Taco", Arrays.asList(new Ingredient("Chicken", 10)), 10.0),
+					new Recipe("Vegan Chicken Bowl", new ArrayList<>(), 4.0))), DataFiles.recipes());
+			new File(DataFiles.recipes()).setLastModified(modified);
+			assertArrayEquals(new int[] { 0 },
+					FullTextIndex.open(DataFiles.recipes(), GuestDataImage.Kind.RECIPES).search("taco"));
+		} finally {
+			DataFiles.setDirectory(null);
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+
+	/**
+     * @brief Tests the compressed bitmap set operations against a BitSet across sparse and dense chunks.
+     */
+	@Test
+	public void testRoaringBitmap() throws IOException {
+		Random random = new Random(7);
+		for (int round = 0; round < 20; round++) {
+			RoaringBitmap a = new RoaringBitmap();
+			RoaringBitmap b = new RoaringBitmap();
+			BitSet expectedA = new BitSet();
+			BitSet expectedB = new BitSet();
+			// Alternate sparse and dense chunks so both chunk kinds and their mixes are hit
+			int bound = round % 2 == 0 ? 200_000 : 20_000;
+			for (int i = 0; i < 15_000; i++) {
+				int x = random.nextInt(bound);
+				int y = random.nextInt(bound * 2);
+				a.add(x);
+				b.add(y);
+				expectedA.set(x);
+				expectedB.set(y);
+			}
+			assertEquals(expectedA.cardinality(), a.cardinality());
+			assertArrayEquals(expectedA.stream().toArray(), a.toArray());
+
+			BitSet and = (BitSet) expectedA.clone();
+			and.and(expectedB);
+			assertArrayEquals(and.stream().toArray(), RoaringBitmap.and(a, b).toArray());
+			BitSet or = (BitSet) expectedA.clone();
+			or.or(expectedB);
+			assertArrayEquals(or.stream().toArray(), RoaringBitmap.or(a, b).toArray());
+			BitSet andNot = (BitSet) expectedA.clone();
+			andNot.andNot(expectedB);
+			assertArrayEquals(andNot.stream().toArray(), RoaringBitmap.andNot(a, b).toArray());
+			assertArrayEquals(expectedA.stream().toArray(), a.toArray());
+
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			a.writeTo(new DataOutputStream(bytes));
+			RoaringBitmap read = RoaringBitmap.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+			assertArrayEquals(a.toArray(), read.toArray());
+		}
+		assertEquals(70_000, RoaringBitmap.range(70_000).cardinality());
+		assertTrue(RoaringBitmap.range(70_000).contains(69_999));
+		assertFalse(RoaringBitmap.range(70_000).contains(70_000));
+		assertTrue(RoaringBitmap.and(RoaringBitmap.range(10), new RoaringBitmap()).isEmpty());
+	}
+
+	/**
+	 * @brief Tests "what can I cook" queries against a brute-force check, and the saved and appended index.
+	 */
+	@Test
+	public void testIngredientRecipeIndex() throws IOException {
+		String[] pantry = { "Flour", "Sugar", "Egg", "Milk", "Butter", "Salt", "Yeast", "Rice", "Tomato", "Onion" };
+		Random random = new Random(11);
+		List<List<Ingredient>> recipes = new ArrayList<>();
+		IngredientRecipeIndex index = new IngredientRecipeIndex();
+		for (int r = 0; r < 5_000; r++) {
+			List<Ingredient> ingredients = new ArrayList<>();
+			for (int i = random.nextInt(6); i > 0; i--) {
+				ingredients.add(new Ingredient(pantry[random.nextInt(pantry.length)], 1));
+			}
+			recipes.add(ingredients);
+			assertEquals(r, index.add(ingredients));
+		}
+
+		List<String> stock = Arrays.asList("flour", "SUGAR", "Egg", "Butter");
+		List<String> folded = Arrays.asList("flour", "sugar", "egg", "butter");
+		for (int maxMissing = 0; maxMissing <= 3; maxMissing++) {
+			List<Integer> expected = new ArrayList<>();
+			for (int r = 0; r < recipes.size(); r++) {
+				long missing = recipes.get(r).stream().map(i -> i.getName().toLowerCase()).distinct()
+						.filter(name -> !folded.contains(name)).count();
+				if (missing <= maxMissing) {
+					expected.add(r);
+				}
+			}
+			int[] actual = index.cookable(stock, maxMissing).toArray();
+			assertEquals(expected.size(), actual.length);
+			for (int i = 0; i < actual.length; i++) {
+				assertEquals((int) expected.get(i), actual[i]);
+			}
+		}
+
+		File directory = new File("test_cook");
+		directory.mkdir();
+		DataFiles.setDirectory(directory);
+		try {
+			RecipeManagement.saveToFile(new ArrayList<>(Arrays.asList(
+					new Recipe("Pancake", Arrays.asList(new Ingredient("Flour", 2), new Ingredient("Egg", 1)), 3.0),
+					new Recipe("Pilaf", Arrays.asList(new Ingredient("Rice", 4), new Ingredient("Butter", 3)), 7.0))),
+					DataFiles.recipes());
+			IngredientRecipeIndex saved = IngredientRecipeIndex.open(DataFiles.recipes());
+			assertArrayEquals(new int[] { 0 }, saved.cookable(Arrays.asList("egg", "flour"), 0).toArray());
+			assertTrue(new File(DataFiles.recipes() + IngredientRecipeIndex.SUFFIX).isFile());
+
+			new RecipeManagement().addRecipe(new Recipe("Omelette", Arrays.asList(new Ingredient("Egg", 1)), 1.0),
+					DataFiles.recipes());
+			IngredientRecipeIndex appended = IngredientRecipeIndex.read(
+					new File(DataFiles.recipes() + IngredientRecipeIndex.SUFFIX), new File(DataFiles.recipes()), true);
+			assertArrayEquals(new int[] { 0, 2 }, appended.cookable(Arrays.asList("Egg", "Flour"), 0).toArray());
+			assertArrayEquals(new int[] { 0, 1, 2 }, appended.cookable(Arrays.asList("Egg", "Rice"), 1).toArray());
+
+			// A rewrite of the same length under the same timestamp is caught by the checksum
+			long modified = new File(DataFiles.recipes()).lastModified();
+			RecipeManagement.saveToFile(new ArrayList<>(Arrays.asList(
+					new Recipe("Pancake", Arrays.asList(new Ingredient("Flour", 2), new Ingredient("Egg", 1)), 3.0),
+					new Recipe("Pilaf", Arrays.asList(new Ingredient("Rice", 4), new Ingredient("Butter", 3)), 7.0),
+					new Recipe("Omelette", Arrays.asList(new Ingredient("Oil", 1)), 1.0))), DataFiles.recipes());
+			new File(DataFiles.recipes()).setLastModified(modified);
+			assertArrayEquals(new int[] { 2 },
+					IngredientRecipeIndex.open(DataFiles.recipes()).cookable(Arrays.asList("Oil"), 0).toArray());
+		} finally {
+			DataFiles.setDirectory(null);
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+
+
+	/**
+     * @brief Tests price range and top-K queries against sorting, including repricing, additions and removals.
+     */
+	@Test
+	public void testPriceIndex() {
+		Random random = new Random(45);
+		IngredientManagement management = new IngredientManagement(null, 0);
+		for (int i = 0; i < 500; i++) {
+			management.addIngredient(new Ingredient("Ingredient " + i, random.nextInt(100)), "unused");
+		}
+		for (int round = 0; round < 50; round++) {
+			// Query first so the additions, edits and removals below go through the built index
+			int min = random.nextInt(100);
+			int max = min + random.nextInt(30);
+			List<Ingredient> expected = new ArrayList<>();
+			for (Ingredient ingredient : management.getIngredients()) {
+				if (ingredient.getPrice() >= min && ingredient.getPrice() <= max) {
+					expected.add(ingredient);
+				}
+			}
+			expected.sort((a, b) -> Integer.compare(a.getPrice(), b.getPrice()));
+			List<Ingredient> found = management.findByPriceRange(min, max);
+			assertEquals(expected.size(), found.size());
+			for (int i = 0; i < found.size(); i++) {
+				assertEquals(expected.get(i).getPrice(), found.get(i).getPrice());
+				assertTrue(found.get(i).getPrice() >= min && found.get(i).getPrice() <= max);
+			}
+
+			List<Ingredient> sorted = new ArrayList<>(management.getIngredients());
+			sorted.sort((a, b) -> Integer.compare(b.getPrice(), a.getPrice()));
+			List<Ingredient> top = management.mostExpensive(10);
+			assertEquals(10, top.size());
+			for (int i = 0; i < top.size(); i++) {
+				assertEquals(sorted.get(i).getPrice(), top.get(i).getPrice());
+			}
+			assertEquals(sorted.get(sorted.size() - 1).getPrice(), management.cheapest(1).get(0).getPrice());
+
+			Ingredient edited = management.getIngredients().get(random.nextInt(management.getIngredients().size()));
+			management.editIngredientPrice(edited.getName(), random.nextInt(100));
+			management.addIngredient(new Ingredient("Added " + round, random.nextInt(100)), "unused");
+			if (round % 10 == 0) {
+				management.removeIngredient(management.getIngredients().get(0));
+			}
+		}
+		assertTrue(management.findByPriceRange(10, 5).isEmpty());
+
+		// Editing an indexed ingredient to the price it already has keeps the index intact
+		IngredientManagement same = new IngredientManagement(null, 0);
+		same.addIngredient(new Ingredient("Salt", 1), "unused");
+		same.addIngredient(new Ingredient("Saffron", 90), "unused");
+		same.addIngredient(new Ingredient("Sugar", 4), "unused");
+		assertEquals("Saffron", same.mostExpensive(1).get(0).getName());
+		same.editIngredientPrice("Sugar", 4);
+		assertEquals(3, same.findByPriceRange(0, 100).size());
+		assertEquals("Sugar", same.findByPriceRange(4, 4).get(0).getName());
+		assertEquals(management.getIngredients().size(), management.findByPriceRange(0, Integer.MAX_VALUE).size());
+		assertEquals(management.getIngredients().size(), management.mostExpensive(Integer.MAX_VALUE).size());
+
+		PriceIndex index = new PriceIndex(new int[] { 5, 3, 5, 1 });
+		assertArrayEquals(new int[] { 1, 0, 2 }, index.range(3, 5));
+		assertArrayEquals(new int[] { 2, 0 }, index.top(2));
+		assertTrue(index.update(3, 1, 9));
+		assertFalse(index.update(3, 1, 9));
+		assertArrayEquals(new int[] { 3, 2 }, index.top(2));
+		index.add(4, 0);
+		assertArrayEquals(new int[] { 4, 1 }, index.bottom(2));
+	}
+
+
+
+	/**
+     * @brief Tests cheapest and priciest rankings against sorting, sequentially and in parallel, with ingredient filters.
+     */
+	@Test
+	public void testCostRanking() {
+		Random random = new Random(46);
+		CostRanking.BoundedHeap heap = new CostRanking.BoundedHeap(25);
+		double[] keys = new double[1_000];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = random.nextInt(50);
+			heap.offer(keys[i], i);
+		}
+		Integer[] sorted = new Integer[keys.length];
+		for (int i = 0; i < sorted.length; i++) {
+			sorted[i] = i;
+		}
+		Arrays.sort(sorted, (a, b) -> keys[a] != keys[b] ? Double.compare(keys[a], keys[b]) : Integer.compare(a, b));
+		int[] best = heap.toSortedArray();
+		assertEquals(25, best.length);
+		for (int i = 0; i < best.length; i++) {
+			assertEquals((int) sorted[i], best[i]);
+		}
+
+		File directory = new File("test_ranking");
+		directory.mkdir();
+		DataFiles.setDirectory(directory);
+		try {
+			String[] pantry = { "Flour", "Sugar", "Egg", "Rice" };
+			List<Recipe> recipes = new ArrayList<>();
+			for (int r = 0; r < 3_000; r++) {
+				Ingredient ingredient = new Ingredient(pantry[r % pantry.length], 1);
+				recipes.add(new Recipe("Recipe " + r, Arrays.asList(ingredient), random.nextInt(200)));
+			}
+			RecipeManagement.saveToFile(recipes, DataFiles.recipes());
+			new MealManagement().saveMealsToFile(new ArrayList<>(Arrays.asList(
+					new Meal("Breakfast", Arrays.asList(recipes.get(2))),
+					new Meal("Dinner", Arrays.asList(recipes.get(3), recipes.get(4))),
+					new Meal("Supper", Arrays.asList(recipes.get(1))))), DataFiles.meals());
+			GuestDataImage image = GuestDataImage.open(DataFiles.recipes(), GuestDataImage.Kind.RECIPES);
+
+			List<Integer> cheapest = new ArrayList<>();
+			for (int r = 0; r < recipes.size(); r++) {
+				cheapest.add(r);
+			}
+			cheapest.sort((a, b) -> recipes.get(a).getTotalCost() != recipes.get(b).getTotalCost()
+					? Double.compare(recipes.get(a).getTotalCost(), recipes.get(b).getTotalCost())
+					: Integer.compare(a, b));
+			for (boolean parallel : new boolean[] { false, true }) {
+				int[] ranked = CostRanking.rank(image, 40, CostRanking.Order.CHEAPEST, null, parallel);
+				assertEquals(40, ranked.length);
+				for (int i = 0; i < ranked.length; i++) {
+					assertEquals((int) cheapest.get(i), ranked[i]);
+				}
+				int[] priciest = CostRanking.rank(image, 10, CostRanking.Order.PRICIEST, null, parallel);
+				for (int i = 1; i < priciest.length; i++) {
+					assertTrue(image.getTotalCost(priciest[i - 1]) >= image.getTotalCost(priciest[i]));
+				}
+				assertEquals(recipes.get(cheapest.get(cheapest.size() - 1)).getTotalCost(),
+						image.getTotalCost(priciest[0]), 0.0);
+				int[] eggs = CostRanking.rank(image, 5, CostRanking.Order.CHEAPEST,
+						CostRanking.usingIngredient(image, "EGG"), parallel);
+				assertEquals(5, eggs.length);
+				for (int record : eggs) {
+					assertEquals(2, record % pantry.length);
+				}
+				assertEquals(recipes.size(), CostRanking.rank(image, Integer.MAX_VALUE, CostRanking.Order.CHEAPEST,
+						null, parallel).length);
+			}
+			assertEquals(0, CostRanking.rank(image, 0, CostRanking.Order.CHEAPEST, null).length);
+
+			GuestDataImage meals = GuestDataImage.open(DataFiles.meals(), GuestDataImage.Kind.MEALS);
+			assertArrayEquals(new int[] { 0 }, CostRanking.rank(meals, 3, CostRanking.Order.CHEAPEST,
+					CostRanking.usingIngredient(meals, "egg")));
+			assertArrayEquals(new int[] { 1 }, CostRanking.rank(meals, 3, CostRanking.Order.PRICIEST,
+					CostRanking.usingIngredient(meals, "Rice")));
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			assertEquals(QueryCommand.OK, QueryCommand.run(new String[] { "recipe", "priciest", "1", "rice" },
+					new PrintStream(out)));
+			assertTrue(out.toString().startsWith("Recipe "));
+			assertEquals(QueryCommand.ERROR,
+					QueryCommand.run(new String[] { "recipe", "cheapest", "many" }, new PrintStream(out)));
+		} finally {
+			DataFiles.setDirectory(null);
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+
+
+	/**
+     * @brief Tests the meal optimizer against exhaustive search with budgets, courses and excluded ingredients.
+     */
+	@Test
+	public void testMealOptimizer() {
+		String[] pantry = { "Flour", "Egg", "Milk", "Rice", "Tomato", "Onion", "Cheese" };
+		String[] dishes = { "Tomato Soup", "Green Salad", "Cheese Cake", "Rice Bowl", "Onion Soup" };
+		Random random = new Random(47);
+		for (int trial = 0; trial < 150; trial++) {
+			List<Recipe> catalog = new ArrayList<>();
+			for (int r = 0; r < 12; r++) {
+				List<Ingredient> ingredients = new ArrayList<>();
+				for (int i = 1 + random.nextInt(4); i > 0; i--) {
+					ingredients.add(new Ingredient(pantry[random.nextInt(pantry.length)], 1));
+				}
+				catalog.add(new Recipe(dishes[random.nextInt(dishes.length)] + " " + r, ingredients,
+						1 + random.nextInt(20)));
+			}
+			double budget = 5 + random.nextInt(40);
+			int maxRecipes = 1 + random.nextInt(4);
+			String course = trial % 3 == 0 ? "soup" : null;
+			String excluded = trial % 4 == 0 ? "egg" : null;
+
+			double expected = -1;
+			for (int subset = 0; subset < 1 << catalog.size(); subset++) {
+				double cost = 0;
+				double score = 0;
+				boolean served = course == null;
+				boolean allowed = Integer.bitCount(subset) <= maxRecipes;
+				for (int r = 0; r < catalog.size() && allowed; r++) {
+					if ((subset & (1 << r)) != 0) {
+						Recipe recipe = catalog.get(r);
+						cost += recipe.getTotalCost();
+						score += MealOptimizer.distinctIngredients(recipe);
+						served |= course != null && recipe.getName().toLowerCase().contains(course);
+						allowed = excluded == null
+								|| recipe.getIngredients().stream().noneMatch(i -> i.getName().equalsIgnoreCase(excluded));
+					}
+				}
+				if (allowed && served && cost <= budget) {
+					expected = Math.max(expected, score);
+				}
+			}
+
+			MealOptimizer optimizer = new MealOptimizer(budget);
+			optimizer.setObjective(MealOptimizer.Objective.INGREDIENTS);
+			optimizer.setMaxRecipes(maxRecipes);
+			if (course != null) {
+				optimizer.requireCourse(course);
+			}
+			if (excluded != null) {
+				optimizer.excludeIngredient(excluded);
+			}
+			// Alternate between the sequential pass and the parallel subtrees
+			optimizer.setSeedNodes(trial % 2 == 0 ? 20_000 : 0);
+			MealOptimizer.Result result = optimizer.optimize(catalog);
+			if (expected < 0) {
+				assertNull(result);
+				continue;
+			}
+			assertTrue(result.isOptimal());
+			assertEquals(expected, result.getScore(), 1e-9);
+			assertTrue(result.getTotalCost() <= budget);
+			assertTrue(result.getRecipes().size() <= maxRecipes);
+			double score = 0;
+			for (Recipe recipe : result.getRecipes()) {
+				score += MealOptimizer.distinctIngredients(recipe);
+			}
+			assertEquals(expected, score, 1e-9);
+		}
+
+		MealOptimizer cheapest = new MealOptimizer(10);
+		cheapest.setScore(recipe -> 1.0 / (1 + recipe.getTotalCost()));
+		cheapest.setMaxRecipes(1);
+		List<Recipe> menu = Arrays.asList(new Recipe("Soup", new ArrayList<>(), 4.0),
+				new Recipe("Salad", new ArrayList<>(), 2.5), new Recipe("Steak", new ArrayList<>(), 30.0));
+		assertEquals("Salad", cheapest.optimize(menu).getRecipes().get(0).getName());
+		try {
+			new MealOptimizer(Double.NaN);
+			fail("Expected an IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().startsWith("Invalid budget"));
+		}
+
+		// By default the meal feeds the most covers
+		Recipe stew = new Recipe("Stew", new ArrayList<>(), 8.0);
+		stew.setServings(6);
+		MealOptimizer.Result fed = new MealOptimizer(10).optimize(Arrays.asList(menu.get(0), menu.get(1), stew));
+		assertEquals(Arrays.asList(stew), fed.getRecipes());
+		assertEquals(6.0, fed.getScore(), 0.0);
+		try {
+			cheapest.requireCourse("  ");
+			fail("Expected an IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().startsWith("Invalid course"));
+		}
+	}
+
+
+
+	/**
+     * @brief Tests that the meal planner shares ingredients, keeps meals a week apart and respects the budget.
+     */
+	@Test
+	public void testMealPlanner() {
+		List<Meal> catalog = new ArrayList<>();
+		for (int i = 0; i < 7; i++) {
+			catalog.add(new Meal("Rice Day " + i,
+					Arrays.asList(new Recipe("Rice Dish " + i, Arrays.asList(new Ingredient("Rice", 5)), 5.0))));
+		}
+		for (int i = 0; i < 3; i++) {
+			catalog.add(new Meal("Caviar Day " + i, Arrays.asList(new Recipe("Caviar Dish " + i,
+					Arrays.asList(new Ingredient("Caviar", 100), new Ingredient("Rice", 5)), 105.0))));
+		}
+
+		MealPlanner planner = new MealPlanner(7, 50);
+		planner.setMoves(20_000);
+		MealPlanner.Plan plan = planner.plan(catalog);
+		assertTrue(plan.isFeasible());
+		assertEquals(0, plan.getRepeats());
+		assertEquals(7, plan.getDistinctRecipes());
+		// Rice is bought once for the whole week
+		assertEquals(5.0, plan.getPurchaseCost(), 0.0);
+		for (Meal meal : plan.getMeals()) {
+			assertTrue(meal.getName().startsWith("Rice"));
+		}
+
+		// Two weeks buy the rice twice, and the caviar once when its meals share a week
+		MealPlanner fortnight = new MealPlanner(14, 1_000);
+		fortnight.setMoves(50_000);
+		MealPlanner.Plan twoWeeks = fortnight.plan(catalog);
+		assertTrue(twoWeeks.isFeasible());
+		assertEquals(10, twoWeeks.getDistinctRecipes());
+		assertEquals(110.0, twoWeeks.getPurchaseCost(), 0.0);
+
+		MealPlanner tight = new MealPlanner(14, 20);
+		tight.setMoves(50_000);
+		MealPlanner.Plan cheap = tight.plan(catalog);
+		assertTrue(cheap.isFeasible());
+		assertEquals(7, cheap.getDistinctRecipes());
+		assertEquals(10.0, cheap.getPurchaseCost(), 0.0);
+
+		List<Meal> few = catalog.subList(0, 3);
+		MealPlanner weekly = new MealPlanner(7, 100);
+		weekly.setMoves(10_000);
+		assertFalse(weekly.plan(few).isFeasible());
+		assertTrue(weekly.plan(few).getRepeats() > 0);
+		weekly.setRepeatGap(3);
+		assertTrue(weekly.plan(few).isFeasible());
+
+		MealPlanner seeded = new MealPlanner(7, 50);
+		seeded.setSeed(48);
+		assertEquals(seeded.plan(catalog).getMeals(), seeded.plan(catalog).getMeals());
+		assertNull(seeded.plan(new ArrayList<>()));
+	}
+
+
+
+	/**
+     * @brief Tests recosting meals for a number of covers and producing a batch of orders.
+     */
+	@Test
+	public void testServingScaler() throws IOException {
+		Recipe soup = new Recipe("Soup", Arrays.asList(new Ingredient("Tomato", 2)), 10.0);
+		Recipe bread = new Recipe("Bread", Arrays.asList(new Ingredient("Flour", 1)), 2.0);
+		assertEquals(1, soup.getServings());
+		soup.setServings(4);
+		assertEquals(2.5, soup.getCostPerServing(), 0.0);
+		assertEquals(2, soup.batchesFor(5));
+		try {
+			soup.setServings(0);
+			fail("Expected an IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().startsWith("Invalid number of servings"));
+		}
+
+		Meal lunch = new Meal("Lunch", Arrays.asList(soup, bread));
+		assertEquals(1, lunch.getServings());
+		assertEquals(12.0, lunch.getTotalCost(), 0.0);
+		// Six covers take two batches of soup and six of bread
+		lunch.setServings(6);
+		assertEquals(32.0, lunch.getTotalCost(), 0.0);
+		assertEquals(32.0 / 6, lunch.getCostPerServing(), 1e-9);
+		try {
+			lunch.setServings(-1);
+			fail("Expected an IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().startsWith("Invalid number of servings"));
+		}
+
+		ServingScaler scaler = new ServingScaler(Arrays.asList(lunch, new Meal("Dinner", Arrays.asList(soup))));
+		assertEquals(2, scaler.size());
+		assertEquals(1, scaler.findMeal("dinner"));
+		assertEquals(-1, scaler.findMeal("Breakfast"));
+		assertEquals(32.0, scaler.cost(0, 6), 0.0);
+		assertArrayEquals(new double[] { 32.0, 10.0, 10.0 }, scaler.cost(new int[] { 0, 1, 1 }, new int[] { 6, 1, 1 }),
+				0.0);
+
+		// Produced together, the eight servings of soup fit in two batches
+		ServingScaler.Production production = scaler.produce(new int[] { 0, 1, 1 }, new int[] { 6, 1, 1 });
+		assertEquals(3, production.getOrders());
+		assertEquals(2, production.getRecipeCount());
+		assertEquals("Soup", production.getRecipeName(0));
+		assertEquals(2, production.getBatches(0));
+		assertEquals(6, production.getBatches(1));
+		assertEquals(32.0, production.getTotalCost(), 0.0);
+		try {
+			scaler.produce(new int[] { 0 }, new int[] { 0 });
+			fail("Expected an IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().startsWith("Invalid number of covers"));
+		}
+		try {
+			scaler.cost(new int[] { 2 }, new int[] { 1 });
+			fail("Expected an IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().startsWith("Invalid meal number"));
+		}
+
+		File directory = new File("test_batch_orders");
+		directory.mkdir();
+		DataFiles.setDirectory(directory);
+		try {
+			String commands = "add-ingredient Flour 2\n" + "create-recipe Bread Flour 1\n" + "set-servings bread 4\n"
+					+ "create-meal Toast bread\n" + "order toast 3\n" + "order Toast 2\n" + "order Porridge 1\n";
+			BatchProcessor processor = new BatchProcessor();
+			processor.process(new BufferedReader(new StringReader(commands)));
+			processor.save();
+			assertEquals(6, processor.getApplied());
+			assertEquals(1, processor.getErrors());
+
+			ServingScaler.Production orders = processor.produce();
+			assertEquals(2, orders.getOrders());
+			assertEquals(2, orders.getBatches(0));
+			assertEquals(4.0, orders.getTotalCost(), 0.0);
+			assertEquals(4, RecipeManagement.loadFromFile(DataFiles.recipes()).get(0).getServings());
+		} finally {
+			DataFiles.setDirectory(null);
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+
+
+	/**
+     * @brief Tests unit conversions and costing recipe lines measured in other units than their prices.
+     */
+	@Test
+	public void testUnits() throws IOException {
+		assertEquals(1000.0, Unit.KILOGRAM.convert(1, Unit.GRAM), 0.0);
+		assertEquals(0.25, Unit.CUP.convert(1, Unit.LITRE), 1e-12);
+		assertEquals(16.0, Unit.POUND.convert(1, Unit.OUNCE), 1e-9);
+		assertEquals(12.0, Unit.factor(Unit.DOZEN, Unit.PIECE), 0.0);
+		assertTrue(Double.isNaN(Unit.factor(Unit.GRAM, Unit.LITRE)));
+		assertFalse(Unit.PIECE.canConvertTo(Unit.GRAM));
+		try {
+			Unit.GRAM.convert(1, Unit.MILLILITRE);
+			fail("Expected an IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().startsWith("Cannot convert g to ml"));
+		}
+		assertEquals(Unit.KILOGRAM, Unit.parse(" KG "));
+		assertEquals(Unit.TABLESPOON, Unit.parse("tablespoon"));
+		assertNull(Unit.parse("bushel"));
+		assertEquals(3, Unit.quantityLength("500g"));
+
+		Ingredient flour = new Ingredient("Flour", 2, Unit.KILOGRAM);
+		Ingredient milk = new Ingredient("Milk", 3, Unit.LITRE);
+		Ingredient egg = new Ingredient("Egg", 1);
+		assertEquals(Unit.PIECE, egg.getUnit());
+		assertEquals("2$/kg", flour.getPriceLabel());
+		assertEquals("1$", egg.getPriceLabel());
+		assertEquals("3$/l", Ingredient.formatPrice(3, Unit.LITRE));
+		List<Ingredient> lines = Arrays.asList(flour, milk, egg);
+		// 500 g of flour, 2 cups of milk and a dozen eggs
+		assertEquals(1.0 + 1.5 + 12.0, RecipeManagement.calculateTotalCost(lines, new int[] { 500, 2, 1 },
+				new Unit[] { Unit.GRAM, Unit.CUP, Unit.DOZEN }), 1e-9);
+		assertEquals(2 * 3 + 3 * 1 + 4, RecipeManagement.calculateTotalCost(lines, new int[] { 3, 1, 4 },
+				new Unit[] { null, null, null }), 0.0);
+		try {
+			RecipeManagement.calculateTotalCost(lines, new int[] { 1, 1, 1 }, new Unit[] { Unit.LITRE, null, null });
+			fail("Expected an IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().startsWith("Cannot measure Flour in l"));
+		}
+
+		File directory = new File("test_units");
+		directory.mkdir();
+		DataFiles.setDirectory(directory);
+		try {
+			String commands = "add-ingredient Flour 2 kg\n" + "add-ingredient Milk 3 l\n" + "add-ingredient Salt 1 bushel\n"
+					+ "create-recipe Pancakes Flour 250g Milk 500ml\n" + "create-recipe Paste Flour 1l\n";
+			BatchProcessor processor = new BatchProcessor();
+			processor.process(new BufferedReader(new StringReader(commands)));
+			processor.save();
+			assertEquals(3, processor.getApplied());
+			assertEquals(2, processor.getErrors());
+
+			IngredientManagement loaded = new IngredientManagement(null, 0);
+			loaded.loadFromFile(DataFiles.ingredients());
+			assertEquals(Unit.LITRE, loaded.findIngredientByName("Milk").getUnit());
+			List<Recipe> recipes = RecipeManagement.loadFromFile(DataFiles.recipes());
+			assertEquals(0.5 + 1.5, recipes.get(0).getTotalCost(), 1e-9);
+
+			// Guest screens read the units from the mapped image
+			GuestDataImage image = GuestDataImage.open(DataFiles.recipes(), GuestDataImage.Kind.RECIPES);
+			assertEquals(Unit.KILOGRAM, image.getIngredients(0).get(0).getUnit());
+			assertEquals(Unit.LITRE, image.getIngredients(0).get(1).getUnit());
+		} finally {
+			DataFiles.setDirectory(null);
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,498 @@
+/**
+ *
+@file MenuLoadHarness.java
+@brief This file contains the headless load harness of the Menu class.
+@details The harness generates long randomized operator sessions, feeds them to Menu through a ConsoleInput in the same
+         way as MenuTests, and reports operations per second and the latency distribution of every operation type.
+*/
+package com.turankanbur.calculator;
+
+
+/**
+ * Provides an abstraction for file and directory pathnames.
+ */
+import java.io.File;
+
+/**
+ * Provides functionality for handling input/output (I/O) operations.
+ */
+import java.io.IOException;
+
+/**
+ * Provides an output stream that discards everything written to it.
+ */
+import java.io.OutputStream;
+
+/**
+ * Used to print formatted representations of objects to a text-output stream.
+ */
+import java.io.PrintStream;
+
+/**
+ * Provides file system utility methods.
+ */
+import java.nio.file.Files;
+
+/**
+ * Provides resizable-array and implements the List interface.
+ */
+import java.util.ArrayList;
+
+/**
+ * Provides resizable-array implementation of the List interface.
+ */
+import java.util.List;
+
+/**
+ * Provides a seeded pseudo-random number generator.
+ */
+import java.util.Random;
+
+
+/**
+ *
+ * @class MenuLoadHarness
+ * @brief Drives Menu headless with randomized operator sessions.
+ * @details Each session runs against its own temporary data directory, seeded with a synthetic catalog, and starts
+ *          at the main menu of a logged in user. An operation is one round trip from the main menu back to it, so
+ *          its latency includes parsing the input, the work and printing the screens. Console output is discarded
+ *          and clearScreen is a no-op while a session runs.
+ */
+public class MenuLoadHarness {
+
+
+	/**
+	 * @brief The operator actions generated by the harness.
+	 */
+	public enum Operation {
+		/** Adds a new ingredient. */
+		ADD_INGREDIENT,
+		/** Edits the price of an ingredient, occasionally a missing one. */
+		EDIT_INGREDIENT,
+		/** Removes an ingredient. */
+		REMOVE_INGREDIENT,
+		/** Creates a recipe from up to five ingredients. */
+		CREATE_RECIPE,
+		/** Lists the recipes. */
+		VIEW_RECIPES,
+		/** Creates a meal from up to three recipes. */
+		CREATE_MEAL,
+		/** Lists the meals. */
+		VIEW_MEALS
+	}
+
+
+	/**
+	 * @brief Relative weights of the operations, in Operation order.
+	 */
+	private static final int[] WEIGHTS = { 30, 15, 5, 20, 10, 10, 10 };
+
+
+	/**
+	 * @brief Stack size of the session thread; Menu navigates recursively, so long sessions need deep stacks.
+	 */
+	private static final long STACK_SIZE = 1L << 30;
+
+
+	/**
+	 * @brief The seed of the generated sessions and catalogs.
+	 */
+	private final long seed;
+
+
+	/**
+	 * @brief The number of operations per session.
+	 */
+	private final int operationsPerSession;
+
+
+	/**
+	 * @brief The number of ingredients in the initial catalog of each session.
+	 */
+	private final int initialIngredients;
+
+
+	/**
+	 * @brief The number of recipes in the initial catalog of each session.
+	 */
+	private final int initialRecipes;
+
+
+	/**
+	 * @brief The number of meals in the initial catalog of each session.
+	 */
+	private final int initialMeals;
+
+
+	/**
+	 * @brief Constructs a harness.
+	 * @param seed The seed of the generated sessions and catalogs.
+	 * @param operationsPerSession The number of operations per session.
+	 * @param initialIngredients The number of ingredients in the initial catalog.
+	 * @param initialRecipes The number of recipes in the initial catalog.
+	 * @param initialMeals The number of meals in the initial catalog.
+	 */
+	public MenuLoadHarness(long seed, int operationsPerSession, int initialIngredients, int initialRecipes,
+			int initialMeals) {
+		this.seed = seed;
+		this.operationsPerSession = operationsPerSession;
+		this.initialIngredients = initialIngredients;
+		this.initialRecipes = initialRecipes;
+		this.initialMeals = initialMeals;
+	}
+
+
+	/**
+	 * @brief Runs the harness from the command line and prints the report.
+	 * @details Options: --sessions, --operations, --seed, --ingredients, --recipes, --meals.
+	 * @param args The command line options.
+	 */
+	public static void main(String[] args) throws Exception {
+		int sessions = 3;
+		int operations = 2_000;
+		long seed = 42L;
+		int ingredients = 1_000;
+		int recipes = 200;
+		int meals = 50;
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			switch (args[i]) {
+			case "--sessions":
+				sessions = Integer.parseInt(args[i + 1]);
+				break;
+			case "--operations":
+				operations = Integer.parseInt(args[i + 1]);
+				break;
+			case "--seed":
+				seed = Long.parseLong(args[i + 1]);
+				break;
+			case "--ingredients":
+				ingredients = Integer.parseInt(args[i + 1]);
+				break;
+			case "--recipes":
+				recipes = Integer.parseInt(args[i + 1]);
+				break;
+			case "--meals":
+				meals = Integer.parseInt(args[i + 1]);
+				break;
+			default:
+				System.err.println("Unknown option: " + args[i]);
+				return;
+			}
+		}
+
+		MenuLoadHarness harness = new MenuLoadHarness(seed, operations, ingredients, recipes, meals);
+		harness.run(sessions).print(System.out);
+	}
+
+
+	/**
+	 * @brief Runs the given number of sessions, each against a fresh temporary data directory.
+	 * @param sessions The number of sessions.
+	 * @return The combined report of all sessions.
+	 */
+	public Report run(int sessions) throws IOException, InterruptedException {
+		Report report = new Report();
+		for (int session = 0; session < sessions; session++) {
+			runSession(seed + session, report);
+		}
+		return report;
+	}
+
+
+	/**
+	 * @brief Generates a data directory and runs one session against it.
+	 * @param sessionSeed The seed of the session.
+	 * @param report The report to record into.
+	 */
+	private void runSession(long sessionSeed, Report report) throws IOException, InterruptedException {
+		File directory = Files.createTempDirectory("menu-load").toFile();
+		File previousDirectory = DataFiles.getDirectory();
+		PrintStream previousOut = System.out;
+		try {
+			DatasetGenerator generator = new DatasetGenerator(sessionSeed, initialIngredients, initialRecipes,
+					initialMeals, 8, 3, 1.0);
+			generator.generate(directory);
+
+			List<Operation> operations = new ArrayList<>();
+			String script = generateScript(sessionSeed, generator, operations);
+
+			DataFiles.setDirectory(directory);
+			System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+			HeadlessMenu menu = new HeadlessMenu(operations, report);
+			Throwable[] failure = new Throwable[1];
+			Thread thread = new Thread(null, () -> {
+				try {
+					menu.selectMenu(new ConsoleInput(script));
+				} catch (Throwable e) {
+					failure[0] = e;
+				}
+			}, "menu-load", STACK_SIZE);
+
+			long start = System.nanoTime();
+			thread.start();
+			thread.join();
+			report.elapsedNanos += System.nanoTime() - start;
+
+			if (failure[0] != null) {
+				throw new IllegalStateException("Session " + sessionSeed + " failed after " + menu.completed
+						+ " operations", failure[0]);
+			}
+		} finally {
+			System.setOut(previousOut);
+			DataFiles.setDirectory(previousDirectory);
+			File[] files = directory.listFiles();
+			if (files != null) {
+				for (File file : files) {
+					file.delete();
+				}
+			}
+			directory.delete();
+		}
+	}
+
+
+	/**
+	 * @brief Generates the input of one session.
+	 * @details The harness tracks the catalog the session builds, so edits and removals mostly target existing
+	 *          ingredients and recipe and meal selections are always valid.
+	 * @param sessionSeed The seed of the session.
+	 * @param generator The generator of the initial catalog.
+	 * @param operations Receives the generated operations in order.
+	 * @return The input lines of the session, ending with the main menu exit key.
+	 */
+	private String generateScript(long sessionSeed, DatasetGenerator generator, List<Operation> operations) {
+		Random random = new Random(sessionSeed);
+		List<String> ingredients = new ArrayList<>();
+		for (int i = 0; i < initialIngredients; i++) {
+			ingredients.add(generator.ingredient(i).getName());
+		}
+		int recipes = initialRecipes;
+		int totalWeight = 0;
+		for (int weight : WEIGHTS) {
+			totalWeight += weight;
+		}
+
+		StringBuilder script = new StringBuilder();
+		for (int i = 0; i < operationsPerSession; i++) {
+			int pick = random.nextInt(totalWeight);
+			int index = 0;
+			while (pick >= WEIGHTS[index]) {
+				pick -= WEIGHTS[index++];
+			}
+			Operation operation = Operation.values()[index];
+			if (ingredients.isEmpty() && (operation == Operation.EDIT_INGREDIENT || operation == Operation.REMOVE_INGREDIENT)) {
+				operation = Operation.ADD_INGREDIENT;
+			}
+			operations.add(operation);
+
+			switch (operation) {
+			case ADD_INGREDIENT:
+				String name = "load-" + i;
+				ingredients.add(name);
+				script.append("1\n1\n").append(name).append('\n').append(1 + random.nextInt(100)).append('\n');
+				break;
+			case EDIT_INGREDIENT:
+				if (random.nextInt(20) == 0) {
+					script.append("1\n3\nmissing-").append(i).append("\ns\n");
+				} else {
+					script.append("1\n3\n").append(ingredients.get(random.nextInt(ingredients.size()))).append('\n')
+							.append(1 + random.nextInt(100)).append("\ns\n");
+				}
+				break;
+			case REMOVE_INGREDIENT:
+				script.append("1\n4\n").append(ingredients.remove(random.nextInt(ingredients.size()))).append("\ns\n");
+				break;
+			case CREATE_RECIPE:
+				script.append("2\n1\n");
+				int lines = ingredients.isEmpty() ? 0 : 1 + random.nextInt(5);
+				for (int line = 0; line < lines; line++) {
+					script.append(1 + random.nextInt(ingredients.size())).append('\n').append(1 + random.nextInt(5))
+							.append('\n');
+				}
+				script.append("q\nrecipe ").append(i).append("\n\n");
+				recipes++;
+				break;
+			case VIEW_RECIPES:
+				script.append("2\n2\nc\n");
+				break;
+			case CREATE_MEAL:
+				script.append("3\n1\n");
+				int selected = recipes == 0 ? 0 : 1 + random.nextInt(3);
+				for (int recipe = 0; recipe < selected; recipe++) {
+					script.append(1 + random.nextInt(recipes)).append('\n');
+				}
+				script.append("q\nmeal ").append(i).append("\n\n");
+				break;
+			case VIEW_MEALS:
+				script.append("3\n2\nc\n");
+				break;
+			default:
+				throw new IllegalStateException("Unknown operation " + operation);
+			}
+		}
+		return script.append("5\n").toString();
+	}
+
+
+	/**
+	 * @class HeadlessMenu
+	 * @brief A Menu that does not clear the screen and times every round trip through the main menu.
+	 */
+	private static final class HeadlessMenu extends Menu {
+
+
+		/**
+		 * @brief Unique identifier for ensuring version compatibility of serialized objects.
+		 */
+		private static final long serialVersionUID = 1L;
+
+
+		/**
+		 * @brief The operations of the session in order.
+		 */
+		private final transient List<Operation> operations;
+
+
+		/**
+		 * @brief The report to record into.
+		 */
+		private final transient Report report;
+
+
+		/**
+		 * @brief The number of completed operations.
+		 */
+		private int completed;
+
+
+		/**
+		 * @brief The time the current operation started, or 0 before the first one.
+		 */
+		private long operationStart;
+
+
+		/**
+		 * @brief Constructs a headless menu.
+		 * @param operations The operations of the session in order.
+		 * @param report The report to record into.
+		 */
+		HeadlessMenu(List<Operation> operations, Report report) {
+			this.operations = operations;
+			this.report = report;
+		}
+
+
+		/**
+		 * @brief Does nothing; the harness has no console to clear.
+		 */
+		@Override
+		public void clearScreen() {
+		}
+
+
+		/**
+		 * @brief Ends the previous operation and starts the next one whenever the main menu is reached.
+		 * @param scanner The scanner object for user input.
+		 */
+		@Override
+		public void selectMenu(ConsoleInput scanner) {
+			long now = System.nanoTime();
+			if (operationStart != 0 && completed < operations.size()) {
+				report.record(operations.get(completed++), now - operationStart);
+			}
+			operationStart = now;
+			super.selectMenu(scanner);
+		}
+	}
+
+
+	/**
+	 * @class Report
+	 * @brief The throughput and latency distribution of the executed sessions.
+	 */
+	public static final class Report {
+
+
+		/**
+		 * @brief The end-to-end latency of each operation type.
+		 */
+		private final LatencyHistogram[] latencies = new LatencyHistogram[Operation.values().length];
+
+
+		/**
+		 * @brief The total wall clock time of all sessions.
+		 */
+		private long elapsedNanos;
+
+
+		/**
+		 * @brief Constructs an empty report.
+		 */
+		Report() {
+			for (Operation operation : Operation.values()) {
+				latencies[operation.ordinal()] = new LatencyHistogram(operation.name(),
+						OperationLatencies.SLOW_THRESHOLD_NANOS);
+			}
+		}
+
+
+		/**
+		 * @brief Records one completed operation.
+		 * @param operation The operation type.
+		 * @param nanos The end-to-end latency.
+		 */
+		void record(Operation operation, long nanos) {
+			latencies[operation.ordinal()].record(nanos);
+		}
+
+
+		/**
+		 * @brief Retrieves the latency histogram of an operation type.
+		 * @param operation The operation type.
+		 * @return The histogram.
+		 */
+		public LatencyHistogram getLatency(Operation operation) {
+			return latencies[operation.ordinal()];
+		}
+
+
+		/**
+		 * @brief Retrieves the number of completed operations.
+		 * @return The operation count.
+		 */
+		public long getOperations() {
+			long operations = 0;
+			for (LatencyHistogram histogram : latencies) {
+				operations += histogram.getCount();
+			}
+			return operations;
+		}
+
+
+		/**
+		 * @brief Retrieves the end-to-end throughput.
+		 * @return The operations per second.
+		 */
+		public double getOperationsPerSecond() {
+			return elapsedNanos == 0 ? 0.0 : getOperations() * 1e9 / elapsedNanos;
+		}
+
+
+		/**
+		 * @brief Prints the throughput and the latency percentiles of every operation type.
+		 * @param out The stream to print to.
+		 */
+		public void print(PrintStream out) {
+			out.println(String.format("%d operations in %.1f s, %.1f operations/s", getOperations(), elapsedNanos / 1e9,
+					getOperationsPerSecond()));
+			out.println(String.format("%-18s %8s %10s %10s %10s %10s", "Operation", "Count", "p50 ms", "p99 ms",
+					"p99.9 ms", "Max ms"));
+			for (LatencyHistogram histogram : latencies) {
+				out.println(String.format("%-18s %8d %10.3f %10.3f %10.3f %10.3f", histogram.getName(),
+						histogram.getCount(), histogram.getValueAtPercentile(50.0) / 1e6,
+						histogram.getValueAtPercentile(99.0) / 1e6, histogram.getValueAtPercentile(99.9) / 1e6,
+						histogram.getMax() / 1e6));
+			}
+		}
+	}
+}
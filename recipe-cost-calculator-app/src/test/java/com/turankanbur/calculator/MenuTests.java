@@ -12,6 +12,11 @@ package com.turankanbur.calculator;
  */
 import static org.junit.Assert.assertEquals;
 
+/**
+ * Provides methods for asserting false conditions.
+ */
+import static org.junit.Assert.assertFalse;
+
 /**
  * Provides methods for asserting true conditions.
  */
@@ -32,6 +37,11 @@ import java.io.ByteArrayInputStream;
  */
 import java.io.ByteArrayOutputStream;
 
+/**
+ * Represents the temporary data directory of a test.
+ */
+import java.io.File;
+
 /**
  * Represents an input stream of bytes.
  */
@@ -43,9 +53,19 @@ import java.io.InputStream;
 import java.io.PrintStream;
 
 /**
- * A simple text scanner which can parse primitive types and strings using regular expressions.
+ * Provides an implementation of the List interface backed by an array.
  */
-import java.util.Scanner;
+import java.util.ArrayList;
+
+/**
+ * Provides a fixed-size list view of the test recipes.
+ */
+import java.util.Arrays;
+
+/**
+ * Provides the list of meals read back from the data file.
+ */
+import java.util.List;
 
 /**
  * Used to perform clean-up activities after each test method.
@@ -146,7 +166,7 @@ public class MenuTests {
 	 * @param input   The input string to provide to the scanner.
 	 * @param scanner The scanner to provide input to.
 	 */
-	private void provideInput(String input, Scanner scanner) {
+	private void provideInput(String input, ConsoleInput scanner) {
 		System.setIn(new ByteArrayInputStream(input.getBytes()));
 	}
 
@@ -158,7 +178,7 @@ public class MenuTests {
 	@Test
 	public void testRegisterandLoginOption() throws InterruptedException {
 		String inputForRegister = "1\n53\n53\n7\n2\n53\n53\n5\n";
-		Scanner scanner = new Scanner(inputForRegister);
+		ConsoleInput scanner = new ConsoleInput(inputForRegister);
 		// Simulate user input: "5" for exit, then "y" for "Yes"
 
 		provideInput(inputForRegister, scanner);
@@ -185,7 +205,7 @@ public class MenuTests {
 	public void testFailedBothNotEqualLoginOption() throws InterruptedException {
 		String inputForRegister = "2\nasdasdas\ndasdasdas\n2\n53\n52\n1\n\n\n4\n";
 		
-		Scanner scanner = new Scanner(inputForRegister);
+		ConsoleInput scanner = new ConsoleInput(inputForRegister);
 		// Simulate user input: "5" for exit, then "y" for "Yes"
 
 		provideInput(inputForRegister, scanner);
@@ -209,7 +229,7 @@ public class MenuTests {
     @Test
     public void testIngredientMenuExitOption() {
 	  String inputForIngredientMenuExit = "1\n5\n5\n";
-      Scanner scanner = new Scanner(inputForIngredientMenuExit);
+      ConsoleInput scanner = new ConsoleInput(inputForIngredientMenuExit);
       // Simulate user input: "5" for exit, then "y" for "Yes"
 	
 	  provideInput(inputForIngredientMenuExit,scanner);
@@ -225,6 +245,7 @@ public class MenuTests {
               "2-View Ingredient\n" +
               "3-Edit Ingredient\n" +
               "4-Remove Ingredient\n" +
+              "P-Price Search\n" +
               "5-Main Menu\n" +
               "Press First Character for further Operation \n" +
               "Welcome To Recipe Cost Calculator App\n" +
@@ -249,7 +270,7 @@ public class MenuTests {
 	@Test
 	public void testGuestSelectMenuExitOption() {
 		String inputForGuestSelectMenu = "3\n1\n1\nc\n1\n2\n2\n1\nc\n2\n2\n3\n1\nc\n3\n2\n4\n1\n4\n2\n1\n5\n";
-		Scanner scanner = new Scanner(inputForGuestSelectMenu);
+		ConsoleInput scanner = new ConsoleInput(inputForGuestSelectMenu);
 		// Simulate user input: "5" for exit, then "y" for "Yes"
 
 		provideInput(inputForGuestSelectMenu, scanner);
@@ -271,7 +292,7 @@ public class MenuTests {
 	@Test
 	public void testGuestSelectMenuViewOptionWithInvalidKeyword() {
 		String inputForGuestSelectMenu = "3\n3\n1\na\n5\n";
-		Scanner scanner = new Scanner(inputForGuestSelectMenu);
+		ConsoleInput scanner = new ConsoleInput(inputForGuestSelectMenu);
 		// Simulate user input: "5" for exit, then "y" for "Yes"
 
 		provideInput(inputForGuestSelectMenu, scanner);
@@ -293,7 +314,7 @@ public class MenuTests {
 	@Test
 	public void testSelectMenuForGuestWithInvalidKeyword() {
 		String testSelectMenuForGuestInvalidKeyword = "3\n4\n1\n6\n5\n";
-		Scanner scanner = new Scanner(testSelectMenuForGuestInvalidKeyword);
+		ConsoleInput scanner = new ConsoleInput(testSelectMenuForGuestInvalidKeyword);
 		// Simulate user input: "5" for exit, then "y" for "Yes"
 
 		provideInput(testSelectMenuForGuestInvalidKeyword, scanner);
@@ -315,7 +336,7 @@ public class MenuTests {
     @Test
     public void testRecipeMenuExitOption() {
 	  String inputforRecipeMenuExit = "2\n4\n5\n";
-      Scanner scanner = new Scanner(inputforRecipeMenuExit);
+      ConsoleInput scanner = new ConsoleInput(inputforRecipeMenuExit);
       // Simulate user input: "5" for exit, then "y" for "Yes"
 	
 	  provideInput(inputforRecipeMenuExit,scanner);
@@ -330,6 +351,9 @@ public class MenuTests {
               "1-Create Recipe\n" +
               "2-View Recipes\n" +
               "3-Edit Recipes\n" +
+              "S-Search Recipes\n" +
+              "W-What Can I Cook\n" +
+              "T-Top Costs\n" +
               "4-Main Menu\n" +
               "Press First Character for further Operation \n" +
               "Welcome To Recipe Cost Calculator App\n" +
@@ -354,7 +378,7 @@ public class MenuTests {
     @Test
 	public void testPlanMealMenuInvalidOption() {
 		String testPlanMealMenuInvalidOption = "1\n53\n53\n2\n53\n53\n3\n3\n3\n2\nc\n3\n9\n3\n5\n";
-		Scanner scanner = new Scanner(testPlanMealMenuInvalidOption);
+		ConsoleInput scanner = new ConsoleInput(testPlanMealMenuInvalidOption);
 		// Simulate user input: "5" for exit, then "y" for "Yes"
 
 		provideInput(testPlanMealMenuInvalidOption, scanner);
@@ -377,7 +401,7 @@ public class MenuTests {
     @Test
 	public void testPlanMealGuestMenuInvalidOption() {
 		String testPlanMealGuestMenuInvalidOption = "3\n3\n9\n2\n5\n";
-		Scanner scanner = new Scanner(testPlanMealGuestMenuInvalidOption);
+		ConsoleInput scanner = new ConsoleInput(testPlanMealGuestMenuInvalidOption);
 		// Simulate user input: "5" for exit, then "y" for "Yes"
 
 		provideInput(testPlanMealGuestMenuInvalidOption, scanner);
@@ -400,7 +424,7 @@ public class MenuTests {
     @Test
     public void testPlanMealmenuExitOption() {
 	  String inputForMealMenuExit = "3\n3\n5\n";
-      Scanner scanner = new Scanner(inputForMealMenuExit);
+      ConsoleInput scanner = new ConsoleInput(inputForMealMenuExit);
       // Simulate user input: "5" for exit, then "y" for "Yes"
 	
 	  provideInput(inputForMealMenuExit,scanner);
@@ -414,6 +438,11 @@ public class MenuTests {
               "----------------\n" +
               "1-Create Meal\n" +
               "2-View Meals\n" +
+              "S-Search Meals\n" +
+              "T-Top Costs\n" +
+              "O-Optimize Meal\n" +
+              "W-Weekly Plan\n" +
+              "N-Number of Covers\n" +
               "3-Main Menu\n" +
               "Press First Character for further Operation \n" +
               "Welcome To Recipe Cost Calculator App\n" +
@@ -438,7 +467,7 @@ public class MenuTests {
     @Test
     public void testAboutExitOption() {
 	  String inputForAbout = "4\n1\n5\n";
-      Scanner scanner = new Scanner(inputForAbout);
+      ConsoleInput scanner = new ConsoleInput(inputForAbout);
       // Simulate user input: "5" for inputforAbout, then "y" for "Yes"
 	
 	  provideInput(inputForAbout,scanner);
@@ -476,7 +505,7 @@ public class MenuTests {
 	@Test
 	public void testGuestMenuExitOption() {
 		String testGuestMenuExitOption = "3\n1\n1\na\n1\n1\nc\n1\n2\n2\n1\nc\n2\n2\n3\n1\nc\n3\n2\n4\n1\n5\n";
-		Scanner scanner = new Scanner(testGuestMenuExitOption);
+		ConsoleInput scanner = new ConsoleInput(testGuestMenuExitOption);
 		// Simulate user input: "5" for exit, then "y" for "Yes"
 
 		provideInput(testGuestMenuExitOption, scanner);
@@ -499,7 +528,7 @@ public class MenuTests {
 	@Test
 	public void testRecipeGuestMenuOptionWithInvalidKey() {
 		String testGuestMenuExitOptionInvalidKey = "3\n2\n1\nc\n2\n8\n2\n5\n";
-		Scanner scanner = new Scanner(testGuestMenuExitOptionInvalidKey);
+		ConsoleInput scanner = new ConsoleInput(testGuestMenuExitOptionInvalidKey);
 		// Simulate user input: "5" for exit, then "y" for "Yes"
 
 		provideInput(testGuestMenuExitOptionInvalidKey, scanner);
@@ -522,7 +551,7 @@ public class MenuTests {
 	@Test
 	public void testRecipeGuestMenuViewOptionWithInvalidKey() {
 		String testViewGuestMenuInvalidKey = "3\n2\n1\na\n5\n";
-		Scanner scanner = new Scanner(testViewGuestMenuInvalidKey);
+		ConsoleInput scanner = new ConsoleInput(testViewGuestMenuInvalidKey);
 		// Simulate user input: "5" for exit, then "y" for "Yes"
 
 		provideInput(testViewGuestMenuInvalidKey, scanner);
@@ -545,7 +574,7 @@ public class MenuTests {
 	@Test
 	public void testIngredientMenuAddOption() {
 		String inputForIngredientAddMenu = "1\n1\n\n\n25\n5\n";
-		Scanner scanner = new Scanner(inputForIngredientAddMenu);
+		ConsoleInput scanner = new ConsoleInput(inputForIngredientAddMenu);
 		// Simulate user input: "5" for exit, then "y" for "Yes"
 
 		provideInput(inputForIngredientAddMenu, scanner);
@@ -568,7 +597,7 @@ public class MenuTests {
 	@Test
 	public void testIngredientMenuViewOption() {
 		String inputForIngredientViewMenu = "1\n2\nc\n5\n\n";
-		Scanner scanner = new Scanner(inputForIngredientViewMenu);
+		ConsoleInput scanner = new ConsoleInput(inputForIngredientViewMenu);
 		// Simulate user input: "5" for exit, then "y" for "Yes"
 
 		provideInput(inputForIngredientViewMenu, scanner);
@@ -591,7 +620,7 @@ public class MenuTests {
 	@Test
 	public void testIngredientMenuEditOptionWithCancel() {
 		String inputForIngredientEditMenu = "1\n1\nyumurta\n10\n1\n3\nsalca\n25\nc\n5\n";
-		Scanner scanner = new Scanner(inputForIngredientEditMenu);
+		ConsoleInput scanner = new ConsoleInput(inputForIngredientEditMenu);
 		// Simulate user input: "5" for exit, then "y" for "Yes"
 
 		provideInput(inputForIngredientEditMenu, scanner);
@@ -614,7 +643,7 @@ public class MenuTests {
 	@Test
 	public void testIngredientMenuEditOptionWithSave() {
 		String inputForIngredientEditMenu = "1\n1\nsalca\n10\n1\n3\nsalca\n25\ns\n5\n";
-		Scanner scanner = new Scanner(inputForIngredientEditMenu);
+		ConsoleInput scanner = new ConsoleInput(inputForIngredientEditMenu);
 		// Simulate user input: "5" for exit, then "y" for "Yes"
 
 		provideInput(inputForIngredientEditMenu, scanner);
@@ -637,7 +666,7 @@ public class MenuTests {
 	@Test
 	public void testIngredientMenuRemoveOption() {
 		String inputForIngredientRemoveMenu = "1\n4\n1\ns\n5\n";
-		Scanner scanner = new Scanner(inputForIngredientRemoveMenu);
+		ConsoleInput scanner = new ConsoleInput(inputForIngredientRemoveMenu);
 		// Simulate user input: "5" for exit, then "y" for "Yes"
 
 		provideInput(inputForIngredientRemoveMenu, scanner);
@@ -660,7 +689,7 @@ public class MenuTests {
 	@Test
 	public void testIngredientMenuRemoveOptionWithSave() {
 		String inputForIngredientRemoveMenu = "1\n1\ntuz\n30\n1\n4\ntuz\ns\n5\n";
-		Scanner scanner = new Scanner(inputForIngredientRemoveMenu);
+		ConsoleInput scanner = new ConsoleInput(inputForIngredientRemoveMenu);
 		// Simulate user input: "5" for exit, then "y" for "Yes"
 
 		provideInput(inputForIngredientRemoveMenu, scanner);
@@ -683,7 +712,7 @@ public class MenuTests {
 	@Test
 	public void testIngredientMenuRemoveOptionWithCancel() {
 		String inputForIngredientRemoveMenu = "1\n1\ntuz\n30\n1\n4\ntuz\nc\n5\n";
-		Scanner scanner = new Scanner(inputForIngredientRemoveMenu);
+		ConsoleInput scanner = new ConsoleInput(inputForIngredientRemoveMenu);
 		// Simulate user input: "5" for exit, then "y" for "Yes"
 
 		provideInput(inputForIngredientRemoveMenu, scanner);
@@ -706,7 +735,7 @@ public class MenuTests {
 	@Test
 	public void testIngredientGuestMenuWithInvalidOption() {
 		String testViewGuestMenuInvalidKey = "3\n1\n1\nc\n1\n7\n2\n5\n";
-		Scanner scanner = new Scanner(testViewGuestMenuInvalidKey);
+		ConsoleInput scanner = new ConsoleInput(testViewGuestMenuInvalidKey);
 		// Simulate user input: "5" for exit, then "y" for "Yes"
 
 		provideInput(testViewGuestMenuInvalidKey, scanner);
@@ -729,7 +758,7 @@ public class MenuTests {
 	@Test
 	public void testIngredientMenuWithInvalidOption() {
 		String testIngredientMenuInvalidKey = "1\n2\nc\n1\n8\n5\n5\n";
-		Scanner scanner = new Scanner(testIngredientMenuInvalidKey);
+		ConsoleInput scanner = new ConsoleInput(testIngredientMenuInvalidKey);
 		// Simulate user input: "5" for exit, then "y" for "Yes"
 
 		provideInput(testIngredientMenuInvalidKey, scanner);
@@ -752,8 +781,8 @@ public class MenuTests {
 	@Test
 	public void testCreateRecipeMenuOption() {
 
-		String inputForCreateRecipeMenu = "2\n1\n-1\n1\n20\nq\n1\n5\n";
-		Scanner scanner = new Scanner(inputForCreateRecipeMenu);
+		String inputForCreateRecipeMenu = "2\n1\n-1\n1\n20\nq\n1\n\n5\n";
+		ConsoleInput scanner = new ConsoleInput(inputForCreateRecipeMenu);
 		// Simulate user input: "5" for exit, then "y" for "Yes"
 
 		provideInput(inputForCreateRecipeMenu, scanner);
@@ -775,8 +804,8 @@ public class MenuTests {
 	 */
 	@Test
 	public void testCreateRecipeMenuOptionWithValidAndInvalidKeywords() {
-		String inputForCreateRecipeMenu = "2\n1\n600\nabc\n4\n20\nq\nyemektarifi\n5\n";
-		Scanner scanner = new Scanner(inputForCreateRecipeMenu);
+		String inputForCreateRecipeMenu = "2\n1\n600\nabc\n4\n20\nq\nyemektarifi\n\n5\n";
+		ConsoleInput scanner = new ConsoleInput(inputForCreateRecipeMenu);
 		// Simulate user input: "5" for exit, then "y" for "Yes"
 
 		provideInput(inputForCreateRecipeMenu, scanner);
@@ -799,7 +828,7 @@ public class MenuTests {
 	@Test
 	public void testViewRecipeMenuOptionWithInvalidKeyword() {
 		String inputForViewRecipeMenu = "2\n2\na\n5\n";
-		Scanner scanner = new Scanner(inputForViewRecipeMenu);
+		ConsoleInput scanner = new ConsoleInput(inputForViewRecipeMenu);
 		// Simulate user input: "5" for exit, then "y" for "Yes"
 
 		provideInput(inputForViewRecipeMenu, scanner);
@@ -823,7 +852,7 @@ public class MenuTests {
 	public void testEditRecipeMenuOption() {
 
 		String inputForEditEecipeMenu = "2\n3\ns\n5\ns\n5\n";
-		Scanner scanner = new Scanner(inputForEditEecipeMenu);
+		ConsoleInput scanner = new ConsoleInput(inputForEditEecipeMenu);
 		// Simulate user input: "5" for exit, then "y" for "Yes"
 
 		provideInput(inputForEditEecipeMenu, scanner);
@@ -847,7 +876,7 @@ public class MenuTests {
 	public void testRecipeMenuWithInvalidOption() {
 
 		String testRecipeMenuInvalidKey = "2\n53\n53\n2\n2\nc\n2\n8\n4\n5\n";
-		Scanner scanner = new Scanner(testRecipeMenuInvalidKey);
+		ConsoleInput scanner = new ConsoleInput(testRecipeMenuInvalidKey);
 		// Simulate user input: "5" for exit, then "y" for "Yes"
 
 		provideInput(testRecipeMenuInvalidKey, scanner);
@@ -869,8 +898,8 @@ public class MenuTests {
 	 */
 	@Test
 	public void testCreateMealMenuOption() {
-		String inputForCreateMealMenu = "3\n1\n1\nq\ns\nc\n5\n";
-		Scanner scanner = new Scanner(inputForCreateMealMenu);
+		String inputForCreateMealMenu = "3\n1\n1\nq\ns\n\nc\n5\n";
+		ConsoleInput scanner = new ConsoleInput(inputForCreateMealMenu);
 		// Simulate user input: "5" for exit, then "y" for "Yes"
 
 		provideInput(inputForCreateMealMenu, scanner);
@@ -892,8 +921,8 @@ public class MenuTests {
 	 */
 	@Test
 	public void testCreateMealInvalidRecipeMenuOption() {
-		String inputForCreateMealMenu = "3\n1\n1\n1000\na\nq\ns\nc\n5\n";
-		Scanner scanner = new Scanner(inputForCreateMealMenu);
+		String inputForCreateMealMenu = "3\n1\n1\n1000\na\nq\ns\n\nc\n5\n";
+		ConsoleInput scanner = new ConsoleInput(inputForCreateMealMenu);
 		// Simulate user input: "5" for exit, then "y" for "Yes"
 
 		provideInput(inputForCreateMealMenu, scanner);
@@ -916,7 +945,7 @@ public class MenuTests {
 	@Test
 	public void testViewMealMenuOption() {
 		String inputForViewMealMenu = "3\n2\nc\n5\n";
-		Scanner scanner = new Scanner(inputForViewMealMenu);
+		ConsoleInput scanner = new ConsoleInput(inputForViewMealMenu);
 		// Simulate user input: "5" for exit, then "y" for "Yes"
 
 		provideInput(inputForViewMealMenu, scanner);
@@ -939,7 +968,7 @@ public class MenuTests {
 	@Test
 	public void testViewMealMenuOptionWithInvalidKeyword() {
 		String inputForViewMealMenu = "3\n2\na\n5\n";
-		Scanner scanner = new Scanner(inputForViewMealMenu);
+		ConsoleInput scanner = new ConsoleInput(inputForViewMealMenu);
 		// Simulate user input: "5" for exit, then "y" for "Yes"
 
 		provideInput(inputForViewMealMenu, scanner);
@@ -962,7 +991,7 @@ public class MenuTests {
 	@Test
 	public void testAboutOption() {
 		String inputForAboutMenu = "4\n1\n5\n";
-		Scanner scanner = new Scanner(inputForAboutMenu);
+		ConsoleInput scanner = new ConsoleInput(inputForAboutMenu);
 		// Simulate user input: "5" for exit, then "y" for "Yes"
 
 		provideInput(inputForAboutMenu, scanner);
@@ -985,7 +1014,7 @@ public class MenuTests {
 	@Test
 	public void testAboutOptionWithInvalidKey() {
 		String inputForAboutOptionInvalidKey= "4\n1\n4\n8\n1\n5\n";
-		Scanner scanner = new Scanner(inputForAboutOptionInvalidKey);
+		ConsoleInput scanner = new ConsoleInput(inputForAboutOptionInvalidKey);
 		// Simulate user input: "5" for exit, then "y" for "Yes"
 
 		provideInput(inputForAboutOptionInvalidKey, scanner);
@@ -1008,7 +1037,7 @@ public class MenuTests {
 	@Test
 	public void testAboutGuestModeOption() {
 		String inputForAboutGuestMenu = "3\n4\n1\n5\n";
-		Scanner scanner = new Scanner(inputForAboutGuestMenu);
+		ConsoleInput scanner = new ConsoleInput(inputForAboutGuestMenu);
 		// Simulate user input: "5" for exit, then "y" for "Yes"
 
 		provideInput(inputForAboutGuestMenu, scanner);
@@ -1031,7 +1060,7 @@ public class MenuTests {
 	@Test
 	public void TestMain() {
 		String inputForAboutMenu = "4\n";
-		Scanner scanner = new Scanner(inputForAboutMenu);
+		ConsoleInput scanner = new ConsoleInput(inputForAboutMenu);
 		// Simulate user input: "5" for exit, then "y" for "Yes"
 
 		provideInput(inputForAboutMenu, scanner);
@@ -1047,4 +1076,398 @@ public class MenuTests {
 		assertTrue(actualOutput.contains("User Menu"));
 	}
  
+
+
+	/**
+	 * Tests that the hidden flight recording command starts and saves a recording.
+	 */
+	@Test
+	public void testFlightRecordingToggle() {
+		String input = "J\nJ\n5\n";
+		ConsoleInput scanner = new ConsoleInput(input);
+		provideInput(input, scanner);
+		Menu menu = new Menu();
+		menu.selectMenu(scanner);
+
+		String actualOutput = testOut.toString();
+		assertTrue(actualOutput.contains("Flight recording started."));
+		String marker = "Flight recording saved to ";
+		int index = actualOutput.indexOf(marker);
+		assertTrue(index >= 0);
+		String path = actualOutput.substring(index + marker.length(), actualOutput.indexOf(System.lineSeparator(), index));
+		assertTrue(new java.io.File(path).delete());
+	}
+
+
+	/**
+	 * Tests that the hidden diagnostics screen lists the menu action latencies.
+	 */
+	@Test
+	public void testDiagnosticsScreen() {
+		String input = "D\nc\n5\n";
+		ConsoleInput scanner = new ConsoleInput(input);
+		provideInput(input, scanner);
+		Menu menu = new Menu();
+		menu.selectMenu(scanner);
+
+		String actualOutput = testOut.toString();
+		assertTrue(actualOutput.contains("Diagnostics"));
+		assertTrue(actualOutput.contains("Add ingredient"));
+		assertTrue(actualOutput.contains("Slow operations"));
+	}
+
+
+	/**
+	 * Tests choosing recipe ingredients by typing a name prefix instead of a number.
+	 */
+	@Test
+	public void testCreateRecipeByIngredientName() {
+		File directory = new File("test_menu_complete");
+		directory.mkdir();
+		DataFiles.setDirectory(directory);
+		try {
+			IngredientManagement management = new IngredientManagement(null, 0);
+			management.addIngredient(new Ingredient("Flour", 2), DataFiles.ingredients());
+			management.addIngredient(new Ingredient("Salt", 1), DataFiles.ingredients());
+			management.addIngredient(new Ingredient("Sugar", 4), DataFiles.ingredients());
+			management.saveToFile(DataFiles.ingredients());
+
+			String input = "2\n1\ns\nflo\n3\nxyz\nsu\n2\nq\nBread\n\n5\n";
+			ConsoleInput scanner = new ConsoleInput(input);
+			provideInput(input, scanner);
+			Menu menu = new Menu();
+			menu.selectMenu(scanner);
+
+			String actualOutput = testOut.toString();
+			assertTrue(actualOutput.contains("Matching ingredients"));
+			assertTrue(actualOutput.contains("Enter quantity for Flour"));
+			assertTrue(actualOutput.contains("No ingredient name starts with \"xyz\""));
+			assertTrue(actualOutput.contains("Enter quantity for Sugar"));
+			assertTrue(actualOutput.contains("Total Cost: 14.0$"));
+		} finally {
+			DataFiles.setDirectory(null);
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+
+	/**
+	 * Tests searching recipe names by their words from the recipe menu.
+	 */
+	@Test
+	public void testSearchRecipesByWord() {
+		File directory = new File("test_menu_search");
+		directory.mkdir();
+		DataFiles.setDirectory(directory);
+		try {
+			RecipeManagement.saveToFile(new ArrayList<>(Arrays.asList(
+					new Recipe("Spicy Chicken Wrap", Arrays.asList(new Ingredient("Chicken", 10)), 10.0),
+					new Recipe("Lentil Soup", Arrays.asList(new Ingredient("Lentil", 3)), 3.0),
+					new Recipe("Vegan Bowl", Arrays.asList(new Ingredient("Rice", 2)), 2.0))), DataFiles.recipes());
+
+			String input = "2\ns\nspicy chicken OR bowl\nc\n5\n";
+			ConsoleInput scanner = new ConsoleInput(input);
+			provideInput(input, scanner);
+			Menu menu = new Menu();
+			menu.selectMenu(scanner);
+
+			String actualOutput = testOut.toString();
+			assertTrue(actualOutput.contains("2 recipes found."));
+			assertTrue(actualOutput.contains("Spicy Chicken Wrap - 10.0$"));
+			assertTrue(actualOutput.contains("Vegan Bowl - 2.0$"));
+			assertFalse(actualOutput.contains("Lentil Soup"));
+		} finally {
+			DataFiles.setDirectory(null);
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+
+	/**
+	 * Tests listing the recipes that can be cooked from the stock from the recipe menu.
+	 */
+	@Test
+	public void testCookableRecipes() {
+		File directory = new File("test_menu_cook");
+		directory.mkdir();
+		DataFiles.setDirectory(directory);
+		try {
+			RecipeManagement.saveToFile(new ArrayList<>(Arrays.asList(
+					new Recipe("Pancake", Arrays.asList(new Ingredient("Flour", 2), new Ingredient("Egg", 1)), 3.0),
+					new Recipe("Omelette", Arrays.asList(new Ingredient("Egg", 1), new Ingredient("Cheese", 4)), 5.0),
+					new Recipe("Pilaf", Arrays.asList(new Ingredient("Rice", 4), new Ingredient("Butter", 3)), 7.0))),
+					DataFiles.recipes());
+
+			String input = "2\nw\nflour, egg\n1\nc\n5\n";
+			ConsoleInput scanner = new ConsoleInput(input);
+			provideInput(input, scanner);
+			Menu menu = new Menu();
+			menu.selectMenu(scanner);
+
+			String actualOutput = testOut.toString();
+			assertTrue(actualOutput.contains("2 recipes can be cooked."));
+			assertTrue(actualOutput.contains("Pancake - 3.0$" + System.lineSeparator()));
+			assertTrue(actualOutput.contains("Omelette - 5.0$ (missing: Cheese)"));
+			assertFalse(actualOutput.contains("Pilaf"));
+		} finally {
+			DataFiles.setDirectory(null);
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+
+
+	/**
+	 * Tests listing ingredients by price range and the most expensive ingredients from the ingredient menu.
+	 */
+	@Test
+	public void testFindIngredientsByPrice() {
+		File directory = new File("test_menu_price");
+		directory.mkdir();
+		DataFiles.setDirectory(directory);
+		try {
+			IngredientManagement management = new IngredientManagement(null, 0);
+			management.addIngredient(new Ingredient("Flour", 2), "unused");
+			management.addIngredient(new Ingredient("Saffron", 40), "unused");
+			management.addIngredient(new Ingredient("Butter", 6), "unused");
+			management.addIngredient(new Ingredient("Vanilla", 25), "unused");
+			management.saveToFile(DataFiles.ingredients());
+
+			String input = "1\np\n5 30\nc\n1\np\ntop 1\nc\n5\n";
+			ConsoleInput scanner = new ConsoleInput(input);
+			provideInput(input, scanner);
+			Menu menu = new Menu();
+			menu.selectMenu(scanner);
+
+			String actualOutput = testOut.toString();
+			assertTrue(actualOutput.contains("2 ingredients found." + System.lineSeparator() + "    Butter - 6$"
+					+ System.lineSeparator() + "    Vanilla - 25$"));
+			assertTrue(actualOutput.contains("1 ingredients found." + System.lineSeparator() + "    Saffron - 40$"));
+			assertFalse(actualOutput.contains("Flour - 2$"));
+		} finally {
+			DataFiles.setDirectory(null);
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+
+
+	/**
+	 * Tests ranking the cheapest recipes and the priciest meals from the recipe and meal menus.
+	 */
+	@Test
+	public void testRankCosts() {
+		File directory = new File("test_menu_rank");
+		directory.mkdir();
+		DataFiles.setDirectory(directory);
+		try {
+			Recipe pancake = new Recipe("Pancake", Arrays.asList(new Ingredient("Flour", 2), new Ingredient("Egg", 1)), 3.0);
+			Recipe omelette = new Recipe("Omelette", Arrays.asList(new Ingredient("Egg", 1)), 1.0);
+			Recipe pilaf = new Recipe("Pilaf", Arrays.asList(new Ingredient("Rice", 4)), 7.0);
+			RecipeManagement.saveToFile(new ArrayList<>(Arrays.asList(pancake, omelette, pilaf)), DataFiles.recipes());
+			new MealManagement().saveMealsToFile(new ArrayList<>(Arrays.asList(
+					new Meal("Brunch", Arrays.asList(pancake, omelette)), new Meal("Dinner", Arrays.asList(pilaf)))),
+					DataFiles.meals());
+
+			String input = "2\nt\ncheapest 2\nc\n3\nt\npriciest 5 egg\nc\n5\n";
+			ConsoleInput scanner = new ConsoleInput(input);
+			provideInput(input, scanner);
+			Menu menu = new Menu();
+			menu.selectMenu(scanner);
+
+			String actualOutput = testOut.toString();
+			assertTrue(actualOutput.contains("2 recipes ranked." + System.lineSeparator() + "    1. Omelette - 1.0$"
+					+ System.lineSeparator() + "    2. Pancake - 3.0$"));
+			assertTrue(actualOutput.contains("1 meals ranked." + System.lineSeparator() + "    1. Brunch - 4.0$"));
+		} finally {
+			DataFiles.setDirectory(null);
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+
+
+	/**
+	 * Tests composing and saving a meal within a budget from the meal menu.
+	 */
+	@Test
+	public void testOptimizeMeal() {
+		File directory = new File("test_menu_optimize");
+		directory.mkdir();
+		DataFiles.setDirectory(directory);
+		try {
+			RecipeManagement.saveToFile(new ArrayList<>(Arrays.asList(
+					new Recipe("Tomato Soup", Arrays.asList(new Ingredient("Tomato", 2), new Ingredient("Onion", 1)), 4.0),
+					new Recipe("Green Salad", Arrays.asList(new Ingredient("Lettuce", 2), new Ingredient("Tomato", 2),
+							new Ingredient("Cucumber", 1)), 5.0),
+					new Recipe("Steak", Arrays.asList(new Ingredient("Beef", 12)), 12.0),
+					new Recipe("Bread", Arrays.asList(new Ingredient("Flour", 1)), 1.0))), DataFiles.recipes());
+
+			String input = "3\no\n10\n2\n2\nsoup, &\n\nLunch\nc\n5\n";
+			ConsoleInput scanner = new ConsoleInput(input);
+			provideInput(input, scanner);
+			Menu menu = new Menu();
+			menu.selectMenu(scanner);
+
+			String actualOutput = testOut.toString();
+			assertTrue(actualOutput.contains("Maximizing ingredients."));
+			assertTrue(actualOutput.contains("Invalid course: &"));
+			assertTrue(actualOutput.contains("Best meal: 2 recipes, 9.0$, 5 ingredients."));
+			List<Meal> meals = new MealManagement().loadMealsFromFile(DataFiles.meals());
+			assertEquals(1, meals.size());
+			assertEquals("Lunch", meals.get(0).getName());
+			assertEquals(9.0, meals.get(0).getTotalCost(), 0.0);
+		} finally {
+			DataFiles.setDirectory(null);
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+
+	/**
+	 * Tests planning the saved meals over several days from the meal menu.
+	 */
+	@Test
+	public void testPlanMeals() {
+		File directory = new File("test_menu_plan");
+		directory.mkdir();
+		DataFiles.setDirectory(directory);
+		try {
+			new MealManagement().saveMealsToFile(new ArrayList<>(Arrays.asList(
+					new Meal("Soup Lunch", Arrays.asList(new Recipe("Tomato Soup",
+							Arrays.asList(new Ingredient("Tomato", 2), new Ingredient("Onion", 1)), 3.0))),
+					new Meal("Salad Dinner", Arrays.asList(new Recipe("Green Salad",
+							Arrays.asList(new Ingredient("Lettuce", 2), new Ingredient("Tomato", 2)), 4.0))))),
+					DataFiles.meals());
+
+			String input = "3\nw\n3\n100\nc\n5\n";
+			ConsoleInput scanner = new ConsoleInput(input);
+			provideInput(input, scanner);
+			Menu menu = new Menu();
+			menu.selectMenu(scanner);
+
+			String actualOutput = testOut.toString();
+			assertTrue(actualOutput.contains("Day 3: "));
+			assertTrue(actualOutput.contains("Purchase cost: 5.0$, 2 different recipes."));
+			assertTrue(actualOutput.contains("Not enough meals to avoid repeating one within a week."));
+		} finally {
+			DataFiles.setDirectory(null);
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+
+	/**
+	 * Tests recosting a saved meal for a number of covers from the meal menu.
+	 */
+	@Test
+	public void testScaleMeal() {
+		File directory = new File("test_menu_scale");
+		directory.mkdir();
+		DataFiles.setDirectory(directory);
+		try {
+			Recipe soup = new Recipe("Tomato Soup", Arrays.asList(new Ingredient("Tomato", 2)), 8.0);
+			soup.setServings(4);
+			new MealManagement().saveMealsToFile(new ArrayList<>(Arrays.asList(new Meal("Lunch", Arrays.asList(soup,
+					new Recipe("Bread", Arrays.asList(new Ingredient("Flour", 1)), 1.0))))), DataFiles.meals());
+
+			String input = "3\nn\nlunch\n10\nc\n5\n";
+			ConsoleInput scanner = new ConsoleInput(input);
+			provideInput(input, scanner);
+			Menu menu = new Menu();
+			menu.selectMenu(scanner);
+
+			String actualOutput = testOut.toString();
+			assertTrue(actualOutput.contains("Tomato Soup: 3 x 4 servings - 24.0$"));
+			assertTrue(actualOutput.contains("Bread: 10 x 1 servings - 10.0$"));
+			assertTrue(actualOutput.contains("Cost for 10 covers: 34.0$, 3.4$ per cover."));
+		} finally {
+			DataFiles.setDirectory(null);
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+
+	/**
+	 * Tests pricing an ingredient per kilogram and measuring it in grams in a recipe.
+	 */
+	@Test
+	public void testCreateRecipeWithUnits() {
+		File directory = new File("test_menu_units");
+		directory.mkdir();
+		DataFiles.setDirectory(directory);
+		try {
+			String input = "1\n1\nFlour\n2 kg\n2\n1\n1\n500 g\n1\n2 pc\n1\n1500g\nq\nBread\n\n5\n";
+			ConsoleInput scanner = new ConsoleInput(input);
+			provideInput(input, scanner);
+			Menu menu = new Menu();
+			menu.selectMenu(scanner);
+
+			String actualOutput = testOut.toString();
+			assertTrue(actualOutput.contains("1. Flour - Price: 2$/kg"));
+			assertTrue(actualOutput.contains("Cannot measure Flour in pc. Please try again."));
+			assertTrue(actualOutput.contains("Total Cost: 4.0$"));
+			assertTrue(actualOutput.contains("- Flour: 2$ per kg"));
+		} finally {
+			DataFiles.setDirectory(null);
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+
+	/**
+	 * Tests entering the servings of a new recipe and the covers of a new meal.
+	 */
+	@Test
+	public void testCreateWithServings() {
+		File directory = new File("test_menu_servings");
+		directory.mkdir();
+		DataFiles.setDirectory(directory);
+		try {
+			String input = "1\n1\nFlour\n2\n2\n1\n1\n3\nq\nBread\n4\n3\n1\n1\nq\nLunch\nabc\nc\n5\n";
+			ConsoleInput scanner = new ConsoleInput(input);
+			provideInput(input, scanner);
+			Menu menu = new Menu();
+			menu.selectMenu(scanner);
+
+			String actualOutput = testOut.toString();
+			assertTrue(actualOutput.contains("Enter servings per batch (blank for 1): "));
+			assertTrue(actualOutput.contains("Servings: 4"));
+			assertTrue(actualOutput.contains("Invalid number of servings. Using 1."));
+			assertEquals(4, RecipeManagement.loadFromFile(DataFiles.recipes()).get(0).getServings());
+		} finally {
+			DataFiles.setDirectory(null);
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
 }
\ No newline at end of file
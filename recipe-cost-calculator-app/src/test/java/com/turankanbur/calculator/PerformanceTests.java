@@ -0,0 +1,560 @@
+/**
+ * 
+@file PerformanceTests.java
+@brief This file contains the performance regression tests of the calculator application.
+@details The tests assert latency and allocation budgets of the persistence, lookup and cost paths. They only run
+         in the "performance" Maven profile. Budgets can be overridden with system properties so a slower CI box can
+         be accommodated without editing the tests.
+*/
+package com.turankanbur.calculator;
+
+
+/**
+ * Assertion methods for comparing expected and actual values.
+ */
+import static org.junit.Assert.*;
+
+/**
+ * Provides an abstraction for file and directory pathnames.
+ */
+import java.io.File;
+
+/**
+ * Provides access to the thread system of the Java virtual machine.
+ */
+import java.lang.management.ManagementFactory;
+
+/**
+ * Provides writing the placeholder source of the ranking image.
+ */
+import java.nio.file.Files;
+
+/**
+ * Provides resizable-array and implements the List interface.
+ */
+import java.util.ArrayList;
+
+/**
+ * Provides utility methods for arrays, such as sorting and searching.
+ */
+import java.util.Arrays;
+
+/**
+ * Provides resizable-array implementation of the List interface.
+ */
+import java.util.List;
+
+/**
+ * Used to specify a method which should be run once after all tests.
+ */
+import org.junit.AfterClass;
+
+/**
+ * Used to specify a method which should be run once before all tests.
+ */
+import org.junit.BeforeClass;
+
+/**
+ * Used to specify test methods.
+ */
+import org.junit.Test;
+
+/**
+ * Provides per-thread allocation counters.
+ */
+import com.sun.management.ThreadMXBean;
+
+
+/**
+ * 
+ * @class PerformanceTests
+ * @brief Asserts latency and allocation budgets of the calculator hot paths.
+ * @details Every measurement is warmed up first and then repeated over several trials. Latency budgets are compared
+ *          against the median trial and allocation budgets against the lowest trial, so a single noisy trial on a
+ *          shared machine does not fail the build.
+ */
+public class PerformanceTests {
+
+	
+	/**
+	 * @brief Number of ingredients in the persisted test catalog.
+	 */
+	private static final int CATALOG_SIZE = 100_000;
+
+	
+	/**
+	 * @brief Number of measured trials per test.
+	 */
+	private static final int TRIALS = Integer.getInteger("perf.trials", 7);
+
+	
+	/**
+	 * @brief Directory holding the generated data files.
+	 */
+	private static final File DIRECTORY = new File("test_performance");
+
+	
+	/**
+	 * @brief The persisted ingredient file.
+	 */
+	private static final File INGREDIENTS = new File(DIRECTORY, "ingredients.bin");
+
+	
+	/**
+	 * @brief Generator of the persisted catalog.
+	 */
+	private static DatasetGenerator generator;
+
+	
+	/**
+	 * @brief Generates the data files shared by all tests.
+	 */
+	@BeforeClass
+	public static void generateData() throws Exception {
+		generator = new DatasetGenerator(42L, CATALOG_SIZE, 1_000, 1_000, 8, 3, 1.0);
+		generator.generate(DIRECTORY);
+	}
+
+	
+	/**
+	 * @brief Deletes the generated data files.
+	 */
+	@AfterClass
+	public static void deleteData() {
+		File[] files = DIRECTORY.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		DIRECTORY.delete();
+	}
+
+	
+	/**
+	 * @brief Reads a budget from a system property.
+	 * @param name The property name.
+	 * @param defaultValue The budget used when the property is not set.
+	 * @return The budget.
+	 */
+	private static long budget(String name, long defaultValue) {
+		return Long.getLong(name, defaultValue);
+	}
+
+	
+	/**
+	 * @brief Retrieves the median of the trial results.
+	 * @param trials The trial results.
+	 * @return The median.
+	 */
+	private static long median(long[] trials) {
+		long[] sorted = trials.clone();
+		Arrays.sort(sorted);
+		return sorted[sorted.length / 2];
+	}
+
+	
+	/**
+	 * @brief Retrieves the lowest of the trial results.
+	 * @param trials The trial results.
+	 * @return The minimum.
+	 */
+	private static long min(long[] trials) {
+		return Arrays.stream(trials).min().getAsLong();
+	}
+
+	
+	/**
+	 * @brief Retrieves the number of bytes allocated by the current thread so far.
+	 * @return The allocated bytes.
+	 */
+	private static long allocatedBytes() {
+		ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	
+	/**
+     * @brief Tests that loading 100k ingredients stays within its latency budget.
+     */
+	@Test
+	public void testLoadIngredientsBudget() {
+		long budgetMillis = budget("perf.load.ingredients.ms", 2_000);
+
+		long[] trials = new long[TRIALS];
+		for (int trial = -2; trial < TRIALS; trial++) {
+			IngredientManagement management = new IngredientManagement(null, 0);
+			long start = System.nanoTime();
+			management.loadFromFile(INGREDIENTS.getPath());
+			long elapsed = System.nanoTime() - start;
+			assertEquals(CATALOG_SIZE, management.getIngredients().size());
+			if (trial >= 0) {
+				trials[trial] = elapsed / 1_000_000;
+			}
+		}
+
+		assertTrue("Median load of " + CATALOG_SIZE + " ingredients took " + median(trials) + " ms, budget "
+				+ budgetMillis + " ms", median(trials) <= budgetMillis);
+	}
+
+	
+	/**
+     * @brief Tests that a name lookup in the 100k guest image stays within its latency budget.
+     */
+	@Test
+	public void testImageLookupBudget() {
+		long budgetNanos = budget("perf.lookup.ns", 20_000);
+		GuestDataImage image = GuestDataImage.open(INGREDIENTS.getPath(), GuestDataImage.Kind.INGREDIENTS);
+		assertNotNull(image);
+
+		int lookups = 10_000;
+		String[] names = new String[lookups];
+		for (int i = 0; i < lookups; i++) {
+			names[i] = generator.ingredient((int) ((i * 7919L) % CATALOG_SIZE)).getName();
+		}
+
+		long[] trials = new long[TRIALS];
+		for (int trial = -3; trial < TRIALS; trial++) {
+			long start = System.nanoTime();
+			for (String name : names) {
+				assertTrue(image.find(name) >= 0);
+			}
+			long elapsed = System.nanoTime() - start;
+			if (trial >= 0) {
+				trials[trial] = elapsed / lookups;
+			}
+		}
+
+		assertTrue("Median image lookup took " + median(trials) + " ns, budget " + budgetNanos + " ns",
+				median(trials) <= budgetNanos);
+	}
+
+	
+	/**
+     * @brief Tests that a linear ingredient lookup in a 1k catalog stays within its latency budget.
+     */
+	@Test
+	public void testFindIngredientByNameBudget() {
+		long budgetNanos = budget("perf.find.ns", 50_000);
+		IngredientManagement management = new IngredientManagement(null, 0);
+		for (int i = 0; i < 1_000; i++) {
+			management.addIngredient(generator.ingredient(i), null);
+		}
+
+		int lookups = 10_000;
+		long[] trials = new long[TRIALS];
+		for (int trial = -3; trial < TRIALS; trial++) {
+			long start = System.nanoTime();
+			for (int i = 0; i < lookups; i++) {
+				assertNotNull(management.findIngredientByName(management.getIngredients().get((i * 31) % 1_000).getName()));
+			}
+			long elapsed = System.nanoTime() - start;
+			if (trial >= 0) {
+				trials[trial] = elapsed / lookups;
+			}
+		}
+
+		assertTrue("Median findIngredientByName took " + median(trials) + " ns, budget " + budgetNanos + " ns",
+				median(trials) <= budgetNanos);
+	}
+
+	
+	/**
+     * @brief Tests that the recipe and meal cost kernels do not allocate once warmed up.
+     */
+	@Test
+	public void testCostKernelsDoNotAllocate() {
+		long budgetBytes = budget("perf.cost.alloc.bytes", 0);
+
+		List<Ingredient> ingredients = new ArrayList<>();
+		int[] quantities = new int[16];
+		for (int i = 0; i < quantities.length; i++) {
+			ingredients.add(generator.ingredient(i));
+			quantities[i] = i + 1;
+		}
+		List<Recipe> recipes = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			recipes.add(generator.recipe(i));
+		}
+
+		int calls = 100_000;
+		double sink = 0.0;
+		long[] trials = new long[TRIALS];
+		for (int trial = -5; trial < TRIALS; trial++) {
+			long before = allocatedBytes();
+			for (int i = 0; i < calls; i++) {
+				sink += RecipeManagement.calculateTotalCost(ingredients, quantities);
+				sink += Meal.calculateTotalCost(recipes);
+			}
+			long allocated = allocatedBytes() - before;
+			if (trial >= 0) {
+				trials[trial] = allocated;
+			}
+		}
+
+		assertTrue(sink > 0.0);
+		// Reading the counter itself may allocate a few bytes, so allow less than one byte per call
+		assertTrue("Cost kernels allocated " + min(trials) + " bytes over " + calls + " calls, budget "
+				+ budgetBytes + " bytes per call", min(trials) / calls <= budgetBytes);
+	}
+
+	
+	/**
+     * @brief Tests that randomized operator sessions driven through Menu keep their throughput budget.
+     */
+	@Test
+	public void testMenuLoadHarnessThroughput() throws Exception {
+		long budgetOperationsPerSecond = budget("perf.menu.ops.per.sec", 10);
+		MenuLoadHarness harness = new MenuLoadHarness(7L, 300, 500, 50, 20);
+
+		harness.run(1);
+		MenuLoadHarness.Report report = harness.run(1);
+
+		assertEquals(300, report.getOperations());
+		assertTrue("Menu sessions ran at " + (long) report.getOperationsPerSecond() + " operations/s, budget "
+				+ budgetOperationsPerSecond, report.getOperationsPerSecond() >= budgetOperationsPerSecond);
+	}
+
+
+	
+	/**
+     * @brief Tests that top-10 name completions over a 100k catalog stay within their latency budget.
+     */
+	@Test
+	public void testNameCompletionBudget() {
+		long budgetNanos = budget("perf.complete.ns", 20_000);
+		IngredientManagement management = new IngredientManagement(null, 0);
+		for (int i = 0; i < CATALOG_SIZE; i++) {
+			management.addIngredient(generator.ingredient(i), null);
+		}
+		String[] prefixes = new String[1_000];
+		for (int i = 0; i < prefixes.length; i++) {
+			String name = management.getIngredients().get((i * 97) % CATALOG_SIZE).getName();
+			prefixes[i] = name.substring(0, Math.min(name.length(), 3 + i % 4));
+		}
+
+		int completions = 10_000;
+		long[] trials = new long[TRIALS];
+		for (int trial = -3; trial < TRIALS; trial++) {
+			long start = System.nanoTime();
+			for (int i = 0; i < completions; i++) {
+				assertFalse(management.completeName(prefixes[i % prefixes.length], 10).isEmpty());
+			}
+			long elapsed = System.nanoTime() - start;
+			if (trial >= 0) {
+				trials[trial] = elapsed / completions;
+			}
+		}
+
+		assertTrue("Median completeName took " + median(trials) + " ns, budget " + budgetNanos + " ns",
+				median(trials) <= budgetNanos);
+	}
+
+
+	/**
+     * @brief Tests that spelling suggestions over a 1M-name catalog stay within their latency budget.
+     */
+	@Test
+	public void testFuzzySuggestionBudget() {
+		long budgetMicros = budget("perf.fuzzy.us", 10_000);
+		int catalog = 1_000_000;
+		FuzzyNameIndex<String> index = new FuzzyNameIndex<>();
+		for (int i = 0; i < catalog; i++) {
+			String name = generator.ingredient(i).getName();
+			index.add(name, name);
+		}
+		String[] typos = new String[200];
+		for (int i = 0; i < typos.length; i++) {
+			char[] name = generator.ingredient((int) ((i * 7919L) % catalog)).getName().toCharArray();
+			// Swap two neighbouring characters, one of the commonest typing errors
+			int at = i % (name.length - 1);
+			char c = name[at];
+			name[at] = name[at + 1];
+			name[at + 1] = c;
+			typos[i] = new String(name);
+		}
+
+		long[] trials = new long[TRIALS];
+		for (int trial = -2; trial < TRIALS; trial++) {
+			long start = System.nanoTime();
+			for (String typo : typos) {
+				assertFalse(index.suggest(typo, 3).isEmpty());
+			}
+			long elapsed = System.nanoTime() - start;
+			if (trial >= 0) {
+				trials[trial] = elapsed / typos.length / 1_000;
+			}
+		}
+
+		assertTrue("Median suggest took " + median(trials) + " us, budget " + budgetMicros + " us",
+				median(trials) <= budgetMicros);
+	}
+
+
+
+	/**
+     * @brief Tests that top-K price queries over a 1M-ingredient catalog stay within their latency budget.
+     */
+	@Test
+	public void testPriceQueryBudget() {
+		long budgetNanos = budget("perf.price.ns", 20_000);
+		int catalog = 1_000_000;
+		IngredientManagement management = new IngredientManagement(null, 0);
+		for (int i = 0; i < catalog; i++) {
+			management.addIngredient(generator.ingredient(i), "unused");
+		}
+		assertEquals(10, management.mostExpensive(10).size());
+
+		long[] trials = new long[TRIALS];
+		for (int trial = -2; trial < TRIALS; trial++) {
+			long start = System.nanoTime();
+			for (int i = 0; i < 1_000; i++) {
+				assertEquals(10, (i % 2 == 0 ? management.mostExpensive(10) : management.cheapest(10)).size());
+			}
+			long elapsed = System.nanoTime() - start;
+			if (trial >= 0) {
+				trials[trial] = elapsed / 1_000;
+			}
+		}
+
+		assertTrue("Median price query took " + median(trials) + " ns, budget " + budgetNanos + " ns",
+				median(trials) <= budgetNanos);
+	}
+
+
+
+	/**
+     * @brief Tests that ranking the ten cheapest of 1M recipes stays within its latency budget in both modes.
+     */
+	@Test
+	public void testCostRankingBudget() throws Exception {
+		long budgetMillis = budget("perf.rank.ms", 250);
+		int catalog = 1_000_000;
+		// Stamp a standalone image against a placeholder source so open maps it as is
+		File source = new File(DIRECTORY, "ranking.bin");
+		Files.write(source.toPath(), new byte[] { 1 });
+		try (GuestDataImage.Writer writer = new GuestDataImage.Writer(
+				new File(source.getPath() + GuestDataImage.SUFFIX), GuestDataImage.Kind.RECIPES)) {
+			for (int i = 0; i < catalog; i++) {
+				Ingredient ingredient = generator.ingredient(i);
+				writer.addRecipe(new Recipe("Recipe-" + i, Arrays.asList(ingredient), ingredient.getPrice() * 1.5));
+			}
+			writer.setSource(source);
+		}
+		GuestDataImage image = GuestDataImage.open(source.getPath(), GuestDataImage.Kind.RECIPES);
+		assertEquals(catalog, image.size());
+
+		int[] expected = CostRanking.rank(image, 10, CostRanking.Order.CHEAPEST, null, false);
+		assertArrayEquals(expected, CostRanking.rank(image, 10, CostRanking.Order.CHEAPEST, null, true));
+		for (boolean parallel : new boolean[] { false, true }) {
+			long[] trials = new long[TRIALS];
+			for (int trial = -2; trial < TRIALS; trial++) {
+				long start = System.nanoTime();
+				CostRanking.rank(image, 10, CostRanking.Order.CHEAPEST, null, parallel);
+				long elapsed = System.nanoTime() - start;
+				if (trial >= 0) {
+					trials[trial] = elapsed / 1_000_000;
+				}
+			}
+			assertTrue("Median " + (parallel ? "parallel" : "sequential") + " ranking took " + median(trials)
+					+ " ms, budget " + budgetMillis + " ms", median(trials) <= budgetMillis);
+		}
+	}
+
+
+
+	/**
+     * @brief Tests that composing a meal from a 50k-recipe catalog stays within its interactive budget.
+     */
+	@Test
+	public void testMealOptimizerBudget() {
+		long budgetMillis = budget("perf.optimize.ms", 1_000);
+		List<Recipe> catalog = new ArrayList<>();
+		for (int i = 0; i < 50_000; i++) {
+			catalog.add(generator.recipe(i));
+		}
+
+		long[] trials = new long[TRIALS];
+		for (int trial = -2; trial < TRIALS; trial++) {
+			MealOptimizer optimizer = new MealOptimizer(3_000);
+			optimizer.requireCourse("soup");
+			optimizer.requireCourse("dessert");
+			long start = System.nanoTime();
+			MealOptimizer.Result result = optimizer.optimize(catalog);
+			long elapsed = System.nanoTime() - start;
+			assertNotNull(result);
+			assertTrue(result.getTotalCost() <= 3_000);
+			if (trial >= 0) {
+				trials[trial] = elapsed / 1_000_000;
+			}
+		}
+
+		assertTrue("Median meal optimization took " + median(trials) + " ms, budget " + budgetMillis + " ms",
+				median(trials) <= budgetMillis);
+	}
+
+
+	/**
+     * @brief Tests that planning a month from a 10k-meal catalog stays within its interactive budget.
+     */
+	@Test
+	public void testMealPlannerBudget() {
+		long budgetMillis = budget("perf.plan.ms", 3_000);
+		List<Meal> catalog = new ArrayList<>();
+		for (int i = 0; i < 10_000; i++) {
+			catalog.add(generator.meal(i));
+		}
+
+		long[] trials = new long[TRIALS];
+		for (int trial = -2; trial < TRIALS; trial++) {
+			MealPlanner planner = new MealPlanner(30, 30_000);
+			long start = System.nanoTime();
+			MealPlanner.Plan plan = planner.plan(catalog);
+			long elapsed = System.nanoTime() - start;
+			assertEquals(30, plan.getMeals().size());
+			assertEquals(0, plan.getRepeats());
+			if (trial >= 0) {
+				trials[trial] = elapsed / 1_000_000;
+			}
+		}
+
+		assertTrue("Median meal planning took " + median(trials) + " ms, budget " + budgetMillis + " ms",
+				median(trials) <= budgetMillis);
+	}
+
+
+	/**
+     * @brief Tests that costing and producing 100k orders of a 10k-meal catalog stays within its budget.
+     */
+	@Test
+	public void testServingScalerBudget() {
+		long budgetMillis = budget("perf.scale.ms", 100);
+		List<Meal> catalog = new ArrayList<>();
+		for (int i = 0; i < 10_000; i++) {
+			catalog.add(generator.meal(i));
+		}
+		ServingScaler scaler = new ServingScaler(catalog);
+		int[] meals = new int[100_000];
+		int[] covers = new int[meals.length];
+		for (int i = 0; i < meals.length; i++) {
+			meals[i] = (int) ((i * 2_654_435_761L) % catalog.size());
+			covers[i] = 1 + i % 40;
+		}
+
+		long[] trials = new long[TRIALS];
+		for (int trial = -2; trial < TRIALS; trial++) {
+			long start = System.nanoTime();
+			double[] costs = scaler.cost(meals, covers);
+			ServingScaler.Production production = scaler.produce(meals, covers);
+			long elapsed = System.nanoTime() - start;
+			assertEquals(meals.length, costs.length);
+			assertEquals(meals.length, production.getOrders());
+			if (trial >= 0) {
+				trials[trial] = elapsed / 1_000_000;
+			}
+		}
+
+		assertTrue("Median order costing took " + median(trials) + " ms, budget " + budgetMillis + " ms",
+				median(trials) <= budgetMillis);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,228 @@
+/**
+ * Package containing JMH benchmarks for the Recipe Cost Calculator application.
+ */
+package com.turankanbur.calculator.benchmark;
+
+/**
+ * Provides an abstraction for file and directory pathnames.
+ */
+import java.io.File;
+
+/**
+ * Provides functionality for handling input/output (I/O) operations.
+ */
+import java.io.IOException;
+
+/**
+ * Provides file system utility methods.
+ */
+import java.nio.file.Files;
+
+/**
+ * Provides an implementation of the List interface backed by an array.
+ */
+import java.util.ArrayList;
+
+/**
+ * Provides utility methods for arrays, such as sorting and searching.
+ */
+import java.util.Arrays;
+
+/**
+ * Provides functionality for storing and manipulating collections of objects.
+ */
+import java.util.List;
+
+/**
+ * Provides a seeded pseudo-random number generator.
+ */
+import java.util.Random;
+
+/**
+ * Imports the application classes exercised by the benchmarks.
+ */
+import com.turankanbur.calculator.Ingredient;
+import com.turankanbur.calculator.IngredientManagement;
+import com.turankanbur.calculator.Meal;
+import com.turankanbur.calculator.MealManagement;
+import com.turankanbur.calculator.Recipe;
+import com.turankanbur.calculator.RecipeManagement;
+
+/**
+ * Builds deterministic in-memory catalogs and data files for the benchmarks.
+ * Every catalog is derived from a fixed seed so runs are comparable.
+ */
+public final class BenchmarkData {
+
+	/** Seed used for every generated catalog. */
+	public static final long SEED = 20240524L;
+
+	/** Number of ingredients used by each generated recipe. */
+	public static final int INGREDIENTS_PER_RECIPE = 8;
+
+	/** Number of recipes used by each generated meal. */
+	public static final int RECIPES_PER_MEAL = 3;
+
+	/** Prevents instantiation. */
+	private BenchmarkData() {
+	}
+
+	/**
+	 * Creates a catalog of uniquely named ingredients.
+	 *
+	 * @param count the number of ingredients
+	 * @return the ingredients
+	 */
+	public static List<Ingredient> ingredients(int count) {
+		Random random = new Random(SEED);
+		List<Ingredient> ingredients = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			ingredients.add(new Ingredient("ingredient-" + i, 1 + random.nextInt(100)));
+		}
+		return ingredients;
+	}
+
+	/**
+	 * Creates recipes that draw their ingredients from the given catalog.
+	 *
+	 * @param count       the number of recipes
+	 * @param ingredients the ingredient catalog
+	 * @return the recipes
+	 */
+	public static List<Recipe> recipes(int count, List<Ingredient> ingredients) {
+		Random random = new Random(SEED + 1);
+		List<Recipe> recipes = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			List<Ingredient> lines = new ArrayList<>(INGREDIENTS_PER_RECIPE);
+			double totalCost = 0.0;
+			for (int j = 0; j < INGREDIENTS_PER_RECIPE; j++) {
+				Ingredient ingredient = ingredients.get(random.nextInt(ingredients.size()));
+				lines.add(ingredient);
+				totalCost += ingredient.getPrice() * (1 + random.nextInt(5));
+			}
+			recipes.add(new Recipe("recipe-" + i, lines, totalCost));
+		}
+		return recipes;
+	}
+
+	/**
+	 * Creates meals that draw their recipes from the given catalog.
+	 *
+	 * @param count   the number of meals
+	 * @param recipes the recipe catalog
+	 * @return the meals
+	 */
+	public static List<Meal> meals(int count, List<Recipe> recipes) {
+		Random random = new Random(SEED + 2);
+		List<Meal> meals = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			List<Recipe> selected = new ArrayList<>(RECIPES_PER_MEAL);
+			for (int j = 0; j < RECIPES_PER_MEAL; j++) {
+				selected.add(recipes.get(random.nextInt(recipes.size())));
+			}
+			meals.add(new Meal("meal-" + i, selected));
+		}
+		return meals;
+	}
+
+	/**
+	 * Draws indices in [0, n) whose popularity follows a Zipf distribution, so a few
+	 * low indices are requested far more often than the rest.
+	 *
+	 * @param n        the number of distinct indices
+	 * @param count    the number of indices to draw
+	 * @param exponent the Zipf exponent (1.0 is the classic distribution)
+	 * @param seed     the random seed
+	 * @return the drawn indices
+	 */
+	public static int[] zipfIndices(int n, int count, double exponent, long seed) {
+		double[] cumulative = new double[n];
+		double sum = 0.0;
+		for (int i = 0; i < n; i++) {
+			sum += 1.0 / Math.pow(i + 1, exponent);
+			cumulative[i] = sum;
+		}
+
+		Random random = new Random(seed);
+		int[] indices = new int[count];
+		for (int i = 0; i < count; i++) {
+			int found = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+			indices[i] = Math.min(n - 1, found >= 0 ? found : -found - 1);
+		}
+		return indices;
+	}
+
+	/**
+	 * Draws indices in [0, n) with uniform popularity.
+	 *
+	 * @param n     the number of distinct indices
+	 * @param count the number of indices to draw
+	 * @param seed  the random seed
+	 * @return the drawn indices
+	 */
+	public static int[] uniformIndices(int n, int count, long seed) {
+		Random random = new Random(seed);
+		int[] indices = new int[count];
+		for (int i = 0; i < count; i++) {
+			indices[i] = random.nextInt(n);
+		}
+		return indices;
+	}
+
+	/**
+	 * Writes an ingredients file with the application's own save path.
+	 *
+	 * @param ingredients the ingredients to write
+	 * @param file        the file to write
+	 */
+	public static void writeIngredients(List<Ingredient> ingredients, File file) {
+		IngredientManagement management = new IngredientManagement("null", 0);
+		management.setIngredient(ingredients);
+		management.saveToFile(file.getPath());
+	}
+
+	/**
+	 * Writes a recipes file with the application's own save path.
+	 *
+	 * @param recipes the recipes to write
+	 * @param file    the file to write
+	 */
+	public static void writeRecipes(List<Recipe> recipes, File file) {
+		RecipeManagement.saveToFile(recipes, file.getPath());
+	}
+
+	/**
+	 * Writes a meals file with the application's own save path.
+	 *
+	 * @param meals the meals to write
+	 * @param file  the file to write
+	 */
+	public static void writeMeals(List<Meal> meals, File file) {
+		new MealManagement().saveMealsToFile(meals, file.getPath());
+	}
+
+	/**
+	 * Creates a temporary working directory for benchmark data files.
+	 *
+	 * @return the directory
+	 * @throws IOException if the directory cannot be created
+	 */
+	public static File tempDirectory() throws IOException {
+		return Files.createTempDirectory("recipe-benchmark").toFile();
+	}
+
+	/**
+	 * Deletes a directory created by tempDirectory and the files in it.
+	 *
+	 * @param directory the directory to delete
+	 */
+	public static void delete(File directory) {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+}
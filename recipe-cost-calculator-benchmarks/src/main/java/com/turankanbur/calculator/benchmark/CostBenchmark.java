@@ -0,0 +1,165 @@
+/**
+ * Package containing JMH benchmarks for the Recipe Cost Calculator application.
+ */
+package com.turankanbur.calculator.benchmark;
+
+/**
+ * Provides functionality for storing and manipulating collections of objects.
+ */
+import java.util.List;
+
+/**
+ * Provides an implementation of the List interface backed by an array.
+ */
+import java.util.ArrayList;
+
+/**
+ * Provides a seeded pseudo-random number generator.
+ */
+import java.util.Random;
+
+/**
+ * Provides units of time used to report results.
+ */
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports the JMH annotations used to declare the benchmarks.
+ */
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Imports the application classes exercised by the benchmarks.
+ */
+import com.turankanbur.calculator.Ingredient;
+import com.turankanbur.calculator.Meal;
+import com.turankanbur.calculator.Recipe;
+import com.turankanbur.calculator.RecipeManagement;
+import com.turankanbur.calculator.Unit;
+
+/**
+ * Measures the cost computation hot paths: the per-ingredient accumulation used
+ * by Menu.CreateRecipe (RecipeManagement.calculateTotalCost), with and without
+ * unit conversion, and Meal.calculateTotalCost, reached through the Meal
+ * constructor.
+ *
+ * Run with: java -jar target/benchmarks.jar CostBenchmark -prof gc
+ */
+@BenchmarkMode({ Mode.AverageTime, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CostBenchmark {
+
+	/**
+	 * Ingredient lines of a single recipe.
+	 */
+	@State(Scope.Benchmark)
+	public static class RecipeLines {
+
+		/** Number of ingredient lines in the recipe. */
+		@Param({ "4", "16", "64" })
+		public int lines;
+
+		/** The selected ingredients. */
+		List<Ingredient> ingredients;
+
+		/** The quantity of each selected ingredient. */
+		int[] quantities;
+
+		/** The selected ingredients, priced per kilogram. */
+		List<Ingredient> perKilogram;
+
+		/** The unit of each quantity of the per-kilogram ingredients. */
+		Unit[] units;
+
+		/**
+		 * Builds the recipe lines once per trial.
+		 */
+		@Setup(Level.Trial)
+		public void setUp() {
+			ingredients = BenchmarkData.ingredients(lines);
+			Random random = new Random(BenchmarkData.SEED);
+			quantities = new int[lines];
+			for (int i = 0; i < lines; i++) {
+				quantities[i] = 1 + random.nextInt(5);
+			}
+			perKilogram = new ArrayList<>(lines);
+			units = new Unit[lines];
+			Unit[] measures = { Unit.GRAM, Unit.KILOGRAM, Unit.OUNCE, Unit.POUND };
+			for (int i = 0; i < lines; i++) {
+				Ingredient ingredient = ingredients.get(i);
+				perKilogram.add(new Ingredient(ingredient.getName(), ingredient.getPrice(), Unit.KILOGRAM));
+				units[i] = measures[random.nextInt(measures.length)];
+			}
+		}
+	}
+
+	/**
+	 * Recipes combined into a single meal.
+	 */
+	@State(Scope.Benchmark)
+	public static class MealRecipes {
+
+		/** Number of recipes in the meal. */
+		@Param({ "3", "30", "300" })
+		public int recipes;
+
+		/** The selected recipes. */
+		List<Recipe> selected;
+
+		/**
+		 * Builds the meal recipes once per trial.
+		 */
+		@Setup(Level.Trial)
+		public void setUp() {
+			selected = BenchmarkData.recipes(recipes, BenchmarkData.ingredients(1000));
+		}
+	}
+
+	/**
+	 * Measures the per-ingredient cost accumulation of Menu.CreateRecipe.
+	 *
+	 * @param state the recipe lines
+	 * @return the total cost, consumed by JMH
+	 */
+	@Benchmark
+	public double recipeTotalCost(RecipeLines state) {
+		return RecipeManagement.calculateTotalCost(state.ingredients, state.quantities);
+	}
+
+	/**
+	 * Measures the same accumulation with every quantity converted to the unit of
+	 * its ingredient price through the Unit conversion matrix.
+	 *
+	 * @param state the recipe lines
+	 * @return the total cost, consumed by JMH
+	 */
+	@Benchmark
+	public double recipeTotalCostWithUnits(RecipeLines state) {
+		return RecipeManagement.calculateTotalCost(state.perKilogram, state.quantities, state.units);
+	}
+
+	/**
+	 * Measures Meal.calculateTotalCost through the Meal constructor.
+	 *
+	 * @param state the meal recipes
+	 * @return the meal, consumed by JMH
+	 */
+	@Benchmark
+	public Meal mealTotalCost(MealRecipes state) {
+		return new Meal("meal", state.selected);
+	}
+}
@@ -0,0 +1,162 @@
+/**
+ * Package containing JMH benchmarks for the Recipe Cost Calculator application.
+ */
+package com.turankanbur.calculator.benchmark;
+
+/**
+ * Provides an abstraction for file and directory pathnames.
+ */
+import java.io.File;
+
+/**
+ * Provides functionality for handling input/output (I/O) operations.
+ */
+import java.io.IOException;
+
+/**
+ * Provides units of time used to report results.
+ */
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provides a thread-safe counter for cycling through the users.
+ */
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Imports the JMH annotations used to declare the benchmarks.
+ */
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Imports the application classes exercised by the benchmarks.
+ */
+import com.turankanbur.calculator.CredentialStore;
+
+/**
+ * Measures CredentialStore login throughput against the PBKDF2 work factor,
+ * with one thread and with four concurrent logins sharing the credential file,
+ * to size the work factor for a shared workstation pool. Login cost is
+ * dominated by the hash, so throughput is roughly inversely proportional to
+ * the iteration count; the indexed lookup itself stays constant.
+ *
+ * Run with: java -jar target/benchmarks.jar LoginBenchmark -p iterations=100000,600000
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class LoginBenchmark {
+
+	/** PBKDF2 iteration count of the stored hashes. */
+	@Param({ "10000", "100000", "310000", "600000" })
+	public int iterations;
+
+	/** Number of registered users. */
+	@Param({ "16" })
+	public int users;
+
+	/** Working directory holding the credential file. */
+	private File directory;
+
+	/** The credential store under test. */
+	private CredentialStore store;
+
+	/** Counter used to cycle through the users. */
+	private final AtomicInteger next = new AtomicInteger();
+
+	/**
+	 * Registers the users once per trial.
+	 *
+	 * @throws IOException if the credential file cannot be written
+	 */
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		directory = BenchmarkData.tempDirectory();
+		store = new CredentialStore(new File(directory, "register.bin").getPath(), iterations);
+		for (int i = 0; i < users; i++) {
+			store.register(username(i), password(i));
+		}
+	}
+
+	/**
+	 * Removes the credential file after the trial.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		BenchmarkData.delete(directory);
+	}
+
+	/**
+	 * Measures a successful login on one thread.
+	 *
+	 * @return the login result, consumed by JMH
+	 * @throws IOException if the credential file cannot be read
+	 */
+	@Benchmark
+	public boolean login() throws IOException {
+		int user = Math.floorMod(next.getAndIncrement(), users);
+		return store.authenticate(username(user), password(user));
+	}
+
+	/**
+	 * Measures successful logins of four workstations sharing the credential
+	 * file.
+	 *
+	 * @return the login result, consumed by JMH
+	 * @throws IOException if the credential file cannot be read
+	 */
+	@Benchmark
+	@Threads(4)
+	public boolean concurrentLogin() throws IOException {
+		int user = Math.floorMod(next.getAndIncrement(), users);
+		return store.authenticate(username(user), password(user));
+	}
+
+	/**
+	 * Measures the rejection of an unknown user, which hashes a dummy password so
+	 * it takes as long as a wrong password.
+	 *
+	 * @return the login result, consumed by JMH
+	 * @throws IOException if the credential file cannot be read
+	 */
+	@Benchmark
+	public boolean unknownUser() throws IOException {
+		return store.authenticate("nobody", password(0));
+	}
+
+	/**
+	 * Builds the name of a benchmark user.
+	 *
+	 * @param i the user number
+	 * @return the username
+	 */
+	private static String username(int i) {
+		return "user" + i;
+	}
+
+	/**
+	 * Builds the password of a benchmark user.
+	 *
+	 * @param i the user number
+	 * @return the password
+	 */
+	private static char[] password(int i) {
+		return ("password-" + i).toCharArray();
+	}
+}
@@ -0,0 +1,148 @@
+/**
+ * Package containing JMH benchmarks for the Recipe Cost Calculator application.
+ */
+package com.turankanbur.calculator.benchmark;
+
+/**
+ * Provides an output stream that discards everything written to it.
+ */
+import java.io.OutputStream;
+
+/**
+ * Provides a stream to print formatted representations of objects.
+ */
+import java.io.PrintStream;
+
+/**
+ * Provides functionality for storing and manipulating collections of objects.
+ */
+import java.util.List;
+
+/**
+ * Provides units of time used to report results.
+ */
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports the JMH annotations used to declare the benchmarks.
+ */
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Imports the application classes exercised by the benchmarks.
+ */
+import com.turankanbur.calculator.Ingredient;
+import com.turankanbur.calculator.IngredientManagement;
+
+/**
+ * Measures IngredientManagement.findIngredientByName and editIngredientPrice
+ * across catalog sizes and name distributions:
+ * UNIFORM requests every name equally often, ZIPF concentrates requests on a few
+ * popular names, and MISSING requests names that are not in the catalog.
+ *
+ * Run with: java -jar target/benchmarks.jar LookupBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.AverageTime, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LookupBenchmark {
+
+	/** Number of distinct names requested per trial; a power of two. */
+	private static final int QUERIES = 4096;
+
+	/** Number of ingredients in the catalog. */
+	@Param({ "1000", "100000", "1000000" })
+	public int catalogSize;
+
+	/** Distribution of requested names. */
+	@Param({ "UNIFORM", "ZIPF", "MISSING" })
+	public String distribution;
+
+	/** The catalog under test. */
+	private IngredientManagement management;
+
+	/** Names requested in round-robin order. */
+	private String[] queries;
+
+	/** Position of the next query. */
+	private int next;
+
+	/** Standard output, restored after the trial. */
+	private PrintStream originalOut;
+
+	/**
+	 * Builds the catalog and the query names once per trial.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		List<Ingredient> ingredients = BenchmarkData.ingredients(catalogSize);
+		management = new IngredientManagement("null", 0);
+		management.setIngredient(ingredients);
+
+		int[] indices;
+		if ("ZIPF".equals(distribution)) {
+			indices = BenchmarkData.zipfIndices(catalogSize, QUERIES, 1.0, BenchmarkData.SEED);
+		} else {
+			indices = BenchmarkData.uniformIndices(catalogSize, QUERIES, BenchmarkData.SEED);
+		}
+		queries = new String[QUERIES];
+		for (int i = 0; i < QUERIES; i++) {
+			String name = ingredients.get(indices[i]).getName();
+			queries[i] = "MISSING".equals(distribution) ? name + "-missing" : name;
+		}
+
+		// editIngredientPrice reports on the console; keep that out of the measurement
+		originalOut = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+	}
+
+	/**
+	 * Restores standard output after the trial.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		System.setOut(originalOut);
+	}
+
+	/**
+	 * Returns the next query name.
+	 *
+	 * @return the name to request
+	 */
+	private String nextQuery() {
+		return queries[next++ & (QUERIES - 1)];
+	}
+
+	/**
+	 * Measures IngredientManagement.findIngredientByName.
+	 *
+	 * @return the found ingredient, consumed by JMH
+	 */
+	@Benchmark
+	public Ingredient findIngredientByName() {
+		return management.findIngredientByName(nextQuery());
+	}
+
+	/**
+	 * Measures IngredientManagement.editIngredientPrice.
+	 */
+	@Benchmark
+	public void editIngredientPrice() {
+		management.editIngredientPrice(nextQuery(), next & 127);
+	}
+}
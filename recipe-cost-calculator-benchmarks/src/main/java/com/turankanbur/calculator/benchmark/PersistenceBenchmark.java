@@ -0,0 +1,189 @@
+/**
+ * Package containing JMH benchmarks for the Recipe Cost Calculator application.
+ */
+package com.turankanbur.calculator.benchmark;
+
+/**
+ * Provides an abstraction for file and directory pathnames.
+ */
+import java.io.File;
+
+/**
+ * Provides functionality for handling input/output (I/O) operations.
+ */
+import java.io.IOException;
+
+/**
+ * Provides functionality for storing and manipulating collections of objects.
+ */
+import java.util.List;
+
+/**
+ * Provides units of time used to report results.
+ */
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports the JMH annotations used to declare the benchmarks.
+ */
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Imports the application classes exercised by the benchmarks.
+ */
+import com.turankanbur.calculator.Ingredient;
+import com.turankanbur.calculator.IngredientManagement;
+import com.turankanbur.calculator.Meal;
+import com.turankanbur.calculator.MealManagement;
+import com.turankanbur.calculator.Recipe;
+import com.turankanbur.calculator.RecipeManagement;
+
+/**
+ * Measures the load and save paths of the ingredient, recipe and meal data files
+ * at 1k, 100k and 1M records. Each benchmark reports throughput and sampled
+ * latency (with p50/p90/p99/p99.9 percentiles); add "-prof gc" on the command line
+ * to also report the allocation rate.
+ *
+ * Run with: java -jar target/benchmarks.jar PersistenceBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class PersistenceBenchmark {
+
+	/** Number of records in each data file. */
+	@Param({ "1000", "100000", "1000000" })
+	public int records;
+
+	/** Working directory holding the data files. */
+	private File directory;
+
+	/** Pre-written ingredients file read by the load benchmarks. */
+	private File ingredientsFile;
+
+	/** Pre-written recipes file read by the load benchmarks. */
+	private File recipesFile;
+
+	/** Pre-written meals file read by the load benchmarks. */
+	private File mealsFile;
+
+	/** Target file overwritten by the save benchmarks. */
+	private File saveFile;
+
+	/** In-memory ingredient catalog written by the save benchmark. */
+	private IngredientManagement ingredientManagement;
+
+	/** In-memory recipe catalog written by the save benchmark. */
+	private List<Recipe> recipes;
+
+	/** In-memory meal catalog written by the save benchmark. */
+	private List<Meal> meals;
+
+	/** Meal manager used by the meal benchmarks. */
+	private MealManagement mealManagement;
+
+	/**
+	 * Builds the catalogs and writes the data files once per trial.
+	 *
+	 * @throws IOException if the working directory cannot be created
+	 */
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		directory = BenchmarkData.tempDirectory();
+		ingredientsFile = new File(directory, "ingredients.bin");
+		recipesFile = new File(directory, "recipes.bin");
+		mealsFile = new File(directory, "meals.bin");
+		saveFile = new File(directory, "save.bin");
+
+		List<Ingredient> ingredients = BenchmarkData.ingredients(records);
+		recipes = BenchmarkData.recipes(records, ingredients);
+		meals = BenchmarkData.meals(records, recipes);
+
+		ingredientManagement = new IngredientManagement("null", 0);
+		ingredientManagement.setIngredient(ingredients);
+		mealManagement = new MealManagement();
+
+		BenchmarkData.writeIngredients(ingredients, ingredientsFile);
+		BenchmarkData.writeRecipes(recipes, recipesFile);
+		BenchmarkData.writeMeals(meals, mealsFile);
+	}
+
+	/**
+	 * Removes the data files after the trial.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		BenchmarkData.delete(directory);
+	}
+
+	/**
+	 * Measures IngredientManagement.loadFromFile.
+	 *
+	 * @return the loaded catalog, consumed by JMH
+	 */
+	@Benchmark
+	public IngredientManagement loadIngredients() {
+		IngredientManagement management = new IngredientManagement("null", 0);
+		management.loadFromFile(ingredientsFile.getPath());
+		return management;
+	}
+
+	/**
+	 * Measures IngredientManagement.saveToFile.
+	 */
+	@Benchmark
+	public void saveIngredients() {
+		ingredientManagement.saveToFile(saveFile.getPath());
+	}
+
+	/**
+	 * Measures RecipeManagement.loadFromFile.
+	 *
+	 * @return the loaded recipes, consumed by JMH
+	 */
+	@Benchmark
+	public List<Recipe> loadRecipes() {
+		return RecipeManagement.loadFromFile(recipesFile.getPath());
+	}
+
+	/**
+	 * Measures RecipeManagement.saveToFile.
+	 */
+	@Benchmark
+	public void saveRecipes() {
+		RecipeManagement.saveToFile(recipes, saveFile.getPath());
+	}
+
+	/**
+	 * Measures MealManagement.loadMealsFromFile.
+	 *
+	 * @return the loaded meals, consumed by JMH
+	 */
+	@Benchmark
+	public List<Meal> loadMeals() {
+		return mealManagement.loadMealsFromFile(mealsFile.getPath());
+	}
+
+	/**
+	 * Measures MealManagement.saveMealsToFile.
+	 */
+	@Benchmark
+	public void saveMeals() {
+		mealManagement.saveMealsToFile(meals, saveFile.getPath());
+	}
+}
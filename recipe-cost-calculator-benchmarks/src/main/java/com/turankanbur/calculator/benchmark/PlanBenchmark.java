@@ -0,0 +1,112 @@
+/**
+ * Package containing JMH benchmarks for the Recipe Cost Calculator application.
+ */
+package com.turankanbur.calculator.benchmark;
+
+/**
+ * Provides functionality for storing and manipulating collections of objects.
+ */
+import java.util.List;
+
+/**
+ * Provides units of time used to report results.
+ */
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports the JMH annotations used to declare the benchmarks.
+ */
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Imports the application classes exercised by the benchmarks.
+ */
+import com.turankanbur.calculator.Meal;
+import com.turankanbur.calculator.MealPlanner;
+
+/**
+ * Measures the time-to-solution of MealPlanner as the meal catalog grows, for a
+ * week and a month of meals at a tight and a comfortable daily budget. Each plan
+ * runs the planner's parallel restarts, so the result also shows how well the
+ * restarts use the available cores.
+ *
+ * The quality of the plans is printed at the end of every trial: the purchase
+ * cost, the number of different recipes served and whether the plan keeps the
+ * variety rule and the budget.
+ *
+ * Run with: java -jar target/benchmarks.jar PlanBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PlanBenchmark {
+
+	/** Number of meals in the catalog. */
+	@Param({ "100", "1000", "10000" })
+	public int catalogSize;
+
+	/** Number of days planned. */
+	@Param({ "7", "30" })
+	public int days;
+
+	/** Budget of each day planned. */
+	@Param({ "500", "1000" })
+	public double dailyBudget;
+
+	/** The meal catalog. */
+	private List<Meal> meals;
+
+	/** The planner. */
+	private MealPlanner planner;
+
+	/** The last plan, kept for the quality report. */
+	private MealPlanner.Plan last;
+
+	/**
+	 * Builds the meal catalog once per trial.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		meals = BenchmarkData.meals(catalogSize, BenchmarkData.recipes(catalogSize, BenchmarkData.ingredients(1000)));
+		planner = new MealPlanner(days, dailyBudget * days);
+	}
+
+	/**
+	 * Reports the quality of the last plan of the trial.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		if (last != null) {
+			System.out.println();
+			System.out.println("Plan quality: purchase cost " + last.getPurchaseCost() + "$, "
+					+ last.getDistinctRecipes() + " different recipes, " + last.getRepeats() + " repeats, "
+					+ (last.isFeasible() ? "feasible" : "infeasible"));
+		}
+	}
+
+	/**
+	 * Measures planning the catalog from scratch.
+	 *
+	 * @return the plan, consumed by JMH
+	 */
+	@Benchmark
+	public MealPlanner.Plan plan() {
+		last = planner.plan(meals);
+		return last;
+	}
+}